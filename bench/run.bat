@@ -0,0 +1,42 @@
+@echo off
+REM ========================================
+REM BankApp Benchmark and Harness Runner
+REM ========================================
+REM Usage: bench\run.bat <ClassName> [args...]
+REM   e.g. bench\run.bat CrashRecoveryHarness
+REM Extra JVM options can be passed in JAVA_OPTS.
+
+setlocal enabledelayedexpansion
+
+if "%~1"=="" (
+    echo Usage: %~nx0 ^<ClassName^> [args...]
+    exit /b 2
+)
+
+REM %~dp0 is the directory of the batch file itself
+set "PROJECT_DIR=%~dp0.."
+set "OUT_DIR=%PROJECT_DIR%\bench\classes"
+set "WORK_DIR=%PROJECT_DIR%\bench\work"
+
+REM Compile the application together with the benchmarks (kept apart from bin\)
+if exist "%OUT_DIR%" rmdir /s /q "%OUT_DIR%"
+mkdir "%OUT_DIR%"
+if not exist "%WORK_DIR%" mkdir "%WORK_DIR%"
+dir /s /b "%PROJECT_DIR%\src\*.java" "%PROJECT_DIR%\bench\src\*.java" > "%OUT_DIR%\sources.txt"
+javac --release 21 -d "%OUT_DIR%" @"%OUT_DIR%\sources.txt"
+if %ERRORLEVEL% NEQ 0 exit /b 1
+
+REM Harnesses create their data directories under bench\work
+set "CLASS=%~1"
+shift
+set "ARGS="
+:collect
+if "%~1"=="" goto run
+set "ARGS=!ARGS! %1"
+shift
+goto collect
+
+:run
+cd /d "%WORK_DIR%"
+java %JAVA_OPTS% -cp "%OUT_DIR%" com.bankapp.bench.%CLASS% !ARGS!
+exit /b %ERRORLEVEL%
@@ -0,0 +1,29 @@
+#!/bin/bash
+# ========================================
+# BankApp Benchmark and Harness Runner
+# ========================================
+# Usage: bench/run.sh <ClassName> [args...]
+#   e.g. bench/run.sh CrashRecoveryHarness
+#        bench/run.sh DurabilityBenchmark 20000
+# Extra JVM options can be passed in JAVA_OPTS.
+
+if [ $# -lt 1 ]; then
+    echo "Usage: $0 <ClassName> [args...]"
+    exit 2
+fi
+
+PROJECT_DIR="$(cd "$(dirname "$0")/.." && pwd)"
+OUT_DIR="$PROJECT_DIR/bench/classes"
+WORK_DIR="$PROJECT_DIR/bench/work"
+
+# Compile the application together with the benchmarks (kept apart from bin/)
+rm -rf "$OUT_DIR"
+mkdir -p "$OUT_DIR" "$WORK_DIR"
+javac --release 21 -d "$OUT_DIR" \
+    $(find "$PROJECT_DIR/src" "$PROJECT_DIR/bench/src" -name '*.java') || exit 1
+
+# Harnesses create their data directories under bench/work
+CLASS="$1"
+shift
+cd "$WORK_DIR"
+java $JAVA_OPTS -cp "$OUT_DIR" "com.bankapp.bench.$CLASS" "$@"
@@ -0,0 +1,149 @@
+package com.bankapp.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Callable;
+
+/**
+ * BenchSupport - Helpers shared by the harnesses and benchmarks: scratch directories,
+ * silencing the application's console output, latency percentiles and reporting failed checks.
+ */
+final class BenchSupport {
+    private static int failures;
+
+    private BenchSupport() {
+    }
+
+    /**
+     * Creates an empty directory under the working directory, removing an older one of the same name.
+     *
+     * @param name Directory name
+     * @return The empty directory
+     * @throws IOException if the old directory cannot be removed
+     */
+    static File freshDirectory(String name) throws IOException {
+        File directory = new File(name);
+        deleteRecursively(directory);
+        if (!directory.mkdirs()) {
+            throw new IOException("Cannot create " + directory.getAbsolutePath());
+        }
+        return directory;
+    }
+
+    /**
+     * Deletes a file or a directory tree; does nothing if it does not exist.
+     *
+     * @param file File or directory to delete
+     * @throws IOException if something cannot be deleted
+     */
+    static void deleteRecursively(File file) throws IOException {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                deleteRecursively(child);
+            }
+        }
+        if (file.exists() && !file.delete()) {
+            throw new IOException("Cannot delete " + file.getAbsolutePath());
+        }
+    }
+
+    /**
+     * Replaces the contents of a directory with a copy of the files of another one.
+     *
+     * @param from Directory to copy (flat, no subdirectories)
+     * @param to   Target directory, emptied first
+     * @throws IOException if copying fails
+     */
+    static void copyDirectory(File from, File to) throws IOException {
+        deleteRecursively(to);
+        if (!to.mkdirs()) {
+            throw new IOException("Cannot create " + to.getAbsolutePath());
+        }
+        File[] files = from.listFiles();
+        if (files == null) {
+            throw new IOException("Cannot list " + from.getAbsolutePath());
+        }
+        for (File file : files) {
+            Files.copy(file.toPath(), new File(to, file.getName()).toPath(), StandardCopyOption.COPY_ATTRIBUTES);
+        }
+    }
+
+    /**
+     * Finds the journal segment currently being appended to.
+     *
+     * @param directory Data directory of a BankStore
+     * @return The segment with the highest number
+     * @throws IOException if the directory holds no segment
+     */
+    static File latestSegment(File directory) throws IOException {
+        File[] segments = directory.listFiles((dir, name) -> name.startsWith("journal-") && name.endsWith(".log"));
+        if (segments == null || segments.length == 0) {
+            throw new IOException("No journal segment in " + directory.getAbsolutePath());
+        }
+        File latest = segments[0];
+        for (File segment : segments) {
+            if (segment.getName().compareTo(latest.getName()) > 0) {
+                latest = segment;
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * Runs a task with System.out discarded, so the application's log lines do not flood the report.
+     *
+     * @param task Task to run
+     * @return The task's result
+     * @throws Exception whatever the task throws
+     */
+    static <T> T quietly(Callable<T> task) throws Exception {
+        PrintStream out = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        try {
+            return task.call();
+        } finally {
+            System.setOut(out);
+        }
+    }
+
+    /**
+     * Gets a percentile of sorted latencies.
+     *
+     * @param sortedNanos Latencies in nanoseconds, sorted ascending
+     * @param percentile  Percentile, e.g. 99
+     * @return The latency in milliseconds
+     */
+    static double percentileMillis(long[] sortedNanos, double percentile) {
+        if (sortedNanos.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sortedNanos.length - 1, (long) (sortedNanos.length * percentile / 100));
+        return sortedNanos[index] / 1e6;
+    }
+
+    /**
+     * Prints the outcome of a check and remembers failures for {@link #exit()}.
+     *
+     * @param description What was checked
+     * @param passed      Whether the check held
+     */
+    static void check(String description, boolean passed) {
+        System.out.println((passed ? "PASS " : "FAIL ") + description);
+        if (!passed) {
+            failures++;
+        }
+    }
+
+    /**
+     * Ends the program with status 1 if any check failed, 0 otherwise.
+     */
+    static void exit() {
+        System.out.println(failures == 0 ? "All checks passed" : failures + " check(s) failed");
+        System.exit(failures == 0 ? 0 : 1);
+    }
+}
@@ -0,0 +1,173 @@
+package com.bankapp.bench;
+
+import com.bankapp.data.BankCodec;
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.services.AccountService;
+import com.bankapp.services.TransactionService;
+import com.bankapp.utils.PasswordHasher;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * CodecBenchmark - Compares the binary snapshot format (BankCodec) with Java serialization
+ * (ObjectOutputStream, the format of the legacy bank_data.dat) on the same bank.
+ *
+ * The bank has one checking account per user and a seeded deposit/withdraw/transfer mix
+ * spread over the accounts. Each format is saved to a file and fsynced, then loaded back,
+ * once to warm up and then for the measured rounds; the table shows the file size and the
+ * range of the save and load times. Every loaded bank must equal the one that was saved.
+ *
+ * Usage: CodecBenchmark [users=10000] [transactions=1000000] [rounds=3]
+ * Exits with status 1 if a format loads a different bank. 1M transactions need about 2 GB of heap.
+ */
+public final class CodecBenchmark {
+
+    private CodecBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int transactions = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        Bank bank = BenchSupport.quietly(() -> buildBank(users, transactions)); // Rejected withdrawals print errors
+        String expected = describe(bank);
+        File directory = BenchSupport.freshDirectory("codec-bench");
+        System.out.printf("%,d users, %,d transactions%n", users, countTransactions(bank));
+        System.out.printf("%-20s %10s %16s %16s%n", "format", "size MB", "save s", "load s");
+        run("ObjectOutputStream", new File(directory, "bank_data.dat"), bank, expected, rounds, new Format() {
+            @Override
+            public void save(Bank source, File file) throws Exception {
+                try (FileOutputStream out = new FileOutputStream(file);
+                     ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(out))) {
+                    oos.writeObject(source);
+                    oos.flush();
+                    out.getFD().sync();
+                }
+            }
+
+            @Override
+            public Bank load(File file) throws Exception {
+                return BankCodec.loadLegacy(file);
+            }
+        });
+        run("BankCodec", new File(directory, "bank_data.bin"), bank, expected, rounds, new Format() {
+            @Override
+            public void save(Bank source, File file) throws Exception {
+                BankCodec.save(source, file);
+            }
+
+            @Override
+            public Bank load(File file) throws Exception {
+                return BankCodec.load(file);
+            }
+        });
+        BenchSupport.deleteRecursively(directory);
+        BenchSupport.exit();
+    }
+
+    /**
+     * Saves and loads one format for a warm-up round and the measured rounds, prints its row
+     * and checks the last loaded bank.
+     */
+    private static void run(String name, File file, Bank bank, String expected, int rounds, Format format)
+            throws Exception {
+        double[] saves = new double[rounds];
+        double[] loads = new double[rounds];
+        Bank loaded = null;
+        for (int round = -1; round < rounds; round++) { // Round -1 warms up
+            long began = System.nanoTime();
+            format.save(bank, file);
+            long saved = System.nanoTime();
+            loaded = format.load(file);
+            long done = System.nanoTime();
+            if (round >= 0) {
+                saves[round] = (saved - began) / 1e9;
+                loads[round] = (done - saved) / 1e9;
+            }
+        }
+        System.out.printf("%-20s %10.1f %16s %16s%n", name, file.length() / 1e6, range(saves), range(loads));
+        BenchSupport.check(name + ": loaded bank equals the saved bank", expected.equals(describe(loaded)));
+    }
+
+    private static Bank buildBank(int users, int transactions) {
+        Bank bank = new Bank();
+        String passwordHash = PasswordHasher.hashPassword("secret1");
+        List<User> created = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            created.add(new User("USR" + i, "user" + i, passwordHash, "Bench User " + i, "user" + i + "@bank.test"));
+        }
+        bank.addUsers(created);
+        AccountService accountService = new AccountService(bank);
+        String[] accounts = new String[users];
+        for (int i = 0; i < users; i++) {
+            accounts[i] = accountService.createCheckingAccount(created.get(i), 1000_00, 0).getAccountNumber();
+        }
+
+        TransactionService transactionService = new TransactionService(bank);
+        Random random = new Random(1);
+        long total = countTransactions(bank);
+        while (total < transactions) {
+            String account = accounts[random.nextInt(users)];
+            long amount = 1 + random.nextInt(5000);
+            switch (random.nextInt(3)) {
+                case 0:
+                    transactionService.deposit(account, amount, "Salary");
+                    total++;
+                    break;
+                case 1:
+                    if (transactionService.withdraw(account, amount, "ATM withdrawal")) {
+                        total++;
+                    }
+                    break;
+                default:
+                    if (transactionService.transfer(account, accounts[random.nextInt(users)], amount, "Rent")) {
+                        total += 2; // One record on each side
+                    }
+                    break;
+            }
+        }
+        return bank;
+    }
+
+    private static long countTransactions(Bank bank) {
+        long count = 0;
+        for (Account account : bank.getAllAccounts()) {
+            count += account.getTransactionCount();
+        }
+        return count;
+    }
+
+    private static String describe(Bank bank) {
+        List<Account> accounts = new ArrayList<>(bank.getAllAccounts());
+        accounts.sort(Comparator.comparing(Account::getAccountNumber));
+        StringBuilder sb = new StringBuilder();
+        for (Account account : accounts) {
+            sb.append(account.getAccountNumber()).append('=').append(account.getBalance())
+                    .append('/').append(account.getTransactionCount()).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private static String range(double[] values) {
+        double min = Arrays.stream(values).min().orElse(0);
+        double max = Arrays.stream(values).max().orElse(0);
+        return String.format("%.2f-%.2f", min, max);
+    }
+
+    private interface Format {
+        void save(Bank bank, File file) throws Exception;
+
+        Bank load(File file) throws Exception;
+    }
+}
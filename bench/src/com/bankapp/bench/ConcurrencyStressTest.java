@@ -0,0 +1,157 @@
+package com.bankapp.bench;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.services.AccountService;
+import com.bankapp.services.AuthService;
+import com.bankapp.services.TransactionService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ConcurrencyStressTest - Runs random transfers in both directions from many threads and checks
+ * that no money is created or lost.
+ *
+ * After each run it checks that
+ *   - the total of all balances is unchanged,
+ *   - no balance went below zero (transfers may not use the overdraft),
+ *   - every successful transfer left exactly one TRANSFER_OUT and one TRANSFER_IN record,
+ *   - every account's balance equals its starting balance plus its new history, and
+ *   - all threads finished within the time limit, i.e. no transfer deadlocked.
+ *
+ * Usage: ConcurrencyStressTest [accounts threads transfersPerThread [hot]]
+ * Without arguments a fixed suite runs, from two heavily contended accounts to 10,000 accounts.
+ * With "hot", the first account takes its credits through the hot-account queue.
+ * Exits with status 1 if any check fails.
+ */
+public final class ConcurrencyStressTest {
+    private static final long OPENING_BALANCE = 1_000_00;
+    private static final long TIME_LIMIT_SECONDS = 300;
+
+    private ConcurrencyStressTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length >= 3) {
+            run(Integer.parseInt(args[0]), Integer.parseInt(args[1]), Integer.parseInt(args[2]),
+                    args.length > 3 && args[3].equals("hot"));
+        } else {
+            run(2, 16, 20_000, false);
+            run(10, 32, 20_000, false);
+            run(10, 16, 20_000, true);
+            run(10_000, 16, 50_000, false);
+        }
+        BenchSupport.exit();
+    }
+
+    private static void run(int accountCount, int threads, int transfersPerThread, boolean hot) throws Exception {
+        Bank bank = new Bank();
+        TransactionService transactionService = new TransactionService(bank);
+        AccountService accountService = new AccountService(bank);
+        User user = new AuthService(bank).register("stress" + System.nanoTime(), "secret1", "Stress Test", "stress@bank.test");
+        Account[] accounts = new Account[accountCount];
+        String[] numbers = new String[accountCount];
+        long[] startBalances = new long[accountCount];
+        int[] startCounts = new int[accountCount];
+        long totalBefore = 0;
+        for (int i = 0; i < accountCount; i++) {
+            accounts[i] = accountService.createCheckingAccount(user, OPENING_BALANCE, 500_00);
+            numbers[i] = accounts[i].getAccountNumber();
+            startBalances[i] = accounts[i].getBalance();
+            startCounts[i] = accounts[i].getTransactionCount();
+            totalBefore += startBalances[i];
+        }
+        if (hot) {
+            accounts[0].setHotAccount(true);
+        }
+
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                start.await();
+                for (int i = 0; i < transfersPerThread; i++) {
+                    int from = random.nextInt(accountCount);
+                    int to = random.nextInt(accountCount);
+                    if (transactionService.transfer(numbers[from], numbers[to], 1 + random.nextInt(400_00), "Stress")) {
+                        succeeded.incrementAndGet();
+                    } else {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+        boolean finished = true;
+        long deadline = started + TimeUnit.SECONDS.toNanos(TIME_LIMIT_SECONDS);
+        for (Future<?> worker : workers) {
+            try {
+                worker.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            } catch (TimeoutException e) {
+                finished = false;
+                break;
+            }
+        }
+        long millis = (System.nanoTime() - started) / 1_000_000;
+        executor.shutdownNow();
+
+        String name = accountCount + " accounts, " + threads + " threads, " + (long) threads * transfersPerThread
+                + " attempts" + (hot ? ", hot account" : "");
+        System.out.println(name + ": " + succeeded.get() + " transfers, " + rejected.get() + " rejected in " + millis + " ms");
+        BenchSupport.check(name + ": all threads finished within " + TIME_LIMIT_SECONDS + " s (no deadlock)", finished);
+        if (!finished) {
+            return;
+        }
+
+        long totalAfter = 0;
+        long minBalance = Long.MAX_VALUE;
+        long outRecords = 0;
+        long inRecords = 0;
+        int historyMismatches = 0;
+        for (int i = 0; i < accountCount; i++) {
+            Account account = accounts[i];
+            long balance = account.getBalance();
+            totalAfter += balance;
+            minBalance = Math.min(minBalance, balance);
+            long replayed = startBalances[i];
+            List<Transaction> history = account.getTransactions();
+            for (Transaction txn : history.subList(startCounts[i], history.size())) {
+                if (txn.getType().equals("TRANSFER_OUT")) {
+                    outRecords++;
+                    replayed -= txn.getAmount();
+                } else if (txn.getType().equals("TRANSFER_IN")) {
+                    inRecords++;
+                    replayed += txn.getAmount();
+                } else {
+                    historyMismatches++;
+                }
+            }
+            if (replayed != balance) {
+                historyMismatches++;
+            }
+        }
+        BenchSupport.check(name + ": total money conserved (" + totalBefore + " -> " + totalAfter + " cents)",
+                totalBefore == totalAfter);
+        BenchSupport.check(name + ": no negative balance (min " + minBalance + " cents)", minBalance >= 0);
+        BenchSupport.check(name + ": one TRANSFER_OUT and one TRANSFER_IN per transfer (" + outRecords + " out, "
+                + inRecords + " in)", outRecords == succeeded.get() && inRecords == succeeded.get());
+        BenchSupport.check(name + ": every balance matches its history", historyMismatches == 0);
+    }
+}
@@ -0,0 +1,213 @@
+package com.bankapp.bench;
+
+import com.bankapp.data.BankStore;
+import com.bankapp.data.DurabilityPolicy;
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.services.AccountService;
+import com.bankapp.services.AuthService;
+import com.bankapp.services.TransactionService;
+import com.bankapp.services.TransferRequest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * CrashRecoveryHarness - Simulates a crash at every byte offset of the journal and checks
+ * that recovery restores exactly the state after the last complete operation, within the
+ * recovery time bound.
+ *
+ * The harness runs a fixed, seeded sequence of operations (registrations, account openings,
+ * deposits, withdrawals, transfers, batches and status changes) with sync-every-op
+ * durability, and records the journal length and the bank state after each one. Then, for
+ * every offset, it recovers a copy of the data directory whose journal is
+ *   - cut at that offset (a torn write), and
+ *   - intact but with the byte at that offset flipped (a corrupt record).
+ * Each copy is recovered the way the application starts (load, then start). The recovered
+ * state must equal the state after the last operation whose records end at or before the
+ * offset, and recovery must take at most MAX_RECOVERY_MILLIS.
+ *
+ * Usage: CrashRecoveryHarness [operations] [stride]
+ * Exits with status 1 if any crash point fails.
+ */
+public final class CrashRecoveryHarness {
+    private static final long MAX_RECOVERY_MILLIS = 2000; // Same bound as BankApplication
+    private static final int USERS = 5;
+    private static final int ACCOUNTS_PER_USER = 4;
+
+    private CrashRecoveryHarness() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int stride = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+
+        File base = BenchSupport.freshDirectory("crash-recovery");
+        File live = new File(base, "live");
+        BankStore store = open(live);
+        Bank bank = BenchSupport.quietly(() -> load(store, live));
+        store.start(bank);
+        AuthService authService = new AuthService(bank);
+        AccountService accountService = new AccountService(bank);
+        TransactionService transactionService = new TransactionService(bank);
+        transactionService.setDurabilityBarrier(store.getDurabilityBarrier());
+
+        List<User> users = new ArrayList<>();
+        List<Account> accounts = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            User user = authService.register("crash" + i, "secret" + i, "Crash User " + i, "crash" + i + "@bank.test");
+            users.add(user);
+            for (int j = 0; j < ACCOUNTS_PER_USER; j++) {
+                accounts.add(j % 2 == 0
+                        ? accountService.createCheckingAccount(user, 1_000_00, 200_00)
+                        : accountService.createSavingsAccount(user, 1_000_00, 0.02));
+            }
+        }
+        // Replay starts at the segment opened by the checkpoint, so only that segment is crashed
+        BenchSupport.quietly(() -> {
+            store.checkpoint();
+            return null;
+        });
+        File segment = BenchSupport.latestSegment(live);
+
+        List<Long> boundaries = new ArrayList<>(); // Journal length after each operation
+        List<String> states = new ArrayList<>(); // Bank state after each operation
+        boundaries.add(segment.length());
+        states.add(describe(bank));
+        Random random = new Random(7);
+        for (int i = 0; i < operations; i++) {
+            Account account = accounts.get(random.nextInt(accounts.size()));
+            Account other = accounts.get(random.nextInt(accounts.size()));
+            int kind = random.nextInt(100);
+            if (kind < 35) {
+                transactionService.deposit(account.getAccountNumber(), 1 + random.nextInt(50_00), "Deposit");
+            } else if (kind < 60) {
+                transactionService.withdraw(account.getAccountNumber(), 1 + random.nextInt(80_00), "Withdraw");
+            } else if (kind < 80) {
+                transactionService.transfer(account.getAccountNumber(), other.getAccountNumber(),
+                        1 + random.nextInt(60_00), "Transfer");
+            } else if (kind < 90) {
+                List<TransferRequest> batch = new ArrayList<>();
+                for (int j = 0; j < 3; j++) {
+                    batch.add(new TransferRequest(accounts.get(random.nextInt(accounts.size())).getAccountNumber(),
+                            accounts.get(random.nextInt(accounts.size())).getAccountNumber(), 1 + random.nextInt(20_00), "Batch"));
+                }
+                transactionService.transferBatch(batch);
+            } else if (kind < 96) {
+                account.setActive(!account.isActive());
+            } else {
+                int n = users.size();
+                User user = authService.register("crash" + n, "secret" + n, "Crash User " + n, "crash" + n + "@bank.test");
+                users.add(user);
+                boundaries.add(segment.length()); // Registering and opening the account are separate operations
+                states.add(describe(bank));
+                accounts.add(accountService.createCheckingAccount(user, 500_00, 0));
+            }
+            boundaries.add(segment.length());
+            states.add(describe(bank));
+        }
+        store.shutdown();
+
+        byte[] journal = Files.readAllBytes(segment.toPath());
+        long start = boundaries.get(0);
+        System.out.println("Journal: " + operations + " operations, " + (journal.length - start)
+                + " bytes after the checkpoint; crashing at every " + (stride == 1 ? "" : stride + "th ") + "offset");
+
+        File crash = new File(base, "crash");
+        File crashSegment = new File(crash, segment.getName());
+        int points = 0;
+        int wrongState = 0;
+        int tooSlow = 0;
+        long worstMillis = 0;
+        for (long offset = start; offset <= journal.length; offset += stride) {
+            for (int mode = 0; mode < 2; mode++) {
+                boolean corrupt = mode == 1;
+                if (corrupt && offset == journal.length) {
+                    continue; // No byte to flip
+                }
+                BenchSupport.copyDirectory(live, crash);
+                byte[] image;
+                if (corrupt) {
+                    image = journal.clone();
+                    image[(int) offset] ^= 0x5A;
+                } else {
+                    image = Arrays.copyOf(journal, (int) offset);
+                }
+                Files.write(crashSegment.toPath(), image);
+
+                // Recover as the application does: load, then start, which settles pending transfers
+                BankStore recovering = open(crash);
+                String actual;
+                try {
+                    actual = BenchSupport.quietly(() -> {
+                        Bank recovered = load(recovering, crash);
+                        recovering.start(recovered);
+                        recovering.shutdown();
+                        return describe(recovered);
+                    });
+                } catch (IOException e) {
+                    actual = "<recovery failed: " + e.getMessage() + ">";
+                }
+                String expected = states.get(lastBoundaryAtOrBefore(boundaries, offset));
+                points++;
+                worstMillis = Math.max(worstMillis, recovering.getLastRecoveryMillis());
+                if (!expected.equals(actual)) {
+                    if (wrongState++ < 5) {
+                        System.out.println("Wrong state after " + (corrupt ? "corrupting byte " : "cutting at ") + offset
+                                + "\n  expected " + expected + "\n  actual   " + actual);
+                    }
+                }
+                if (recovering.getLastRecoveryMillis() > MAX_RECOVERY_MILLIS) {
+                    tooSlow++;
+                }
+            }
+        }
+        System.out.println("Crash points: " + points + ", worst recovery " + worstMillis + " ms (bound "
+                + MAX_RECOVERY_MILLIS + " ms)");
+        BenchSupport.check("every crash point recovers the state of the last complete operation ("
+                + wrongState + " wrong)", wrongState == 0);
+        BenchSupport.check("every recovery finishes within " + MAX_RECOVERY_MILLIS + " ms (" + tooSlow + " slower)",
+                tooSlow == 0);
+        BenchSupport.deleteRecursively(base);
+        BenchSupport.exit();
+    }
+
+    private static BankStore open(File directory) {
+        return new BankStore(directory, 3600, Integer.MAX_VALUE, 2, MAX_RECOVERY_MILLIS,
+                DurabilityPolicy.syncEveryOp());
+    }
+
+    private static Bank load(BankStore store, File directory) throws IOException {
+        // No data of the older layouts to import
+        return store.load(new File(directory, "none.bin"), new File(directory, "none.log"));
+    }
+
+    private static int lastBoundaryAtOrBefore(List<Long> boundaries, long offset) {
+        int index = 0;
+        while (index + 1 < boundaries.size() && boundaries.get(index + 1) <= offset) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Describes everything recovery must restore: users, and each account's balance, status and history length.
+     */
+    private static String describe(Bank bank) {
+        List<Account> accounts = new ArrayList<>(bank.getAllAccounts());
+        accounts.sort(Comparator.comparing(Account::getAccountNumber));
+        StringBuilder sb = new StringBuilder("users=").append(bank.getUserCount());
+        for (Account account : accounts) {
+            sb.append(' ').append(account.getAccountNumber()).append('=').append(account.getBalance())
+                    .append(account.isActive() ? "" : "(closed)").append('/').append(account.getTransactionCount());
+        }
+        return sb.toString();
+    }
+}
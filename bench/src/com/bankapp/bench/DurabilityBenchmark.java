@@ -0,0 +1,119 @@
+package com.bankapp.bench;
+
+import com.bankapp.data.BankStore;
+import com.bankapp.data.DurabilityPolicy;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.services.AccountService;
+import com.bankapp.services.AuthService;
+import com.bankapp.services.TransactionService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * DurabilityBenchmark - Measures deposit throughput and latency under each journal durability
+ * policy (sync-every-op, group-commit, async) at several thread counts.
+ *
+ * Each thread deposits into its own account through TransactionService, which returns only
+ * once the policy considers the deposit durable. Every configuration runs once to warm up and
+ * once measured, each on a fresh data directory with the application's settings
+ * (2 ms batching delay or flush interval, batches of up to 256 records).
+ *
+ * Usage: DurabilityBenchmark [depositsPerThread=2000] [threads=1,16,64]
+ */
+public final class DurabilityBenchmark {
+    private static final String[] POLICIES = {"sync-every-op", "group-commit", "async"};
+
+    private DurabilityBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int deposits = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int[] threadCounts = args.length > 1
+                ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 16, 64};
+
+        System.out.printf("%-8s %-14s %12s %10s %10s%n", "threads", "policy", "ops/s", "p50 ms", "p99 ms");
+        for (int threads : threadCounts) {
+            for (String policy : POLICIES) {
+                run(policy, threads, Math.max(1, deposits / 10)); // Warm-up
+                long[] result = run(policy, threads, deposits);
+                long elapsed = result[result.length - 1];
+                long[] latencies = Arrays.copyOf(result, result.length - 1);
+                Arrays.sort(latencies);
+                System.out.printf("%-8d %-14s %,12.0f %10.2f %10.2f%n", threads, policy,
+                        latencies.length / (elapsed / 1e9),
+                        BenchSupport.percentileMillis(latencies, 50), BenchSupport.percentileMillis(latencies, 99));
+            }
+        }
+    }
+
+    /**
+     * Runs one configuration on a fresh store.
+     *
+     * @return Latency of every deposit in nanoseconds, followed by the elapsed time of the run
+     */
+    private static long[] run(String policy, int threads, int deposits) throws Exception {
+        File directory = BenchSupport.freshDirectory("durability-bench");
+        BankStore store = new BankStore(directory, 3600, Integer.MAX_VALUE, 2, 60_000,
+                DurabilityPolicy.parse(policy, 2, 256));
+        Bank bank = BenchSupport.quietly(() -> {
+            Bank loaded = store.load(new File(directory, "none.bin"), new File(directory, "none.log"));
+            store.start(loaded);
+            return loaded;
+        });
+        TransactionService transactionService = new TransactionService(bank);
+        transactionService.setDurabilityBarrier(store.getDurabilityBarrier());
+        AccountService accountService = new AccountService(bank);
+        User user = new AuthService(bank).register("durability", "secret1", "Durability Bench", "bench@bank.test");
+        String[] accounts = new String[threads];
+        for (int i = 0; i < threads; i++) {
+            accounts[i] = accountService.createCheckingAccount(user, 0, 0).getAccountNumber();
+        }
+
+        long[][] latencies = new long[threads][deposits];
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            workers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < deposits; i++) {
+                    long began = System.nanoTime();
+                    if (!transactionService.deposit(accounts[thread], 1, "Bench")) {
+                        throw new IllegalStateException("Deposit failed under " + policy);
+                    }
+                    latencies[thread][i] = System.nanoTime() - began;
+                }
+                return null;
+            }));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        long elapsed = System.nanoTime() - began;
+        executor.shutdown();
+        BenchSupport.quietly(() -> {
+            store.shutdown();
+            return null;
+        });
+        BenchSupport.deleteRecursively(directory);
+
+        long[] result = new long[threads * deposits + 1];
+        for (int t = 0; t < threads; t++) {
+            System.arraycopy(latencies[t], 0, result, t * deposits, deposits);
+        }
+        result[result.length - 1] = elapsed;
+        return result;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bankapp.bench;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.services.AccountService;
+import com.bankapp.services.AuthService;
+import com.bankapp.services.TransactionService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * HotAccountBenchmark - Measures one-cent deposits from many threads into a single account,
+ * with the account locked per deposit and with it marked as hot (credits queued and combined).
+ *
+ * Deposits go through TransactionService on an in-memory bank, so the figures show the cost
+ * of the account itself rather than the journal. After each run the balance, history length
+ * and timestamp order of the history are checked. Each configuration runs several rounds and
+ * the range of the rounds is printed.
+ *
+ * Usage: HotAccountBenchmark [deposits=400000] [threads=1,8,32] [rounds=3]
+ * Exits with status 1 if a run loses or reorders a deposit.
+ */
+public final class HotAccountBenchmark {
+
+    private HotAccountBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int deposits = args.length > 0 ? Integer.parseInt(args[0]) : 400_000;
+        int[] threadCounts = args.length > 1
+                ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 8, 32};
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+
+        System.out.println(Runtime.getRuntime().availableProcessors() + " CPU(s), " + deposits + " deposits per run");
+        System.out.printf("%-8s %-20s %-20s%n", "threads", "locked M/s", "hot M/s");
+        run(false, 8, deposits); // Warm-up
+        run(true, 8, deposits);
+        for (int threads : threadCounts) {
+            double[] locked = new double[rounds];
+            double[] hot = new double[rounds];
+            for (int round = 0; round < rounds; round++) {
+                locked[round] = run(false, threads, deposits);
+                hot[round] = run(true, threads, deposits);
+            }
+            System.out.printf("%-8d %-20s %-20s%n", threads, range(locked), range(hot));
+        }
+        BenchSupport.exit();
+    }
+
+    /**
+     * Runs one configuration on a fresh bank.
+     *
+     * @return Deposits per second, in millions
+     */
+    private static double run(boolean hot, int threads, int deposits) throws Exception {
+        Bank bank = new Bank();
+        TransactionService transactionService = new TransactionService(bank);
+        User user = new AuthService(bank).register("merchant", "secret1", "Hot Merchant", "merchant@bank.test");
+        Account account = new AccountService(bank).createCheckingAccount(user, 0, 0);
+        account.setHotAccount(hot);
+        String accountNumber = account.getAccountNumber();
+        int startCount = account.getTransactionCount();
+        int perThread = deposits / threads;
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < perThread; i++) {
+                    transactionService.deposit(accountNumber, 1, "Bench");
+                }
+            }, "depositor-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        long elapsed = System.nanoTime() - began;
+
+        long expected = (long) perThread * threads;
+        List<Transaction> history = account.getTransactions();
+        boolean ordered = true;
+        for (int i = startCount + 1; i < history.size(); i++) {
+            ordered &= history.get(i).getTimestamp() >= history.get(i - 1).getTimestamp();
+        }
+        if (account.getBalance() != expected || history.size() - startCount != expected || !ordered) {
+            BenchSupport.check((hot ? "hot" : "locked") + ", " + threads + " threads: balance " + account.getBalance()
+                    + ", history " + (history.size() - startCount) + ", expected " + expected + ", ordered " + ordered, false);
+        }
+        return expected / (elapsed / 1e9) / 1e6;
+    }
+
+    private static String range(double[] values) {
+        double min = Arrays.stream(values).min().orElse(0);
+        double max = Arrays.stream(values).max().orElse(0);
+        return String.format("%.2f-%.2f", min, max);
+    }
+}
@@ -0,0 +1,280 @@
+package com.bankapp.bench;
+
+import com.bankapp.model.Account;
+import com.bankapp.server.BankHttpApi;
+import com.bankapp.service.Bank;
+import com.bankapp.services.AccountService;
+import com.bankapp.services.AuthService;
+import com.bankapp.services.PartitionedEngine;
+import com.bankapp.services.TransactionEngine;
+import com.bankapp.services.TransactionService;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * HttpLoadTest - Drives the HTTP/JSON API with many keep-alive clients and reports requests per
+ * second and latency percentiles.
+ *
+ * The API runs in-process on loopback over an in-memory bank. Each client logs in, opens a
+ * checking account and then, on one kept-alive connection, repeats deposit, withdraw, transfer
+ * to the next client's account (or to its own second account if it is alone), and recent
+ * history. Clients are raw sockets on virtual threads, so the numbers include no HTTP client
+ * library. Every configuration runs a warm-up round and a
+ * measured round, then checks that every request returned 200 and that the total balance equals
+ * the opening balances plus deposits minus withdrawals.
+ *
+ * Usage: HttpLoadTest [requestsPerClient=400] [clients=1,50,200]
+ * After the plain runs, the middle client count runs again with the partitioned engine.
+ * Exits with status 1 if a request fails or money is not conserved.
+ */
+public final class HttpLoadTest {
+    private static final String PASSWORD = "Passw0rd!";
+    private static final long OPENING_CENTS = 1000_00;
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 400;
+        int[] clientCounts = args.length > 1
+                ? Arrays.stream(args[1].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {1, 50, 200};
+
+        System.out.printf("%-8s %-12s %10s %10s %10s %10s %10s%n", "clients", "engine", "req/s", "p50 ms", "p90 ms",
+                "p99 ms", "max ms");
+        for (int clients : clientCounts) {
+            run(clients, requests, false);
+        }
+        run(clientCounts[clientCounts.length / 2], requests, true);
+        BenchSupport.exit();
+    }
+
+    private static void run(int clients, int requests, boolean partitioned) throws Exception {
+        Bank bank = new Bank();
+        AuthService authService = new AuthService(bank);
+        AccountService accountService = new AccountService(bank);
+        TransactionService transactionService = new TransactionService(bank);
+        TransactionEngine engine = null;
+        if (partitioned) {
+            engine = new PartitionedEngine(transactionService, Runtime.getRuntime().availableProcessors());
+            engine.start();
+            transactionService.setEngine(engine);
+        }
+        for (int i = 0; i < clients; i++) {
+            authService.register("load" + i, PASSWORD, "Load Client " + i, "load" + i + "@bank.test");
+        }
+        BankHttpApi api = new BankHttpApi(InetAddress.getLoopbackAddress(), 0, authService, accountService,
+                transactionService);
+        api.start();
+        int port = api.getPort();
+
+        String[] tokens = new String[clients];
+        String[] accounts = new String[clients];
+        String[] targets = new String[clients]; // Account each client transfers to
+        for (int i = 0; i < clients; i++) {
+            try (Client client = new Client(port)) {
+                tokens[i] = field(client.request("POST", "/api/login", null,
+                        "{\"username\":\"load" + i + "\",\"password\":\"" + PASSWORD + "\"}").body, "token");
+                accounts[i] = openAccount(client, tokens[i]);
+                if (clients == 1) {
+                    targets[i] = openAccount(client, tokens[i]);
+                }
+            }
+        }
+        if (clients > 1) {
+            for (int i = 0; i < clients; i++) {
+                targets[i] = accounts[(i + 1) % clients];
+            }
+        }
+
+        AtomicLong failures = new AtomicLong();
+        AtomicLong expectedDelta = new AtomicLong(); // Deposits minus withdrawals that succeeded, in cents
+        long[] latencies = null;
+        long elapsed = 0;
+        for (int round = 0; round < 2; round++) { // The first round warms up
+            latencies = new long[clients * requests];
+            long began = System.nanoTime();
+            runRound(port, clients, requests, tokens, accounts, targets, latencies, failures, expectedDelta);
+            elapsed = System.nanoTime() - began;
+        }
+        api.close();
+        if (engine != null) {
+            engine.close();
+        }
+
+        Arrays.sort(latencies);
+        String engineName = partitioned ? "partitioned" : "direct";
+        System.out.printf("%-8d %-12s %,10.0f %10.2f %10.2f %10.2f %10.2f%n", clients, engineName,
+                latencies.length / (elapsed / 1e9), BenchSupport.percentileMillis(latencies, 50),
+                BenchSupport.percentileMillis(latencies, 90), BenchSupport.percentileMillis(latencies, 99),
+                latencies[latencies.length - 1] / 1e6);
+        long total = 0;
+        for (Account account : bank.getAllAccounts()) {
+            total += account.getBalance();
+        }
+        long expected = bank.getAccountCount() * OPENING_CENTS + expectedDelta.get();
+        String name = clients + " clients, " + engineName;
+        BenchSupport.check(name + ": every request returned 200 (" + failures.get() + " failed)", failures.get() == 0);
+        BenchSupport.check(name + ": money conserved (" + total + " cents, expected " + expected + ")", total == expected);
+    }
+
+    private static void runRound(int port, int clients, int requests, String[] tokens, String[] accounts, String[] targets,
+                                 long[] latencies, AtomicLong failures, AtomicLong expectedDelta) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(clients);
+        for (int i = 0; i < clients; i++) {
+            int index = i;
+            Thread.ofVirtual().start(() -> {
+                String token = tokens[index];
+                String account = accounts[index];
+                String next = targets[index];
+                try (Client client = new Client(port)) {
+                    for (int k = 0; k < requests; k++) {
+                        long began = System.nanoTime();
+                        Response response;
+                        switch (k % 4) {
+                            case 0:
+                                response = client.request("POST", "/api/accounts/" + account + "/deposit", token,
+                                        "{\"amount\":\"2.00\"}");
+                                if (response.status == 200) {
+                                    expectedDelta.addAndGet(200);
+                                }
+                                break;
+                            case 1:
+                                response = client.request("POST", "/api/accounts/" + account + "/withdraw", token,
+                                        "{\"amount\":\"1.00\"}");
+                                if (response.status == 200) {
+                                    expectedDelta.addAndGet(-100);
+                                }
+                                break;
+                            case 2:
+                                response = client.request("POST", "/api/transfers", token, "{\"fromAccountNumber\":\""
+                                        + account + "\",\"toAccountNumber\":\"" + next + "\",\"amount\":\"1.00\"}");
+                                break;
+                            default:
+                                response = client.request("GET", "/api/accounts/" + account + "/transactions?count=10",
+                                        token, null);
+                                break;
+                        }
+                        latencies[index * requests + k] = System.nanoTime() - began;
+                        if (response.status != 200) {
+                            failures.incrementAndGet();
+                        }
+                    }
+                } catch (IOException e) {
+                    System.out.println("Error: client " + index + ": " + e.getMessage());
+                    failures.incrementAndGet();
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+    }
+
+    private static String openAccount(Client client, String token) throws IOException {
+        return field(client.request("POST", "/api/accounts", token,
+                "{\"type\":\"checking\",\"initialBalance\":\"1000.00\"}").body, "accountNumber");
+    }
+
+    /**
+     * Reads a top-level field of a flat JSON object, as text.
+     */
+    private static String field(String json, String name) {
+        int start = json.indexOf("\"" + name + "\":");
+        if (start < 0) {
+            throw new IllegalStateException("No " + name + " in " + json);
+        }
+        start += name.length() + 3;
+        if (json.charAt(start) == '"') {
+            return json.substring(start + 1, json.indexOf('"', start + 1));
+        }
+        int end = start;
+        while (",}".indexOf(json.charAt(end)) < 0) {
+            end++;
+        }
+        return json.substring(start, end);
+    }
+
+    private static final class Response {
+        private final int status;
+        private final String body;
+
+        private Response(int status, String body) {
+            this.status = status;
+            this.body = body;
+        }
+    }
+
+    /**
+     * Client - One kept-alive HTTP/1.1 connection; requests are written and responses read by hand.
+     */
+    private static final class Client implements Closeable {
+        private final Socket socket;
+        private final InputStream in;
+        private final OutputStream out;
+
+        private Client(int port) throws IOException {
+            socket = new Socket(InetAddress.getLoopbackAddress(), port);
+            socket.setTcpNoDelay(true);
+            in = new BufferedInputStream(socket.getInputStream());
+            out = new BufferedOutputStream(socket.getOutputStream());
+        }
+
+        private Response request(String method, String path, String token, String body) throws IOException {
+            byte[] content = body == null ? new byte[0] : body.getBytes(StandardCharsets.UTF_8);
+            StringBuilder head = new StringBuilder()
+                    .append(method).append(' ').append(path).append(" HTTP/1.1\r\n")
+                    .append("Host: localhost\r\n")
+                    .append("Content-Length: ").append(content.length).append("\r\n");
+            if (token != null) {
+                head.append("Authorization: Bearer ").append(token).append("\r\n");
+            }
+            head.append("\r\n");
+            out.write(head.toString().getBytes(StandardCharsets.US_ASCII));
+            out.write(content);
+            out.flush();
+
+            String statusLine = readLine();
+            int length = 0;
+            String line;
+            while (!(line = readLine()).isEmpty()) {
+                if (line.regionMatches(true, 0, "Content-Length:", 0, 15)) {
+                    length = Integer.parseInt(line.substring(15).trim());
+                }
+            }
+            String responseBody = new String(in.readNBytes(length), StandardCharsets.UTF_8);
+            return new Response(Integer.parseInt(statusLine.split(" ")[1]), responseBody);
+        }
+
+        private String readLine() throws IOException {
+            StringBuilder sb = new StringBuilder();
+            int c;
+            while ((c = in.read()) != '\n') {
+                if (c < 0) {
+                    throw new EOFException("Connection closed");
+                }
+                if (c != '\r') {
+                    sb.append((char) c);
+                }
+            }
+            return sb.toString();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.bankapp.bench;
+
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.services.AuthService;
+import com.bankapp.utils.PasswordHasher;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+/**
+ * LoginBenchmark - Measures login latency against banks of growing size, with the username
+ * index (AuthService.login) and with the linear scan login used before the index.
+ *
+ * Each login picks a random existing user, so every call finds its user and hashes the
+ * password once. Both variants warm up before they are measured.
+ *
+ * Usage: LoginBenchmark [users=10000,100000,1000000] [samples=2000]
+ */
+public final class LoginBenchmark {
+    private static final String PASSWORD = "secret1";
+
+    private LoginBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[] {10_000, 100_000, 1_000_000};
+        int samples = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        String passwordHash = PasswordHasher.hashPassword(PASSWORD);
+        System.out.printf("%-10s %14s %14s %14s %14s%n", "users", "scan p50 us", "scan p99 us", "index p50 us", "index p99 us");
+        for (int size : sizes) {
+            Bank bank = new Bank();
+            List<User> users = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                users.add(new User("USR" + i, "user" + i, passwordHash, "Bench User " + i, "user" + i + "@bank.test"));
+            }
+            bank.addUsers(users);
+            AuthService authService = new AuthService(bank);
+
+            // The scan costs O(users) per login, so it gets fewer samples on large banks
+            int scanSamples = (int) Math.max(50, (long) samples * 10_000 / size);
+            long[] scan = measure(size, scanSamples, username -> scanLogin(bank, username, PASSWORD));
+            long[] indexed = measure(size, samples, username -> authService.login(username, PASSWORD));
+            System.out.printf("%-10s %14.1f %14.1f %14.1f %14.1f%n", String.format("%,d", size),
+                    BenchSupport.percentileMillis(scan, 50) * 1000, BenchSupport.percentileMillis(scan, 99) * 1000,
+                    BenchSupport.percentileMillis(indexed, 50) * 1000, BenchSupport.percentileMillis(indexed, 99) * 1000);
+        }
+    }
+
+    /**
+     * Times logins of random existing users after as many warm-up logins.
+     *
+     * @return Sorted latencies in nanoseconds
+     */
+    private static long[] measure(int size, int samples, LoginCall login) {
+        Random random = new Random(1);
+        for (int i = 0; i < samples; i++) {
+            login.login("user" + random.nextInt(size));
+        }
+        long[] latencies = new long[samples];
+        for (int i = 0; i < samples; i++) {
+            String username = "user" + random.nextInt(size);
+            long began = System.nanoTime();
+            if (login.login(username).isEmpty()) {
+                throw new IllegalStateException("Login failed for " + username);
+            }
+            latencies[i] = System.nanoTime() - began;
+        }
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    /**
+     * Login as AuthService did before users were indexed: a stream over a copy of all users.
+     */
+    private static Optional<User> scanLogin(Bank bank, String username, String password) {
+        return bank.getAllUsers().stream()
+                .filter(user -> user.getUsername().equals(username) && user.verifyPassword(PasswordHasher.hashPassword(password)))
+                .findFirst();
+    }
+
+    private interface LoginCall {
+        Optional<User> login(String username);
+    }
+}
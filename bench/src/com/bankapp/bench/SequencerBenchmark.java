@@ -0,0 +1,235 @@
+package com.bankapp.bench;
+
+import com.bankapp.data.BankStore;
+import com.bankapp.data.DurabilityPolicy;
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.services.AccountService;
+import com.bankapp.services.AuthService;
+import com.bankapp.services.LedgerSequencer;
+import com.bankapp.services.TransactionResult;
+import com.bankapp.services.TransactionService;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * SequencerBenchmark - Compares transactions applied directly by the calling threads with
+ * transactions run by the LedgerSequencer.
+ *
+ * Part 1, in memory: one-cent deposits spread over 1000 accounts, from 1 and 4 threads,
+ * direct vs through the sequencer with callers that do not wait per deposit.
+ *
+ * Part 2, durable: a deposit/withdraw/transfer mix over 100 accounts from 32 threads with
+ * group commit, by direct blocking callers, by blocking callers routed through the sequencer,
+ * and by callers that keep 64 sequencer commands in flight. After each run the data directory
+ * is recovered as after a crash and must equal the live bank.
+ *
+ * Usage: SequencerBenchmark [inMemoryDeposits=1000000] [durableOpsPerThread=2000]
+ * Exits with status 1 if a run loses a deposit or recovers a different bank.
+ */
+public final class SequencerBenchmark {
+    private static final int IN_FLIGHT = 64;
+
+    private SequencerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int deposits = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int durableOps = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        System.out.println("In-memory deposits, 1000 accounts (ops/s):");
+        System.out.printf("  %-8s %12s %12s%n", "threads", "direct", "sequencer");
+        for (int round = 0; round < 2; round++) { // The first round warms up
+            for (int threads : new int[] {1, 4}) {
+                double direct = inMemory(false, threads, deposits / threads);
+                double sequenced = inMemory(true, threads, deposits / threads);
+                if (round == 1) {
+                    System.out.printf("  %-8d %,12.0f %,12.0f%n", threads, direct, sequenced);
+                }
+            }
+        }
+
+        System.out.println("Durable mix, group commit, 32 threads, 100 accounts (ops/s):");
+        durable("direct, blocking", Mode.DIRECT, 32, durableOps);
+        durable("sequencer, blocking", Mode.SEQUENCER_BLOCKING, 32, durableOps);
+        durable("sequencer, " + IN_FLIGHT + " in flight", Mode.SEQUENCER_PIPELINED, 32, durableOps);
+        BenchSupport.exit();
+    }
+
+    private enum Mode {
+        DIRECT, SEQUENCER_BLOCKING, SEQUENCER_PIPELINED
+    }
+
+    /**
+     * Runs one in-memory configuration on a fresh bank.
+     *
+     * @return Deposits per second
+     */
+    private static double inMemory(boolean sequenced, int threads, int perThread) throws Exception {
+        Bank bank = new Bank();
+        TransactionService transactionService = new TransactionService(bank);
+        String[] accounts = openAccounts(bank, 1000, 0);
+        LedgerSequencer sequencer = null;
+        if (sequenced) {
+            sequencer = new LedgerSequencer(transactionService, LedgerSequencer.DEFAULT_CAPACITY);
+            sequencer.start();
+        }
+        LedgerSequencer engine = sequencer;
+        double rate = runThreads(threads, perThread, thread -> {
+            CompletableFuture<TransactionResult> last = null;
+            for (int i = 0; i < perThread; i++) {
+                String account = accounts[(i * 7 + thread) % accounts.length];
+                if (engine != null) {
+                    last = engine.deposit(account, 1, "Bench");
+                } else {
+                    transactionService.deposit(account, 1, "Bench");
+                }
+            }
+            if (last != null) {
+                last.join();
+            }
+        });
+        if (sequencer != null) {
+            sequencer.close();
+        }
+        long total = 0;
+        for (Account account : bank.getAllAccounts()) {
+            total += account.getBalance();
+        }
+        if (total != (long) threads * perThread) {
+            BenchSupport.check((sequenced ? "sequencer" : "direct") + ", " + threads + " threads: " + total
+                    + " cents deposited, expected " + (long) threads * perThread, false);
+        }
+        return rate;
+    }
+
+    /**
+     * Runs one durable configuration on a fresh store, prints its durable operations per second
+     * and checks recovery afterwards.
+     */
+    private static void durable(String name, Mode mode, int threads, int perThread) throws Exception {
+        File directory = BenchSupport.freshDirectory("sequencer-bench");
+        BankStore store = new BankStore(directory, 3600, Integer.MAX_VALUE, 2, 60_000, DurabilityPolicy.groupCommit(2, 256));
+        Bank bank = BenchSupport.quietly(() -> {
+            Bank loaded = load(store, directory);
+            store.start(loaded);
+            return loaded;
+        });
+        TransactionService transactionService = new TransactionService(bank);
+        transactionService.setDurabilityBarrier(store.getDurabilityBarrier());
+        String[] accounts = openAccounts(bank, 100, 1_000_00);
+        LedgerSequencer sequencer = null;
+        if (mode != Mode.DIRECT) {
+            sequencer = new LedgerSequencer(transactionService, LedgerSequencer.DEFAULT_CAPACITY);
+            sequencer.start();
+            transactionService.setEngine(sequencer);
+        }
+        LedgerSequencer engine = sequencer;
+        double rate = runThreads(threads, perThread, thread -> {
+            Random random = new Random(thread);
+            List<CompletableFuture<TransactionResult>> inFlight = new ArrayList<>();
+            for (int i = 0; i < perThread; i++) {
+                String account = accounts[random.nextInt(accounts.length)];
+                String other = accounts[random.nextInt(accounts.length)];
+                long amount = 1 + random.nextInt(50);
+                int kind = random.nextInt(3);
+                if (mode == Mode.SEQUENCER_PIPELINED) {
+                    inFlight.add(kind == 0 ? engine.transfer(account, other, amount, "Bench")
+                            : kind == 1 ? engine.deposit(account, amount, "Bench")
+                            : engine.withdraw(account, amount, "Bench"));
+                    if (inFlight.size() == IN_FLIGHT) {
+                        inFlight.forEach(CompletableFuture::join);
+                        inFlight.clear();
+                    }
+                } else if (kind == 0) {
+                    transactionService.transfer(account, other, amount, "Bench");
+                } else if (kind == 1) {
+                    transactionService.deposit(account, amount, "Bench");
+                } else {
+                    transactionService.withdraw(account, amount, "Bench");
+                }
+            }
+            inFlight.forEach(CompletableFuture::join);
+        });
+        if (sequencer != null) {
+            sequencer.close();
+        }
+
+        // Everything acknowledged is durable, so recovering the directory now must give the live bank
+        Bank recovered = BenchSupport.quietly(() -> load(new BankStore(directory, 3600, Integer.MAX_VALUE, 2, 60_000,
+                DurabilityPolicy.groupCommit(2, 256)), directory));
+        System.out.printf("  %-32s %,12.0f%n", name, rate);
+        BenchSupport.check(name + ": recovered bank equals the live bank", describe(bank).equals(describe(recovered)));
+        BenchSupport.quietly(() -> {
+            store.shutdown();
+            return null;
+        });
+        BenchSupport.deleteRecursively(directory);
+    }
+
+    private static Bank load(BankStore store, File directory) throws Exception {
+        return store.load(new File(directory, "none.bin"), new File(directory, "none.log"));
+    }
+
+    private static String[] openAccounts(Bank bank, int count, long balance) {
+        User user = new AuthService(bank).register("sequencer", "secret1", "Sequencer Bench", "bench@bank.test");
+        AccountService accountService = new AccountService(bank);
+        String[] accounts = new String[count];
+        for (int i = 0; i < count; i++) {
+            accounts[i] = accountService.createCheckingAccount(user, balance, 0).getAccountNumber();
+        }
+        return accounts;
+    }
+
+    /**
+     * Runs a task on several threads started together.
+     *
+     * @return Operations per second, counting perThread operations per thread
+     */
+    private static double runThreads(int threads, int perThread, ThreadTask task) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                task.run(thread);
+            }, "bench-" + t);
+            worker.start();
+            workers.add(worker);
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return (long) threads * perThread / ((System.nanoTime() - began) / 1e9);
+    }
+
+    private static String describe(Bank bank) {
+        List<Account> accounts = new ArrayList<>(bank.getAllAccounts());
+        accounts.sort(Comparator.comparing(Account::getAccountNumber));
+        StringBuilder sb = new StringBuilder();
+        for (Account account : accounts) {
+            sb.append(account.getAccountNumber()).append('=').append(account.getBalance())
+                    .append('/').append(account.getTransactionCount()).append(' ');
+        }
+        return sb.toString();
+    }
+
+    private interface ThreadTask {
+        void run(int thread);
+    }
+}
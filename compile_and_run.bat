@@ -28,7 +28,7 @@ echo Compiling BankApp...
 echo ========================================
 echo.
 
-javac -d bin -sourcepath src src\com\bankapp\BankApplication.java
+javac --release 21 -d bin -sourcepath src src\com\bankapp\BankApplication.java
 
 REM Check compilation status
 if %ERRORLEVEL% EQU 0 (
@@ -25,7 +25,7 @@ echo "Compiling BankApp..."
 echo "========================================"
 echo ""
 
-javac -d bin -sourcepath src \
+javac --release 21 -d bin -sourcepath src \
     src/com/bankapp/BankApplication.java \
     src/com/bankapp/model/*.java \
     src/com/bankapp/services/*.java \
@@ -1,23 +1,28 @@
 package com.bankapp;
 
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.net.InetAddress;
 import com.bankapp.controllers.AccountController;
 import com.bankapp.controllers.AuthController;
 import com.bankapp.controllers.AdminController;
 import com.bankapp.controllers.TransactionController;
+import com.bankapp.data.BankStore;
+import com.bankapp.data.DurabilityPolicy;
 import com.bankapp.model.Account;
-import com.bankapp.model.Admin;
-import com.bankapp.model.User;
+import com.bankapp.server.BankHttpApi;
+import com.bankapp.server.BankServer;
+import com.bankapp.server.WireServer;
 import com.bankapp.service.Bank;
 import com.bankapp.services.AccountService;
 import com.bankapp.services.AuthService;
+import com.bankapp.services.ImportService;
+import com.bankapp.services.LedgerSequencer;
+import com.bankapp.services.PartitionedEngine;
+import com.bankapp.services.TransactionEngine;
 import com.bankapp.services.TransactionService;
 import java.util.List;
+import java.util.concurrent.Executors;
 import com.bankapp.utils.ConsoleUtils;
 
 public class BankApplication {
@@ -29,265 +34,231 @@ public class BankApplication {
     private static final AuthService authService = new AuthService(bank);
     private static final AccountService accountService = new AccountService(bank);
     private static final TransactionService transactionService = new TransactionService(bank);
+    private static final ImportService importService = new ImportService(bank);
 
     // --- Controllers (User Interaction Layer) ---
     private static final AuthController authController = new AuthController(authService);
     private static final AccountController accountController = new AccountController(accountService, transactionService);
     private static final TransactionController transactionController = new TransactionController(transactionService);
-    private static final AdminController adminController = new AdminController(bank);
+    private static final AdminController adminController = new AdminController(bank, importService);
 
     // --- Application State ---
-    private static User currentUser = null;
-    private static Admin currentAdmin = null;
-    private static final String DATA_FILE = "bank_data.dat";
+    private static final String DATA_DIRECTORY = "bank_data";
+    private static final String SNAPSHOT_FILE = "bank_data.bin";
+    private static final String LEGACY_DATA_FILE = "bank_data.dat";
+    private static final String LEGACY_JOURNAL_FILE = "bank_journal.log";
+    private static final long CHECKPOINT_INTERVAL_SECONDS = 30;
+    private static final int CHECKPOINT_MUTATION_THRESHOLD = 1000;
+    private static final int RETAINED_CHECKPOINTS = 3;
+    private static final long MAX_RECOVERY_MILLIS = 2000;
+    // Chính sách fsync của journal: sync-every-op | group-commit | async (đặt bằng -Dbank.durability=...)
+    private static final DurabilityPolicy DURABILITY = DurabilityPolicy.parse(
+            System.getProperty("bank.durability", "group-commit"), 2, 256);
+    private static final BankStore store = new BankStore(new File(DATA_DIRECTORY),
+            CHECKPOINT_INTERVAL_SECONDS, CHECKPOINT_MUTATION_THRESHOLD, RETAINED_CHECKPOINTS, MAX_RECOVERY_MILLIS,
+            DURABILITY);
+    // Engine chạy giao dịch (-Dbank.engine=sequencer|partitioned); mặc định chạy trên luồng gọi
+    private static final TransactionEngine engine = createEngine(System.getProperty("bank.engine", ""));
+
+    // Chế độ máy chủ TCP cục bộ: mỗi kết nối là một phiên riêng (đặt bằng -Dbank.serverPort=7070)
+    private static final int SERVER_PORT = Integer.getInteger("bank.serverPort", 0);
+    private static volatile BankServer server;
+    // API HTTP/JSON cục bộ chạy trên virtual thread (đặt bằng -Dbank.httpPort=8080)
+    private static final int HTTP_PORT = Integer.getInteger("bank.httpPort", 0);
+    private static volatile BankHttpApi httpApi;
+    // Giao thức nhị phân NIO cho các client gửi giao dịch hàng loạt (đặt bằng -Dbank.wirePort=9090)
+    private static final int WIRE_PORT = Integer.getInteger("bank.wirePort", 0);
+    private static volatile WireServer wireServer;
 
     public static void main(String[] args) {
         // Tải dữ liệu từ tệp khi khởi động
         loadData();
 
         // Đăng ký một "shutdown hook" để tự động lưu dữ liệu khi ứng dụng đóng.
-        // Điều này đảm bảo dữ liệu được lưu ngay cả khi người dùng đóng cửa sổ console (Ctrl+C).
+        // Checkpoint chạy nền trong lúc sử dụng nên lúc thoát chỉ cần ghi phần journal còn lại.
         Runtime.getRuntime().addShutdownHook(new Thread(() -> {
             ConsoleUtils.printInfo("\nApplication is shutting down. Saving data...");
-            saveData();
+            if (server != null) {
+                server.close();
+            }
+            if (httpApi != null) {
+                httpApi.close();
+            }
+            if (wireServer != null) {
+                wireServer.close();
+            }
+            if (engine != null) {
+                engine.close();
+            }
+            store.shutdown();
             ConsoleUtils.printSuccess("Data saved successfully.");
         }));
 
-
-        ConsoleUtils.printHeader("WELCOME TO THE BANKING APPLICATION");
-
-        boolean running = true;
-        while (running) {
-            if (currentUser != null) {
-                showMainMenu(); // Nếu người dùng đã đăng nhập, hiển thị menu chính của người dùng
-            } else if (currentAdmin != null) {
-                showAdminMenu(); // Nếu admin đã đăng nhập, hiển thị menu của admin
-            } else {
-                showTopLevelMenu(); // Nếu không ai đăng nhập, hiển thị menu lựa chọn portal
-            }
+        if (HTTP_PORT > 0) {
+            startHttpApi(HTTP_PORT);
+        }
+        if (WIRE_PORT > 0) {
+            startWireServer(WIRE_PORT);
+        }
+        if (SERVER_PORT > 0) {
+            startServer(SERVER_PORT);
+        }
+        if (SERVER_PORT > 0 || HTTP_PORT > 0 || WIRE_PORT > 0) {
+            return; // Luồng nhận kết nối giữ ứng dụng chạy cho đến khi bị dừng (Ctrl+C)
         }
 
-        // Dòng này có thể sẽ không bao giờ được gọi vì vòng lặp là vô hạn
-        // và việc thoát được xử lý bằng System.exit(0) hoặc shutdown hook.
+        newSession().run();
         ConsoleUtils.closeScanner();
-        ConsoleUtils.printInfo("Thank you for using the Banking Application!");
+        System.exit(0); // Chạy shutdown hook để lưu dữ liệu
     }
 
     /**
-     * Lưu trạng thái hiện tại của ứng dụng (danh sách người dùng) vào một tệp.
+     * Tạo một phiên menu mới dùng chung các controller của ứng dụng.
      */
-    private static void saveData() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(DATA_FILE))) {
-            oos.writeObject(bank);
-        } catch (IOException e) {
-            ConsoleUtils.printError("A critical error occurred while saving data: " + e.getMessage());
-        }
+    private static BankSession newSession() {
+        return new BankSession(authController, accountController, transactionController, adminController);
     }
 
     /**
-     * Tải trạng thái ứng dụng từ tệp.
+     * Mở máy chủ TCP chỉ nghe trên địa chỉ loopback; mỗi kết nối chạy một {@link BankSession}
+     * trên virtual thread của nó, đọc và ghi qua socket thay cho bàn phím và màn hình.
      */
-    @SuppressWarnings("unchecked")
-    private static void loadData() {
-        File file = new File(DATA_FILE);
-        if (file.exists()) {
-            try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(DATA_FILE))) {
-                Object obj = ois.readObject();
-                if (obj instanceof Bank) {
-                    bank = (Bank) obj;
-                    // Re-initialize services with the loaded bank data
-                    authService.setBank(bank);
-                    transactionService.setBank(bank);
-                    adminController.setBank(bank);
-                    ConsoleUtils.printSuccess("Successfully loaded application data from " + DATA_FILE);
-                }
-            } catch (IOException | ClassNotFoundException e) {
-                ConsoleUtils.printError("Could not load data from file: " + e.getMessage());
+    private static void startServer(int port) {
+        ConsoleUtils.routeSystemOut();
+        server = new BankServer(InetAddress.getLoopbackAddress(), port, (in, out) -> {
+            ConsoleUtils.bindSession(in, out);
+            try {
+                newSession().run();
+            } finally {
+                ConsoleUtils.unbindSession();
             }
-        } else {
-            ConsoleUtils.printInfo("Data file not found. Starting a new session.");
-        }
-    }
-
-    private static void showTopLevelMenu() {
-        ConsoleUtils.printHeader("WELCOME TO THE BANKING APPLICATION");
-        int choice = ConsoleUtils.readMenuChoice("User Portal", "Admin Portal", "Exit");
-
-        switch (choice) {
-            case 0: // User Portal
-                handleUserPortal();
-                break;
-            case 1: // Admin Portal
-                handleAdminPortal();
-                break;
-            case 2: // Exit
-                System.exit(0);
-                break;
-            default:
-                ConsoleUtils.printError("Invalid choice. Please try again.");
-                break;
+        });
+        try {
+            server.start();
+            ConsoleUtils.printSuccess("Listening for sessions on " + InetAddress.getLoopbackAddress().getHostAddress()
+                    + ":" + server.getPort());
+        } catch (IOException e) {
+            ConsoleUtils.printError("Could not start server on port " + port + ": " + e.getMessage());
+            System.exit(1);
         }
     }
 
-    private static void handleUserPortal() {
-        if (currentUser == null) {
-            showAuthMenu();
-        } else {
-            showMainMenu();
+    /**
+     * Mở API HTTP/JSON chỉ nghe trên địa chỉ loopback, dùng chung các service với menu.
+     */
+    private static void startHttpApi(int port) {
+        httpApi = new BankHttpApi(InetAddress.getLoopbackAddress(), port, authService, accountService,
+                transactionService);
+        try {
+            httpApi.start();
+            ConsoleUtils.printSuccess("HTTP API listening on http://" + InetAddress.getLoopbackAddress().getHostAddress()
+                    + ":" + httpApi.getPort() + "/api/");
+        } catch (IOException e) {
+            ConsoleUtils.printError("Could not start HTTP API on port " + port + ": " + e.getMessage());
+            System.exit(1);
         }
     }
 
-    private static void showAuthMenu() {
-        ConsoleUtils.printSubHeader("AUTHENTICATION MENU");
-        int choice = ConsoleUtils.readMenuChoice("Login", "Register", "Exit");
-
-        switch (choice) {
-            case 0: // Login
-                currentUser = authController.handleLogin();
-                if (currentUser != null) {
-                    ConsoleUtils.printSuccess("Login successful! Welcome, " + currentUser.getFullName());
-                }
-                break;
-            case 1: // Register
-                currentUser = authController.handleRegistration();
-                if (currentUser != null) {
-                    ConsoleUtils.printSuccess("Auto-login successful! Welcome, " + currentUser.getFullName());
-                }
-                break;
-            case 2: // Exit to top-level menu
-                System.exit(0);
-                break;
-            default:
-                ConsoleUtils.printError("Invalid choice. Please try again.");
-                break;
+    /**
+     * Mở máy chủ giao thức nhị phân chỉ nghe trên địa chỉ loopback, với một event loop cho mỗi
+     * nhân CPU.
+     */
+    private static void startWireServer(int port) {
+        wireServer = new WireServer(InetAddress.getLoopbackAddress(), port,
+                Runtime.getRuntime().availableProcessors(), authService, transactionService);
+        try {
+            wireServer.start();
+            ConsoleUtils.printSuccess("Binary protocol listening on " + InetAddress.getLoopbackAddress().getHostAddress()
+                    + ":" + wireServer.getPort());
+        } catch (IOException e) {
+            ConsoleUtils.printError("Could not start binary protocol on port " + port + ": " + e.getMessage());
+            System.exit(1);
         }
     }
 
-    private static void showMainMenu() {
-        ConsoleUtils.printHeader("MAIN MENU | Logged in as: " + currentUser.getUsername());
-        int choice = ConsoleUtils.readMenuChoice(
-            "View My Accounts",
-            "Open New Account",
-            "Perform a Transaction",
-            "View Transaction History",
-            "Logout"
-        );
-
-        switch (choice) {
-            case 0: // View My Accounts
-                accountController.displayUserAccounts(currentUser);
-                ConsoleUtils.pause();
-                break;
-            case 1: // Open New Account
-                showOpenAccountMenu();
-                break;
-            case 2: // Perform a Transaction
-                showTransactionMenu();
-                break;
-            case 3: // View Transaction History
-                Account accForHistory = accountController.selectAccount(currentUser);
-                if (accForHistory != null) {
-                    transactionController.displayTransactionHistory(accForHistory);
-                }
-                ConsoleUtils.pause();
-                break;
-            case 4: // Logout
-                currentUser = null;
-                ConsoleUtils.printInfo("You have been logged out.");
-                break;
-            default:
-                ConsoleUtils.printError("Invalid choice. Please try again.");
-                break;
+    /**
+     * Tải trạng thái ứng dụng: checkpoint mới nhất cộng với phần journal ghi sau nó.
+     * Nếu chưa có checkpoint thì nhập dữ liệu từ các tệp của phiên bản cũ.
+     */
+    private static void loadData() {
+        File snapshotFile = new File(SNAPSHOT_FILE);
+        File legacySnapshot = snapshotFile.exists() ? snapshotFile : new File(LEGACY_DATA_FILE);
+        try {
+            setBank(store.load(legacySnapshot, new File(LEGACY_JOURNAL_FILE)));
+            ConsoleUtils.printSuccess("Successfully loaded application data from " + DATA_DIRECTORY);
+        } catch (IOException e) {
+            // Không khởi động với Bank rỗng: checkpoint kế tiếp sẽ ghi đè dữ liệu cũ
+            ConsoleUtils.printError("Could not load data from file: " + e.getMessage());
+            ConsoleUtils.printError("Data in " + DATA_DIRECTORY + " was left untouched. Please check it and restart.");
+            System.exit(1);
         }
-    }
 
-    private static void showOpenAccountMenu() {
-        ConsoleUtils.printSubHeader("OPEN NEW ACCOUNT");
-        int choice = ConsoleUtils.readMenuChoice("Open Checking Account", "Open Savings Account", "Back to Main Menu");
+        markHotAccounts(System.getProperty("bank.hotAccounts", ""));
 
-        switch (choice) {
-            case 0:
-                accountController.handleOpenCheckingAccount(currentUser);
-                break;
-            case 1:
-                accountController.handleOpenSavingsAccount(currentUser);
-                break;
-            case 2:
-                return; // Go back
-            default:
-                ConsoleUtils.printError("Invalid choice.");
-                break;
+        try {
+            store.start(bank);
+            transactionService.setDurabilityBarrier(store.getDurabilityBarrier());
+            importService.setDurabilityBarrier(store.getDurabilityBarrier());
+        } catch (IOException e) {
+            // Không chạy tiếp khi không có journal: mọi thay đổi sau đó sẽ mất khi tắt máy
+            ConsoleUtils.printError("Could not open journal in " + DATA_DIRECTORY + ": " + e.getMessage());
+            ConsoleUtils.printError("No changes can be saved. Please check " + DATA_DIRECTORY + " and restart.");
+            System.exit(1);
         }
-        ConsoleUtils.pause();
-    }
 
-    private static void showTransactionMenu() {
-        ConsoleUtils.printSubHeader("PERFORM A TRANSACTION");
-        Account selectedAccount = accountController.selectAccount(currentUser);
-        if (selectedAccount == null) {
-            ConsoleUtils.pause();
-            return;
+        if (engine != null) {
+            engine.start();
+            transactionService.setEngine(engine);
         }
-
-        int choice = ConsoleUtils.readMenuChoice("Deposit", "Withdraw", "Transfer", "Back to Main Menu");
-
-        switch (choice) {
-            case 0: // Deposit
-                transactionController.handleDeposit(selectedAccount);
-                break;
-            case 1: // Withdraw
-                transactionController.handleWithdraw(selectedAccount);
-                break;
-            case 2: // Transfer
-                transactionController.handleTransfer(selectedAccount, currentUser);
-                break;
-            case 3: // Back
-                return;
-            default:
-                ConsoleUtils.printError("Invalid choice.");
-                break;
+        // Các lệnh bất đồng bộ chạy trên virtual thread (-Dbank.asyncExecutor=virtual)
+        if ("virtual".equalsIgnoreCase(System.getProperty("bank.asyncExecutor", ""))) {
+            transactionService.setAsyncExecutor(Executors.newVirtualThreadPerTaskExecutor());
         }
-        ConsoleUtils.pause();
     }
 
-    private static void handleAdminPortal() {
-        if (currentAdmin == null) {
-            showAdminAuthMenu();
-        } else {
-            showAdminMenu();
+    /**
+     * Tạo engine chạy giao dịch: "sequencer" chạy mọi giao dịch trên một luồng duy nhất,
+     * "partitioned" chia tài khoản cho -Dbank.partitions luồng (mặc định bằng số lõi CPU).
+     */
+    private static TransactionEngine createEngine(String name) {
+        switch (name.trim().toLowerCase()) {
+            case "":
+                return null;
+            case "sequencer":
+                return new LedgerSequencer(transactionService, LedgerSequencer.DEFAULT_CAPACITY);
+            case "partitioned":
+                return new PartitionedEngine(transactionService,
+                        Integer.getInteger("bank.partitions", Runtime.getRuntime().availableProcessors()));
+            default:
+                ConsoleUtils.printError("Unknown transaction engine: " + name + ". Using the default.");
+                return null;
         }
     }
 
-    private static void showAdminAuthMenu() {
-        ConsoleUtils.printSubHeader("ADMIN PORTAL");
-        int choice = ConsoleUtils.readMenuChoice("Admin Login", "Register Admin", "Back");
-
-        switch (choice) {
-            case 0: // Admin Login
-                currentAdmin = adminController.handleAdminLogin();
-                break;
-            case 1: // Register Admin
-                adminController.handleAdminRegistration();
-                break;
-            case 2: // Back
-                return;
-            default:
-                ConsoleUtils.printError("Invalid choice.");
-                break;
+    /**
+     * Bật chế độ tài khoản nóng (ghi có không chờ khóa) cho các tài khoản nhận nhiều khoản nạp
+     * đồng thời, ví dụ -Dbank.hotAccounts=ACC123456,ACC654321.
+     */
+    private static void markHotAccounts(String accountNumbers) {
+        for (String accountNumber : accountNumbers.split(",")) {
+            Account account = bank.findAccountByNumber(accountNumber.trim());
+            if (account != null) {
+                account.setHotAccount(true);
+            } else if (!accountNumber.trim().isEmpty()) {
+                ConsoleUtils.printError("Hot account not found: " + accountNumber.trim());
+            }
         }
     }
 
-    private static void showAdminMenu() {
-        ConsoleUtils.printHeader("ADMIN MENU | Logged in as: " + currentAdmin.getUsername());
-        int choice = ConsoleUtils.readMenuChoice(
-            "View All Users", "View All Accounts", "Reset System Data", "Logout"
-        );
-
-        if (choice == 0) adminController.handleViewAllUsers();
-        else if (choice == 1) adminController.handleViewAllAccounts();
-        else if (choice == 2) adminController.handleResetSystem();
-        else if (choice == 3) currentAdmin = null;
-        else ConsoleUtils.printError("Invalid choice.");
-        ConsoleUtils.pause();
+    /**
+     * Thay thế đối tượng Bank và cập nhật lại các service/controller đang dùng nó.
+     */
+    private static void setBank(Bank loadedBank) {
+        bank = loadedBank;
+        authService.setBank(bank);
+        accountService.setBank(bank);
+        transactionService.setBank(bank);
+        importService.setBank(bank);
+        adminController.setBank(bank);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,249 @@
+package com.bankapp;
+
+import com.bankapp.controllers.AccountController;
+import com.bankapp.controllers.AdminController;
+import com.bankapp.controllers.AuthController;
+import com.bankapp.controllers.TransactionController;
+import com.bankapp.model.Account;
+import com.bankapp.model.Admin;
+import com.bankapp.model.User;
+import com.bankapp.utils.ConsoleUtils;
+
+/**
+ * BankSession - Một phiên làm việc của người dùng với hệ thống menu.
+ * Mỗi phiên giữ người dùng/admin đang đăng nhập của riêng nó, còn các controller và Bank được
+ * dùng chung, nên nhiều phiên có thể chạy cùng lúc (mỗi phiên trên một luồng, đọc và ghi qua
+ * luồng vào/ra mà {@link ConsoleUtils} gắn cho luồng đó).
+ */
+public class BankSession implements Runnable {
+    private final AuthController authController;
+    private final AccountController accountController;
+    private final TransactionController transactionController;
+    private final AdminController adminController;
+
+    // --- Trạng thái của phiên ---
+    private User currentUser = null;
+    private Admin currentAdmin = null;
+    private boolean running = true;
+
+    public BankSession(AuthController authController, AccountController accountController,
+                       TransactionController transactionController, AdminController adminController) {
+        this.authController = authController;
+        this.accountController = accountController;
+        this.transactionController = transactionController;
+        this.adminController = adminController;
+    }
+
+    /**
+     * Chạy vòng lặp menu cho đến khi người dùng chọn Exit.
+     */
+    @Override
+    public void run() {
+        ConsoleUtils.printHeader("WELCOME TO THE BANKING APPLICATION");
+
+        while (running) {
+            if (currentUser != null) {
+                showMainMenu(); // Nếu người dùng đã đăng nhập, hiển thị menu chính của người dùng
+            } else if (currentAdmin != null) {
+                showAdminMenu(); // Nếu admin đã đăng nhập, hiển thị menu của admin
+            } else {
+                showTopLevelMenu(); // Nếu không ai đăng nhập, hiển thị menu lựa chọn portal
+            }
+        }
+        ConsoleUtils.printInfo("Thank you for using the Banking Application!");
+    }
+
+    private void showTopLevelMenu() {
+        ConsoleUtils.printHeader("WELCOME TO THE BANKING APPLICATION");
+        int choice = ConsoleUtils.readMenuChoice("User Portal", "Admin Portal", "Exit");
+
+        switch (choice) {
+            case 0: // User Portal
+                handleUserPortal();
+                break;
+            case 1: // Admin Portal
+                handleAdminPortal();
+                break;
+            case 2: // Exit
+                running = false;
+                break;
+            default:
+                ConsoleUtils.printError("Invalid choice. Please try again.");
+                break;
+        }
+    }
+
+    private void handleUserPortal() {
+        if (currentUser == null) {
+            showAuthMenu();
+        } else {
+            showMainMenu();
+        }
+    }
+
+    private void showAuthMenu() {
+        ConsoleUtils.printSubHeader("AUTHENTICATION MENU");
+        int choice = ConsoleUtils.readMenuChoice("Login", "Register", "Exit");
+
+        switch (choice) {
+            case 0: // Login
+                currentUser = authController.handleLogin();
+                if (currentUser != null) {
+                    ConsoleUtils.printSuccess("Login successful! Welcome, " + currentUser.getFullName());
+                }
+                break;
+            case 1: // Register
+                currentUser = authController.handleRegistration();
+                if (currentUser != null) {
+                    ConsoleUtils.printSuccess("Auto-login successful! Welcome, " + currentUser.getFullName());
+                }
+                break;
+            case 2: // Exit
+                running = false;
+                break;
+            default:
+                ConsoleUtils.printError("Invalid choice. Please try again.");
+                break;
+        }
+    }
+
+    private void showMainMenu() {
+        ConsoleUtils.printHeader("MAIN MENU | Logged in as: " + currentUser.getUsername());
+        int choice = ConsoleUtils.readMenuChoice(
+            "View My Accounts",
+            "Open New Account",
+            "Perform a Transaction",
+            "View Transaction History",
+            "View Monthly Statement",
+            "Logout"
+        );
+
+        switch (choice) {
+            case 0: // View My Accounts
+                accountController.displayUserAccounts(currentUser);
+                ConsoleUtils.pause();
+                break;
+            case 1: // Open New Account
+                showOpenAccountMenu();
+                break;
+            case 2: // Perform a Transaction
+                showTransactionMenu();
+                break;
+            case 3: // View Transaction History
+                Account accForHistory = accountController.selectAccount(currentUser);
+                if (accForHistory != null) {
+                    transactionController.displayTransactionHistory(accForHistory);
+                }
+                ConsoleUtils.pause();
+                break;
+            case 4: // View Monthly Statement
+                Account accForStatement = accountController.selectAccount(currentUser);
+                if (accForStatement != null) {
+                    transactionController.displayMonthlyStatement(accForStatement);
+                }
+                ConsoleUtils.pause();
+                break;
+            case 5: // Logout
+                currentUser = null;
+                ConsoleUtils.printInfo("You have been logged out.");
+                break;
+            default:
+                ConsoleUtils.printError("Invalid choice. Please try again.");
+                break;
+        }
+    }
+
+    private void showOpenAccountMenu() {
+        ConsoleUtils.printSubHeader("OPEN NEW ACCOUNT");
+        int choice = ConsoleUtils.readMenuChoice("Open Checking Account", "Open Savings Account", "Back to Main Menu");
+
+        switch (choice) {
+            case 0:
+                accountController.handleOpenCheckingAccount(currentUser);
+                break;
+            case 1:
+                accountController.handleOpenSavingsAccount(currentUser);
+                break;
+            case 2:
+                return; // Go back
+            default:
+                ConsoleUtils.printError("Invalid choice.");
+                break;
+        }
+        ConsoleUtils.pause();
+    }
+
+    private void showTransactionMenu() {
+        ConsoleUtils.printSubHeader("PERFORM A TRANSACTION");
+        Account selectedAccount = accountController.selectAccount(currentUser);
+        if (selectedAccount == null) {
+            ConsoleUtils.pause();
+            return;
+        }
+
+        int choice = ConsoleUtils.readMenuChoice("Deposit", "Withdraw", "Transfer", "Back to Main Menu");
+
+        switch (choice) {
+            case 0: // Deposit
+                transactionController.handleDeposit(selectedAccount);
+                break;
+            case 1: // Withdraw
+                transactionController.handleWithdraw(selectedAccount);
+                break;
+            case 2: // Transfer
+                transactionController.handleTransfer(selectedAccount, currentUser);
+                break;
+            case 3: // Back
+                return;
+            default:
+                ConsoleUtils.printError("Invalid choice.");
+                break;
+        }
+        ConsoleUtils.pause();
+    }
+
+    private void handleAdminPortal() {
+        if (currentAdmin == null) {
+            showAdminAuthMenu();
+        } else {
+            showAdminMenu();
+        }
+    }
+
+    private void showAdminAuthMenu() {
+        ConsoleUtils.printSubHeader("ADMIN PORTAL");
+        int choice = ConsoleUtils.readMenuChoice("Admin Login", "Register Admin", "Back");
+
+        switch (choice) {
+            case 0: // Admin Login
+                currentAdmin = adminController.handleAdminLogin();
+                break;
+            case 1: // Register Admin
+                adminController.handleAdminRegistration();
+                break;
+            case 2: // Back
+                return;
+            default:
+                ConsoleUtils.printError("Invalid choice.");
+                break;
+        }
+    }
+
+    private void showAdminMenu() {
+        ConsoleUtils.printHeader("ADMIN MENU | Logged in as: " + currentAdmin.getUsername());
+        int choice = ConsoleUtils.readMenuChoice(
+            "View All Users", "Search Users", "View All Accounts", "Find Transaction by ID",
+            "Import Customers from CSV", "Reset System Data", "Logout"
+        );
+
+        if (choice == 0) adminController.handleViewAllUsers();
+        else if (choice == 1) adminController.handleSearchUsers();
+        else if (choice == 2) adminController.handleViewAllAccounts();
+        else if (choice == 3) adminController.handleFindTransaction();
+        else if (choice == 4) adminController.handleImportCustomers();
+        else if (choice == 5) running = !adminController.handleResetSystem(); // Dữ liệu đã bị xóa: kết thúc phiên
+        else if (choice == 6) currentAdmin = null;
+        else ConsoleUtils.printError("Invalid choice.");
+        ConsoleUtils.pause();
+    }
+}
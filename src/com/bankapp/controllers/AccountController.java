@@ -59,14 +59,14 @@ public class AccountController {
         ConsoleUtils.printHeader("OPEN CHECKING ACCOUNT");
 
         // Get initial balance
-        double initialBalance = ConsoleUtils.readDouble("Enter initial deposit amount: $");
+        long initialBalance = ConsoleUtils.readAmount("Enter initial deposit amount: $");
         if (initialBalance < 0 || !InputValidator.isValidAmount(initialBalance)) {
             ConsoleUtils.printError("Invalid amount");
             return null;
         }
 
         // Get overdraft limit
-        double overdraftLimit = ConsoleUtils.readDouble("Enter overdraft limit (optional, press 0 for none): $");
+        long overdraftLimit = ConsoleUtils.readAmount("Enter overdraft limit (optional, press 0 for none): $");
         if (overdraftLimit < 0) {
             ConsoleUtils.printError("Invalid overdraft limit");
             return null;
@@ -95,7 +95,7 @@ public class AccountController {
         ConsoleUtils.printHeader("OPEN SAVINGS ACCOUNT");
 
         // Get initial balance
-        double initialBalance = ConsoleUtils.readDouble("Enter initial deposit amount: $");
+        long initialBalance = ConsoleUtils.readAmount("Enter initial deposit amount: $");
         if (initialBalance < 0 || !InputValidator.isValidAmount(initialBalance)) {
             ConsoleUtils.printError("Invalid amount");
             return null;
@@ -170,7 +170,7 @@ public class AccountController {
         System.out.println("Account Type: " + account.getAccountType());
         System.out.println("Balance: " + ConsoleUtils.formatAmount(account.getBalance()));
         System.out.println("Status: " + (account.isActive() ? "Active" : "Inactive"));
-        System.out.println("Total Transactions: " + account.getTransactions().size());
+        System.out.println("Total Transactions: " + account.getTransactionCount());
 
         if (account instanceof SavingsAccount) {
             SavingsAccount sa = (SavingsAccount) account;
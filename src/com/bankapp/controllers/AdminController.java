@@ -1,18 +1,29 @@
 package com.bankapp.controllers;
 
+import com.bankapp.data.UserSearchIndex;
+import com.bankapp.model.Account;
 import com.bankapp.model.Admin;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.User;
 import com.bankapp.service.Bank;
+import com.bankapp.services.ImportReport;
+import com.bankapp.services.ImportService;
 import com.bankapp.utils.ConsoleUtils;
 import com.bankapp.utils.IDGenerator;
 import com.bankapp.utils.InputValidator;
 import com.bankapp.utils.PasswordHasher;
 import java.io.File;
+import java.io.IOException;
 
 public class AdminController {
+    private static final int SEARCH_PAGE_SIZE = 20;
+
     private Bank bank;
+    private final ImportService importService;
 
-    public AdminController(Bank bank) {
+    public AdminController(Bank bank, ImportService importService) {
         this.bank = bank;
+        this.importService = importService;
     }
 
     public void setBank(Bank bank) {
@@ -57,14 +68,97 @@ public class AdminController {
     }
 
     public void handleViewAllUsers() {
-        bank.getAllUsers().forEach(System.out::println);
+        bank.forEachUser(System.out::println);
     }
 
     public void handleViewAllAccounts() {
-        bank.getAllAccounts().forEach(System.out::println);
+        bank.forEachAccount(System.out::println);
+    }
+
+    public void handleSearchUsers() {
+        ConsoleUtils.printSubHeader("SEARCH USERS");
+        int choice = ConsoleUtils.readMenuChoice("By Username", "By Full Name", "By Email");
+        if (choice < 0 || choice > 2) {
+            ConsoleUtils.printError("Invalid choice.");
+            return;
+        }
+        UserSearchIndex.Field field = UserSearchIndex.Field.values()[choice];
+        String prefix = ConsoleUtils.readString("Enter search prefix: ");
+
+        String cursor = null;
+        int shown = 0;
+        while (true) {
+            UserSearchIndex.Page page = bank.getUserRepository().search(field, prefix, cursor, SEARCH_PAGE_SIZE);
+            if (shown == 0 && page.getUsers().isEmpty()) {
+                ConsoleUtils.printInfo("No users found.");
+                return;
+            }
+            // Only the indexed fields are printed: User.toString() would sum every account balance
+            for (User user : page.getUsers()) {
+                System.out.printf("%-12s %-20s %-25s %s%n",
+                        user.getUserId(), user.getUsername(), user.getFullName(), user.getEmail());
+            }
+            shown += page.getUsers().size();
+            if (!page.hasMore()) {
+                ConsoleUtils.printInfo(shown + " user(s) found.");
+                return;
+            }
+            String more = ConsoleUtils.readString(shown + " user(s) shown. Show next page? (y/n): ");
+            if (!more.equalsIgnoreCase("y")) {
+                return;
+            }
+            cursor = page.getNextCursor();
+        }
+    }
+
+    public void handleFindTransaction() {
+        String transactionId = ConsoleUtils.readString("Enter transaction ID: ");
+        Account account = bank.findAccountByTransactionId(transactionId);
+        Transaction transaction = account == null ? null : bank.findTransactionById(transactionId);
+        if (transaction == null) {
+            ConsoleUtils.printError("Transaction not found: " + transactionId);
+            return;
+        }
+        System.out.print(transaction.getFormattedDetails());
+        System.out.println("Account: " + account);
     }
 
-    public void handleResetSystem() {
+    /**
+     * Imports users and accounts from a CSV file; rejected rows go to a file next to it.
+     */
+    public void handleImportCustomers() {
+        ConsoleUtils.printSubHeader("IMPORT CUSTOMERS FROM CSV");
+        ConsoleUtils.printInfo("Expected header: " + ImportService.HEADER);
+        String path = ConsoleUtils.readString("Enter CSV file path: ");
+        File csvFile = new File(path);
+        if (!csvFile.isFile()) {
+            ConsoleUtils.printError("File not found: " + path);
+            return;
+        }
+        String name = csvFile.getName();
+        String baseName = name.toLowerCase().endsWith(".csv") ? name.substring(0, name.length() - 4) : name;
+        File rejectFile = new File(csvFile.getAbsoluteFile().getParentFile(), baseName + ".rejects.csv");
+
+        try {
+            ImportReport report = importService.importCustomers(csvFile, rejectFile);
+            ConsoleUtils.printSuccess("Import finished: " + report);
+            if (report.getRowsRejected() > 0) {
+                ConsoleUtils.printWarning("Rejected rows written to " + rejectFile.getPath());
+            }
+            if (!report.isDurable()) {
+                ConsoleUtils.printWarning("The imported data could not be saved to disk.");
+            }
+        } catch (IOException e) {
+            ConsoleUtils.printError("Import failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes every user, account and the admin after the admin confirms.
+     *
+     * @return true if the data was reset, after which the caller should end the session
+     */
+    public boolean handleResetSystem() {
         ConsoleUtils.printWarning("!!! WARNING !!!");
         ConsoleUtils.printWarning("This action will delete ALL users, accounts, and admin data.");
         ConsoleUtils.printWarning("This is irreversible.");
@@ -74,16 +168,18 @@ public class AdminController {
             // 1. Reset the in-memory bank object
             bank.reset();
 
-            // 2. Delete the data file
-            File dataFile = new File("bank_data.dat");
-            if (dataFile.exists()) {
-                dataFile.delete();
+            // 2. Delete data files left over from older storage layouts
+            for (String fileName : new String[] {"bank_data.bin", "bank_data.dat", "bank_journal.log"}) {
+                File dataFile = new File(fileName);
+                if (dataFile.exists()) {
+                    dataFile.delete();
+                }
             }
 
-            ConsoleUtils.printSuccess("System data has been reset. The application will now exit.");
-            System.exit(0);
-        } else {
-            ConsoleUtils.printInfo("System reset cancelled.");
+            ConsoleUtils.printSuccess("System data has been reset. The session will now end.");
+            return true;
         }
+        ConsoleUtils.printInfo("System reset cancelled.");
+        return false;
     }
 }
\ No newline at end of file
@@ -6,6 +6,9 @@ import com.bankapp.model.User;
 import com.bankapp.services.TransactionService;
 import com.bankapp.utils.ConsoleUtils;
 import com.bankapp.utils.InputValidator;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
 /**
@@ -36,7 +39,7 @@ public class TransactionController {
                 " (" + account.getAccountType() + ")");
 
         // Get amount
-        double amount = ConsoleUtils.readDouble("Enter deposit amount: $");
+        long amount = ConsoleUtils.readAmount("Enter deposit amount: $");
         if (!InputValidator.isValidAmount(amount)) {
             ConsoleUtils.printError("Invalid amount");
             return false;
@@ -72,7 +75,7 @@ public class TransactionController {
         ConsoleUtils.printInfo("Current Balance: " + ConsoleUtils.formatAmount(account.getBalance()));
 
         // Get amount
-        double amount = ConsoleUtils.readDouble("Enter withdrawal amount: $");
+        long amount = ConsoleUtils.readAmount("Enter withdrawal amount: $");
         if (!InputValidator.isValidAmount(amount)) {
             ConsoleUtils.printError("Invalid amount");
             return false;
@@ -122,7 +125,7 @@ public class TransactionController {
         }
 
         // Get amount
-        double amount = ConsoleUtils.readDouble("Enter transfer amount: $");
+        long amount = ConsoleUtils.readAmount("Enter transfer amount: $");
         if (!InputValidator.isValidAmount(amount)) {
             ConsoleUtils.printError("Invalid amount");
             return false;
@@ -174,6 +177,38 @@ public class TransactionController {
         }
     }
 
+    /**
+     * Displays the transactions of one calendar month for an account.
+     *
+     * @param account Account to display the statement for
+     */
+    public void displayMonthlyStatement(Account account) {
+        ConsoleUtils.printSubHeader("MONTHLY STATEMENT");
+        String input = ConsoleUtils.readString("Enter month (yyyy-MM): ");
+        YearMonth month;
+        try {
+            month = YearMonth.parse(input.trim());
+        } catch (DateTimeParseException e) {
+            ConsoleUtils.printError("Invalid month format. Use yyyy-MM.");
+            return;
+        }
+        ZoneId zone = ZoneId.systemDefault();
+        long from = month.atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        long to = month.plusMonths(1).atDay(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        ConsoleUtils.printInfo("Account: " + account.getAccountNumber() + " | Month: " + month);
+
+        List<Transaction> transactions = transactionService.getTransactions(account.getAccountNumber(), from, to, Integer.MAX_VALUE);
+        if (transactions.isEmpty()) {
+            ConsoleUtils.printInfo("No transactions found");
+            return;
+        }
+
+        System.out.println();
+        for (Transaction txn : transactions) {
+            System.out.println(txn.toString());
+        }
+    }
+
     /**
      * Displays detailed information about a specific transaction.
      *
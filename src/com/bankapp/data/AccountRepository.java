@@ -1,18 +1,22 @@
 package com.bankapp.data;
 
 import com.bankapp.model.Account;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * AccountRepository - Data access object for Account entities.
  * Handles account storage and retrieval operations.
+ * Accounts are indexed by account number in a concurrent map, so lookups never lock.
  */
 public class AccountRepository {
-    private Map<String, Account> accounts; // accountNumber -> Account
+    private final Map<String, Account> accounts; // accountNumber -> Account
 
     public AccountRepository() {
-        this.accounts = new HashMap<>();
+        this.accounts = new ConcurrentHashMap<>();
     }
 
     /**
@@ -22,11 +26,7 @@ public class AccountRepository {
      * @return true if saved successfully, false if account already exists
      */
     public boolean save(Account account) {
-        if (account == null || accounts.containsKey(account.getAccountNumber())) {
-            return false;
-        }
-        accounts.put(account.getAccountNumber(), account);
-        return true;
+        return account != null && accounts.putIfAbsent(account.getAccountNumber(), account) == null;
     }
 
     /**
@@ -36,7 +36,7 @@ public class AccountRepository {
      * @return Account object if found, null otherwise
      */
     public Account findByAccountNumber(String accountNumber) {
-        return accounts.get(accountNumber);
+        return accountNumber == null ? null : accounts.get(accountNumber);
     }
 
     /**
@@ -46,11 +46,7 @@ public class AccountRepository {
      * @return true if updated successfully, false if account not found
      */
     public boolean update(Account account) {
-        if (account == null || !accounts.containsKey(account.getAccountNumber())) {
-            return false;
-        }
-        accounts.put(account.getAccountNumber(), account);
-        return true;
+        return account != null && accounts.replace(account.getAccountNumber(), account) != null;
     }
 
     /**
@@ -60,7 +56,7 @@ public class AccountRepository {
      * @return true if deleted successfully, false if account not found
      */
     public boolean delete(String accountNumber) {
-        return accounts.remove(accountNumber) != null;
+        return accountNumber != null && accounts.remove(accountNumber) != null;
     }
 
     /**
@@ -70,7 +66,26 @@ public class AccountRepository {
      * @return true if account exists, false otherwise
      */
     public boolean exists(String accountNumber) {
-        return accounts.containsKey(accountNumber);
+        return accountNumber != null && accounts.containsKey(accountNumber);
+    }
+
+    /**
+     * Visits every account without copying the collection.
+     * Accounts added or removed concurrently may or may not be visited.
+     *
+     * @param action Action to run for each account
+     */
+    public void forEach(Consumer<? super Account> action) {
+        accounts.values().forEach(action);
+    }
+
+    /**
+     * Gets a copy of all accounts.
+     *
+     * @return List of accounts
+     */
+    public List<Account> findAll() {
+        return new ArrayList<>(accounts.values());
     }
 
     /**
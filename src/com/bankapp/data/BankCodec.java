@@ -0,0 +1,734 @@
+package com.bankapp.data;
+
+import com.bankapp.data.BankSnapshot.UserSnapshot;
+import com.bankapp.model.AccountSnapshot;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.TransactionPages;
+import com.bankapp.service.Bank;
+import com.bankapp.utils.IdHashIndex;
+import com.bankapp.utils.Money;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * BankCodec - Hand-written, versioned binary format for the whole Bank.
+ * Replaces default Java serialization: no class descriptors, no reflection over the
+ * Account.owner / User.accounts cycle, repeated strings (transaction types, statuses,
+ * account numbers, descriptions) are written once in a string table and referenced by
+ * index, and counts, timestamps (as deltas) and amounts in cents are written as varints.
+ *
+ * Layout (version 2):
+ * <pre>
+ *   int magic, byte version
+ *   varint stringCount, string[stringCount]
+ *   bool hasAdmin, [admin user fields]
+ *   varint userCount, user[userCount]
+ *     user: userId, username, passwordHash, fullName, email, varlong createdAt,
+ *           varint accountCount, account[accountCount]
+ *     account: byte kind, ref accountNumber, zigzag balance, bool active,
+ *              (varlong overdraftLimit | double interestRate), varint withdrawals,
+ *              [varlong penalty], varint txnCount, txn[txnCount]
+ *     txn: transactionId, ref? from, ref? to, varlong amount, ref type, ref description,
+ *          zigzag timestamp delta, ref status
+ * </pre>
+ * Version 1 held balance, overdraft limit or rate, penalty and amounts as doubles in dollars;
+ * it is still read, converting each amount to the nearest cent.
+ * A shard file ("BNKS", version 4) keeps transaction history out of the user section so
+ * that loading only touches users, accounts, balances and transaction-ID hashes:
+ * <pre>
+ *   int magic, byte version
+ *   page*            (each: varint stringCount, string[stringCount], txn[count])
+ *   varint stringCount, string[stringCount]
+ *   varint userCount, user[userCount]
+ *     account: ... as above, but instead of transactions:
+ *              varint pageCount, varlong firstPageOffset, (varint count, varint byteLength)[pageCount],
+ *              long idHash[txnCount]   (absent in version 2)
+ *   long userSectionOffset
+ * </pre>
+ * Shard versions 2 and 3 hold amounts as doubles, as in version 1 above.
+ * Pages hold at most {@link #PAGE_SIZE} transactions and are read on demand through
+ * {@link ShardTransactionPages}. When a shard is rewritten, pages already on disk are copied
+ * over byte for byte; only the last, partly filled page is decoded and merged with the new
+ * transactions.
+ */
+public class BankCodec {
+    public static final int MAGIC = 0x424E4B31; // "BNK1"
+    public static final int SHARD_MAGIC = 0x424E4B53; // "BNKS"
+    public static final int VERSION = 2;
+    public static final int SHARD_VERSION = 4;
+    private static final int VERSION_DOUBLE_AMOUNTS = 1;
+    private static final int SHARD_VERSION_DOUBLE_AMOUNTS = 3;
+    private static final int SHARD_VERSION_WITHOUT_HASHES = 2;
+    public static final int PAGE_SIZE = 256;
+
+    private static final byte KIND_CHECKING = 1;
+    private static final byte KIND_SAVINGS = 2;
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Writes the bank to a stream.
+     *
+     * @param bank Bank to encode
+     * @param stream Destination (not closed)
+     * @throws IOException if writing fails
+     */
+    public static void write(Bank bank, OutputStream stream) throws IOException {
+        write(BankSnapshot.capture(bank), stream);
+    }
+
+    /**
+     * Writes a captured snapshot to a stream.
+     *
+     * @param snapshot Snapshot to encode
+     * @param stream Destination (not closed)
+     * @throws IOException if writing fails
+     */
+    public static void write(BankSnapshot snapshot, OutputStream stream) throws IOException {
+        StringTable table = buildTable(snapshot.getUsers());
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(stream, BUFFER_SIZE));
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        table.write(out);
+
+        UserSnapshot admin = snapshot.getAdmin();
+        out.writeBoolean(admin != null);
+        if (admin != null) {
+            writeUserFields(out, admin);
+        }
+        writeUsers(out, snapshot.getUsers(), table);
+        out.flush();
+    }
+
+    /**
+     * Reads a bank from a stream written by {@link #write(BankSnapshot, OutputStream)}.
+     *
+     * @param stream Source (not closed)
+     * @return Decoded bank
+     * @throws IOException if the data is not a valid bank image
+     */
+    public static Bank read(InputStream stream) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE));
+        boolean cents = readHeader(in, MAGIC) != VERSION_DOUBLE_AMOUNTS;
+        String[] table = StringTable.read(in);
+        UserSnapshot admin = in.readBoolean() ? readUserFields(in) : null;
+        return new BankSnapshot(admin, readUsers(in, table, cents)).restore();
+    }
+
+    /**
+     * Saves one shard (a subset of the users, with their accounts) to a file atomically
+     * (temp file + rename). Each shard carries its own string table so it can be rewritten
+     * independently.
+     *
+     * @param users Users belonging to the shard
+     * @param file Destination file
+     * @return The on-disk history of every written account, keyed by account number
+     * @throws IOException if writing fails
+     */
+    public static Map<String, TransactionPages> saveShard(List<UserSnapshot> users, File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        Map<String, TransactionPages> histories = new HashMap<>();
+        Map<File, RandomAccessFile> sources = new HashMap<>();
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(fileOut, BUFFER_SIZE));
+            DataOutputStream out = new DataOutputStream(counter);
+            out.writeInt(SHARD_MAGIC);
+            out.writeByte(SHARD_VERSION);
+
+            Map<String, long[]> offsets = new HashMap<>();
+            Map<String, int[]> starts = new HashMap<>();
+            Map<String, long[]> hashes = new HashMap<>();
+            for (UserSnapshot user : users) {
+                for (AccountSnapshot account : user.getAccounts()) {
+                    String accountNumber = account.getAccountNumber();
+                    writeHistory(out, counter, account, sources, offsets, starts, hashes);
+                    histories.put(accountNumber, new ShardTransactionPages(file,
+                            offsets.get(accountNumber), starts.get(accountNumber), hashes.get(accountNumber), true));
+                }
+            }
+
+            long userSectionOffset = counter.getCount();
+            StringTable table = new StringTable();
+            for (UserSnapshot user : users) {
+                for (AccountSnapshot account : user.getAccounts()) {
+                    table.add(account.getAccountNumber());
+                }
+            }
+            table.write(out);
+            BinaryIO.writeVarInt(out, users.size());
+            for (UserSnapshot user : users) {
+                writeUserFields(out, user);
+                BinaryIO.writeVarInt(out, user.getAccounts().size());
+                for (AccountSnapshot account : user.getAccounts()) {
+                    writeAccountFields(out, account, table);
+                    long[] pageOffsets = offsets.get(account.getAccountNumber());
+                    int[] pageStarts = starts.get(account.getAccountNumber());
+                    int pageCount = pageOffsets.length - 1;
+                    BinaryIO.writeVarInt(out, pageCount);
+                    BinaryIO.writeVarLong(out, pageOffsets[0]);
+                    for (int i = 0; i < pageCount; i++) {
+                        BinaryIO.writeVarInt(out, pageStarts[i + 1] - pageStarts[i]);
+                        BinaryIO.writeVarLong(out, pageOffsets[i + 1] - pageOffsets[i]);
+                    }
+                    for (long hash : hashes.get(account.getAccountNumber())) {
+                        out.writeLong(hash);
+                    }
+                }
+            }
+            out.writeLong(userSectionOffset);
+            out.flush();
+            fileOut.getFD().sync();
+        } finally {
+            for (RandomAccessFile source : sources.values()) {
+                source.close();
+            }
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return histories;
+    }
+
+    /**
+     * Loads one shard from a file. Transaction history is not read: every account refers to
+     * its pages in the file instead.
+     *
+     * @param file Source file
+     * @return Users of the shard
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static List<UserSnapshot> loadShard(File file) throws IOException {
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            if (raf.readInt() != SHARD_MAGIC) {
+                throw new IOException("Not a bank data file");
+            }
+            int version = raf.readUnsignedByte();
+            if (version == VERSION_DOUBLE_AMOUNTS) {
+                // Shard written before history was paged: everything is inline
+                DataInputStream in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(raf.getChannel().position(5)), BUFFER_SIZE));
+                return readUsers(in, StringTable.read(in), false);
+            }
+            if ((version != SHARD_VERSION && version != SHARD_VERSION_DOUBLE_AMOUNTS
+                    && version != SHARD_VERSION_WITHOUT_HASHES) || raf.length() < 13) {
+                throw new IOException("Unsupported bank data version: " + version);
+            }
+            raf.seek(raf.length() - 8);
+            long userSectionOffset = raf.readLong();
+            if (userSectionOffset < 5 || userSectionOffset > raf.length() - 8) {
+                throw new IOException("Malformed shard footer");
+            }
+            DataInputStream in = new DataInputStream(new BufferedInputStream(
+                    Channels.newInputStream(raf.getChannel().position(userSectionOffset)), BUFFER_SIZE));
+            String[] table = StringTable.read(in);
+            int userCount = BinaryIO.readVarInt(in);
+            List<UserSnapshot> users = new ArrayList<>(Math.max(0, userCount));
+            for (int i = 0; i < userCount; i++) {
+                UserSnapshot fields = readUserFields(in);
+                int accountCount = BinaryIO.readVarInt(in);
+                List<AccountSnapshot> accounts = new ArrayList<>();
+                for (int j = 0; j < accountCount; j++) {
+                    accounts.add(readPagedAccount(in, table, file, version != SHARD_VERSION_WITHOUT_HASHES,
+                            version == SHARD_VERSION));
+                }
+                users.add(new UserSnapshot(fields.getUserId(), fields.getUsername(), fields.getPasswordHash(),
+                        fields.getFullName(), fields.getEmail(), fields.getCreatedAt(), accounts));
+            }
+            return users;
+        }
+    }
+
+    /**
+     * Saves the bank to a file atomically (temp file + rename).
+     *
+     * @param bank Bank to save
+     * @param file Destination file
+     * @throws IOException if writing fails
+     */
+    public static void save(Bank bank, File file) throws IOException {
+        save(BankSnapshot.capture(bank), file);
+    }
+
+    /**
+     * Saves a captured snapshot to a file atomically (temp file + rename).
+     *
+     * @param snapshot Snapshot to save
+     * @param file Destination file
+     * @throws IOException if writing fails
+     */
+    public static void save(BankSnapshot snapshot, File file) throws IOException {
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tempFile)) {
+            write(snapshot, out);
+            out.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads a bank from a file in this format.
+     *
+     * @param file Source file
+     * @return Loaded bank
+     * @throws IOException if the file cannot be read or is invalid
+     */
+    public static Bank load(File file) throws IOException {
+        try (FileInputStream in = new FileInputStream(file)) {
+            return read(in);
+        }
+    }
+
+    /**
+     * Loads a bank from the legacy Java-serialization file (bank_data.dat).
+     *
+     * @param legacyFile File written with ObjectOutputStream
+     * @return Loaded bank
+     * @throws IOException if the file cannot be read or does not contain a Bank
+     */
+    public static Bank loadLegacy(File legacyFile) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(legacyFile)))) {
+            Object obj = ois.readObject();
+            if (!(obj instanceof Bank)) {
+                throw new IOException("Legacy file does not contain a Bank");
+            }
+            return (Bank) obj;
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Legacy file references an unknown class: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Converts a legacy Java-serialization file to this format.
+     *
+     * @param legacyFile File written with ObjectOutputStream
+     * @param file Destination file
+     * @return The converted bank
+     * @throws IOException if reading or writing fails
+     */
+    public static Bank convertLegacy(File legacyFile, File file) throws IOException {
+        Bank bank = loadLegacy(legacyFile);
+        save(bank, file);
+        return bank;
+    }
+
+    // ============= Entities =============
+
+    private static int readHeader(DataInputStream in, int magic) throws IOException {
+        if (in.readInt() != magic) {
+            throw new IOException("Not a bank data file");
+        }
+        int version = in.readUnsignedByte();
+        if (version != VERSION && version != VERSION_DOUBLE_AMOUNTS) {
+            throw new IOException("Unsupported bank data version: " + version);
+        }
+        return version;
+    }
+
+    private static StringTable buildTable(List<UserSnapshot> users) {
+        StringTable table = new StringTable();
+        for (UserSnapshot user : users) {
+            for (AccountSnapshot account : user.getAccounts()) {
+                table.add(account.getAccountNumber());
+                for (Transaction txn : account.getTransactions()) {
+                    addStrings(table, txn);
+                }
+            }
+        }
+        return table;
+    }
+
+    private static void writeUsers(DataOutputStream out, List<UserSnapshot> users, StringTable table) throws IOException {
+        BinaryIO.writeVarInt(out, users.size());
+        for (UserSnapshot user : users) {
+            writeUserFields(out, user);
+            BinaryIO.writeVarInt(out, user.getAccounts().size());
+            for (AccountSnapshot account : user.getAccounts()) {
+                writeAccount(out, account, table);
+            }
+        }
+    }
+
+    private static List<UserSnapshot> readUsers(DataInputStream in, String[] table, boolean cents) throws IOException {
+        int userCount = BinaryIO.readVarInt(in);
+        List<UserSnapshot> users = new ArrayList<>(Math.max(0, userCount));
+        for (int i = 0; i < userCount; i++) {
+            UserSnapshot fields = readUserFields(in);
+            int accountCount = BinaryIO.readVarInt(in);
+            List<AccountSnapshot> accounts = new ArrayList<>();
+            for (int j = 0; j < accountCount; j++) {
+                accounts.add(readAccount(in, table, cents));
+            }
+            users.add(new UserSnapshot(fields.getUserId(), fields.getUsername(), fields.getPasswordHash(),
+                    fields.getFullName(), fields.getEmail(), fields.getCreatedAt(), accounts));
+        }
+        return users;
+    }
+
+    /**
+     * Writes the scalar user fields (no accounts). Also used for the admin record.
+     */
+    static void writeUserFields(DataOutputStream out, UserSnapshot user) throws IOException {
+        BinaryIO.writeString(out, user.getUserId());
+        BinaryIO.writeString(out, user.getUsername());
+        BinaryIO.writeString(out, user.getPasswordHash());
+        BinaryIO.writeString(out, user.getFullName());
+        BinaryIO.writeString(out, user.getEmail());
+        BinaryIO.writeVarLong(out, user.getCreatedAt());
+    }
+
+    /**
+     * Reads the scalar user fields written by {@link #writeUserFields}; the result has no accounts.
+     */
+    static UserSnapshot readUserFields(DataInputStream in) throws IOException {
+        return new UserSnapshot(BinaryIO.readString(in), BinaryIO.readString(in), BinaryIO.readString(in),
+                BinaryIO.readString(in), BinaryIO.readString(in), BinaryIO.readVarLong(in), new ArrayList<>());
+    }
+
+    private static void writeAccount(DataOutputStream out, AccountSnapshot account, StringTable table) throws IOException {
+        writeAccountFields(out, account, table);
+        List<Transaction> transactions = account.getTransactions();
+        BinaryIO.writeVarInt(out, transactions.size());
+        writeTransactions(out, transactions, table);
+    }
+
+    private static void writeAccountFields(DataOutputStream out, AccountSnapshot account, StringTable table) throws IOException {
+        boolean savings = "SAVINGS".equals(account.getAccountType());
+        out.writeByte(savings ? KIND_SAVINGS : KIND_CHECKING);
+        BinaryIO.writeVarInt(out, table.ref(account.getAccountNumber()));
+        BinaryIO.writeSignedVarLong(out, account.getBalance());
+        out.writeBoolean(account.isActive());
+        if (savings) {
+            out.writeDouble(account.getInterestRate());
+        } else {
+            BinaryIO.writeVarLong(out, account.getOverdraftLimit());
+        }
+        BinaryIO.writeVarInt(out, account.getWithdrawals());
+        if (savings) {
+            BinaryIO.writeVarLong(out, account.getWithdrawalPenalty());
+        }
+    }
+
+    private static void writeTransactions(DataOutputStream out, List<Transaction> transactions, StringTable table) throws IOException {
+        long previousTimestamp = 0;
+        for (Transaction txn : transactions) {
+            BinaryIO.writeString(out, txn.getTransactionId());
+            BinaryIO.writeVarInt(out, table.nullableRef(txn.getFromAccountNumber()));
+            BinaryIO.writeVarInt(out, table.nullableRef(txn.getToAccountNumber()));
+            BinaryIO.writeVarLong(out, txn.getAmount());
+            BinaryIO.writeVarInt(out, table.ref(txn.getType()));
+            BinaryIO.writeVarInt(out, table.ref(txn.getDescription()));
+            BinaryIO.writeSignedVarLong(out, txn.getTimestamp() - previousTimestamp);
+            BinaryIO.writeVarInt(out, table.ref(txn.getStatus()));
+            previousTimestamp = txn.getTimestamp();
+        }
+    }
+
+    private static AccountSnapshot readAccount(DataInputStream in, String[] table, boolean cents) throws IOException {
+        AccountSnapshot fields = readAccountFields(in, table, cents);
+        int txnCount = BinaryIO.readVarInt(in);
+        return withHistory(fields, null, readTransactions(in, txnCount, table, cents));
+    }
+
+    private static AccountSnapshot readPagedAccount(DataInputStream in, String[] table, File file,
+                                                    boolean withHashes, boolean cents) throws IOException {
+        AccountSnapshot fields = readAccountFields(in, table, cents);
+        int pageCount = BinaryIO.readVarInt(in);
+        if (pageCount < 0) {
+            throw new IOException("Malformed page count: " + pageCount);
+        }
+        long[] pageOffsets = new long[pageCount + 1];
+        int[] pageStarts = new int[pageCount + 1];
+        pageOffsets[0] = BinaryIO.readVarLong(in);
+        for (int i = 0; i < pageCount; i++) {
+            pageStarts[i + 1] = pageStarts[i] + BinaryIO.readVarInt(in);
+            pageOffsets[i + 1] = pageOffsets[i] + BinaryIO.readVarLong(in);
+        }
+        long[] hashes = null;
+        if (withHashes) {
+            hashes = new long[pageStarts[pageCount]];
+            for (int i = 0; i < hashes.length; i++) {
+                hashes[i] = in.readLong();
+            }
+        }
+        TransactionPages pages = pageCount == 0 ? null : new ShardTransactionPages(file, pageOffsets, pageStarts, hashes, cents);
+        return withHistory(fields, pages, new Transaction[0]);
+    }
+
+    private static AccountSnapshot withHistory(AccountSnapshot fields, TransactionPages pages, Transaction[] transactions) {
+        return new AccountSnapshot(fields.getAccountType(), fields.getAccountNumber(), fields.getBalance(),
+                fields.isActive(), fields.getOverdraftLimit(), fields.getInterestRate(), fields.getWithdrawals(),
+                fields.getWithdrawalPenalty(), pages, transactions);
+    }
+
+    /**
+     * Reads the account fields written by {@link #writeAccountFields}, or by a version that held
+     * amounts as doubles when {@code cents} is false; the result has no history.
+     */
+    private static AccountSnapshot readAccountFields(DataInputStream in, String[] table, boolean cents) throws IOException {
+        byte kind = in.readByte();
+        if (kind != KIND_CHECKING && kind != KIND_SAVINGS) {
+            throw new IOException("Unknown account kind: " + kind);
+        }
+        boolean savings = kind == KIND_SAVINGS;
+        String accountNumber = lookup(table, BinaryIO.readVarInt(in));
+        long balance = cents ? BinaryIO.readSignedVarLong(in) : readDollars(in);
+        boolean active = in.readBoolean();
+        long overdraftLimit = 0;
+        double interestRate = 0.0;
+        if (savings) {
+            interestRate = in.readDouble();
+        } else {
+            overdraftLimit = cents ? BinaryIO.readVarLong(in) : readDollars(in);
+        }
+        int withdrawals = BinaryIO.readVarInt(in);
+        long penalty = !savings ? 0 : cents ? BinaryIO.readVarLong(in) : readDollars(in);
+        return new AccountSnapshot(savings ? "SAVINGS" : "CHECKING", accountNumber, balance, active,
+                overdraftLimit, interestRate, withdrawals, penalty, null, new Transaction[0]);
+    }
+
+    private static Transaction[] readTransactions(DataInputStream in, int txnCount, String[] table,
+                                                 boolean cents) throws IOException {
+        if (txnCount < 0) {
+            throw new IOException("Malformed transaction count: " + txnCount);
+        }
+        Transaction[] transactions = new Transaction[txnCount];
+        long timestamp = 0;
+        for (int i = 0; i < txnCount; i++) {
+            String transactionId = BinaryIO.readString(in);
+            String from = lookupNullable(table, BinaryIO.readVarInt(in));
+            String to = lookupNullable(table, BinaryIO.readVarInt(in));
+            long amount = cents ? BinaryIO.readVarLong(in) : readDollars(in);
+            String type = lookup(table, BinaryIO.readVarInt(in));
+            String description = lookup(table, BinaryIO.readVarInt(in));
+            timestamp += BinaryIO.readSignedVarLong(in);
+            String status = lookup(table, BinaryIO.readVarInt(in));
+            transactions[i] = new Transaction(transactionId, from, to, amount, type, description, timestamp, status);
+        }
+        return transactions;
+    }
+
+    // ============= History pages =============
+
+    /**
+     * Writes the history of one account as pages and records where they are and the hashes
+     * of the transaction IDs. Pages already in an older shard file are copied byte for byte
+     * (with their hashes); a partly filled last page is decoded and merged with the new
+     * transactions so pages stay full.
+     */
+    private static void writeHistory(DataOutputStream out, CountingOutputStream counter, AccountSnapshot account,
+                                     Map<File, RandomAccessFile> sources, Map<String, long[]> offsets,
+                                     Map<String, int[]> starts, Map<String, long[]> hashes) throws IOException {
+        List<Long> pageOffsets = new ArrayList<>();
+        List<Integer> pageStarts = new ArrayList<>();
+        pageStarts.add(0);
+        List<Transaction> pending = new ArrayList<>();
+        long[] copiedHashes = new long[0];
+
+        TransactionPages persisted = account.getPersistedTransactions();
+        if (persisted instanceof ShardTransactionPages) {
+            ShardTransactionPages pages = (ShardTransactionPages) persisted;
+            RandomAccessFile source = sources.get(pages.getFile());
+            if (source == null) {
+                source = new RandomAccessFile(pages.getFile(), "r");
+                sources.put(pages.getFile(), source);
+            }
+            int fullPages = pages.getPageCount();
+            if (!pages.hasCentsAmounts()) {
+                // Written by a version that held amounts as doubles: re-encode every page
+                fullPages = 0;
+                for (int page = 0; page < pages.getPageCount(); page++) {
+                    pending.addAll(pages.readPage(source, page));
+                }
+            } else if (fullPages > 0 && pages.getPageSize(fullPages - 1) < PAGE_SIZE && !account.getNewTransactions().isEmpty()) {
+                fullPages--;
+                pending.addAll(pages.readPage(source, fullPages));
+            }
+            byte[] buffer = new byte[BUFFER_SIZE];
+            for (int page = 0; page < fullPages; page++) {
+                pageOffsets.add(counter.getCount());
+                long remaining = pages.getPageOffset(page + 1) - pages.getPageOffset(page);
+                source.seek(pages.getPageOffset(page));
+                while (remaining > 0) {
+                    int read = source.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new IOException("Shard file truncated: " + pages.getFile().getName());
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+                pageStarts.add(pageStarts.get(pageStarts.size() - 1) + pages.getPageSize(page));
+            }
+            if (fullPages > 0) {
+                copiedHashes = Arrays.copyOf(pages.idHashes(), pageStarts.get(pageStarts.size() - 1));
+            }
+        } else if (persisted != null) {
+            pending.addAll(persisted.read(0, persisted.size()));
+        }
+        pending.addAll(account.getNewTransactions());
+
+        for (int from = 0; from < pending.size(); from += PAGE_SIZE) {
+            List<Transaction> page = pending.subList(from, Math.min(pending.size(), from + PAGE_SIZE));
+            pageOffsets.add(counter.getCount());
+            writePage(out, page);
+            pageStarts.add(pageStarts.get(pageStarts.size() - 1) + page.size());
+        }
+        pageOffsets.add(counter.getCount());
+
+        long[] offsetArray = new long[pageOffsets.size()];
+        for (int i = 0; i < offsetArray.length; i++) {
+            offsetArray[i] = pageOffsets.get(i);
+        }
+        int[] startArray = new int[pageStarts.size()];
+        for (int i = 0; i < startArray.length; i++) {
+            startArray[i] = pageStarts.get(i);
+        }
+        offsets.put(account.getAccountNumber(), offsetArray);
+        starts.put(account.getAccountNumber(), startArray);
+        long[] hashArray = Arrays.copyOf(copiedHashes, copiedHashes.length + pending.size());
+        for (int i = 0; i < pending.size(); i++) {
+            hashArray[copiedHashes.length + i] = IdHashIndex.hash(pending.get(i).getTransactionId());
+        }
+        hashes.put(account.getAccountNumber(), hashArray);
+    }
+
+    private static void writePage(DataOutputStream out, List<Transaction> transactions) throws IOException {
+        StringTable table = new StringTable();
+        for (Transaction txn : transactions) {
+            addStrings(table, txn);
+        }
+        table.write(out);
+        writeTransactions(out, transactions, table);
+    }
+
+    /**
+     * Decodes one history page.
+     *
+     * @param in Page bytes
+     * @param count Number of transactions in the page
+     * @param cents Whether amounts are in cents (false for shards before version 4)
+     * @return The page's transactions, oldest first
+     * @throws IOException if the page is malformed
+     */
+    static List<Transaction> readPage(DataInputStream in, int count, boolean cents) throws IOException {
+        String[] table = StringTable.read(in);
+        return Arrays.asList(readTransactions(in, count, table, cents));
+    }
+
+    private static void addStrings(StringTable table, Transaction txn) {
+        table.add(txn.getFromAccountNumber());
+        table.add(txn.getToAccountNumber());
+        table.add(txn.getType());
+        table.add(txn.getDescription());
+        table.add(txn.getStatus());
+    }
+
+    /**
+     * Reads an amount stored as a double in dollars by earlier versions, as cents.
+     */
+    private static long readDollars(DataInputStream in) throws IOException {
+        try {
+            return Money.ofDollars(in.readDouble());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Malformed amount: " + e.getMessage(), e);
+        }
+    }
+
+    private static String lookup(String[] table, int ref) throws IOException {
+        if (ref < 0 || ref >= table.length) {
+            throw new IOException("String reference out of range: " + ref);
+        }
+        return table[ref];
+    }
+
+    private static String lookupNullable(String[] table, int ref) throws IOException {
+        return ref == 0 ? null : lookup(table, ref - 1);
+    }
+
+    /**
+     * Output stream that counts the bytes written, used to record page offsets.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+
+    /**
+     * Interning table that maps each distinct string to a dense index.
+     */
+    private static class StringTable {
+        private final Map<String, Integer> index = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        void add(String value) {
+            if (value != null && !index.containsKey(value)) {
+                index.put(value, values.size());
+                values.add(value);
+            }
+        }
+
+        int ref(String value) {
+            return index.get(value);
+        }
+
+        int nullableRef(String value) {
+            return value == null ? 0 : ref(value) + 1;
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            BinaryIO.writeVarInt(out, values.size());
+            for (String value : values) {
+                BinaryIO.writeString(out, value);
+            }
+        }
+
+        static String[] read(DataInputStream in) throws IOException {
+            int count = BinaryIO.readVarInt(in);
+            if (count < 0) {
+                throw new IOException("Malformed string table");
+            }
+            String[] values = new String[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = BinaryIO.readString(in);
+            }
+            return values;
+        }
+    }
+}
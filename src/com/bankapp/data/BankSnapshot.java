@@ -0,0 +1,137 @@
+package com.bankapp.data;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.AccountSnapshot;
+import com.bankapp.model.Admin;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BankSnapshot - Immutable, point-in-time copy of the whole Bank.
+ * Capturing only copies scalar fields and transaction references (each account is
+ * copied under its own lock), so the expensive encoding can run on a background
+ * thread while the live Bank keeps serving the menu loop and transactions.
+ */
+public class BankSnapshot {
+    private final UserSnapshot admin;
+    private final List<UserSnapshot> users;
+
+    public BankSnapshot(UserSnapshot admin, List<UserSnapshot> users) {
+        this.admin = admin;
+        this.users = Collections.unmodifiableList(users);
+    }
+
+    /**
+     * Captures the current state of a bank.
+     *
+     * @param bank Live bank
+     * @return Immutable snapshot
+     */
+    public static BankSnapshot capture(Bank bank) {
+        Admin admin = bank.getAdmin();
+        List<UserSnapshot> users = new ArrayList<>();
+        bank.forEachUser(user -> users.add(UserSnapshot.capture(user)));
+        return new BankSnapshot(admin == null ? null : UserSnapshot.capture(admin), users);
+    }
+
+    /**
+     * Rebuilds a live bank from this snapshot.
+     *
+     * @return A new Bank with the captured state
+     */
+    public Bank restore() {
+        Bank bank = new Bank();
+        if (admin != null) {
+            bank.registerAdmin(admin.restoreAdmin());
+        }
+        for (UserSnapshot user : users) {
+            bank.addUser(user.restore());
+        }
+        return bank;
+    }
+
+    public UserSnapshot getAdmin() {
+        return admin;
+    }
+
+    public List<UserSnapshot> getUsers() {
+        return users;
+    }
+
+    /**
+     * Immutable copy of one user and its accounts.
+     */
+    public static class UserSnapshot {
+        private final String userId;
+        private final String username;
+        private final String passwordHash;
+        private final String fullName;
+        private final String email;
+        private final long createdAt;
+        private final List<AccountSnapshot> accounts;
+
+        public UserSnapshot(String userId, String username, String passwordHash, String fullName,
+                            String email, long createdAt, List<AccountSnapshot> accounts) {
+            this.userId = userId;
+            this.username = username;
+            this.passwordHash = passwordHash;
+            this.fullName = fullName;
+            this.email = email;
+            this.createdAt = createdAt;
+            this.accounts = Collections.unmodifiableList(accounts);
+        }
+
+        static UserSnapshot capture(User user) {
+            List<AccountSnapshot> accounts = new ArrayList<>();
+            for (Account account : user.getAccounts()) {
+                accounts.add(account.snapshot());
+            }
+            return new UserSnapshot(user.getUserId(), user.getUsername(), user.getPasswordHash(),
+                    user.getFullName(), user.getEmail(), user.getCreatedAt(), accounts);
+        }
+
+        User restore() {
+            User user = new User(userId, username, passwordHash, fullName, email, createdAt);
+            for (AccountSnapshot account : accounts) {
+                user.addAccount(account.restore(user));
+            }
+            return user;
+        }
+
+        Admin restoreAdmin() {
+            return new Admin(userId, username, passwordHash, fullName, email);
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public String getPasswordHash() {
+            return passwordHash;
+        }
+
+        public String getFullName() {
+            return fullName;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public List<AccountSnapshot> getAccounts() {
+            return accounts;
+        }
+    }
+}
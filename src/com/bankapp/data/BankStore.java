@@ -0,0 +1,194 @@
+package com.bankapp.data;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.PendingTransfer;
+import com.bankapp.service.Bank;
+import com.bankapp.service.DurabilityBarrier;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * BankStore - Owns the on-disk state of the application: journal segments and checkpoints.
+ * Loading picks the newest readable checkpoint and replays the journal segments after it.
+ * While running, every mutation is journaled and a background {@link Checkpointer}
+ * periodically rewrites the shards that changed, so shutdown only has to flush the journal tail.
+ * Transfers the journal still holds as pending are settled when journaling starts.
+ */
+public class BankStore {
+    private static final int SHARD_COUNT = 64;
+
+    private final TransactionJournal journal;
+    private final ShardedSnapshotStore snapshots;
+    private final Checkpointer checkpointer;
+    private final long maxRecoveryMillis;
+    private boolean migrated;
+    private boolean checkpointOnStart;
+    private long lastRecoveryMillis;
+    private int lastRecordsReplayed;
+
+    /**
+     * Constructor for BankStore.
+     *
+     * @param directory           Directory for journal segments and checkpoints
+     * @param intervalSeconds     Maximum time between checkpoints
+     * @param mutationThreshold   Number of mutations that triggers an early checkpoint
+     * @param retainedCheckpoints Number of checkpoints to keep
+     * @param maxRecoveryMillis   Recovery time above which a checkpoint is taken right after startup
+     * @param durability          When journal records are forced to disk
+     */
+    public BankStore(File directory, long intervalSeconds, int mutationThreshold, int retainedCheckpoints,
+                     long maxRecoveryMillis, DurabilityPolicy durability) {
+        this.journal = new TransactionJournal(directory, durability);
+        this.snapshots = new ShardedSnapshotStore(directory, SHARD_COUNT);
+        this.checkpointer = new Checkpointer(snapshots, journal, intervalSeconds, mutationThreshold, retainedCheckpoints);
+        this.maxRecoveryMillis = maxRecoveryMillis;
+    }
+
+    /**
+     * Loads the bank from the newest checkpoint plus the journal written after it.
+     * If no checkpoint exists yet, data from an older layout is imported instead.
+     *
+     * @param legacySnapshot Snapshot file of the older layout (binary or Java-serialized), may not exist
+     * @param legacyJournal  Single-file journal of the older layout, may not exist
+     * @return The recovered bank
+     * @throws IOException if the data cannot be read
+     */
+    public Bank load(File legacySnapshot, File legacyJournal) throws IOException {
+        long started = System.nanoTime();
+        ShardedSnapshotStore.LoadedState checkpoint = snapshots.loadLatest();
+        Bank bank;
+        long firstSegment;
+        if (checkpoint != null) {
+            bank = checkpoint.getBank();
+            firstSegment = checkpoint.getManifest().getReplayFrom();
+            checkpointer.resume(checkpoint.getManifest());
+            migrated = checkpoint.isFullRewriteNeeded();
+        } else {
+            bank = loadLegacy(legacySnapshot);
+            if (legacyJournal != null && legacyJournal.exists()) {
+                TransactionJournal.replayFile(bank, legacyJournal);
+                migrated = true;
+            }
+            firstSegment = 0;
+        }
+        Set<String> touchedUsers = new HashSet<>();
+        lastRecordsReplayed = journal.replay(bank, firstSegment, touchedUsers);
+        checkpointer.markDirty(touchedUsers); // Replayed changes are not in the shard files yet
+
+        lastRecoveryMillis = (System.nanoTime() - started) / 1_000_000;
+        System.out.println("Recovery: loaded " + (checkpoint != null ? "checkpoint " + checkpoint.getManifest().getCheckpointSegment() : "without checkpoint")
+                + ", replayed " + lastRecordsReplayed + " journal records in " + lastRecoveryMillis + " ms");
+        if (lastRecoveryMillis > maxRecoveryMillis) {
+            // Replay length is bounded by checkpoint frequency; checkpoint now so the next start is fast again
+            System.out.println("Recovery took longer than " + maxRecoveryMillis + " ms, checkpointing after startup");
+            checkpointOnStart = true;
+        }
+        return bank;
+    }
+
+    /**
+     * Starts journaling and background checkpointing for the bank.
+     *
+     * @param bank The live bank
+     * @throws IOException if the journal cannot be opened
+     */
+    public void start(Bank bank) throws IOException {
+        journal.open();
+        bank.addListener(checkpointer); // Must see each event before the journal does, see Checkpointer
+        bank.addListener(journal);
+        checkpointer.start(bank);
+        settleTransfers(bank);
+        if (migrated) {
+            checkpointer.markAllDirty();
+            checkpointer.checkpoint(); // Persist imported data in the new layout right away
+            migrated = false;
+        } else if (checkpointOnStart) {
+            checkpointer.checkpoint();
+        }
+        checkpointOnStart = false;
+    }
+
+    /**
+     * Stops background checkpointing and forces the journal tail to disk.
+     */
+    public void shutdown() {
+        checkpointer.stop();
+        journal.close();
+    }
+
+    /**
+     * Takes a checkpoint immediately on the calling thread.
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void checkpoint() throws IOException {
+        checkpointer.checkpoint();
+    }
+
+    /**
+     * Gets the barrier services use to wait until their mutations are durable.
+     *
+     * @return The journal's durability barrier
+     */
+    public DurabilityBarrier getDurabilityBarrier() {
+        return journal;
+    }
+
+    /**
+     * Gets the duration of the last {@link #load}.
+     *
+     * @return Recovery time in milliseconds
+     */
+    public long getLastRecoveryMillis() {
+        return lastRecoveryMillis;
+    }
+
+    /**
+     * Gets the number of journal records applied by the last {@link #load}.
+     *
+     * @return Records replayed
+     */
+    public int getLastRecordsReplayed() {
+        return lastRecordsReplayed;
+    }
+
+    /**
+     * Completes the transfers whose source was debited but whose destination was neither
+     * credited nor the source refunded before the process stopped. The destination is credited
+     * if it still exists and is active, otherwise the source gets the amount back. Both are
+     * journaled under the IDs fixed in the pending record, so settling is never repeated.
+     */
+    private void settleTransfers(Bank bank) {
+        for (PendingTransfer transfer : journal.getUnsettledTransfers()) {
+            Account source = bank.findAccountByNumber(transfer.getFromAccountNumber());
+            if (source == null || bank.findAccountByTransactionId(transfer.getTransferId()) != source
+                    || bank.findAccountByTransactionId(transfer.getCreditId()) != null
+                    || bank.findAccountByTransactionId(transfer.getRefundId()) != null) {
+                journal.discardUnsettled(transfer); // Never debited, or already settled
+                continue;
+            }
+            Account destination = bank.findAccountByNumber(transfer.getToAccountNumber());
+            if (destination != null && destination.creditTransfer(transfer)) {
+                System.out.println("Recovery: credited transfer " + transfer.getTransferId() + " to " + transfer.getToAccountNumber());
+            } else {
+                source.refundTransfer(transfer);
+                System.out.println("Recovery: refunded transfer " + transfer.getTransferId() + " to " + transfer.getFromAccountNumber());
+            }
+        }
+    }
+
+    private Bank loadLegacy(File legacySnapshot) throws IOException {
+        if (legacySnapshot == null || !legacySnapshot.exists()) {
+            return new Bank();
+        }
+        migrated = true;
+        try {
+            return BankCodec.load(legacySnapshot);
+        } catch (IOException e) {
+            return BankCodec.loadLegacy(legacySnapshot); // Java-serialized bank_data.dat
+        }
+    }
+}
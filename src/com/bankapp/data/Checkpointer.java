@@ -0,0 +1,297 @@
+package com.bankapp.data;
+
+import com.bankapp.data.BankSnapshot.UserSnapshot;
+import com.bankapp.model.Account;
+import com.bankapp.model.AccountSnapshot;
+import com.bankapp.model.Admin;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.TransactionPages;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.service.BankListener;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checkpointer - Writes consistent snapshots of the Bank in the background.
+ * A checkpoint is taken every {@code intervalSeconds} or after {@code mutationThreshold}
+ * mutations, whichever comes first. Users are partitioned into shards (see
+ * {@link ShardedSnapshotStore}); every event marks the owner's shard dirty, and a checkpoint
+ * only captures and rewrites the dirty shards plus a small manifest. Save cost therefore
+ * scales with the activity since the last checkpoint, not with the size of the bank.
+ *
+ * A shard is marked dirty before the event reaches the journal (the checkpointer is
+ * registered first), and the dirty set is drained before the journal is rolled. A change
+ * that misses one checkpoint is therefore always in a segment at or after the previous
+ * checkpoint, which is where replay of the new manifest starts.
+ */
+public class Checkpointer implements BankListener {
+    private final ShardedSnapshotStore store;
+    private final TransactionJournal journal;
+    private final long intervalSeconds;
+    private final int mutationThreshold;
+    private final int retainedCheckpoints;
+    private final AtomicLong mutationsSinceCheckpoint;
+    private final AtomicBoolean checkpointQueued;
+    private final Object checkpointLock = new Object();
+    private final List<Map<String, User>> shardUsers;
+    private final Set<Integer> dirtyShards;
+    private long[] generations;
+    private long lastCheckpointSegment;
+    private ScheduledExecutorService scheduler;
+    private Bank bank;
+
+    /**
+     * Constructor for Checkpointer.
+     *
+     * @param store               Sharded checkpoint files
+     * @param journal             Journal to roll when a checkpoint is taken
+     * @param intervalSeconds     Maximum time between checkpoints
+     * @param mutationThreshold   Number of mutations that triggers an early checkpoint
+     * @param retainedCheckpoints Number of checkpoint files to keep
+     */
+    public Checkpointer(ShardedSnapshotStore store, TransactionJournal journal, long intervalSeconds,
+                        int mutationThreshold, int retainedCheckpoints) {
+        this.store = store;
+        this.journal = journal;
+        this.intervalSeconds = intervalSeconds;
+        this.mutationThreshold = mutationThreshold;
+        this.retainedCheckpoints = Math.max(1, retainedCheckpoints);
+        this.mutationsSinceCheckpoint = new AtomicLong();
+        this.checkpointQueued = new AtomicBoolean();
+        this.shardUsers = new ArrayList<>();
+        for (int i = 0; i < store.getShardCount(); i++) {
+            shardUsers.add(new ConcurrentHashMap<>());
+        }
+        this.dirtyShards = ConcurrentHashMap.newKeySet();
+        this.generations = new long[store.getShardCount()];
+    }
+
+    /**
+     * Continues from a checkpoint loaded at startup.
+     *
+     * @param manifest Manifest of the loaded checkpoint
+     */
+    public void resume(ShardedSnapshotStore.Manifest manifest) {
+        synchronized (checkpointLock) {
+            long[] loaded = manifest.getGenerations();
+            if (loaded.length == generations.length) {
+                generations = loaded;
+            }
+            lastCheckpointSegment = manifest.getCheckpointSegment();
+        }
+    }
+
+    /**
+     * Marks the shards of the given users dirty, e.g. users changed by journal replay.
+     *
+     * @param userIds User IDs
+     */
+    public void markDirty(Collection<String> userIds) {
+        for (String userId : userIds) {
+            dirtyShards.add(store.shardOf(userId));
+        }
+        if (!userIds.isEmpty()) {
+            mutationsSinceCheckpoint.incrementAndGet();
+        }
+    }
+
+    /**
+     * Marks every shard dirty so the next checkpoint rewrites the whole bank.
+     */
+    public void markAllDirty() {
+        for (int i = 0; i < store.getShardCount(); i++) {
+            dirtyShards.add(i);
+        }
+        mutationsSinceCheckpoint.incrementAndGet();
+    }
+
+    /**
+     * Starts periodic checkpointing of the given bank.
+     *
+     * @param bank Live bank
+     */
+    public synchronized void start(Bank bank) {
+        this.bank = bank;
+        bank.forEachUser(user -> shardUsers.get(store.shardOf(user.getUserId())).put(user.getUserId(), user));
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "bank-checkpointer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            if (mutationsSinceCheckpoint.get() > 0) {
+                runCheckpoint();
+            }
+        }, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stops the background thread, waiting for a checkpoint in progress to finish.
+     */
+    public synchronized void stop() {
+        if (scheduler == null) {
+            return;
+        }
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(30, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        scheduler = null;
+    }
+
+    /**
+     * Takes a checkpoint on the calling thread.
+     *
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public void checkpoint() throws IOException {
+        synchronized (checkpointLock) {
+            mutationsSinceCheckpoint.set(0);
+            List<Integer> shards = new ArrayList<>();
+            for (Iterator<Integer> it = dirtyShards.iterator(); it.hasNext(); ) {
+                shards.add(it.next());
+                it.remove();
+            }
+            long segment = journal.roll();
+            long[] next = generations.clone();
+            try {
+                for (int shard : shards) {
+                    List<User> live = new ArrayList<>(shardUsers.get(shard).values());
+                    List<UserSnapshot> users = new ArrayList<>();
+                    for (User user : live) {
+                        users.add(UserSnapshot.capture(user));
+                    }
+                    if (users.isEmpty()) {
+                        next[shard] = 0;
+                    } else {
+                        Map<String, TransactionPages> histories = store.writeShard(shard, segment, users);
+                        next[shard] = segment;
+                        releaseHistory(live, users, histories);
+                    }
+                }
+                Admin admin = bank.getAdmin();
+                UserSnapshot adminSnapshot = admin != null ? UserSnapshot.capture(admin) : null;
+                store.writeManifest(new ShardedSnapshotStore.Manifest(segment, lastCheckpointSegment, adminSnapshot, next));
+            } catch (IOException e) {
+                dirtyShards.addAll(shards); // Retry them with the next checkpoint
+                throw e;
+            }
+            generations = next;
+            lastCheckpointSegment = segment;
+            store.prune(retainedCheckpoints, journal);
+        }
+    }
+
+    private void runCheckpoint() {
+        try {
+            checkpoint();
+        } catch (IOException e) {
+            System.out.println("Error: Background checkpoint failed: " + e.getMessage());
+        } finally {
+            checkpointQueued.set(false);
+        }
+    }
+
+    private void recordMutation() {
+        if (mutationsSinceCheckpoint.incrementAndGet() >= mutationThreshold
+                && checkpointQueued.compareAndSet(false, true)) {
+            ScheduledExecutorService current = scheduler;
+            if (current != null && !current.isShutdown()) {
+                current.execute(this::runCheckpoint);
+            } else {
+                checkpointQueued.set(false);
+            }
+        }
+    }
+
+    // ============= BankListener =============
+
+    @Override
+    public void onUserAdded(User user) {
+        int shard = store.shardOf(user.getUserId());
+        shardUsers.get(shard).put(user.getUserId(), user);
+        dirtyShards.add(shard);
+        recordMutation();
+    }
+
+    @Override
+    public void onAdminRegistered(Admin admin) {
+        recordMutation();
+    }
+
+    @Override
+    public void onAccountOpened(Account account) {
+        markDirty(account);
+        recordMutation();
+    }
+
+    @Override
+    public void onTransaction(Account account, Transaction transaction) {
+        markDirty(account);
+        recordMutation();
+    }
+
+    @Override
+    public void onAccountStatusChanged(Account account) {
+        markDirty(account);
+        recordMutation();
+    }
+
+    @Override
+    public void onReset() {
+        synchronized (checkpointLock) {
+            store.deleteAll();
+            for (Map<String, User> users : shardUsers) {
+                users.clear();
+            }
+            dirtyShards.clear();
+            generations = new long[store.getShardCount()];
+            lastCheckpointSegment = journal.getCurrentSegment();
+            mutationsSinceCheckpoint.set(0);
+        }
+    }
+
+    /**
+     * Points every written account at its history in the new shard file, so the
+     * transactions just written no longer have to stay on the heap.
+     */
+    private void releaseHistory(List<User> live, List<UserSnapshot> captured, Map<String, TransactionPages> histories) {
+        for (int i = 0; i < live.size(); i++) {
+            Map<String, AccountSnapshot> snapshots = new HashMap<>();
+            for (AccountSnapshot snapshot : captured.get(i).getAccounts()) {
+                snapshots.put(snapshot.getAccountNumber(), snapshot);
+            }
+            for (Account account : live.get(i).getAccounts()) {
+                AccountSnapshot snapshot = snapshots.get(account.getAccountNumber());
+                TransactionPages written = histories.get(account.getAccountNumber());
+                if (snapshot != null && written != null) {
+                    account.persistedUpTo(snapshot.getPersistedTransactions(),
+                            snapshot.getNewTransactions().size(), written);
+                }
+            }
+        }
+    }
+
+    private void markDirty(Account account) {
+        User owner = account.getOwner();
+        if (owner != null) {
+            dirtyShards.add(store.shardOf(owner.getUserId()));
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.bankapp.data;
+
+/**
+ * DurabilityPolicy - When journal records are forced to disk.
+ * <ul>
+ *   <li>{@code sync-every-op}: every record is written and fsync'ed before the mutation returns.</li>
+ *   <li>{@code group-commit}: records are written and fsync'ed by a background thread in batches of
+ *       up to {@code maxBatch} records, waiting at most {@code maxDelayMillis} for a batch to fill;
+ *       callers wait until their batch is durable.</li>
+ *   <li>{@code async}: records are written and fsync'ed every {@code maxDelayMillis}; callers never
+ *       wait, so a crash may lose the records of the last interval.</li>
+ * </ul>
+ */
+public final class DurabilityPolicy {
+    /**
+     * Durability modes.
+     */
+    public enum Mode {
+        SYNC_EVERY_OP,
+        GROUP_COMMIT,
+        ASYNC
+    }
+
+    private final Mode mode;
+    private final long maxDelayMillis;
+    private final int maxBatch;
+
+    private DurabilityPolicy(Mode mode, long maxDelayMillis, int maxBatch) {
+        this.mode = mode;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxBatch = maxBatch;
+    }
+
+    public static DurabilityPolicy syncEveryOp() {
+        return new DurabilityPolicy(Mode.SYNC_EVERY_OP, 0, 1);
+    }
+
+    public static DurabilityPolicy groupCommit(long maxDelayMillis, int maxBatch) {
+        if (maxDelayMillis < 0 || maxBatch < 1) {
+            throw new IllegalArgumentException("Invalid group commit settings");
+        }
+        return new DurabilityPolicy(Mode.GROUP_COMMIT, maxDelayMillis, maxBatch);
+    }
+
+    public static DurabilityPolicy async(long flushIntervalMillis) {
+        if (flushIntervalMillis < 1) {
+            throw new IllegalArgumentException("Flush interval must be positive");
+        }
+        return new DurabilityPolicy(Mode.ASYNC, flushIntervalMillis, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Parses a policy name as used in configuration: "sync-every-op", "group-commit" or "async".
+     *
+     * @param name Policy name
+     * @param maxDelayMillis Maximum batching delay (group-commit) or flush interval (async)
+     * @param maxBatch Maximum records per batch (group-commit)
+     * @return The policy
+     */
+    public static DurabilityPolicy parse(String name, long maxDelayMillis, int maxBatch) {
+        switch (name.trim().toLowerCase()) {
+            case "sync-every-op":
+                return syncEveryOp();
+            case "group-commit":
+                return groupCommit(maxDelayMillis, maxBatch);
+            case "async":
+                return async(maxDelayMillis);
+            default:
+                throw new IllegalArgumentException("Unknown durability policy: " + name);
+        }
+    }
+
+    public Mode getMode() {
+        return mode;
+    }
+
+    public long getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    @Override
+    public String toString() {
+        switch (mode) {
+            case SYNC_EVERY_OP:
+                return "sync-every-op";
+            case GROUP_COMMIT:
+                return "group-commit(maxDelay=" + maxDelayMillis + "ms, maxBatch=" + maxBatch + ")";
+            default:
+                return "async(interval=" + maxDelayMillis + "ms)";
+        }
+    }
+}
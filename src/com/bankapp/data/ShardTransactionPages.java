@@ -0,0 +1,166 @@
+package com.bankapp.data;
+
+import com.bankapp.model.Transaction;
+import com.bankapp.model.TransactionPages;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ShardTransactionPages - Transaction history of one account stored as pages in a shard file.
+ * Only the page index (offset and first transaction index of every page) and the hashes of the
+ * transaction IDs are kept on the heap; pages are read and decoded on demand. Shard files are never modified after they are
+ * written, so a reader can hold on to one until the account is re-pointed to a newer shard.
+ * The last decoded page is cached, so walking the history in order decodes each page once.
+ */
+class ShardTransactionPages implements TransactionPages {
+    private final File file;
+    private final long[] pageOffsets; // pageCount + 1 entries, the last one is the end of the block
+    private final int[] pageStarts;   // pageCount + 1 entries, the last one is the total size
+    private final boolean centsAmounts; // false for shards that hold amounts as doubles
+    private volatile long[] idHashes; // null until computed for shards written without them
+    private volatile CachedPage lastPage;
+
+    ShardTransactionPages(File file, long[] pageOffsets, int[] pageStarts, long[] idHashes, boolean centsAmounts) {
+        this.file = file;
+        this.pageOffsets = pageOffsets;
+        this.pageStarts = pageStarts;
+        this.idHashes = idHashes;
+        this.centsAmounts = centsAmounts;
+    }
+
+    @Override
+    public int size() {
+        return pageStarts[pageStarts.length - 1];
+    }
+
+    @Override
+    public List<Transaction> read(int from, int to) {
+        if (from < 0 || to > size() || from > to) {
+            throw new IndexOutOfBoundsException("Range [" + from + ", " + to + ") of " + size());
+        }
+        List<Transaction> result = new ArrayList<>(to - from);
+        if (from == to) {
+            return result;
+        }
+        int page = pageOf(from);
+        CachedPage cached = lastPage;
+        if (cached != null && cached.page == page && to <= pageStarts[page + 1]) {
+            result.addAll(cached.transactions.subList(from - pageStarts[page], to - pageStarts[page]));
+            return result;
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            for (; page < getPageCount() && pageStarts[page] < to; page++) {
+                List<Transaction> txns = cachedPage(raf, page);
+                int start = Math.max(from, pageStarts[page]) - pageStarts[page];
+                int end = Math.min(to, pageStarts[page + 1]) - pageStarts[page];
+                result.addAll(txns.subList(start, end));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read transaction history from " + file.getName(), e);
+        }
+        return result;
+    }
+
+    /**
+     * Binary-searches the pages by their first transaction, then searches inside one page,
+     * so only about log2(pageCount) pages are decoded.
+     */
+    @Override
+    public int indexOfTimestamp(long timestamp) {
+        int low = 0;
+        int high = getPageCount();
+        try (RandomAccessFile raf = new RandomAccessFile(file, "r")) {
+            // Find the first page starting at or after the timestamp
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (cachedPage(raf, mid).get(0).getTimestamp() < timestamp) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (low == 0) {
+                return 0;
+            }
+            // The answer is in the page before it, or is its first transaction
+            return pageStarts[low - 1] + TransactionPages.indexOfTimestamp(cachedPage(raf, low - 1), timestamp);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read transaction history from " + file.getName(), e);
+        }
+    }
+
+    @Override
+    public long[] idHashes() {
+        long[] hashes = idHashes;
+        if (hashes == null) {
+            hashes = TransactionPages.super.idHashes();
+            idHashes = hashes;
+        }
+        return hashes;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    /**
+     * @return Whether the pages hold amounts in cents, so they can be copied into a new shard as they are
+     */
+    boolean hasCentsAmounts() {
+        return centsAmounts;
+    }
+
+    int getPageCount() {
+        return pageOffsets.length - 1;
+    }
+
+    long getPageOffset(int page) {
+        return pageOffsets[page];
+    }
+
+    int getPageSize(int page) {
+        return pageStarts[page + 1] - pageStarts[page];
+    }
+
+    /**
+     * Reads and decodes one page.
+     */
+    List<Transaction> readPage(RandomAccessFile raf, int page) throws IOException {
+        byte[] bytes = new byte[(int) (pageOffsets[page + 1] - pageOffsets[page])];
+        raf.seek(pageOffsets[page]);
+        raf.readFully(bytes);
+        return BankCodec.readPage(new DataInputStream(new ByteArrayInputStream(bytes)), getPageSize(page), centsAmounts);
+    }
+
+    private List<Transaction> cachedPage(RandomAccessFile raf, int page) throws IOException {
+        CachedPage cached = lastPage;
+        if (cached == null || cached.page != page) {
+            cached = new CachedPage(page, readPage(raf, page));
+            lastPage = cached;
+        }
+        return cached.transactions;
+    }
+
+    private int pageOf(int index) {
+        int page = Arrays.binarySearch(pageStarts, 0, getPageCount(), index);
+        return page >= 0 ? page : -page - 2;
+    }
+
+    private static class CachedPage {
+        private final int page;
+        private final List<Transaction> transactions;
+
+        CachedPage(int page, List<Transaction> transactions) {
+            this.page = page;
+            this.transactions = transactions;
+        }
+    }
+}
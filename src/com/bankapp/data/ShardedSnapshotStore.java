@@ -0,0 +1,351 @@
+package com.bankapp.data;
+
+import com.bankapp.data.BankSnapshot.UserSnapshot;
+import com.bankapp.model.TransactionPages;
+import com.bankapp.service.Bank;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * ShardedSnapshotStore - Partitioned on-disk checkpoint layout.
+ * Users are spread over a fixed number of shards by hashing {@code User.getUserId()}.
+ * Each shard is its own file (shard-SSS-GGGGGGGGGG.bin, G = generation), so a checkpoint
+ * only rewrites the shards that changed and then writes a small manifest
+ * (manifest-NNNNNNNNNN.bin) listing the current generation of every shard.
+ *
+ * Manifest layout: int magic, byte version, varlong checkpointSegment, varlong replayFrom,
+ * bool hasAdmin, [admin fields], varint shardCount, varlong generation[shardCount] (0 = empty).
+ */
+public class ShardedSnapshotStore {
+    private static final int MANIFEST_MAGIC = 0x424E4B4D; // "BNKM"
+    private static final int MANIFEST_VERSION = 1;
+    private static final String MANIFEST_PREFIX = "manifest-";
+    private static final String SHARD_PREFIX = "shard-";
+    private static final String LEGACY_CHECKPOINT_PREFIX = "checkpoint-";
+    private static final String SUFFIX = ".bin";
+
+    private final File directory;
+    private final int shardCount;
+
+    /**
+     * Constructor for ShardedSnapshotStore.
+     *
+     * @param directory  Directory holding manifests and shard files
+     * @param shardCount Number of shards users are hashed into
+     */
+    public ShardedSnapshotStore(File directory, int shardCount) {
+        this.directory = directory;
+        this.shardCount = shardCount;
+    }
+
+    public int getShardCount() {
+        return shardCount;
+    }
+
+    /**
+     * Gets the shard a user belongs to.
+     *
+     * @param userId User ID
+     * @return Shard index in [0, shardCount)
+     */
+    public int shardOf(String userId) {
+        return Math.floorMod(userId.hashCode(), shardCount);
+    }
+
+    /**
+     * Writes one shard generation.
+     *
+     * @param shard Shard index
+     * @param generation Generation (the checkpoint segment writing it)
+     * @param users Users belonging to the shard
+     * @return The on-disk history of every written account, keyed by account number
+     * @throws IOException if writing fails
+     */
+    public Map<String, TransactionPages> writeShard(int shard, long generation, List<UserSnapshot> users) throws IOException {
+        return BankCodec.saveShard(users, shardFile(shard, generation));
+    }
+
+    /**
+     * Writes a manifest atomically. Once it is on disk the checkpoint is complete.
+     *
+     * @param manifest Manifest to write
+     * @throws IOException if writing fails
+     */
+    public void writeManifest(Manifest manifest) throws IOException {
+        File file = manifestFile(manifest.getCheckpointSegment());
+        File tempFile = new File(file.getPath() + ".tmp");
+        try (FileOutputStream fileOut = new FileOutputStream(tempFile)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fileOut));
+            out.writeInt(MANIFEST_MAGIC);
+            out.writeByte(MANIFEST_VERSION);
+            BinaryIO.writeVarLong(out, manifest.getCheckpointSegment());
+            BinaryIO.writeVarLong(out, manifest.getReplayFrom());
+            out.writeBoolean(manifest.getAdmin() != null);
+            if (manifest.getAdmin() != null) {
+                BankCodec.writeUserFields(out, manifest.getAdmin());
+            }
+            long[] generations = manifest.getGenerations();
+            BinaryIO.writeVarInt(out, generations.length);
+            for (long generation : generations) {
+                BinaryIO.writeVarLong(out, generation);
+            }
+            out.flush();
+            fileOut.getFD().sync();
+        }
+        Files.move(tempFile.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Loads the newest complete checkpoint, falling back to older manifests if the newest
+     * one (or one of its shards) cannot be read.
+     *
+     * @return The loaded state, or null if there is no checkpoint at all
+     * @throws IOException if checkpoints exist but none of them can be read
+     */
+    public LoadedState loadLatest() throws IOException {
+        List<Long> manifests = list(MANIFEST_PREFIX);
+        for (int i = manifests.size() - 1; i >= 0; i--) {
+            try {
+                Manifest manifest = readManifest(manifestFile(manifests.get(i)));
+                List<UserSnapshot> users = new ArrayList<>();
+                long[] generations = manifest.getGenerations();
+                for (int shard = 0; shard < generations.length; shard++) {
+                    if (generations[shard] != 0) {
+                        users.addAll(BankCodec.loadShard(shardFile(shard, generations[shard])));
+                    }
+                }
+                users.sort(Comparator.comparingLong(UserSnapshot::getCreatedAt));
+                Bank bank = new BankSnapshot(manifest.getAdmin(), users).restore();
+                return new LoadedState(bank, manifest, generations.length != shardCount);
+            } catch (IOException e) {
+                System.out.println("Error: Skipping unreadable checkpoint " + manifests.get(i) + ": " + e.getMessage());
+            }
+        }
+        LoadedState legacy = loadLegacyCheckpoint();
+        if (legacy == null && !(manifests.isEmpty() && list(LEGACY_CHECKPOINT_PREFIX).isEmpty())) {
+            // Starting from an empty bank here would overwrite the data on the next checkpoint
+            throw new IOException("No readable checkpoint in " + directory);
+        }
+        return legacy;
+    }
+
+    /**
+     * Keeps the newest manifests, then deletes shard files no retained manifest references
+     * and journal segments no retained manifest needs for replay.
+     *
+     * @param retained Number of manifests to keep
+     * @param journal Journal whose old segments can be deleted
+     */
+    public void prune(int retained, TransactionJournal journal) {
+        List<Long> manifests = list(MANIFEST_PREFIX);
+        int excess = manifests.size() - retained;
+        for (int i = 0; i < excess; i++) {
+            manifestFile(manifests.get(i)).delete();
+        }
+        Set<String> referenced = new HashSet<>();
+        long replayFrom = Long.MAX_VALUE;
+        for (int i = Math.max(0, excess); i < manifests.size(); i++) {
+            try {
+                Manifest manifest = readManifest(manifestFile(manifests.get(i)));
+                long[] generations = manifest.getGenerations();
+                for (int shard = 0; shard < generations.length; shard++) {
+                    if (generations[shard] != 0) {
+                        referenced.add(shardFile(shard, generations[shard]).getName());
+                    }
+                }
+                replayFrom = Math.min(replayFrom, manifest.getReplayFrom());
+            } catch (IOException e) {
+                return; // Be conservative: keep everything if a manifest cannot be read
+            }
+        }
+        String[] names = directory.list();
+        if (names != null) {
+            for (String name : names) {
+                boolean staleShard = name.startsWith(SHARD_PREFIX) && name.endsWith(SUFFIX) && !referenced.contains(name);
+                if (staleShard || name.startsWith(LEGACY_CHECKPOINT_PREFIX)) {
+                    new File(directory, name).delete();
+                }
+            }
+        }
+        if (replayFrom != Long.MAX_VALUE) {
+            journal.deleteSegmentsBefore(replayFrom);
+        }
+    }
+
+    /**
+     * Deletes every manifest and shard file. Used when the bank is reset.
+     */
+    public void deleteAll() {
+        String[] names = directory.list();
+        if (names == null) {
+            return;
+        }
+        for (String name : names) {
+            if (name.startsWith(MANIFEST_PREFIX) || name.startsWith(SHARD_PREFIX)
+                    || name.startsWith(LEGACY_CHECKPOINT_PREFIX)) {
+                new File(directory, name).delete();
+            }
+        }
+    }
+
+    private Manifest readManifest(File file) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            if (in.readInt() != MANIFEST_MAGIC) {
+                throw new IOException("Not a manifest file");
+            }
+            int version = in.readUnsignedByte();
+            if (version != MANIFEST_VERSION) {
+                throw new IOException("Unsupported manifest version: " + version);
+            }
+            long checkpointSegment = BinaryIO.readVarLong(in);
+            long replayFrom = BinaryIO.readVarLong(in);
+            UserSnapshot admin = in.readBoolean() ? BankCodec.readUserFields(in) : null;
+            int count = BinaryIO.readVarInt(in);
+            if (count <= 0) {
+                throw new IOException("Malformed manifest shard count: " + count);
+            }
+            long[] generations = new long[count];
+            for (int i = 0; i < count; i++) {
+                generations[i] = BinaryIO.readVarLong(in);
+            }
+            return new Manifest(checkpointSegment, replayFrom, admin, generations);
+        }
+    }
+
+    /**
+     * Reads a single-file checkpoint written before the store was partitioned.
+     */
+    private LoadedState loadLegacyCheckpoint() {
+        List<Long> checkpoints = list(LEGACY_CHECKPOINT_PREFIX);
+        for (int i = checkpoints.size() - 1; i >= 0; i--) {
+            long segment = checkpoints.get(i);
+            try {
+                Bank bank = BankCodec.load(file(LEGACY_CHECKPOINT_PREFIX, segment));
+                return new LoadedState(bank, new Manifest(segment, segment, null, new long[shardCount]), true);
+            } catch (IOException e) {
+                System.out.println("Error: Skipping unreadable checkpoint " + segment + ": " + e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private File manifestFile(long segment) {
+        return file(MANIFEST_PREFIX, segment);
+    }
+
+    private File shardFile(int shard, long generation) {
+        return new File(directory, String.format("%s%03d-%010d%s", SHARD_PREFIX, shard, generation, SUFFIX));
+    }
+
+    private File file(String prefix, long segment) {
+        return new File(directory, String.format("%s%010d%s", prefix, segment, SUFFIX));
+    }
+
+    private List<Long> list(String prefix) {
+        List<Long> numbers = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) {
+            return numbers;
+        }
+        for (String name : names) {
+            if (name.startsWith(prefix) && name.endsWith(SUFFIX)) {
+                try {
+                    numbers.add(Long.parseLong(name.substring(prefix.length(), name.length() - SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not one of our files
+                }
+            }
+        }
+        Collections.sort(numbers);
+        return numbers;
+    }
+
+    /**
+     * Contents of one manifest: which generation of each shard makes up a checkpoint.
+     */
+    public static class Manifest {
+        private final long checkpointSegment;
+        private final long replayFrom;
+        private final UserSnapshot admin;
+        private final long[] generations;
+
+        /**
+         * Constructor for Manifest.
+         *
+         * @param checkpointSegment Journal segment the checkpoint rolled to
+         * @param replayFrom        First journal segment that must be replayed on top of it
+         * @param admin             Admin account, or null
+         * @param generations       Current generation of every shard (0 = shard is empty)
+         */
+        public Manifest(long checkpointSegment, long replayFrom, UserSnapshot admin, long[] generations) {
+            this.checkpointSegment = checkpointSegment;
+            this.replayFrom = replayFrom;
+            this.admin = admin;
+            this.generations = generations;
+        }
+
+        public long getCheckpointSegment() {
+            return checkpointSegment;
+        }
+
+        public long getReplayFrom() {
+            return replayFrom;
+        }
+
+        public UserSnapshot getAdmin() {
+            return admin;
+        }
+
+        public long[] getGenerations() {
+            return generations.clone();
+        }
+    }
+
+    /**
+     * A checkpoint read back from disk.
+     */
+    public static class LoadedState {
+        private final Bank bank;
+        private final Manifest manifest;
+        private final boolean fullRewriteNeeded;
+
+        LoadedState(Bank bank, Manifest manifest, boolean fullRewriteNeeded) {
+            this.bank = bank;
+            this.manifest = manifest;
+            this.fullRewriteNeeded = fullRewriteNeeded;
+        }
+
+        public Bank getBank() {
+            return bank;
+        }
+
+        public Manifest getManifest() {
+            return manifest;
+        }
+
+        /**
+         * @return true if the data came from an older layout or a different shard count
+         *         and every shard has to be written again
+         */
+        public boolean isFullRewriteNeeded() {
+            return fullRewriteNeeded;
+        }
+    }
+}
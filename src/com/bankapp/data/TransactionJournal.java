@@ -0,0 +1,1226 @@
+package com.bankapp.data;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Admin;
+import com.bankapp.model.CheckingAccount;
+import com.bankapp.model.PendingTransfer;
+import com.bankapp.model.SavingsAccount;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.service.BankListener;
+import com.bankapp.service.DurabilityBarrier;
+import com.bankapp.utils.Money;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32;
+
+/**
+ * TransactionJournal - Append-only write-ahead log of every mutation made to the Bank.
+ * Each new user, new account, status change and transaction is appended as one small
+ * record the moment it happens, so a crash only loses the record being written.
+ * The journal is split into numbered segment files (journal-NNNNNNNNNN.log); a checkpoint
+ * rolls to a new segment so that older segments can be deleted once they are covered.
+ * On startup the last checkpoint is loaded and the following segments are replayed on top of it.
+ *
+ * Segment layout: int magic "JRN2", then records of
+ * {@code byte type, int length, byte[length] payload, int crc32(type, payload)}.
+ * Recovery stops at the first torn or corrupt record, truncates the segment there and sets
+ * aside any later segments, so the bank is rebuilt from the longest valid prefix of the log.
+ * Segments without the magic (written before checksums were added) are still replayed.
+ * Account and transaction records hold amounts as {@code long} cents (record types 6 and 7);
+ * the older types 3 and 4, which held them as doubles in dollars, are still replayed.
+ *
+ * A transfer whose debit and credit are applied separately (see {@link PendingTransfer}) is
+ * appended as a pending-transfer record (type 8) before its debit. It stays unsettled until the
+ * transaction with its credit or refund ID is appended; a roll copies the unsettled ones to the
+ * head of the new segment, so they outlive the segments a checkpoint deletes. After replay,
+ * {@link #getUnsettledTransfers()} lists the transfers recovery still has to settle.
+ *
+ * The records of an atomic update (see {@link Bank#beginAtomicUpdate()}) are held back until
+ * the update ends and are then written in one piece after an atomic-group record (type 9)
+ * holding their count. Replay applies the group only once all of its records have been read
+ * intact; a group cut short by a crash is truncated like any torn record.
+ *
+ * When records reach the disk is set by a {@link DurabilityPolicy}. With group commit, a
+ * "journal-sync" thread writes and fsyncs whatever has accumulated in one go, and callers
+ * of {@link #awaitDurable()} wait until the batch holding their last record is durable.
+ */
+public class TransactionJournal implements BankListener, DurabilityBarrier, Closeable {
+    private static final byte RECORD_USER = 1;
+    private static final byte RECORD_ADMIN = 2;
+    private static final byte RECORD_ACCOUNT = 3;
+    private static final byte RECORD_TRANSACTION = 4;
+    private static final byte RECORD_STATUS = 5;
+    private static final byte RECORD_ACCOUNT_CENTS = 6;
+    private static final byte RECORD_TRANSACTION_CENTS = 7;
+    private static final byte RECORD_TRANSFER_PENDING = 8;
+    private static final byte RECORD_ATOMIC_GROUP = 9;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String DISCARDED_SUFFIX = ".discarded";
+    private static final int SEGMENT_MAGIC = 0x4A524E32; // "JRN2"
+    private static final int SEGMENT_HEADER_SIZE = 4;
+    private static final int MAX_RECORD_SIZE = 1 << 20;
+    private static final long LINGER_SLICE_NANOS = 100_000;
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+
+    private final File directory;
+    private final RecordBuffer recordBuffer = new RecordBuffer();
+    private final DataOutputStream record = new DataOutputStream(recordBuffer);
+    private final CRC32 checksum = new CRC32();
+    private final DurabilityPolicy policy;
+    private final Object durableLock = new Object();
+    private final ThreadLocal<long[]> lastAppended = ThreadLocal.withInitial(() -> new long[1]);
+    private volatile long appendedSequence; // written under this
+    private volatile long durableSequence;
+    private volatile long failedSequence; // highest sequence whose append or sync failed
+    private boolean fenced; // an append or sync failed, so nothing more is written; guarded by this
+    private volatile Thread syncThread;
+    private long currentSegment;
+    private FileOutputStream fileOut;
+    private DataOutputStream out;
+    private final Map<String, PendingTransfer> unsettled = new HashMap<>(); // by credit and refund ID
+    private final ThreadLocal<AtomicGroup> atomicGroup = ThreadLocal.withInitial(AtomicGroup::new);
+    private int openGroups; // threads inside an atomic update
+
+    /**
+     * Constructor - the journal is not writable until {@link #open()} is called.
+     *
+     * @param directory Directory holding the journal segments
+     */
+    public TransactionJournal(File directory) {
+        this(directory, DurabilityPolicy.syncEveryOp());
+    }
+
+    /**
+     * Constructor - the journal is not writable until {@link #open()} is called.
+     *
+     * @param directory Directory holding the journal segments
+     * @param policy When appended records are forced to disk
+     */
+    public TransactionJournal(File directory, DurabilityPolicy policy) {
+        this.directory = directory;
+        this.policy = policy;
+    }
+
+    /**
+     * Opens the journal for appending. A fresh segment is always started so a torn
+     * tail in an older segment can never be followed by new records.
+     *
+     * @throws IOException if the segment cannot be created
+     */
+    public synchronized void open() throws IOException {
+        if (out == null) {
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Cannot create directory " + directory);
+            }
+            List<Long> segments = listSegments();
+            openSegment(segments.isEmpty() ? 1 : segments.get(segments.size() - 1) + 1);
+            if (policy.getMode() != DurabilityPolicy.Mode.SYNC_EVERY_OP && syncThread == null) {
+                syncThread = new Thread(this::syncLoop, "journal-sync");
+                syncThread.setDaemon(true);
+                syncThread.start();
+            }
+        }
+    }
+
+    /**
+     * Waits until every record appended by the calling thread is on disk.
+     * Returns at once under the async policy.
+     *
+     * @return false if syncing the journal failed
+     */
+    @Override
+    public boolean awaitDurable() {
+        return awaitSequence(lastAppended.get()[0]);
+    }
+
+    /**
+     * Waits until every record appended before this call, by any thread, is on disk.
+     * Returns at once under the async policy.
+     *
+     * @return false if syncing the journal failed
+     */
+    @Override
+    public boolean awaitAllDurable() {
+        return awaitSequence(appendedSequence);
+    }
+
+    private boolean awaitSequence(long sequence) {
+        if (policy.getMode() == DurabilityPolicy.Mode.ASYNC) {
+            return failedSequence < sequence;
+        }
+        synchronized (durableLock) {
+            while (durableSequence < sequence && failedSequence < sequence) {
+                try {
+                    durableLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return durableSequence >= sequence;
+    }
+
+    /**
+     * Closes the current segment and starts the next one.
+     * Every record appended before this call is in a segment lower than the returned number.
+     *
+     * @return Number of the new segment
+     * @throws IOException if the new segment cannot be created
+     */
+    public synchronized long roll() throws IOException {
+        try {
+            closeSegment();
+            openSegment(currentSegment + 1);
+        } catch (IOException e) {
+            fence(appendedSequence, e);
+            throw e;
+        }
+        for (Map.Entry<String, PendingTransfer> entry : unsettled.entrySet()) {
+            if (entry.getKey().equals(entry.getValue().getCreditId())) {
+                appendPendingTransfer(entry.getValue()); // Each transfer is keyed twice
+            }
+        }
+        return currentSegment;
+    }
+
+    /**
+     * Gets the transfers journaled as pending whose credit or refund has not been appended,
+     * e.g. because the process stopped between the two halves of the transfer.
+     * Some of them may never have been debited.
+     *
+     * @return Unsettled transfers
+     */
+    public synchronized List<PendingTransfer> getUnsettledTransfers() {
+        List<PendingTransfer> transfers = new ArrayList<>();
+        for (Map.Entry<String, PendingTransfer> entry : unsettled.entrySet()) {
+            if (entry.getKey().equals(entry.getValue().getCreditId())) {
+                transfers.add(entry.getValue());
+            }
+        }
+        return transfers;
+    }
+
+    /**
+     * Stops tracking a pending transfer that turned out to need no settlement, e.g. because its
+     * debit never reached the journal.
+     *
+     * @param transfer Transfer returned by {@link #getUnsettledTransfers()}
+     */
+    public synchronized void discardUnsettled(PendingTransfer transfer) {
+        unsettled.remove(transfer.getCreditId());
+        unsettled.remove(transfer.getRefundId());
+    }
+
+    /**
+     * Gets the number of the segment records are currently appended to.
+     *
+     * @return Current segment number
+     */
+    public synchronized long getCurrentSegment() {
+        return currentSegment;
+    }
+
+    /**
+     * Replays every journal segment numbered {@code fromSegment} or higher, in order.
+     *
+     * @param bank Bank loaded from the last checkpoint
+     * @param fromSegment First segment not covered by the checkpoint
+     * @return Number of records applied
+     * @throws IOException if a segment cannot be read
+     */
+    public int replay(Bank bank, long fromSegment) throws IOException {
+        return replay(bank, fromSegment, null);
+    }
+
+    /**
+     * Replays every journal segment numbered {@code fromSegment} or higher, in order,
+     * collecting the IDs of the users whose data changed. Replay stops at the first torn or
+     * corrupt record: that segment is truncated and later segments are renamed to
+     * *.log.discarded so they are never replayed on top of the gap.
+     *
+     * @param bank Bank loaded from the last checkpoint
+     * @param fromSegment First segment not covered by the checkpoint
+     * @param touchedUsers Receives the user IDs of every applied record, may be null
+     * @return Number of records applied
+     * @throws IOException if a segment cannot be read
+     */
+    public int replay(Bank bank, long fromSegment, Set<String> touchedUsers) throws IOException {
+        ReplayContext context = new ReplayContext(bank, touchedUsers);
+        boolean intact = true;
+        for (long segment : listSegments()) {
+            if (segment < fromSegment) {
+                continue;
+            }
+            File file = segmentFile(segment);
+            if (intact) {
+                intact = replayFile(file, context);
+            } else {
+                File discarded = new File(file.getPath() + DISCARDED_SUFFIX);
+                if (file.renameTo(discarded)) {
+                    System.out.println("Recovery: set aside " + discarded.getName() + " (follows a corrupt record)");
+                }
+            }
+        }
+        synchronized (this) {
+            unsettled.putAll(context.unsettled);
+        }
+        return context.applied;
+    }
+
+    /**
+     * Replays a single journal file (e.g. the journal of an older, non-segmented layout).
+     *
+     * @param bank Bank to apply the records to
+     * @param file Journal file
+     * @return Number of records applied
+     * @throws IOException if the file cannot be read
+     */
+    public static int replayFile(Bank bank, File file) throws IOException {
+        ReplayContext context = new ReplayContext(bank, null);
+        replayFile(file, context);
+        return context.applied;
+    }
+
+    /**
+     * Replays every valid record of one file into the bank.
+     * Replay is idempotent: users, accounts and transactions that are already part of the
+     * loaded checkpoint are skipped. The file is cut off after the last valid record.
+     *
+     * @return true if the whole file was valid
+     */
+    private static boolean replayFile(File file, ReplayContext context) throws IOException {
+        if (!file.exists()) {
+            return true;
+        }
+        boolean checksummed;
+        try (DataInputStream header = new DataInputStream(new FileInputStream(file))) {
+            checksummed = file.length() >= SEGMENT_HEADER_SIZE && header.readInt() == SEGMENT_MAGIC;
+        }
+        long validLength = checksummed ? SEGMENT_HEADER_SIZE : 0;
+        boolean intact = true;
+        try (CountingInputStream counter = new CountingInputStream(new BufferedInputStream(new FileInputStream(file)));
+             DataInputStream in = new DataInputStream(counter)) {
+            if (checksummed) {
+                in.readInt(); // Segment magic
+            }
+            while (true) {
+                int type = in.read();
+                if (type < 0) {
+                    break;
+                }
+                try {
+                    DataInputStream payload = checksummed ? readChecked((byte) type, in) : in;
+                    if (payload == null) {
+                        intact = false;
+                        break; // Checksum mismatch
+                    }
+                    if (checksummed && type == RECORD_ATOMIC_GROUP) {
+                        if (!replayGroup(payload.readInt(), in, context)) {
+                            intact = false;
+                            break; // Corrupt record inside the group
+                        }
+                    } else if (applyRecord((byte) type, payload, context)) {
+                        context.applied++;
+                    }
+                } catch (EOFException e) {
+                    intact = false;
+                    break; // Torn write at the end of the segment
+                } catch (IOException e) {
+                    if (!checksummed) {
+                        intact = false;
+                        break; // Unknown record type in an unchecked segment
+                    }
+                    throw e;
+                }
+                validLength = counter.getCount();
+            }
+        }
+        if (validLength < file.length()) {
+            System.out.println("Recovery: truncated " + file.getName() + " at byte " + validLength
+                    + " (" + (file.length() - validLength) + " bytes discarded)");
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.setLength(validLength);
+            }
+            intact = false;
+        }
+        return intact;
+    }
+
+    /**
+     * Reads the length, payload and checksum of one record.
+     *
+     * @return The payload, or null if the record is corrupt
+     * @throws EOFException if the record is torn
+     */
+    private static DataInputStream readChecked(byte type, DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > MAX_RECORD_SIZE) {
+            return null;
+        }
+        byte[] payload = new byte[length];
+        in.readFully(payload);
+        int stored = in.readInt();
+        CRC32 crc = new CRC32();
+        crc.update(type);
+        crc.update(payload);
+        if ((int) crc.getValue() != stored) {
+            return null;
+        }
+        return new DataInputStream(new ByteArrayInputStream(payload));
+    }
+
+    /**
+     * Reads every record of an atomic group and applies them only once all of them are intact.
+     *
+     * @return false if a record of the group is corrupt; nothing is applied then
+     * @throws EOFException if the group is torn
+     */
+    private static boolean replayGroup(int count, DataInputStream in, ReplayContext context) throws IOException {
+        if (count < 1) {
+            return false;
+        }
+        List<Byte> types = new ArrayList<>();
+        List<DataInputStream> payloads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            int type = in.read();
+            if (type < 0) {
+                throw new EOFException();
+            }
+            DataInputStream payload = type == RECORD_ATOMIC_GROUP ? null : readChecked((byte) type, in);
+            if (payload == null) {
+                return false;
+            }
+            types.add((byte) type);
+            payloads.add(payload);
+        }
+        for (int i = 0; i < count; i++) {
+            if (applyRecord(types.get(i), payloads.get(i), context)) {
+                context.applied++;
+            }
+        }
+        return true;
+    }
+
+    private static boolean applyRecord(byte type, DataInputStream in, ReplayContext context) throws IOException {
+        Bank bank = context.bank;
+        Set<String> caughtUp = context.caughtUp;
+        switch (type) {
+            case RECORD_USER: {
+                User user = new User(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readLong());
+                if (!bank.addUser(user)) {
+                    return false;
+                }
+                context.touch(user);
+                return true;
+            }
+            case RECORD_ADMIN: {
+                Admin admin = new Admin(in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF(), in.readUTF());
+                return bank.getAdmin() == null && bank.registerAdmin(admin);
+            }
+            case RECORD_ACCOUNT:
+            case RECORD_ACCOUNT_CENTS: {
+                boolean cents = type == RECORD_ACCOUNT_CENTS;
+                String accountType = in.readUTF();
+                String ownerId = in.readUTF();
+                String accountNumber = in.readUTF();
+                long initialBalance = cents ? in.readLong() : readDollars(in);
+                boolean savings = "SAVINGS".equals(accountType);
+                // Savings accounts carry their interest rate, checking accounts their overdraft limit
+                double interestRate = savings ? in.readDouble() : 0.0;
+                long overdraftLimit = savings ? 0 : cents ? in.readLong() : readDollars(in);
+                User owner = bank.findUserById(ownerId);
+                if (owner == null || bank.findAccountByNumber(accountNumber) != null) {
+                    return false;
+                }
+                Account account = savings
+                        ? new SavingsAccount(owner, accountNumber, initialBalance, interestRate)
+                        : new CheckingAccount(owner, accountNumber, initialBalance, overdraftLimit);
+                bank.openAccount(owner, account);
+                caughtUp.add(accountNumber);
+                context.touch(owner);
+                return true;
+            }
+            case RECORD_TRANSACTION:
+            case RECORD_TRANSACTION_CENTS: {
+                String accountNumber = in.readUTF();
+                Transaction txn = new Transaction(in.readUTF(), readNullable(in), readNullable(in),
+                        type == RECORD_TRANSACTION_CENTS ? in.readLong() : readDollars(in),
+                        in.readUTF(), in.readUTF(), in.readLong(), in.readUTF());
+                context.settle(txn.getTransactionId());
+                Account account = bank.findAccountByNumber(accountNumber);
+                if (account == null) {
+                    return false;
+                }
+                if (!caughtUp.contains(accountNumber)) {
+                    if (bank.findAccountByTransactionId(txn.getTransactionId()) == account) {
+                        return false; // Already part of the snapshot
+                    }
+                    caughtUp.add(accountNumber);
+                }
+                account.replayTransaction(txn);
+                context.touch(account.getOwner());
+                return true;
+            }
+            case RECORD_STATUS: {
+                Account account = bank.findAccountByNumber(in.readUTF());
+                boolean active = in.readBoolean();
+                if (account == null) {
+                    return false;
+                }
+                account.setActive(active);
+                context.touch(account.getOwner());
+                return true;
+            }
+            case RECORD_TRANSFER_PENDING: {
+                PendingTransfer transfer = new PendingTransfer(in.readUTF(), in.readUTF(), in.readUTF(),
+                        in.readUTF(), in.readUTF(), in.readLong());
+                context.unsettled.put(transfer.getCreditId(), transfer);
+                context.unsettled.put(transfer.getRefundId(), transfer);
+                return false; // Settled after replay, see getUnsettledTransfers()
+            }
+            default:
+                throw new IOException("Corrupt journal record type: " + type);
+        }
+    }
+
+    /**
+     * Deletes every segment numbered lower than the given one.
+     * Called once a checkpoint covering those segments has been written.
+     *
+     * @param segment First segment to keep
+     */
+    public synchronized void deleteSegmentsBefore(long segment) {
+        for (long existing : listSegments()) {
+            if (existing < segment && existing != currentSegment) {
+                segmentFile(existing).delete();
+            }
+        }
+    }
+
+    /**
+     * Discards all journal records and starts a new, empty segment. This also lifts the fence
+     * put up by a failed append, since the segment it may have torn is deleted.
+     *
+     * @throws IOException if the new segment cannot be created
+     */
+    public synchronized void truncate() throws IOException {
+        boolean wasOpen = out != null;
+        closeSegment();
+        unsettled.clear();
+        for (long segment : listSegments()) {
+            segmentFile(segment).delete();
+        }
+        fenced = false;
+        if (wasOpen) {
+            openSegment(currentSegment + 1);
+        }
+    }
+
+    /**
+     * Forces all appended records to disk. Used on shutdown.
+     */
+    public synchronized void sync() {
+        if (out == null || fenced) {
+            return;
+        }
+        try {
+            out.flush();
+            fileOut.getFD().sync();
+            markDurable(appendedSequence);
+        } catch (IOException e) {
+            fence(appendedSequence, e);
+        }
+    }
+
+    /**
+     * Flushes, syncs and closes the journal.
+     */
+    @Override
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            thread = syncThread;
+            syncThread = null;
+            notifyAll();
+        }
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (this) {
+            try {
+                closeSegment();
+            } catch (IOException e) {
+                System.out.println("Error: Could not close journal: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Body of the journal-sync thread: waits for appended records, lets a batch fill for up to
+     * the policy's delay, then writes and fsyncs the batch outside the journal lock so appends
+     * for the next batch can continue meanwhile.
+     */
+    private void syncLoop() {
+        Thread self = Thread.currentThread();
+        while (true) {
+            long target;
+            FileOutputStream stream;
+            synchronized (this) {
+                try {
+                    if (policy.getMode() == DurabilityPolicy.Mode.ASYNC) {
+                        wait(policy.getMaxDelayMillis());
+                    } else {
+                        while (syncThread == self && (fenced || appendedSequence == durableSequence)) {
+                            wait();
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+            if (policy.getMode() == DurabilityPolicy.Mode.GROUP_COMMIT) {
+                lingerForBatch(self);
+            }
+            synchronized (this) {
+                if (syncThread != self) {
+                    return; // close() syncs the rest
+                }
+                if (out == null || fenced || appendedSequence == durableSequence) {
+                    continue;
+                }
+                target = appendedSequence;
+                stream = fileOut;
+                try {
+                    out.flush();
+                } catch (IOException e) {
+                    fence(target, e);
+                    continue;
+                }
+            }
+            try {
+                stream.getFD().sync();
+                markDurable(target);
+            } catch (IOException e) {
+                synchronized (this) {
+                    if (stream == fileOut) {
+                        fence(target, e);
+                    } // else the segment was rolled, and closing it synced everything
+                }
+            }
+        }
+    }
+
+    /**
+     * Lets a group-commit batch grow while other threads keep appending to it. The batch is
+     * closed when it is full, when {@code maxDelayMillis} has passed, or as soon as a short
+     * pause brings no new record, so a lone caller is not held back for the whole delay.
+     */
+    private void lingerForBatch(Thread self) {
+        long deadline = System.nanoTime() + policy.getMaxDelayMillis() * 1_000_000;
+        long seen = appendedSequence;
+        while (syncThread == self && seen - durableSequence < policy.getMaxBatch() && System.nanoTime() < deadline) {
+            LockSupport.parkNanos(LINGER_SLICE_NANOS);
+            long now = appendedSequence;
+            if (now == seen) {
+                return;
+            }
+            seen = now;
+        }
+    }
+
+    private void markDurable(long sequence) {
+        synchronized (durableLock) {
+            if (sequence > durableSequence) {
+                durableSequence = sequence;
+            }
+            durableLock.notifyAll();
+        }
+    }
+
+    private void markFailed(long sequence) {
+        synchronized (durableLock) {
+            if (sequence > failedSequence) {
+                failedSequence = sequence;
+            }
+            durableLock.notifyAll();
+        }
+    }
+
+    private void openSegment(long segment) throws IOException {
+        currentSegment = segment;
+        File file = segmentFile(segment);
+        boolean fresh = !file.exists() || file.length() == 0;
+        fileOut = new FileOutputStream(file, true);
+        out = new DataOutputStream(new BufferedOutputStream(fileOut, OUTPUT_BUFFER_SIZE));
+        if (fresh) {
+            out.writeInt(SEGMENT_MAGIC);
+            out.flush();
+        }
+    }
+
+    private void closeSegment() throws IOException {
+        if (out == null) {
+            return;
+        }
+        try {
+            if (!fenced) {
+                out.flush();
+                fileOut.getFD().sync();
+                markDurable(appendedSequence);
+            }
+        } catch (IOException e) {
+            fence(appendedSequence, e);
+            throw e;
+        } finally {
+            fileOut.close(); // Not out.close(): once fenced, nothing still buffered may reach the segment
+            out = null;
+            fileOut = null;
+        }
+    }
+
+    private File segmentFile(long segment) {
+        return new File(directory, String.format("%s%010d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * Lists the existing segment numbers in ascending order.
+     */
+    private List<Long> listSegments() {
+        List<Long> segments = new ArrayList<>();
+        String[] names = directory.list();
+        if (names == null) {
+            return segments;
+        }
+        for (String name : names) {
+            if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                try {
+                    segments.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // Not a journal segment
+                }
+            }
+        }
+        Collections.sort(segments);
+        return segments;
+    }
+
+    // ============= BankListener =============
+
+    @Override
+    public synchronized void onUserAdded(User user) {
+        if (!isRecording()) {
+            return;
+        }
+        try {
+            appendUser(user);
+        } catch (IOException e) {
+            recordFailed(e);
+        }
+    }
+
+    /**
+     * Appends the records of a whole batch of users under one acquisition of the journal lock.
+     */
+    @Override
+    public synchronized void onUsersAdded(List<User> users) {
+        if (!isRecording()) {
+            return;
+        }
+        try {
+            for (User user : users) {
+                appendUser(user);
+                for (Account account : user.getAccounts()) {
+                    appendAccount(account);
+                }
+            }
+        } catch (IOException e) {
+            recordFailed(e);
+        }
+    }
+
+    @Override
+    public synchronized void onAdminRegistered(Admin admin) {
+        if (!isRecording()) {
+            return;
+        }
+        try {
+            beginRecord();
+            writeUser(admin);
+            commitRecord(RECORD_ADMIN);
+        } catch (IOException e) {
+            recordFailed(e);
+        }
+    }
+
+    @Override
+    public synchronized void onAccountOpened(Account account) {
+        if (!isRecording()) {
+            return;
+        }
+        try {
+            appendAccount(account);
+        } catch (IOException e) {
+            recordFailed(e);
+        }
+    }
+
+    @Override
+    public synchronized void onTransaction(Account account, Transaction transaction) {
+        if (!isRecording()) {
+            return;
+        }
+        try {
+            beginRecord();
+            record.writeUTF(account.getAccountNumber());
+            record.writeUTF(transaction.getTransactionId());
+            writeNullable(transaction.getFromAccountNumber());
+            writeNullable(transaction.getToAccountNumber());
+            record.writeLong(transaction.getAmount());
+            record.writeUTF(transaction.getType());
+            record.writeUTF(transaction.getDescription());
+            record.writeLong(transaction.getTimestamp());
+            record.writeUTF(transaction.getStatus());
+            commitRecord(RECORD_TRANSACTION_CENTS);
+        } catch (IOException e) {
+            recordFailed(e);
+        }
+        if (!unsettled.isEmpty()) {
+            PendingTransfer transfer = unsettled.remove(transaction.getTransactionId());
+            if (transfer != null) {
+                discardUnsettled(transfer);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onTransferPending(Account source, PendingTransfer transfer) {
+        if (!isRecording()) {
+            return;
+        }
+        try {
+            appendPendingTransfer(transfer);
+        } catch (IOException e) {
+            recordFailed(e);
+        }
+        unsettled.put(transfer.getCreditId(), transfer);
+        unsettled.put(transfer.getRefundId(), transfer);
+    }
+
+    @Override
+    public synchronized void onAccountStatusChanged(Account account) {
+        if (!isRecording()) {
+            return;
+        }
+        try {
+            beginRecord();
+            record.writeUTF(account.getAccountNumber());
+            record.writeBoolean(account.isActive());
+            commitRecord(RECORD_STATUS);
+        } catch (IOException e) {
+            recordFailed(e);
+        }
+    }
+
+    @Override
+    public synchronized void onAtomicUpdateBegin() {
+        if (atomicGroup.get().depth++ == 0) {
+            openGroups++;
+        }
+    }
+
+    /**
+     * Writes the records held back since the outermost {@link #onAtomicUpdateBegin()}, after a
+     * group record holding their count, in a single write to the segment.
+     */
+    @Override
+    public synchronized void onAtomicUpdateEnd() {
+        AtomicGroup group = atomicGroup.get();
+        if (group.depth == 0 || --group.depth > 0) {
+            return;
+        }
+        openGroups--;
+        try {
+            if (group.failed) {
+                markFailed(nextSequence()); // Part of the update is missing, so none of it is written
+            } else if (isRecording() && group.records > 0) {
+                group.seal(checksum);
+                appendSealed(group.array(), group.size());
+            }
+        } finally {
+            group.clear();
+        }
+    }
+
+    @Override
+    public void onReset() {
+        try {
+            truncate();
+        } catch (IOException e) {
+            fence(nextSequence(), e);
+        }
+    }
+
+    // ============= Helpers =============
+
+    private void beginRecord() {
+        recordBuffer.begin();
+    }
+
+    /**
+     * Appends the record built in {@link #record} with its length and checksum, in a single
+     * write to the segment. Inside an atomic update the record is held back until the update ends.
+     */
+    private void commitRecord(byte type) throws IOException {
+        sealRecord(type);
+        if (openGroups > 0) {
+            AtomicGroup group = atomicGroup.get();
+            if (group.depth > 0) {
+                group.add(recordBuffer.array(), recordBuffer.size());
+                return;
+            }
+        }
+        appendSealed(recordBuffer.array(), recordBuffer.size());
+    }
+
+    private void sealRecord(byte type) {
+        checksum.reset();
+        checksum.update(type);
+        checksum.update(recordBuffer.array(), RecordBuffer.HEADER_SIZE, recordBuffer.payloadLength());
+        recordBuffer.seal(type, (int) checksum.getValue());
+    }
+
+    /**
+     * Writes whole records to the segment and makes them durable as the policy requires.
+     * If the write, flush or sync fails, the records are reported as not durable and the
+     * journal is fenced.
+     */
+    private void appendSealed(byte[] records, int length) {
+        long sequence = nextSequence();
+        if (fenced) {
+            markFailed(sequence);
+            return;
+        }
+        try {
+            out.write(records, 0, length);
+            switch (policy.getMode()) {
+                case SYNC_EVERY_OP:
+                    out.flush();
+                    fileOut.getFD().sync();
+                    markDurable(sequence);
+                    break;
+                case GROUP_COMMIT:
+                    if (sequence - durableSequence == 1) {
+                        notifyAll(); // Wake the sync thread for a new batch
+                    }
+                    break;
+                default:
+                    break;
+            }
+        } catch (IOException e) {
+            fence(sequence, e);
+        }
+    }
+
+    /**
+     * Assigns the next sequence number to the calling thread's change.
+     */
+    private long nextSequence() {
+        long sequence = ++appendedSequence;
+        lastAppended.get()[0] = sequence;
+        return sequence;
+    }
+
+    /**
+     * Whether changes are journaled: false until {@link #open()}, e.g. while replaying. A fenced
+     * journal still counts, so its changes get a sequence number that is reported as failed.
+     */
+    private boolean isRecording() {
+        return out != null || fenced;
+    }
+
+    /**
+     * Stops appending after a write, flush or sync failed, and reports every record up to
+     * {@code sequence} that is not yet on disk as failed. A torn record may now end the segment
+     * and replay stops at it, so anything written after it would be lost on recovery even if
+     * it was reported durable. Until the journal is truncated or reopened on the next start,
+     * every change is reported as not durable.
+     */
+    private void fence(long sequence, IOException e) {
+        if (!fenced) {
+            fenced = true;
+            System.out.println("Error: Could not write to journal: " + e.getMessage()
+                    + ". Further changes are not journaled until restart.");
+        }
+        markFailed(sequence);
+    }
+
+    /**
+     * Reports a record that could not be built, e.g. a text too long for the record format.
+     * Nothing was written, so the journal stays usable; only the calling thread's change is
+     * reported as not durable. Inside an atomic update the whole update is dropped when it ends.
+     */
+    private void recordFailed(IOException e) {
+        reportFailure(e);
+        AtomicGroup group = atomicGroup.get();
+        if (group.depth > 0) {
+            group.failed = true;
+        } else {
+            markFailed(nextSequence());
+        }
+    }
+
+    private void appendUser(User user) throws IOException {
+        beginRecord();
+        writeUser(user);
+        record.writeLong(user.getCreatedAt());
+        commitRecord(RECORD_USER);
+    }
+
+    private void appendAccount(Account account) throws IOException {
+        beginRecord();
+        record.writeUTF(account.getAccountType());
+        record.writeUTF(account.getOwner().getUserId());
+        record.writeUTF(account.getAccountNumber());
+        record.writeLong(account.getBalance());
+        if (account instanceof SavingsAccount) {
+            record.writeDouble(((SavingsAccount) account).getInterestRate());
+        } else if (account instanceof CheckingAccount) {
+            record.writeLong(((CheckingAccount) account).getOverdraftLimit());
+        } else {
+            record.writeLong(0);
+        }
+        commitRecord(RECORD_ACCOUNT_CENTS);
+    }
+
+    private void appendPendingTransfer(PendingTransfer transfer) throws IOException {
+        beginRecord();
+        record.writeUTF(transfer.getTransferId());
+        record.writeUTF(transfer.getCreditId());
+        record.writeUTF(transfer.getRefundId());
+        record.writeUTF(transfer.getFromAccountNumber());
+        record.writeUTF(transfer.getToAccountNumber());
+        record.writeLong(transfer.getAmount());
+        commitRecord(RECORD_TRANSFER_PENDING);
+    }
+
+    private void writeUser(User user) throws IOException {
+        record.writeUTF(user.getUserId());
+        record.writeUTF(user.getUsername());
+        record.writeUTF(user.getPasswordHash());
+        record.writeUTF(user.getFullName());
+        record.writeUTF(user.getEmail());
+    }
+
+    private void writeNullable(String value) throws IOException {
+        record.writeBoolean(value != null);
+        if (value != null) {
+            record.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Reads an amount written as a double in dollars by the older record types, as cents.
+     */
+    private static long readDollars(DataInputStream in) throws IOException {
+        try {
+            return Money.ofDollars(in.readDouble());
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt journal amount: " + e.getMessage(), e);
+        }
+    }
+
+    private static void reportFailure(IOException e) {
+        System.out.println("Error: Could not write to journal: " + e.getMessage());
+    }
+
+    /**
+     * Lookup tables shared by all segments replayed during one recovery.
+     */
+    private static class ReplayContext {
+        private final Bank bank;
+        private final Set<String> caughtUp = new HashSet<>(); // accounts whose checkpointed history has been passed
+        private final Set<String> touchedUsers;
+        private final Map<String, PendingTransfer> unsettled = new HashMap<>(); // by credit and refund ID
+        private int applied;
+
+        ReplayContext(Bank bank, Set<String> touchedUsers) {
+            this.bank = bank;
+            this.touchedUsers = touchedUsers;
+        }
+
+        void touch(User user) {
+            if (touchedUsers != null && user != null) {
+                touchedUsers.add(user.getUserId());
+            }
+        }
+
+        /**
+         * Marks the pending transfer settled by a transaction, if any, as settled.
+         */
+        void settle(String transactionId) {
+            if (!unsettled.isEmpty()) {
+                PendingTransfer transfer = unsettled.remove(transactionId);
+                if (transfer != null) {
+                    unsettled.remove(transfer.getCreditId());
+                    unsettled.remove(transfer.getRefundId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Reusable buffer for building one record; exposes its array to avoid a copy.
+     */
+    private static class RecordBuffer extends ByteArrayOutputStream {
+        static final int HEADER_SIZE = 5; // type and length
+
+        /**
+         * Starts a record, leaving room for its header.
+         */
+        void begin() {
+            count = HEADER_SIZE;
+        }
+
+        int payloadLength() {
+            return count - HEADER_SIZE;
+        }
+
+        /**
+         * Fills in the header and appends the checksum, so the buffer holds the whole record.
+         */
+        void seal(byte type, int crc) {
+            int length = payloadLength();
+            buf[0] = type;
+            buf[1] = (byte) (length >>> 24);
+            buf[2] = (byte) (length >>> 16);
+            buf[3] = (byte) (length >>> 8);
+            buf[4] = (byte) length;
+            write(crc >>> 24);
+            write(crc >>> 16);
+            write(crc >>> 8);
+            write(crc);
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    /**
+     * The sealed records of one thread's atomic update, held back until the update ends.
+     */
+    private static class AtomicGroup extends ByteArrayOutputStream {
+        static final int HEADER_SIZE = 13; // group record: type, length, count and checksum
+        private int depth; // nesting of atomic updates
+        private int records; // records held back
+        private boolean failed; // a record of the update could not be built
+
+        void add(byte[] record, int length) {
+            if (records == 0) {
+                count = HEADER_SIZE;
+            }
+            write(record, 0, length);
+            records++;
+        }
+
+        /**
+         * Fills in the group record in front of the held-back records.
+         */
+        void seal(CRC32 checksum) {
+            buf[0] = RECORD_ATOMIC_GROUP;
+            putInt(1, 4);
+            putInt(5, records);
+            checksum.reset();
+            checksum.update(RECORD_ATOMIC_GROUP);
+            checksum.update(buf, 5, 4);
+            putInt(9, (int) checksum.getValue());
+        }
+
+        private void putInt(int offset, int value) {
+            buf[offset] = (byte) (value >>> 24);
+            buf[offset + 1] = (byte) (value >>> 16);
+            buf[offset + 2] = (byte) (value >>> 8);
+            buf[offset + 3] = (byte) value;
+        }
+
+        byte[] array() {
+            return buf;
+        }
+
+        void clear() {
+            if (buf.length > OUTPUT_BUFFER_SIZE) {
+                buf = new byte[256]; // Do not keep a large batch's buffer per thread
+            }
+            reset();
+            records = 0;
+            failed = false;
+        }
+    }
+
+    /**
+     * Input stream that counts the bytes consumed, used to find the end of the last complete record.
+     */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+
+        long getCount() {
+            return count;
+        }
+    }
+}
@@ -1,31 +1,47 @@
 package com.bankapp.data;
 
 import com.bankapp.model.User;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * UserRepository - Data access object for User entities.
  * Handles user storage and retrieval operations.
+ * Users are indexed by ID and by username in concurrent maps: lookups never lock,
+ * and writes keep both indexes consistent. A {@link UserSearchIndex} answers prefix
+ * searches by username, full name or e-mail; it is built in bulk on the first search,
+ * so loading a large user base does not pay for it, and kept up to date from then on.
  */
 public class UserRepository {
-    private Map<String, User> users; // userId -> User
+    private final Map<String, User> users; // userId -> User
+    private final Map<String, User> usersByUsername; // username -> User
+    private final UserSearchIndex searchIndex;
+    private volatile boolean searchIndexBuilt;
 
     public UserRepository() {
-        this.users = new HashMap<>();
+        this.users = new ConcurrentHashMap<>();
+        this.usersByUsername = new ConcurrentHashMap<>();
+        this.searchIndex = new UserSearchIndex();
     }
 
     /**
      * Saves a user to the repository.
      *
      * @param user User object to save
-     * @return true if saved successfully, false if user already exists
+     * @return true if saved successfully, false if the user ID or username already exists
      */
-    public boolean save(User user) {
-        if (user == null || users.containsKey(user.getUserId())) {
+    public synchronized boolean save(User user) {
+        if (user == null || users.containsKey(user.getUserId()) || usersByUsername.containsKey(user.getUsername())) {
             return false;
         }
         users.put(user.getUserId(), user);
+        usersByUsername.put(user.getUsername(), user);
+        if (searchIndexBuilt) {
+            searchIndex.add(user);
+        }
         return true;
     }
 
@@ -36,7 +52,7 @@ public class UserRepository {
      * @return User object if found, null otherwise
      */
     public User findById(String userId) {
-        return users.get(userId);
+        return userId == null ? null : users.get(userId);
     }
 
     /**
@@ -46,23 +62,29 @@ public class UserRepository {
      * @return User object if found, null otherwise
      */
     public User findByUsername(String username) {
-        return users.values().stream()
-                .filter(user -> user.getUsername().equals(username))
-                .findFirst()
-                .orElse(null);
+        return username == null ? null : usersByUsername.get(username);
     }
 
     /**
      * Updates an existing user.
      *
      * @param user User object to update
-     * @return true if updated successfully, false if user not found
+     * @return true if updated successfully, false if user not found or the new username is taken
      */
-    public boolean update(User user) {
+    public synchronized boolean update(User user) {
         if (user == null || !users.containsKey(user.getUserId())) {
             return false;
         }
-        users.put(user.getUserId(), user);
+        User holder = usersByUsername.get(user.getUsername());
+        if (holder != null && !holder.getUserId().equals(user.getUserId())) {
+            return false;
+        }
+        User previous = users.put(user.getUserId(), user);
+        usersByUsername.remove(previous.getUsername());
+        usersByUsername.put(user.getUsername(), user);
+        if (searchIndexBuilt) {
+            searchIndex.update(user);
+        }
         return true;
     }
 
@@ -72,8 +94,16 @@ public class UserRepository {
      * @param userId User ID to delete
      * @return true if deleted successfully, false if user not found
      */
-    public boolean delete(String userId) {
-        return users.remove(userId) != null;
+    public synchronized boolean delete(String userId) {
+        User removed = users.remove(userId);
+        if (removed == null) {
+            return false;
+        }
+        usersByUsername.remove(removed.getUsername());
+        if (searchIndexBuilt) {
+            searchIndex.remove(userId);
+        }
+        return true;
     }
 
     /**
@@ -83,7 +113,7 @@ public class UserRepository {
      * @return true if user exists, false otherwise
      */
     public boolean exists(String userId) {
-        return users.containsKey(userId);
+        return userId != null && users.containsKey(userId);
     }
 
     /**
@@ -93,8 +123,51 @@ public class UserRepository {
      * @return true if username exists, false otherwise
      */
     public boolean usernameExists(String username) {
-        return users.values().stream()
-                .anyMatch(user -> user.getUsername().equals(username));
+        return username != null && usersByUsername.containsKey(username);
+    }
+
+    /**
+     * Finds users whose username, full name or e-mail starts with a prefix.
+     * Results are sorted by the searched field and paged; pass the cursor of a page
+     * to get the next one.
+     *
+     * @param field Field to search
+     * @param prefix Prefix to match, ignoring case and diacritics
+     * @param cursor Cursor of the previous page, or null for the first page
+     * @param pageSize Maximum users per page
+     * @return Page of matching users
+     */
+    public UserSearchIndex.Page search(UserSearchIndex.Field field, String prefix, String cursor, int pageSize) {
+        if (!searchIndexBuilt) {
+            buildSearchIndex();
+        }
+        return searchIndex.search(field, prefix, cursor, pageSize);
+    }
+
+    private synchronized void buildSearchIndex() {
+        if (!searchIndexBuilt) {
+            searchIndex.addAll(users.values());
+            searchIndexBuilt = true;
+        }
+    }
+
+    /**
+     * Visits every user without copying the collection.
+     * Users added or removed concurrently may or may not be visited.
+     *
+     * @param action Action to run for each user
+     */
+    public void forEach(Consumer<? super User> action) {
+        users.values().forEach(action);
+    }
+
+    /**
+     * Gets a copy of all users.
+     *
+     * @return List of users
+     */
+    public List<User> findAll() {
+        return new ArrayList<>(users.values());
     }
 
     /**
@@ -109,7 +182,9 @@ public class UserRepository {
     /**
      * Clears all users from the repository.
      */
-    public void clear() {
+    public synchronized void clear() {
         users.clear();
+        usersByUsername.clear();
+        searchIndex.clear();
     }
 }
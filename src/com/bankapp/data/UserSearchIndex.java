@@ -0,0 +1,256 @@
+package com.bankapp.data;
+
+import com.bankapp.model.User;
+import java.text.Normalizer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * UserSearchIndex - Sorted prefix index over user names and e-mails.
+ * Each searchable field is kept in a {@link ConcurrentSkipListMap} keyed by
+ * {@code normalizedValue + '\0' + userId}, so a prefix query is a range scan that touches
+ * only the matching entries. Full names are also indexed from every word, so "an" finds
+ * "Nguyen Van An". Values are compared lower-cased and without diacritics ("nguyen" finds
+ * "Nguyễn"). Results are paged with an opaque cursor instead of an offset, so fetching
+ * a later page costs the same as the first one.
+ * Reads take no lock; writes are expected to be serialized by the owning repository.
+ */
+public class UserSearchIndex {
+    private static final char SEPARATOR = '\0';
+    private static final char RANGE_END = '\uffff';
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    /**
+     * Searchable user fields.
+     */
+    public enum Field {
+        USERNAME,
+        FULL_NAME,
+        EMAIL
+    }
+
+    /**
+     * One page of search results.
+     */
+    public static final class Page {
+        private final List<User> users;
+        private final String nextCursor;
+
+        Page(List<User> users, String nextCursor) {
+            this.users = Collections.unmodifiableList(users);
+            this.nextCursor = nextCursor;
+        }
+
+        public List<User> getUsers() {
+            return users;
+        }
+
+        /**
+         * @return Cursor to pass for the next page, or null if this is the last page
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public boolean hasMore() {
+            return nextCursor != null;
+        }
+    }
+
+    private final Map<Field, NavigableMap<String, User>> indexes;
+    private final Map<String, String[]> indexedValues; // userId -> field values it was indexed under
+
+    public UserSearchIndex() {
+        this.indexes = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            indexes.put(field, new ConcurrentSkipListMap<>());
+        }
+        this.indexedValues = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Adds a user to every field index.
+     *
+     * @param user User to index
+     */
+    public void add(User user) {
+        remove(user.getUserId());
+        String[] values = {user.getUsername(), user.getFullName(), user.getEmail()};
+        indexedValues.put(user.getUserId(), values);
+        for (Field field : Field.values()) {
+            for (String token : tokens(field, values)) {
+                indexes.get(field).put(token + SEPARATOR + user.getUserId(), user);
+            }
+        }
+    }
+
+    /**
+     * Indexes many users at once. The keys are sorted before they are inserted, which is
+     * several times faster than adding the users one by one.
+     *
+     * @param users Users to index; none of them may be indexed yet
+     */
+    public void addAll(Collection<User> users) {
+        Map<Field, List<Map.Entry<String, User>>> entries = new EnumMap<>(Field.class);
+        for (Field field : Field.values()) {
+            entries.put(field, new ArrayList<>(users.size()));
+        }
+        for (User user : users) {
+            String[] values = {user.getUsername(), user.getFullName(), user.getEmail()};
+            indexedValues.put(user.getUserId(), values);
+            for (Field field : Field.values()) {
+                for (String token : tokens(field, values)) {
+                    entries.get(field).add(new AbstractMap.SimpleImmutableEntry<>(token + SEPARATOR + user.getUserId(), user));
+                }
+            }
+        }
+        for (Field field : Field.values()) {
+            List<Map.Entry<String, User>> sorted = entries.get(field);
+            sorted.sort(Map.Entry.comparingByKey());
+            NavigableMap<String, User> index = indexes.get(field);
+            for (Map.Entry<String, User> entry : sorted) {
+                index.put(entry.getKey(), entry.getValue());
+            }
+            sorted.clear();
+        }
+    }
+
+    /**
+     * Removes a user from every field index.
+     *
+     * @param userId ID of the user to remove
+     */
+    public void remove(String userId) {
+        // Uses the values recorded at indexing time, so a user whose fields changed is still removed
+        String[] values = indexedValues.remove(userId);
+        if (values == null) {
+            return;
+        }
+        for (Field field : Field.values()) {
+            for (String token : tokens(field, values)) {
+                indexes.get(field).remove(token + SEPARATOR + userId);
+            }
+        }
+    }
+
+    /**
+     * Re-indexes a user whose searchable fields may have changed.
+     *
+     * @param user User to re-index
+     */
+    public void update(User user) {
+        add(user);
+    }
+
+    /**
+     * Finds users whose field starts with a prefix, in field order.
+     *
+     * @param field Field to search
+     * @param prefix Prefix to match (case and diacritics are ignored)
+     * @param cursor Cursor from the previous page, or null for the first page
+     * @param limit Maximum users per page
+     * @return The page of matching users
+     */
+    public Page search(Field field, String prefix, String cursor, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        String from = normalize(prefix == null ? "" : prefix.trim());
+        NavigableMap<String, User> range = indexes.get(field).subMap(from, true, from + RANGE_END, false);
+        if (cursor != null) {
+            range = range.tailMap(cursor, false);
+        }
+        List<User> users = new ArrayList<>();
+        String lastKey = null;
+        for (Map.Entry<String, User> entry : range.entrySet()) {
+            String key = entry.getKey();
+            // A full name can match through several words; report the user once, at its first match
+            if (field == Field.FULL_NAME && !isFirstMatch(key, entry.getValue(), from)) {
+                continue;
+            }
+            if (users.size() == limit) {
+                return new Page(users, lastKey);
+            }
+            users.add(entry.getValue());
+            lastKey = key;
+        }
+        return new Page(users, null);
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public void clear() {
+        for (NavigableMap<String, User> index : indexes.values()) {
+            index.clear();
+        }
+        indexedValues.clear();
+    }
+
+    private boolean isFirstMatch(String key, User user, String prefix) {
+        String[] values = indexedValues.get(user.getUserId());
+        if (values == null) {
+            return true; // Removed while the page was being read
+        }
+        String token = key.substring(0, key.lastIndexOf(SEPARATOR));
+        for (String candidate : tokens(Field.FULL_NAME, values)) {
+            if (candidate.startsWith(prefix)) {
+                return candidate.equals(token);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gets the normalized tokens of a field from the values {username, fullName, email}.
+     */
+    private static Set<String> tokens(Field field, String[] values) {
+        Set<String> tokens = new LinkedHashSet<>();
+        String value = values[field.ordinal()];
+        if (value == null || value.trim().isEmpty()) {
+            return tokens;
+        }
+        switch (field) {
+            case USERNAME:
+            case EMAIL:
+                tokens.add(normalize(value));
+                break;
+            default:
+                // "Nguyen Van An" is indexed as "nguyen van an", "van an" and "an"
+                String[] words = normalize(value.trim()).split("\\s+");
+                for (int i = 0; i < words.length; i++) {
+                    tokens.add(String.join(" ", Arrays.asList(words).subList(i, words.length)));
+                }
+                break;
+        }
+        return tokens;
+    }
+
+    /**
+     * Lower-cases a value and strips diacritics, so searches ignore both.
+     */
+    static String normalize(String value) {
+        boolean ascii = true;
+        for (int i = 0; i < value.length() && ascii; i++) {
+            ascii = value.charAt(i) < 0x80;
+        }
+        if (!ascii) {
+            value = MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("")
+                    .replace('đ', 'd').replace('Đ', 'D');
+        }
+        return value.toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,25 +1,55 @@
 package com.bankapp.model;
 
+import com.bankapp.utils.IDGenerator;
+import com.bankapp.utils.IdHashIndex;
+import com.bankapp.utils.Money;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Lớp trừu tượng Account - Lớp cơ sở cho tất cả các loại tài khoản.
  * Định nghĩa các thuộc tính và hành vi chung.
+ * Mọi số tiền (số dư, số tiền giao dịch) được tính bằng cent, kiểu {@code long} (xem {@link Money}).
  */
 public abstract class Account implements Serializable {
     // ID duy nhất cho việc serialization, giúp đảm bảo tương thích phiên bản
     private static final long serialVersionUID = 1L;
+    private static final int HISTORY_SCAN_CHUNK = 256;
+    private static final int CREDIT_BATCH_SIZE = 256; // Số khoản ghi có tối đa được áp dụng trong một lần giữ khóa
+    private static final int CREDIT_SPINS = 64; // Số vòng chờ bận trước khi nhường CPU
+    // Dạng serialize của các phiên bản trước, khi số dư là double tính bằng đô la
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("owner", User.class),
+            new ObjectStreamField("accountNumber", String.class),
+            new ObjectStreamField("accountHolderName", String.class),
+            new ObjectStreamField("balance", double.class),
+            new ObjectStreamField("isActive", boolean.class),
+            new ObjectStreamField("transactions", List.class)
+    };
 
     protected User owner;
     protected String accountNumber;
     protected String accountHolderName; // Thêm lại trường này
-    protected double balance;
-    protected boolean isActive;
-    protected List<Transaction> transactions;
+    protected long balance; // Số dư tính bằng cent
+    protected volatile boolean isActive;
+    protected List<Transaction> transactions; // Các giao dịch mới hơn phần đã nằm trên đĩa
+    private transient TransactionPages persistedTransactions; // Phần lịch sử cũ, chỉ đọc từ đĩa khi cần
+    private transient AccountListener listener; // Không serialize, được gắn lại khi tải dữ liệu
+    private transient volatile boolean hot; // Tài khoản nóng: ghi có đi qua hàng đợi, không chờ khóa
+    private transient ConcurrentLinkedQueue<PendingCredit> pendingCredits; // Tạo khi tài khoản được đặt là nóng
+    private transient AtomicBoolean combining; // true khi có một luồng đang áp dụng hàng đợi ghi có
+    private transient ReentrantLock lock = new ReentrantLock(); // Khóa của tài khoản, xem lock()
 
-    public Account(User owner, String accountNumber, double balance) {
+    public Account(User owner, String accountNumber, long balance) {
         if (owner == null) {
             throw new IllegalArgumentException("Account must have an owner.");
         }
@@ -35,8 +65,16 @@ public abstract class Account implements Serializable {
         return accountNumber;
     }
 
-    public double getBalance() {
-        return balance;
+    /**
+     * @return Số dư tính bằng cent
+     */
+    public long getBalance() {
+        lock.lock();
+        try {
+            return balance;
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean isActive() {
@@ -44,123 +82,771 @@ public abstract class Account implements Serializable {
     }
 
     public void setActive(boolean active) {
-        isActive = active;
+        lock.lock();
+        try {
+            isActive = active;
+            if (listener != null) {
+                listener.onAccountStatusChanged(this);
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public List<Transaction> getTransactions() {
-        return new ArrayList<>(transactions);
+        lock.lock();
+        try {
+            if (persistedTransactions == null) {
+                return new ArrayList<>(transactions);
+            }
+            List<Transaction> all = new ArrayList<>(persistedTransactions.size() + transactions.size());
+            all.addAll(persistedTransactions.read(0, persistedTransactions.size()));
+            all.addAll(transactions);
+            return all;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lấy tổng số giao dịch mà không cần đọc lịch sử từ đĩa.
+     * @return Số giao dịch
+     */
+    public int getTransactionCount() {
+        lock.lock();
+        try {
+            return persistedCount() + transactions.size();
+        } finally {
+            lock.unlock();
+        }
     }
 
     public User getOwner() {
         return owner;
     }
 
+    public boolean isHotAccount() {
+        return hot;
+    }
+
+    /**
+     * Đặt tài khoản là "nóng", ví dụ tài khoản trả lương hay tài khoản thu tiền của người bán,
+     * nơi có hàng nghìn khoản nạp đồng thời mỗi giây.
+     * Khi đó deposit và receiveTransfer không chờ khóa của tài khoản: mỗi khoản ghi có được thêm
+     * vào một hàng đợi không khóa (bằng CAS), và một trong các luồng đang chờ nhận vai trò gộp,
+     * lấy khóa một lần để áp dụng cả loạt theo đúng thứ tự của hàng đợi. Số dư, lịch sử và
+     * listener vẫn chỉ được cập nhật dưới khóa, nên lịch sử có thứ tự toàn phần, trùng với thứ
+     * tự trong journal, và checkpoint không bao giờ thấy số dư lệch với lịch sử.
+     * Giá trị này không được lưu; cần đặt lại sau mỗi lần khởi động.
+     * @param hot true để bật, false để quay lại đường có khóa
+     */
+    public void setHotAccount(boolean hot) {
+        lock.lock();
+        try {
+            if (hot && pendingCredits == null) {
+                pendingCredits = new ConcurrentLinkedQueue<>();
+                combining = new AtomicBoolean();
+            }
+            this.hot = hot;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lấy khóa của tài khoản. Mọi thay đổi số dư và lịch sử đều diễn ra khi giữ khóa này.
+     * Dùng khóa tường minh thay cho synchronized để một lô giao dịch có thể khóa hàng nghìn tài
+     * khoản trong một vòng lặp; khóa được lấy lại được (reentrant).
+     * Khi cần giữ khóa của nhiều tài khoản, phải lấy theo thứ tự số tài khoản
+     * như {@link #transferTo(Account, long)}.
+     */
+    public void lock() {
+        lock.lock();
+    }
+
+    /**
+     * Nhả khóa đã lấy bằng {@link #lock()}.
+     */
+    public void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * @return true nếu luồng hiện tại đang giữ khóa của tài khoản
+     */
+    public boolean isLockedByCurrentThread() {
+        return lock.isHeldByCurrentThread();
+    }
+
+    public void setListener(AccountListener listener) {
+        this.listener = listener;
+    }
+
     /**
      * Đóng tài khoản bằng cách đặt nó thành không hoạt động.
      * Trong tương lai, có thể thêm logic kiểm tra số dư trước khi đóng.
      */
     public void closeAccount() {
-        this.isActive = false;
+        setActive(false);
     }
 
     /**
      * Nạp tiền vào tài khoản.
-     * @param amount Số tiền cần nạp
+     * Với tài khoản nóng, khoản nạp đi qua hàng đợi ghi có (xem {@link #setHotAccount(boolean)});
+     * phương thức chỉ trả về sau khi khoản nạp đã được áp dụng và ghi vào lịch sử.
+     * @param amount Số tiền cần nạp (cent)
      * @param description Mô tả giao dịch
      * @return true nếu thành công
      */
-    public boolean deposit(double amount, String description) {
-        if (amount > 0) {
-            this.balance += amount;
-            Transaction txn = new Transaction(
-                "TXN-" + System.nanoTime(),
-                null, // fromAccountNumber
-                this.accountNumber, // toAccountNumber
-                amount, "DEPOSIT", description
-            );
-            this.transactions.add(txn);
-            return true;
-        } else {
+    public boolean deposit(long amount, String description) {
+        if (amount <= 0) {
             System.out.println("Deposit amount must be greater than 0.");
             return false;
         }
+        if (hot && !lock.isHeldByCurrentThread()) {
+            awaitCredit(queueCredit(null, amount, "DEPOSIT", description));
+        } else {
+            lock.lock();
+            try {
+                applyCredit(null, amount, "DEPOSIT", description);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
     }
 
     /**
      * Rút tiền từ tài khoản.
-     * @param amount Số tiền cần rút
+     * @param amount Số tiền cần rút (cent)
      * @return true nếu rút thành công, false nếu thất bại
      */
-    public boolean withdraw(double amount, String description) {
-        if (amount <= 0 || !canWithdraw(amount)) {
-            System.out.println("Invalid transaction or insufficient funds.");
-            return false;
+    public boolean withdraw(long amount, String description) {
+        lock.lock();
+        try {
+            if (amount <= 0 || !canWithdraw(amount)) {
+                System.out.println("Invalid transaction or insufficient funds.");
+                return false;
+            }
+            this.balance -= amount;
+            applyAccountSpecificRules(); // Áp dụng các quy tắc riêng
+            Transaction txn = new Transaction(
+                IDGenerator.generateTransactionId(),
+                this.accountNumber, // fromAccountNumber
+                null, // toAccountNumber
+                amount, "WITHDRAWAL", description
+            );
+            recordTransaction(txn);
+            return true;
+        } finally {
+            lock.unlock();
         }
-        this.balance -= amount;
-        applyAccountSpecificRules(); // Áp dụng các quy tắc riêng
-        Transaction txn = new Transaction(
-            "TXN-" + System.nanoTime(),
-            this.accountNumber, // fromAccountNumber
-            null, // toAccountNumber
-            amount, "WITHDRAWAL", description
-        );
-        this.transactions.add(txn);
-        return true;
     }
 
     /**
-     * Thực hiện chuyển tiền từ tài khoản này.
-     * @param amount Số tiền
+     * Thực hiện chuyển tiền từ tài khoản này, không kiểm tra số dư.
+     * Để chuyển giữa hai tài khoản, dùng {@link #transferTo(Account, long)}.
+     * @param amount Số tiền (cent)
      * @param toAccountNumber Tài khoản nhận
      * @return true nếu thành công
      */
-    public boolean transfer(double amount, String toAccountNumber) {
-        // Logic rút tiền được xử lý trong withdraw()
-        this.balance -= amount;
-        Transaction txn = new Transaction(
-            "TXN-" + System.nanoTime(),
-            this.accountNumber,
-            toAccountNumber,
-            amount, "TRANSFER_OUT", "Transfer to " + toAccountNumber
-        );
-        this.transactions.add(txn);
-        return true;
+    public boolean transfer(long amount, String toAccountNumber) {
+        lock.lock();
+        try {
+            return transfer(amount, toAccountNumber, "Transfer to " + toAccountNumber);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Như {@link #transfer(long, String)} nhưng với mô tả do người gọi đặt.
+     * @param amount Số tiền (cent)
+     * @param toAccountNumber Tài khoản nhận, hoặc null nếu khoản chuyển đi nhiều tài khoản
+     * @param description Mô tả giao dịch
+     * @return true nếu thành công
+     */
+    public boolean transfer(long amount, String toAccountNumber, String description) {
+        lock.lock();
+        try {
+            // Logic rút tiền được xử lý trong withdraw()
+            this.balance -= amount;
+            Transaction txn = new Transaction(
+                IDGenerator.generateTransactionId(),
+                this.accountNumber,
+                toAccountNumber,
+                amount, "TRANSFER_OUT", description
+            );
+            recordTransaction(txn);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Chuyển tiền sang một tài khoản khác một cách nguyên tử.
+     * Khóa của hai tài khoản được lấy theo thứ tự số tài khoản, nên hai giao dịch chuyển
+     * ngược chiều không thể deadlock; việc kiểm tra số dư và ghi cả hai bên nằm trong cùng
+     * vùng khóa. Chuyển khoản không được dùng hạn mức thấu chi.
+     * Nếu tài khoản nhận là tài khoản nóng thì chỉ khóa tài khoản gửi: khoản ghi có được đưa vào
+     * hàng đợi của tài khoản nhận trước khi nhả khóa và được áp dụng ngay sau đó, nên trong một
+     * khoảnh khắc số tiền đã rời tài khoản gửi nhưng chưa hiện trong số dư của tài khoản nhận.
+     * Hai bản ghi ghi nợ và ghi có chỉ vào journal cùng nhau nếu người gọi bọc lời gọi trong
+     * Bank.beginAtomicUpdate()/endAtomicUpdate() khi đang giữ khóa của cả hai tài khoản.
+     * @param target Tài khoản nhận
+     * @param amount Số tiền (cent)
+     * @return true nếu thành công, false nếu tài khoản không hoạt động hoặc không đủ số dư
+     */
+    public boolean transferTo(Account target, long amount) {
+        if (target == null || target == this || amount <= 0) {
+            return false;
+        }
+        if (target.hot && !target.isLockedByCurrentThread()) {
+            PendingCredit credit;
+            lock.lock();
+            try {
+                if (!isActive || !target.isActive || !canWithdraw(amount) || balance < amount) {
+                    return false;
+                }
+                transfer(amount, target.accountNumber);
+                credit = target.queueCredit(accountNumber, amount, "TRANSFER_IN", "Transfer from " + accountNumber);
+            } finally {
+                lock.unlock();
+            }
+            // Chờ ngoài khóa: luồng gộp của tài khoản nhận không bao giờ phải chờ khóa của tài khoản gửi
+            target.awaitCredit(credit);
+            return true;
+        }
+        Account first = accountNumber.compareTo(target.accountNumber) < 0 ? this : target;
+        Account second = first == this ? target : this;
+        first.lock();
+        try {
+            second.lock();
+            try {
+                if (!isActive || !target.isActive || !canWithdraw(amount) || balance < amount) {
+                    return false;
+                }
+                transfer(amount, target.accountNumber);
+                target.receiveTransfer(amount, accountNumber);
+                return true;
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
     }
 
     /**
      * Nhận tiền chuyển khoản vào tài khoản này.
-     * @param amount Số tiền
+     * Với tài khoản nóng, khoản ghi có đi qua hàng đợi như {@link #deposit(long, String)}.
+     * @param amount Số tiền (cent)
+     * @param fromAccountNumber Tài khoản gửi
+     */
+    public void receiveTransfer(long amount, String fromAccountNumber) {
+        receiveTransfer(amount, fromAccountNumber, "Transfer from " + fromAccountNumber);
+    }
+
+    /**
+     * Như {@link #receiveTransfer(long, String)} nhưng với mô tả do người gọi đặt.
+     * @param amount Số tiền (cent)
      * @param fromAccountNumber Tài khoản gửi
+     * @param description Mô tả giao dịch
+     */
+    public void receiveTransfer(long amount, String fromAccountNumber, String description) {
+        if (hot && !lock.isHeldByCurrentThread()) {
+            awaitCredit(queueCredit(fromAccountNumber, amount, "TRANSFER_IN", description));
+        } else {
+            lock.lock();
+            try {
+                applyCredit(fromAccountNumber, amount, "TRANSFER_IN", description);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Ghi nợ phía gửi của một giao dịch chuyển khoản mà phía nhận được ghi có riêng, ví dụ khi
+     * hai tài khoản thuộc hai phân vùng khác nhau. Kiểm tra giống {@link #transferTo(Account, long)}
+     * nhưng chỉ khóa tài khoản này. Listener được báo {@code onTransferPending} trước khi ghi nợ,
+     * để journal giữ giao dịch đang dở và khi khởi động lại có thể ghi có hoặc hoàn tiền.
+     * @param transfer Giao dịch chuyển khoản, với mã của khoản ghi nợ
+     * @return true nếu đã ghi nợ, false nếu tài khoản không hoạt động hoặc không đủ số dư
+     */
+    public boolean debitTransfer(PendingTransfer transfer) {
+        lock.lock();
+        try {
+            long amount = transfer.getAmount();
+            if (amount <= 0 || !isActive || !canWithdraw(amount) || balance < amount) {
+                return false;
+            }
+            if (listener != null) {
+                listener.onTransferPending(this, transfer);
+            }
+            this.balance -= amount;
+            Transaction txn = new Transaction(
+                transfer.getTransferId(),
+                this.accountNumber,
+                transfer.getToAccountNumber(),
+                amount, "TRANSFER_OUT", "Transfer to " + transfer.getToAccountNumber()
+            );
+            recordTransaction(txn);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ghi có phía nhận của một giao dịch đã ghi nợ bởi {@link #debitTransfer(PendingTransfer)},
+     * với mã giao dịch đã định sẵn của khoản ghi có.
+     * Với tài khoản nóng, khoản ghi có đi qua hàng đợi như {@link #deposit(long, String)}.
+     * @param transfer Giao dịch chuyển khoản
+     * @return false nếu tài khoản không hoạt động; khi đó phải hoàn tiền cho tài khoản gửi
+     */
+    public boolean creditTransfer(PendingTransfer transfer) {
+        String from = transfer.getFromAccountNumber();
+        if (hot && !lock.isHeldByCurrentThread()) {
+            if (!isActive) {
+                return false;
+            }
+            awaitCredit(queueCredit(transfer.getCreditId(), from, transfer.getAmount(), "TRANSFER_IN",
+                    "Transfer from " + from));
+            return true;
+        }
+        lock.lock();
+        try {
+            if (!isActive) {
+                return false;
+            }
+            applyCredit(transfer.getCreditId(), from, transfer.getAmount(), "TRANSFER_IN", "Transfer from " + from);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Hoàn lại khoản đã ghi nợ bởi {@link #debitTransfer(PendingTransfer)} khi tài khoản nhận
+     * không thể ghi có. Khoản hoàn được ghi như một giao dịch TRANSFER_IN từ tài khoản nhận,
+     * với mã giao dịch đã định sẵn của khoản hoàn.
+     * @param transfer Giao dịch chuyển khoản
      */
-    public void receiveTransfer(double amount, String fromAccountNumber) {
+    public void refundTransfer(PendingTransfer transfer) {
+        lock.lock();
+        try {
+            String to = transfer.getToAccountNumber();
+            applyCredit(transfer.getRefundId(), to, transfer.getAmount(), "TRANSFER_IN", "Refund of transfer to " + to);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Cộng một khoản vào số dư và ghi giao dịch tương ứng. Phải được gọi khi đang giữ khóa.
+     */
+    private void applyCredit(String fromAccountNumber, long amount, String type, String description) {
+        applyCredit(IDGenerator.generateTransactionId(), fromAccountNumber, amount, type, description);
+    }
+
+    /**
+     * Như {@link #applyCredit(String, long, String, String)} nhưng với mã giao dịch cho trước.
+     */
+    private void applyCredit(String transactionId, String fromAccountNumber, long amount, String type, String description) {
         this.balance += amount;
         Transaction txn = new Transaction(
-            "TXN-" + System.nanoTime(),
+            transactionId,
             fromAccountNumber,
             this.accountNumber,
-            amount, "TRANSFER_IN", "Transfer from " + fromAccountNumber
+            amount, type, description
         );
+        recordTransaction(txn);
+    }
+
+    /**
+     * Thêm một khoản ghi có vào hàng đợi của tài khoản nóng mà không lấy khóa.
+     */
+    private PendingCredit queueCredit(String fromAccountNumber, long amount, String type, String description) {
+        return queueCredit(null, fromAccountNumber, amount, type, description);
+    }
+
+    /**
+     * Như {@link #queueCredit(String, long, String, String)} nhưng với mã giao dịch cho trước,
+     * hoặc null để tạo mã khi khoản ghi có được áp dụng.
+     */
+    private PendingCredit queueCredit(String transactionId, String fromAccountNumber, long amount, String type,
+                                      String description) {
+        PendingCredit credit = new PendingCredit(transactionId, fromAccountNumber, amount, type, description);
+        pendingCredits.add(credit);
+        return credit;
+    }
+
+    /**
+     * Chờ đến khi khoản ghi có đã được áp dụng. Luồng nào giành được cờ gộp thì lấy khóa và áp
+     * dụng các khoản đang chờ theo thứ tự hàng đợi; các luồng còn lại chờ bận rồi nhường CPU.
+     */
+    private void awaitCredit(PendingCredit credit) {
+        for (int spins = 0; !credit.applied; spins++) {
+            if (!combining.get() && combining.compareAndSet(false, true)) {
+                try {
+                    lock.lock();
+                    try {
+                        applyPendingCredits();
+                    } finally {
+                        lock.unlock();
+                    }
+                } finally {
+                    combining.set(false);
+                }
+            } else if (spins < CREDIT_SPINS) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+    }
+
+    /**
+     * Áp dụng tối đa {@link #CREDIT_BATCH_SIZE} khoản ghi có đang chờ, theo thứ tự hàng đợi.
+     */
+    private void applyPendingCredits() {
+        PendingCredit credit;
+        for (int i = 0; i < CREDIT_BATCH_SIZE && (credit = pendingCredits.poll()) != null; i++) {
+            try {
+                String id = credit.transactionId != null ? credit.transactionId : IDGenerator.generateTransactionId();
+                applyCredit(id, credit.fromAccountNumber, credit.amount, credit.type, credit.description);
+            } finally {
+                credit.applied = true;
+            }
+        }
+    }
+
+    /**
+     * Ghi nhận một giao dịch vào lịch sử và thông báo cho listener (nếu có).
+     * Mọi thay đổi số dư đều phải đi qua phương thức này.
+     * @param txn Giao dịch vừa được thực hiện
+     */
+    protected void recordTransaction(Transaction txn) {
         this.transactions.add(txn);
+        if (listener != null) {
+            listener.onTransaction(this, txn);
+        }
+    }
+
+    /**
+     * Áp dụng lại một giao dịch đã được ghi trong journal khi khởi động.
+     * Không tạo giao dịch mới; listener chỉ được báo qua onTransactionReplayed.
+     * Bộ đếm mã giao dịch được nâng lên trên mã của giao dịch này để mã mới không bị trùng.
+     * @param txn Giao dịch đọc từ journal
+     */
+    public void replayTransaction(Transaction txn) {
+        lock.lock();
+        try {
+            IDGenerator.observeTransactionId(txn.getTransactionId());
+            switch (txn.getType()) {
+                case "DEPOSIT":
+                case "TRANSFER_IN":
+                case "INTEREST":
+                    this.balance += txn.getAmount();
+                    break;
+                case "WITHDRAWAL":
+                case "TRANSFER_OUT":
+                case "WITHDRAWAL_PENALTY":
+                    this.balance -= txn.getAmount();
+                    break;
+                default:
+                    break;
+            }
+            this.transactions.add(txn);
+            onReplay(txn);
+            if (listener != null) {
+                listener.onTransactionReplayed(this, txn);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Nạp một giao dịch đã được phản ánh trong số dư (khi đọc từ snapshot).
+     * Không thay đổi số dư và không thông báo cho listener; bộ đếm mã giao dịch được nâng lên
+     * trên mã của giao dịch này.
+     * @param txn Giao dịch đọc từ snapshot
+     */
+    public void restoreTransaction(Transaction txn) {
+        lock.lock();
+        try {
+            IDGenerator.observeTransactionId(txn.getTransactionId());
+            this.transactions.add(txn);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Kiểm tra xem giao dịch đã có trong lịch sử hay chưa.
+     * Tìm từ cuối danh sách vì các giao dịch cần kiểm tra thường là mới nhất.
+     * @param transactionId Mã giao dịch
+     * @return true nếu giao dịch đã tồn tại
+     */
+    public boolean hasTransaction(String transactionId) {
+        lock.lock();
+        try {
+            for (int i = transactions.size() - 1; i >= 0; i--) {
+                if (transactions.get(i).getTransactionId().equals(transactionId)) {
+                    return true;
+                }
+            }
+            // Đọc ngược từng đoạn của phần lịch sử trên đĩa
+            for (int end = persistedCount(); end > 0; end -= HISTORY_SCAN_CHUNK) {
+                List<Transaction> chunk = persistedTransactions.read(Math.max(0, end - HISTORY_SCAN_CHUNK), end);
+                for (int i = chunk.size() - 1; i >= 0; i--) {
+                    if (chunk.get(i).getTransactionId().equals(transactionId)) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lấy giao dịch tại một vị trí trong lịch sử (0 là giao dịch cũ nhất).
+     * Vị trí của một giao dịch không đổi khi lịch sử được chuyển xuống đĩa.
+     * @param index Vị trí giao dịch
+     * @return Giao dịch, hoặc null nếu vị trí không hợp lệ
+     */
+    public Transaction getTransactionAt(int index) {
+        lock.lock();
+        try {
+            int persisted = persistedCount();
+            if (index < 0 || index >= persisted + transactions.size()) {
+                return null;
+            }
+            if (index >= persisted) {
+                return transactions.get(index - persisted);
+            }
+            return persistedTransactions.read(index, index + 1).get(0);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lấy giá trị băm của mã mọi giao dịch theo thứ tự, dùng để dựng chỉ mục giao dịch.
+     * @return Một giá trị băm cho mỗi giao dịch
+     */
+    public long[] getTransactionIdHashes() {
+        lock.lock();
+        try {
+            int persisted = persistedCount();
+            long[] hashes = new long[persisted + transactions.size()];
+            if (persisted > 0) {
+                System.arraycopy(persistedTransactions.idHashes(), 0, hashes, 0, persisted);
+            }
+            for (int i = 0; i < transactions.size(); i++) {
+                hashes[persisted + i] = IdHashIndex.hash(transactions.get(i).getTransactionId());
+            }
+            return hashes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gắn phần lịch sử cũ nằm trên đĩa (khi tải từ checkpoint).
+     * Các giao dịch được nạp sau đó bằng restoreTransaction được coi là mới hơn.
+     * @param pages Lịch sử trên đĩa, hoặc null
+     */
+    public void attachPersistedTransactions(TransactionPages pages) {
+        lock.lock();
+        try {
+            this.persistedTransactions = pages;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Được gọi sau khi checkpoint đã ghi lịch sử xuống đĩa: bỏ khỏi bộ nhớ các giao dịch
+     * đã được ghi và chuyển sang đọc chúng từ bản mới.
+     * Nếu lịch sử đã thay đổi theo cách khác kể từ lúc chụp thì giữ nguyên.
+     * @param captured Phần lịch sử trên đĩa tại thời điểm chụp
+     * @param capturedInMemory Số giao dịch trong bộ nhớ tại thời điểm chụp
+     * @param replacement Lịch sử trên đĩa vừa được ghi, bao gồm cả các giao dịch đó
+     */
+    public void persistedUpTo(TransactionPages captured, int capturedInMemory, TransactionPages replacement) {
+        lock.lock();
+        try {
+            if (persistedTransactions != captured || transactions.size() < capturedInMemory) {
+                return;
+            }
+            transactions.subList(0, capturedInMemory).clear();
+            persistedTransactions = replacement;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    protected TransactionPages getPersistedTransactions() {
+        return persistedTransactions;
+    }
+
+    private int persistedCount() {
+        return persistedTransactions == null ? 0 : persistedTransactions.size();
+    }
+
+    /**
+     * Hook cho các lớp con cập nhật trạng thái riêng (ví dụ bộ đếm rút tiền)
+     * khi một giao dịch được áp dụng lại từ journal.
+     * @param txn Giao dịch vừa được áp dụng lại
+     */
+    protected void onReplay(Transaction txn) {
     }
 
     public List<Transaction> getRecentTransactions(int count) {
-        int size = transactions.size();
-        if (size <= count) {
-            return new ArrayList<>(transactions);
+        lock.lock();
+        try {
+            int size = transactions.size();
+            if (size >= count) {
+                return new ArrayList<>(transactions.subList(size - count, size));
+            }
+            int persisted = persistedCount();
+            if (persisted == 0) {
+                return new ArrayList<>(transactions);
+            }
+            // Chỉ đọc các trang cuối cùng của phần lịch sử trên đĩa
+            List<Transaction> recent = new ArrayList<>(persistedTransactions.read(Math.max(0, persisted - (count - size)), persisted));
+            recent.addAll(transactions);
+            return recent;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Lấy các giao dịch trong khoảng thời gian [from, to), theo thứ tự thời gian.
+     * Tìm nhị phân tới giao dịch đầu tiên rồi chỉ đọc các giao dịch trong khoảng,
+     * kể cả với phần lịch sử nằm trên đĩa.
+     * @param from Thời điểm bắt đầu (epoch millis, bao gồm)
+     * @param to Thời điểm kết thúc (epoch millis, không bao gồm)
+     * @param limit Số giao dịch tối đa
+     * @return Các giao dịch trong khoảng
+     */
+    public List<Transaction> getTransactions(long from, long to, int limit) {
+        lock.lock();
+        try {
+            List<Transaction> result = new ArrayList<>();
+            if (from >= to || limit <= 0) {
+                return result;
+            }
+            int persisted = persistedCount();
+            int start = persisted > 0 ? persistedTransactions.indexOfTimestamp(from) : 0;
+            // Phần lịch sử trên đĩa, đọc từng đoạn
+            for (int i = start; i < persisted; i += HISTORY_SCAN_CHUNK) {
+                for (Transaction txn : persistedTransactions.read(i, Math.min(persisted, i + HISTORY_SCAN_CHUNK))) {
+                    if (txn.getTimestamp() >= to) {
+                        return result;
+                    }
+                    result.add(txn);
+                    if (result.size() == limit) {
+                        return result;
+                    }
+                }
+            }
+            // Phần lịch sử trong bộ nhớ
+            int first = start < persisted ? 0 : TransactionPages.indexOfTimestamp(transactions, from);
+            for (int i = first; i < transactions.size(); i++) {
+                Transaction txn = transactions.get(i);
+                if (txn.getTimestamp() >= to) {
+                    break;
+                }
+                result.add(txn);
+                if (result.size() == limit) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.unlock();
         }
-        return new ArrayList<>(transactions.subList(size - count, size));
     }
 
     // ============= Phương thức trừu tượng =============
 
     public abstract String getAccountType();
 
-    public abstract boolean canWithdraw(double amount);
+    public abstract boolean canWithdraw(long amount);
+
+    /**
+     * Cho biết tài khoản đã dùng hết số lần rút được phép trong kỳ hay chưa, để phân biệt
+     * giao dịch bị từ chối vì giới hạn với giao dịch bị từ chối vì không đủ số dư.
+     * Mặc định không có giới hạn; lớp con có bộ đếm thì tự khóa khi đọc nó.
+     * @return true nếu đã đạt giới hạn rút tiền
+     */
+    public boolean isWithdrawalLimitReached() {
+        return false;
+    }
 
     public abstract void applyAccountSpecificRules();
 
+    /**
+     * Chụp lại trạng thái hiện tại của tài khoản dưới dạng bất biến
+     * để có thể ghi checkpoint trên một luồng khác.
+     * @return Bản chụp trạng thái
+     */
+    public abstract AccountSnapshot snapshot();
+
     @Override
     public String toString() {
-        return "Account [Acc No=" + accountNumber + ", Holder=" + accountHolderName + ", Balance=" + balance + "]";
+        return "Account [Acc No=" + accountNumber + ", Holder=" + accountHolderName + ", Balance=" + Money.format(balance) + "]";
+    }
+
+    /**
+     * Một khoản ghi có (nạp tiền hoặc nhận chuyển khoản) đang chờ trong hàng đợi của tài khoản nóng.
+     * Giao dịch chỉ được tạo khi khoản ghi có được áp dụng, nên thời điểm của nó tăng dần theo lịch sử.
+     */
+    private static final class PendingCredit {
+        private final String transactionId; // null = tạo khi áp dụng
+        private final String fromAccountNumber;
+        private final long amount;
+        private final String type;
+        private final String description;
+        private volatile boolean applied;
+
+        PendingCredit(String transactionId, String fromAccountNumber, long amount, String type, String description) {
+            this.transactionId = transactionId;
+            this.fromAccountNumber = fromAccountNumber;
+            this.amount = amount;
+            this.type = type;
+            this.description = description;
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("owner", owner);
+        fields.put("accountNumber", accountNumber);
+        fields.put("accountHolderName", accountHolderName);
+        fields.put("balance", Money.toDollars(balance));
+        fields.put("isActive", isActive);
+        fields.put("transactions", transactions);
+        out.writeFields();
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        owner = (User) fields.get("owner", null);
+        accountNumber = (String) fields.get("accountNumber", null);
+        accountHolderName = (String) fields.get("accountHolderName", null);
+        balance = Money.ofDollars(fields.get("balance", 0.0));
+        isActive = fields.get("isActive", false);
+        transactions = (List<Transaction>) fields.get("transactions", null);
+        lock = new ReentrantLock();
     }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.bankapp.model;
+
+/**
+ * AccountListener - Callback interface notified whenever an account changes state.
+ * Lets the persistence layer observe mutations without the model depending on it.
+ */
+public interface AccountListener {
+
+    /**
+     * Called after a transaction has been applied to an account.
+     *
+     * @param account Account that was mutated
+     * @param transaction Transaction that was recorded
+     */
+    void onTransaction(Account account, Transaction transaction);
+
+    /**
+     * Called after an account has been activated or closed.
+     *
+     * @param account Account whose status changed
+     */
+    void onAccountStatusChanged(Account account);
+
+    /**
+     * Called after a transaction from the journal has been applied again on startup.
+     * Unlike {@link #onTransaction}, the transaction is not new and must not be journaled again.
+     *
+     * @param account Account the transaction was applied to
+     * @param transaction Transaction read from the journal
+     */
+    default void onTransactionReplayed(Account account, Transaction transaction) {
+    }
+
+    /**
+     * Called before the source of a {@link PendingTransfer} is debited, so the transfer can be
+     * journaled ahead of its debit and settled on recovery if the process stops before the
+     * destination is credited or the source refunded.
+     *
+     * @param source Account about to be debited
+     * @param transfer The transfer
+     */
+    default void onTransferPending(Account source, PendingTransfer transfer) {
+    }
+}
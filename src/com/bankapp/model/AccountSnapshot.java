@@ -0,0 +1,136 @@
+package com.bankapp.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * AccountSnapshot - Immutable copy of an account's persistent state at one point in time.
+ * Captured under the account's lock so it can be serialized on another thread
+ * while the live account keeps processing transactions. The history is split into the
+ * part already stored on disk (read on demand) and the newer part held in memory.
+ */
+public final class AccountSnapshot {
+    private final String accountType;
+    private final String accountNumber;
+    private final long balance; // cents
+    private final boolean active;
+    private final long overdraftLimit; // cents, checking only
+    private final double interestRate; // savings only
+    private final int withdrawals;
+    private final long withdrawalPenalty; // cents, savings only
+    private final TransactionPages persistedTransactions;
+    private final List<Transaction> newTransactions;
+
+    /**
+     * Constructor for AccountSnapshot.
+     *
+     * @param accountType       "CHECKING" or "SAVINGS"
+     * @param accountNumber     Account number
+     * @param balance           Balance at capture time, in cents
+     * @param active            Whether the account is active
+     * @param overdraftLimit    Overdraft limit in cents (checking only)
+     * @param interestRate      Annual interest rate (savings only)
+     * @param withdrawals       Withdrawals counted this month
+     * @param withdrawalPenalty Excess withdrawal penalty in cents (savings only)
+     * @param persistedTransactions Older history stored on disk, or null
+     * @param newTransactions   Newer history held in memory at capture time
+     */
+    public AccountSnapshot(String accountType, String accountNumber, long balance, boolean active,
+                           long overdraftLimit, double interestRate, int withdrawals, long withdrawalPenalty,
+                           TransactionPages persistedTransactions, Transaction[] newTransactions) {
+        this.accountType = accountType;
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+        this.active = active;
+        this.overdraftLimit = overdraftLimit;
+        this.interestRate = interestRate;
+        this.withdrawals = withdrawals;
+        this.withdrawalPenalty = withdrawalPenalty;
+        this.persistedTransactions = persistedTransactions;
+        this.newTransactions = Collections.unmodifiableList(Arrays.asList(newTransactions));
+    }
+
+    // ============= Getters =============
+
+    public String getAccountType() {
+        return accountType;
+    }
+
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    public long getBalance() {
+        return balance;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+
+    public long getOverdraftLimit() {
+        return overdraftLimit;
+    }
+
+    public double getInterestRate() {
+        return interestRate;
+    }
+
+    public int getWithdrawals() {
+        return withdrawals;
+    }
+
+    public long getWithdrawalPenalty() {
+        return withdrawalPenalty;
+    }
+
+    public TransactionPages getPersistedTransactions() {
+        return persistedTransactions;
+    }
+
+    public List<Transaction> getNewTransactions() {
+        return newTransactions;
+    }
+
+    /**
+     * Gets the complete history, reading the on-disk part if there is one.
+     *
+     * @return All transactions, oldest first
+     */
+    public List<Transaction> getTransactions() {
+        if (persistedTransactions == null) {
+            return newTransactions;
+        }
+        List<Transaction> all = new ArrayList<>(persistedTransactions.read(0, persistedTransactions.size()));
+        all.addAll(newTransactions);
+        return all;
+    }
+
+    /**
+     * Rebuilds a live account from this snapshot.
+     *
+     * @param owner The user who owns the account
+     * @return A new CheckingAccount or SavingsAccount with the captured state
+     */
+    public Account restore(User owner) {
+        Account account;
+        if ("SAVINGS".equals(accountType)) {
+            SavingsAccount savings = new SavingsAccount(owner, accountNumber, balance, interestRate);
+            savings.setWithdrawalsThisMonth(withdrawals);
+            savings.setWithdrawalPenalty(withdrawalPenalty);
+            account = savings;
+        } else {
+            CheckingAccount checking = new CheckingAccount(owner, accountNumber, balance, overdraftLimit);
+            checking.setMonthlyWithdrawals(withdrawals);
+            account = checking;
+        }
+        account.setActive(active);
+        account.attachPersistedTransactions(persistedTransactions);
+        for (Transaction txn : newTransactions) {
+            account.restoreTransaction(txn);
+        }
+        return account;
+    }
+}
@@ -1,7 +1,6 @@
 package com.bankapp.model;
 
 import com.bankapp.service.Bank;
-import java.util.List;
 
 /**
  * Lớp Admin đại diện cho một quản trị viên ngân hàng.
@@ -29,11 +28,10 @@ public class Admin extends User {
      */
     public void viewAllUsers(Bank bank) {
         System.out.println("--- All Users List ---");
-        List<User> users = bank.getAllUsers();
-        if (users.isEmpty()) {
+        if (bank.getUserCount() == 0) {
             System.out.println("No users found in the system.");
         } else {
-            users.forEach(System.out::println);
+            bank.forEachUser(System.out::println);
         }
         System.out.println("---------------------------------");
     }
@@ -59,9 +57,8 @@ public class Admin extends User {
      * @param bank Đối tượng Bank chứa dữ liệu.
      */
     public void viewTotalAccountCount(Bank bank) {
-        List<Account> allAccounts = bank.getAllAccounts();
         System.out.println("--- Account Statistics ---");
-        System.out.println("Total number of accounts in the bank: " + allAccounts.size());
+        System.out.println("Total number of accounts in the bank: " + bank.getAccountCount());
         System.out.println("--------------------------");
     }
 
@@ -71,11 +68,10 @@ public class Admin extends User {
      */
     public void viewAllAccountsDetails(Bank bank) {
         System.out.println("--- All Accounts Details ---");
-        List<Account> allAccounts = bank.getAllAccounts();
-        if (allAccounts.isEmpty()) {
+        if (bank.getAccountCount() == 0) {
             System.out.println("No accounts found in the system.");
         } else {
-            allAccounts.forEach(System.out::println);
+            bank.forEachAccount(System.out::println);
         }
         System.out.println("---------------------------------");
     }
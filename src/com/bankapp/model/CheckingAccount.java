@@ -1,5 +1,12 @@
 package com.bankapp.model;
 
+import com.bankapp.utils.Money;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+
 /**
  * CheckingAccount class - concrete implementation of Account.
  * Represents a standard checking account with no special restrictions.
@@ -7,8 +14,14 @@ package com.bankapp.model;
  */
 public class CheckingAccount extends Account {
     private static final long serialVersionUID = 1L;
-    private static final double MINIMUM_BALANCE = 0.0;
-    private double overdraftLimit;
+    // Serialized form of earlier versions, where the overdraft limit was a double in dollars
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("overdraftLimit", double.class),
+            new ObjectStreamField("monthlyWithdrawals", int.class),
+            new ObjectStreamField("maxMonthlyWithdrawals", int.class)
+    };
+    private static final long MINIMUM_BALANCE = 0;
+    private long overdraftLimit; // cents
     private int monthlyWithdrawals;
     private int maxMonthlyWithdrawals;
 
@@ -17,10 +30,10 @@ public class CheckingAccount extends Account {
      *
      * @param owner            The user who owns this account
      * @param accountNumber    Unique account identifier
-     * @param initialBalance   Initial account balance
-     * @param overdraftLimit   Maximum overdraft amount allowed
+     * @param initialBalance   Initial account balance in cents
+     * @param overdraftLimit   Maximum overdraft amount allowed in cents
      */
-    public CheckingAccount(User owner, String accountNumber, double initialBalance, double overdraftLimit) {
+    public CheckingAccount(User owner, String accountNumber, long initialBalance, long overdraftLimit) {
         super(owner, accountNumber, initialBalance);
         this.overdraftLimit = overdraftLimit;
         this.monthlyWithdrawals = 0;
@@ -32,19 +45,19 @@ public class CheckingAccount extends Account {
      *
      * @param owner           The user who owns this account
      * @param accountNumber   Unique account identifier
-     * @param initialBalance  Initial account balance
+     * @param initialBalance  Initial account balance in cents
      */
-    public CheckingAccount(User owner, String accountNumber, double initialBalance) {
-        this(owner, accountNumber, initialBalance, 0.0);
+    public CheckingAccount(User owner, String accountNumber, long initialBalance) {
+        this(owner, accountNumber, initialBalance, 0);
     }
 
     // ============= Getters and Setters =============
 
-    public double getOverdraftLimit() {
+    public long getOverdraftLimit() {
         return overdraftLimit;
     }
 
-    public void setOverdraftLimit(double overdraftLimit) {
+    public void setOverdraftLimit(long overdraftLimit) {
         if (overdraftLimit >= 0) {
             this.overdraftLimit = overdraftLimit;
         }
@@ -54,6 +67,12 @@ public class CheckingAccount extends Account {
         return monthlyWithdrawals;
     }
 
+    public void setMonthlyWithdrawals(int monthlyWithdrawals) {
+        if (monthlyWithdrawals >= 0) {
+            this.monthlyWithdrawals = monthlyWithdrawals;
+        }
+    }
+
     // ============= Implementation of Abstract Methods =============
 
     /**
@@ -70,11 +89,11 @@ public class CheckingAccount extends Account {
      * Determines if a withdrawal can be made.
      * Checking accounts allow withdrawals if balance + overdraft limit is sufficient.
      *
-     * @param amount Amount to withdraw
+     * @param amount Amount to withdraw in cents
      * @return true if withdrawal is allowed, false otherwise
      */
     @Override
-    public boolean canWithdraw(double amount) {
+    public boolean canWithdraw(long amount) {
         return !isActive || (this.balance + this.overdraftLimit) >= amount;
     }
 
@@ -88,7 +107,36 @@ public class CheckingAccount extends Account {
         // Could add overdraft fee logic here if balance goes negative
         if (this.balance < 0) {
             // Apply overdraft fee (example)
-            // this.balance -= 35.0; // Overdraft fee
+            // this.balance -= 3500; // Overdraft fee
+        }
+    }
+
+    /**
+     * Captures the checking account state for checkpointing.
+     *
+     * @return Immutable snapshot of this account
+     */
+    @Override
+    public AccountSnapshot snapshot() {
+        lock();
+        try {
+            return new AccountSnapshot(getAccountType(), accountNumber, balance, isActive, overdraftLimit, 0.0,
+                    monthlyWithdrawals, 0, getPersistedTransactions(),
+                    transactions.toArray(new Transaction[0]));
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Counts replayed withdrawals towards the monthly counter.
+     *
+     * @param txn Replayed transaction
+     */
+    @Override
+    protected void onReplay(Transaction txn) {
+        if ("WITHDRAWAL".equals(txn.getType())) {
+            monthlyWithdrawals++;
         }
     }
 
@@ -96,17 +144,37 @@ public class CheckingAccount extends Account {
      * Resets monthly withdrawal counter (should be called monthly).
      */
     public void resetMonthlyWithdrawals() {
-        this.monthlyWithdrawals = 0;
+        lock();
+        try {
+            this.monthlyWithdrawals = 0;
+        } finally {
+            unlock();
+        }
     }
 
     @Override
     public String toString() {
         return "CheckingAccount{" +
                 "accountNumber='" + accountNumber + '\'' +
-                ", balance=" + balance +
-                ", overdraftLimit=" + overdraftLimit +
+                ", balance=" + Money.format(balance) +
+                ", overdraftLimit=" + Money.format(overdraftLimit) +
                 ", isActive=" + isActive +
-                ", transactionCount=" + transactions.size() +
+                ", transactionCount=" + getTransactionCount() +
                 '}';
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("overdraftLimit", Money.toDollars(overdraftLimit));
+        fields.put("monthlyWithdrawals", monthlyWithdrawals);
+        fields.put("maxMonthlyWithdrawals", maxMonthlyWithdrawals);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        overdraftLimit = Money.ofDollars(fields.get("overdraftLimit", 0.0));
+        monthlyWithdrawals = fields.get("monthlyWithdrawals", 0);
+        maxMonthlyWithdrawals = fields.get("maxMonthlyWithdrawals", Integer.MAX_VALUE);
+    }
 }
@@ -0,0 +1,74 @@
+package com.bankapp.model;
+
+import com.bankapp.utils.IDGenerator;
+
+/**
+ * PendingTransfer - A transfer whose debit and credit are applied separately, e.g. by two
+ * partitions of the engine. The transaction IDs of the debit, the credit and a possible refund
+ * are fixed up front, so after a crash it can be told from the recovered history whether the
+ * transfer was settled, and the missing half can be applied exactly once.
+ */
+public final class PendingTransfer {
+    private final String transferId; // ID of the TRANSFER_OUT on the source
+    private final String creditId; // ID of the TRANSFER_IN on the destination
+    private final String refundId; // ID of the TRANSFER_IN that returns the amount to the source
+    private final String fromAccountNumber;
+    private final String toAccountNumber;
+    private final long amount; // cents
+
+    /**
+     * Constructor for a new transfer; generates its transaction IDs.
+     *
+     * @param fromAccountNumber Source account
+     * @param toAccountNumber   Destination account
+     * @param amount            Amount in cents
+     */
+    public PendingTransfer(String fromAccountNumber, String toAccountNumber, long amount) {
+        this(IDGenerator.generateTransactionId(), IDGenerator.generateTransactionId(),
+                IDGenerator.generateTransactionId(), fromAccountNumber, toAccountNumber, amount);
+    }
+
+    /**
+     * Constructor for a transfer read back from the journal.
+     *
+     * @param transferId        Transaction ID of the debit
+     * @param creditId          Transaction ID of the credit
+     * @param refundId          Transaction ID of the refund
+     * @param fromAccountNumber Source account
+     * @param toAccountNumber   Destination account
+     * @param amount            Amount in cents
+     */
+    public PendingTransfer(String transferId, String creditId, String refundId,
+                           String fromAccountNumber, String toAccountNumber, long amount) {
+        this.transferId = transferId;
+        this.creditId = creditId;
+        this.refundId = refundId;
+        this.fromAccountNumber = fromAccountNumber;
+        this.toAccountNumber = toAccountNumber;
+        this.amount = amount;
+    }
+
+    public String getTransferId() {
+        return transferId;
+    }
+
+    public String getCreditId() {
+        return creditId;
+    }
+
+    public String getRefundId() {
+        return refundId;
+    }
+
+    public String getFromAccountNumber() {
+        return fromAccountNumber;
+    }
+
+    public String getToAccountNumber() {
+        return toAccountNumber;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+}
@@ -1,5 +1,13 @@
 package com.bankapp.model;
 
+import com.bankapp.utils.IDGenerator;
+import com.bankapp.utils.Money;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
+
 /**
  * SavingsAccount class - concrete implementation of Account.
  * Represents a savings account with withdrawal restrictions and interest rates.
@@ -7,22 +15,29 @@ package com.bankapp.model;
  */
 public class SavingsAccount extends Account { // Lỗi: SavingsAccount không có constructor phù hợp
     private static final long serialVersionUID = 1L;
-    private static final double MINIMUM_BALANCE = 100.0;
+    // Serialized form of earlier versions, where the penalty was a double in dollars
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("interestRate", double.class),
+            new ObjectStreamField("withdrawalsThisMonth", int.class),
+            new ObjectStreamField("withdrawalPenalty", double.class)
+    };
+    private static final long MINIMUM_BALANCE = 100_00; // cents
+    private static final long DEFAULT_WITHDRAWAL_PENALTY = 25_00; // cents
     private static final double MAX_INTEREST_RATE = 0.05; // Giới hạn lãi suất tối đa là 1%
     private double interestRate; // Annual interest rate (e.g., 0.03 for 3%)
     private int withdrawalsThisMonth;
     private static final int MAX_MONTHLY_WITHDRAWALS = 6; // Federal regulation example
-    private double withdrawalPenalty; // Penalty for exceeding withdrawal limit
+    private long withdrawalPenalty; // Penalty for exceeding withdrawal limit, in cents
 
     /**
      * Constructor for SavingsAccount.
      *
      * @param owner           The user who owns this account
      * @param accountNumber   Unique account identifier
-     * @param initialBalance  Initial account balance
+     * @param initialBalance  Initial account balance in cents
      * @param interestRate    Annual interest rate (as decimal, e.g., 0.03 for 3%)
      */
-    public SavingsAccount(User owner, String accountNumber, double initialBalance, double interestRate) {
+    public SavingsAccount(User owner, String accountNumber, long initialBalance, double interestRate) {
         super(owner, accountNumber, initialBalance);
         // Validate and set interest rate directly in the constructor
         if (interestRate < 0 || interestRate > MAX_INTEREST_RATE) {
@@ -30,7 +45,7 @@ public class SavingsAccount extends Account { // Lỗi: SavingsAccount không c
         }
         this.interestRate = interestRate;
         this.withdrawalsThisMonth = 0;
-        this.withdrawalPenalty = 25.0; // Default penalty
+        this.withdrawalPenalty = DEFAULT_WITHDRAWAL_PENALTY;
     }
 
     /**
@@ -38,9 +53,9 @@ public class SavingsAccount extends Account { // Lỗi: SavingsAccount không c
      *
      * @param owner           The user who owns this account
      * @param accountNumber   Unique account identifier
-     * @param initialBalance  Initial account balance
+     * @param initialBalance  Initial account balance in cents
      */
-    public SavingsAccount(User owner, String accountNumber, double initialBalance) {
+    public SavingsAccount(User owner, String accountNumber, long initialBalance) {
         this(owner, accountNumber, initialBalance, 0.025); // Default 2.5% interest
     }
 
@@ -62,11 +77,17 @@ public class SavingsAccount extends Account { // Lỗi: SavingsAccount không c
         return withdrawalsThisMonth;
     }
 
-    public double getWithdrawalPenalty() {
+    public void setWithdrawalsThisMonth(int withdrawalsThisMonth) {
+        if (withdrawalsThisMonth >= 0) {
+            this.withdrawalsThisMonth = withdrawalsThisMonth;
+        }
+    }
+
+    public long getWithdrawalPenalty() {
         return withdrawalPenalty;
     }
 
-    public void setWithdrawalPenalty(double penalty) {
+    public void setWithdrawalPenalty(long penalty) {
         if (penalty >= 0) {
             this.withdrawalPenalty = penalty;
         }
@@ -88,11 +109,11 @@ public class SavingsAccount extends Account { // Lỗi: SavingsAccount không c
      * Determines if a withdrawal can be made.
      * Savings accounts have monthly withdrawal limits and minimum balance requirements.
      *
-     * @param amount Amount to withdraw
+     * @param amount Amount to withdraw in cents
      * @return true if withdrawal is allowed, false otherwise
      */
     @Override
-    public boolean canWithdraw(double amount) {
+    public boolean canWithdraw(long amount) {
         if (!isActive) {
             return false;
         }
@@ -107,6 +128,21 @@ public class SavingsAccount extends Account { // Lỗi: SavingsAccount không c
         return true;
     }
 
+    /**
+     * Checks whether the monthly withdrawal limit has been used up.
+     *
+     * @return true if no more withdrawals are allowed this month
+     */
+    @Override
+    public boolean isWithdrawalLimitReached() {
+        lock();
+        try {
+            return withdrawalsThisMonth >= MAX_MONTHLY_WITHDRAWALS;
+        } finally {
+            unlock();
+        }
+    }
+
     /**
      * Applies savings account specific rules.
      * Increments withdrawal counter and applies withdrawal penalty if limit exceeded.
@@ -120,41 +156,79 @@ public class SavingsAccount extends Account { // Lỗi: SavingsAccount không c
             this.balance -= withdrawalPenalty;
             // Log penalty transaction
             Transaction penaltyTxn = new Transaction(
-                    "PEN-" + System.nanoTime(),
+                    IDGenerator.generateTransactionId("PEN"),
                     this.accountNumber,
                     null,
                     withdrawalPenalty,
                     "WITHDRAWAL_PENALTY",
                     "Excess withdrawal penalty"
             );
-            this.transactions.add(penaltyTxn);
+            recordTransaction(penaltyTxn);
+        }
+    }
+
+    /**
+     * Captures the savings account state for checkpointing.
+     *
+     * @return Immutable snapshot of this account
+     */
+    @Override
+    public AccountSnapshot snapshot() {
+        lock();
+        try {
+            return new AccountSnapshot(getAccountType(), accountNumber, balance, isActive, 0, interestRate,
+                    withdrawalsThisMonth, withdrawalPenalty, getPersistedTransactions(),
+                    transactions.toArray(new Transaction[0]));
+        } finally {
+            unlock();
+        }
+    }
+
+    /**
+     * Counts replayed withdrawals towards the monthly limit.
+     *
+     * @param txn Replayed transaction
+     */
+    @Override
+    protected void onReplay(Transaction txn) {
+        if ("WITHDRAWAL".equals(txn.getType())) {
+            withdrawalsThisMonth++;
         }
     }
 
     /**
      * Applies interest to the account balance.
      * Should be called monthly or periodically.
-     * Annual interest rate is divided by 12 for monthly calculation.
+     * Annual interest rate is divided by 12 for monthly calculation; the result is rounded
+     * to the nearest cent, ties to the even cent (see {@link Money#interest(long, double, int)}).
+     * No transaction is recorded when the interest rounds to zero.
      *
-     * @return Interest amount applied
+     * @return Interest amount applied, in cents
      */
-    public double applyMonthlyInterest() {
-        double monthlyRate = interestRate / 12.0;
-        double interest = this.balance * monthlyRate;
-        this.balance += interest;
+    public long applyMonthlyInterest() {
+        lock();
+        try {
+            long interest = Money.interest(this.balance, interestRate, 12);
+            if (interest <= 0) {
+                return 0;
+            }
+            this.balance += interest;
 
-        // Record interest transaction
-        Transaction interestTxn = new Transaction(
-                "INT-" + System.nanoTime(),
-                this.accountNumber,
-                null,
-                interest,
-                "INTEREST",
-                "Monthly interest credit"
-        );
-        this.transactions.add(interestTxn);
+            // Record interest transaction
+            Transaction interestTxn = new Transaction(
+                    IDGenerator.generateTransactionId("INT"),
+                    this.accountNumber,
+                    null,
+                    interest,
+                    "INTEREST",
+                    "Monthly interest credit"
+            );
+            recordTransaction(interestTxn);
 
-        return interest;
+            return interest;
+        } finally {
+            unlock();
+        }
     }
 
     /**
@@ -162,27 +236,52 @@ public class SavingsAccount extends Account { // Lỗi: SavingsAccount không c
      * Should be called at the start of each month.
      */
     public void resetMonthlyWithdrawals() {
-        this.withdrawalsThisMonth = 0;
+        lock();
+        try {
+            this.withdrawalsThisMonth = 0;
+        } finally {
+            unlock();
+        }
     }
 
     /**
      * Calculates projected annual interest based on current balance.
      *
-     * @return Projected annual interest amount
+     * @return Projected annual interest amount in cents
      */
-    public double getProjectedAnnualInterest() {
-        return this.balance * interestRate;
+    public long getProjectedAnnualInterest() {
+        lock();
+        try {
+            return Money.interest(this.balance, interestRate, 1);
+        } finally {
+            unlock();
+        }
     }
 
     @Override
     public String toString() {
         return "SavingsAccount{" +
                 "accountNumber='" + accountNumber + '\'' +
-                ", balance=" + balance +
+                ", balance=" + Money.format(balance) +
                 ", interestRate=" + (interestRate * 100) + "%" +
                 ", withdrawalsThisMonth=" + withdrawalsThisMonth +
                 ", isActive=" + isActive +
-                ", transactionCount=" + transactions.size() +
+                ", transactionCount=" + getTransactionCount() +
                 '}';
     }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("interestRate", interestRate);
+        fields.put("withdrawalsThisMonth", withdrawalsThisMonth);
+        fields.put("withdrawalPenalty", Money.toDollars(withdrawalPenalty));
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        interestRate = fields.get("interestRate", 0.0);
+        withdrawalsThisMonth = fields.get("withdrawalsThisMonth", 0);
+        withdrawalPenalty = Money.ofDollars(fields.get("withdrawalPenalty", 0.0));
+    }
 }
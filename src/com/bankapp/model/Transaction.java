@@ -1,5 +1,11 @@
 package com.bankapp.model;
 
+import com.bankapp.utils.Money;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -7,13 +13,26 @@ import java.util.Date;
 /**
  * Transaction class representing a single banking transaction.
  * Records all account activities for audit and history purposes.
+ * Amounts are in cents (see {@link Money}).
  */
 public class Transaction implements Serializable {
     private static final long serialVersionUID = 1L;
+    // Serialized form of earlier versions, where the amount was a double in dollars
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("transactionId", String.class),
+            new ObjectStreamField("fromAccountNumber", String.class),
+            new ObjectStreamField("toAccountNumber", String.class),
+            new ObjectStreamField("amount", double.class),
+            new ObjectStreamField("type", String.class),
+            new ObjectStreamField("description", String.class),
+            new ObjectStreamField("timestamp", long.class),
+            new ObjectStreamField("status", String.class)
+    };
+
     private String transactionId;
     private String fromAccountNumber;
     private String toAccountNumber;
-    private double amount;
+    private long amount; // cents
     private String type; // DEPOSIT, WITHDRAWAL, TRANSFER_IN, TRANSFER_OUT, INTEREST, PENALTY
     private String description;
     private long timestamp;
@@ -25,12 +44,12 @@ public class Transaction implements Serializable {
      * @param transactionId   Unique transaction identifier
      * @param fromAccountNumber Source account (null for deposits)
      * @param toAccountNumber Destination account (null for withdrawals)
-     * @param amount          Transaction amount
+     * @param amount          Transaction amount in cents
      * @param type            Type of transaction
      * @param description     Transaction description
      */
     public Transaction(String transactionId, String fromAccountNumber, String toAccountNumber,
-                       double amount, String type, String description) {
+                       long amount, String type, String description) {
         this.transactionId = transactionId;
         this.fromAccountNumber = fromAccountNumber;
         this.toAccountNumber = toAccountNumber;
@@ -41,6 +60,30 @@ public class Transaction implements Serializable {
         this.status = "SUCCESS";
     }
 
+    /**
+     * Constructor used when restoring a transaction from persistent storage.
+     *
+     * @param transactionId   Unique transaction identifier
+     * @param fromAccountNumber Source account (null for deposits)
+     * @param toAccountNumber Destination account (null for withdrawals)
+     * @param amount          Transaction amount in cents
+     * @param type            Type of transaction
+     * @param description     Transaction description
+     * @param timestamp       Original creation time (epoch millis)
+     * @param status          Transaction status
+     */
+    public Transaction(String transactionId, String fromAccountNumber, String toAccountNumber,
+                       long amount, String type, String description, long timestamp, String status) {
+        this.transactionId = transactionId;
+        this.fromAccountNumber = fromAccountNumber;
+        this.toAccountNumber = toAccountNumber;
+        this.amount = amount;
+        this.type = type;
+        this.description = description;
+        this.timestamp = timestamp;
+        this.status = status;
+    }
+
     // ============= Getters =============
 
     public String getTransactionId() {
@@ -55,7 +98,10 @@ public class Transaction implements Serializable {
         return toAccountNumber;
     }
 
-    public double getAmount() {
+    /**
+     * @return Amount in cents
+     */
+    public long getAmount() {
         return amount;
     }
 
@@ -100,7 +146,7 @@ public class Transaction implements Serializable {
         StringBuilder sb = new StringBuilder();
         sb.append(String.format("%-20s %s%n", "Transaction ID:", transactionId));
         sb.append(String.format("%-20s %s%n", "Type:", type));
-        sb.append(String.format("%-20s $%.2f%n", "Amount:", amount));
+        sb.append(String.format("%-20s %s%n", "Amount:", Money.format(amount)));
         sb.append(String.format("%-20s %s%n", "Description:", description));
         sb.append(String.format("%-20s %s%n", "Date:", getFormattedDate()));
         sb.append(String.format("%-20s %s%n", "Status:", status));
@@ -109,7 +155,32 @@ public class Transaction implements Serializable {
 
     @Override
     public String toString() {
-        return String.format("[%s] %s: $%.2f - %s (%s)", 
-                getFormattedDate(), type, amount, description, status);
+        return String.format("[%s] %s: %s - %s (%s)",
+                getFormattedDate(), type, Money.format(amount), description, status);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("transactionId", transactionId);
+        fields.put("fromAccountNumber", fromAccountNumber);
+        fields.put("toAccountNumber", toAccountNumber);
+        fields.put("amount", Money.toDollars(amount));
+        fields.put("type", type);
+        fields.put("description", description);
+        fields.put("timestamp", timestamp);
+        fields.put("status", status);
+        out.writeFields();
+    }
+
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        transactionId = (String) fields.get("transactionId", null);
+        fromAccountNumber = (String) fields.get("fromAccountNumber", null);
+        toAccountNumber = (String) fields.get("toAccountNumber", null);
+        amount = Money.ofDollars(fields.get("amount", 0.0));
+        type = (String) fields.get("type", null);
+        description = (String) fields.get("description", null);
+        timestamp = fields.get("timestamp", 0L);
+        status = (String) fields.get("status", null);
     }
 }
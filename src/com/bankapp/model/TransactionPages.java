@@ -0,0 +1,90 @@
+package com.bankapp.model;
+
+import com.bankapp.utils.IdHashIndex;
+
+import java.util.List;
+
+/**
+ * TransactionPages - Read-only, paged view of the older part of an account's transaction
+ * history that is kept on disk instead of on the heap.
+ * Implementations only read the pages covering the requested range.
+ */
+public interface TransactionPages {
+    /**
+     * Gets the number of transactions stored.
+     *
+     * @return Number of transactions
+     */
+    int size();
+
+    /**
+     * Reads the transactions with index in [from, to), oldest first.
+     *
+     * @param from First index (inclusive)
+     * @param to Last index (exclusive)
+     * @return Transactions in the range
+     * @throws java.io.UncheckedIOException if the backing store cannot be read
+     */
+    List<Transaction> read(int from, int to);
+
+    /**
+     * Finds the first transaction recorded at or after a time.
+     * History is kept in the order transactions were recorded, which is timestamp order.
+     * The default implementation binary-searches with single-transaction reads.
+     *
+     * @param timestamp Time (epoch millis)
+     * @return Index of the first transaction with a timestamp &gt;= {@code timestamp}, or {@link #size()}
+     * @throws java.io.UncheckedIOException if the backing store cannot be read
+     */
+    default int indexOfTimestamp(long timestamp) {
+        int low = 0;
+        int high = size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (read(mid, mid + 1).get(0).getTimestamp() < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Finds the first transaction of a list, in timestamp order, recorded at or after a time.
+     *
+     * @param transactions Transactions in timestamp order
+     * @param timestamp Time (epoch millis)
+     * @return Index of the first transaction with a timestamp &gt;= {@code timestamp}, or the list size
+     */
+    static int indexOfTimestamp(List<Transaction> transactions, long timestamp) {
+        int low = 0;
+        int high = transactions.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (transactions.get(mid).getTimestamp() < timestamp) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Gets the {@link IdHashIndex#hash(String)} of every transaction ID, oldest first.
+     * The default implementation reads the whole history; stores that keep the hashes
+     * should return them directly. The returned array must not be modified.
+     *
+     * @return One hash per transaction
+     * @throws java.io.UncheckedIOException if the backing store cannot be read
+     */
+    default long[] idHashes() {
+        List<Transaction> transactions = read(0, size());
+        long[] hashes = new long[transactions.size()];
+        for (int i = 0; i < hashes.length; i++) {
+            hashes[i] = IdHashIndex.hash(transactions.get(i).getTransactionId());
+        }
+        return hashes;
+    }
+}
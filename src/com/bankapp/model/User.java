@@ -1,5 +1,7 @@
 package com.bankapp.model;
 
+import com.bankapp.utils.Money;
+
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
@@ -37,6 +39,21 @@ public class User implements Serializable {
         this.createdAt = System.currentTimeMillis();
     }
 
+    /**
+     * Constructor used when restoring a User from persistent storage.
+     *
+     * @param userId       Unique identifier for the user
+     * @param username     Username for login
+     * @param passwordHash Hashed password for security
+     * @param fullName     User's full name
+     * @param email        User's email address
+     * @param createdAt    Original creation time (epoch millis)
+     */
+    public User(String userId, String username, String passwordHash, String fullName, String email, long createdAt) {
+        this(userId, username, passwordHash, fullName, email);
+        this.createdAt = createdAt;
+    }
+
     // ============= Getters and Setters =============
 
     public String getUserId() {
@@ -67,7 +84,7 @@ public class User implements Serializable {
         this.email = email;
     }
 
-    public List<Account> getAccounts() {
+    public synchronized List<Account> getAccounts() {
         return new ArrayList<>(accounts);
     }
 
@@ -94,7 +111,7 @@ public class User implements Serializable {
      * @param account Account to be added
      * @return true if account was added successfully, false otherwise
      */
-    public boolean addAccount(Account account) {
+    public synchronized boolean addAccount(Account account) {
         if (account != null && !accounts.contains(account)) {
             return accounts.add(account);
         }
@@ -107,11 +124,13 @@ public class User implements Serializable {
      * @param accountNumber The account number to search for
      * @return Account object if found, null otherwise
      */
-    public Account getAccountByNumber(String accountNumber) {
-        return accounts.stream()
-                .filter(acc -> acc.getAccountNumber().equals(accountNumber))
-                .findFirst()
-                .orElse(null);
+    public synchronized Account getAccountByNumber(String accountNumber) {
+        for (Account account : accounts) {
+            if (account.getAccountNumber().equals(accountNumber)) {
+                return account;
+            }
+        }
+        return null;
     }
 
     /**
@@ -119,7 +138,7 @@ public class User implements Serializable {
      *
      * @return List of CheckingAccount objects
      */
-    public List<Account> getCheckingAccounts() {
+    public synchronized List<Account> getCheckingAccounts() {
         List<Account> checkingAccounts = new ArrayList<>();
         for (Account account : accounts) {
             if (account instanceof CheckingAccount) {
@@ -134,7 +153,7 @@ public class User implements Serializable {
      *
      * @return List of SavingsAccount objects
      */
-    public List<Account> getSavingsAccounts() {
+    public synchronized List<Account> getSavingsAccounts() {
         List<Account> savingsAccounts = new ArrayList<>();
         for (Account account : accounts) {
             if (account instanceof SavingsAccount) {
@@ -147,23 +166,23 @@ public class User implements Serializable {
     /**
      * Gets the total balance across all accounts.
      *
-     * @return Total balance
+     * @return Total balance in cents
      */
-    public double getTotalBalance() {
+    public synchronized long getTotalBalance() {
         return accounts.stream()
-                .mapToDouble(Account::getBalance)
+                .mapToLong(Account::getBalance)
                 .sum();
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         return "User{" +
                 "userId='" + userId + '\'' +
                 ", username='" + username + '\'' +
                 ", fullName='" + fullName + '\'' +
                 ", email='" + email + '\'' +
                 ", accountCount=" + accounts.size() +
-                ", totalBalance=" + getTotalBalance() +
+                ", totalBalance=" + Money.format(getTotalBalance()) +
                 '}';
     }
 }
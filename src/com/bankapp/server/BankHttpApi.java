@@ -0,0 +1,419 @@
+package com.bankapp.server;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.User;
+import com.bankapp.services.AccountService;
+import com.bankapp.services.AuthService;
+import com.bankapp.services.TransactionResult;
+import com.bankapp.services.TransactionService;
+import com.bankapp.utils.Money;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * BankHttpApi - HTTP/JSON endpoints over the services, built on the JDK's HttpServer.
+ * Every exchange runs on its own virtual thread, and connections are kept alive between
+ * requests (every response has a Content-Length). A client logs in once and sends the returned
+ * token as {@code Authorization: Bearer <token>}; a user can only use their own accounts as the
+ * source of an operation. Amounts are JSON numbers (or strings) in dollars with at most two
+ * decimals, and are parsed exactly.
+ *
+ * <pre>
+ * POST /api/login                          {"username", "password"}      -> {"token", "userId"}
+ * POST /api/logout
+ * GET  /api/accounts                                                     -> [account...]
+ * POST /api/accounts                       {"type": "checking"|"savings", "initialBalance",
+ *                                           "overdraftLimit" | "interestRate"} -> account
+ * POST /api/accounts/{number}/deposit      {"amount", "description"}     -> result
+ * POST /api/accounts/{number}/withdraw     {"amount", "description"}     -> result
+ * GET  /api/accounts/{number}/transactions?count=20                      -> [transaction...]
+ * POST /api/transfers                      {"fromAccountNumber", "toAccountNumber", "amount",
+ *                                           "description"}               -> result
+ * </pre>
+ */
+public class BankHttpApi implements Closeable {
+    public static final long SESSION_TIMEOUT_MILLIS = 30 * 60 * 1000;
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+    private static final int DEFAULT_TRANSACTION_COUNT = 20;
+    private static final int MAX_TRANSACTION_COUNT = 1000;
+    private static final int BACKLOG = 1024;
+    private static final String PREFIX = "/api/";
+    private static final String NODELAY_PROPERTY = "sun.net.httpserver.nodelay";
+
+    private final InetSocketAddress address;
+    private final AuthService authService;
+    private final AccountService accountService;
+    private final TransactionService transactionService;
+    private final Map<String, ApiSession> sessions = new ConcurrentHashMap<>();
+    private final SecureRandom random = new SecureRandom();
+    private HttpServer server;
+    private ExecutorService executor;
+    private long lastExpiry;
+
+    /**
+     * Constructor - the API does not accept requests until {@link #start()} is called.
+     *
+     * @param bindAddress Address to listen on
+     * @param port Port to listen on, or 0 for any free port
+     */
+    public BankHttpApi(InetAddress bindAddress, int port, AuthService authService, AccountService accountService,
+                       TransactionService transactionService) {
+        this.address = new InetSocketAddress(bindAddress, port);
+        this.authService = authService;
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+    }
+
+    /**
+     * Binds the port and starts serving requests.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+        // The JDK server writes the headers and the body separately, so with Nagle's algorithm on every
+        // response waits for the client's delayed ACK (about 40 ms). Read once, before the first server.
+        if (System.getProperty(NODELAY_PROPERTY) == null) {
+            System.setProperty(NODELAY_PROPERTY, "true");
+        }
+        server = HttpServer.create(address, BACKLOG);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(PREFIX, this::handle);
+        server.start();
+    }
+
+    /**
+     * Gets the port the API listens on, e.g. after binding port 0.
+     *
+     * @return Local port, or -1 if the API is not started
+     */
+    public synchronized int getPort() {
+        return server == null ? -1 : server.getAddress().getPort();
+    }
+
+    /**
+     * Stops accepting requests, waiting up to a second for the ones in progress.
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(1);
+            executor.shutdown();
+            server = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            StringBuilder body = new StringBuilder(256);
+            int status;
+            try {
+                status = route(exchange, body);
+            } catch (ApiException e) {
+                body.setLength(0);
+                Json.writeError(body, e.getMessage());
+                status = e.status;
+            } catch (IllegalArgumentException e) {
+                body.setLength(0);
+                Json.writeError(body, "Invalid request: " + e.getMessage());
+                status = 400;
+            } catch (RuntimeException e) {
+                body.setLength(0);
+                Json.writeError(body, "Internal error");
+                status = 500;
+                System.out.println("Error: HTTP request " + exchange.getRequestURI() + " failed: " + e);
+            }
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Runs the endpoint a request is for and writes its JSON into {@code body}.
+     *
+     * @return HTTP status code
+     */
+    private int route(HttpExchange exchange, StringBuilder body) throws IOException {
+        String method = exchange.getRequestMethod();
+        String[] path = exchange.getRequestURI().getPath().substring(PREFIX.length()).split("/");
+        switch (path[0]) {
+            case "login":
+                requireMethod(method, "POST", path.length == 1);
+                return login(readBody(exchange), body);
+            case "logout":
+                requireMethod(method, "POST", path.length == 1);
+                sessions.remove(token(exchange));
+                body.append("{}");
+                return 200;
+            case "accounts":
+                User user = authenticate(exchange);
+                if (path.length == 1) {
+                    if (method.equals("GET")) {
+                        return listAccounts(user, body);
+                    }
+                    requireMethod(method, "POST", true);
+                    return openAccount(user, readBody(exchange), body);
+                }
+                Account account = ownAccount(user, path[1]);
+                String action = path.length == 3 ? path[2] : "";
+                switch (action) {
+                    case "deposit":
+                        requireMethod(method, "POST", true);
+                        Map<String, String> deposit = readBody(exchange);
+                        return writeResult(transactionService.depositAsync(account.getAccountNumber(),
+                                amount(deposit, "amount"), description(deposit, "Deposit")).join(), body);
+                    case "withdraw":
+                        requireMethod(method, "POST", true);
+                        Map<String, String> withdrawal = readBody(exchange);
+                        return writeResult(transactionService.withdrawAsync(account.getAccountNumber(),
+                                amount(withdrawal, "amount"), description(withdrawal, "Withdrawal")).join(), body);
+                    case "transactions":
+                        requireMethod(method, "GET", true);
+                        return listTransactions(account, exchange.getRequestURI(), body);
+                    default:
+                        throw new ApiException(404, "Not found");
+                }
+            case "transfers":
+                requireMethod(method, "POST", path.length == 1);
+                User sender = authenticate(exchange);
+                Map<String, String> transfer = readBody(exchange);
+                Account from = ownAccount(sender, required(transfer, "fromAccountNumber"));
+                return writeResult(transactionService.transferAsync(from.getAccountNumber(),
+                        required(transfer, "toAccountNumber"), amount(transfer, "amount"),
+                        description(transfer, "Transfer")).join(), body);
+            default:
+                throw new ApiException(404, "Not found");
+        }
+    }
+
+    private int login(Map<String, String> request, StringBuilder body) {
+        User user = authService.login(required(request, "username"), required(request, "password")).orElse(null);
+        if (user == null) {
+            throw new ApiException(401, "Invalid username or password");
+        }
+        expireSessions();
+        byte[] bytes = new byte[16];
+        random.nextBytes(bytes);
+        String token = HexFormat.of().formatHex(bytes);
+        sessions.put(token, new ApiSession(user));
+        body.append("{\"token\":");
+        Json.writeString(body, token);
+        body.append(",\"userId\":");
+        Json.writeString(body, user.getUserId());
+        body.append('}');
+        return 200;
+    }
+
+    private int listAccounts(User user, StringBuilder body) {
+        body.append('[');
+        List<Account> accounts = user.getAccounts();
+        for (int i = 0; i < accounts.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            Json.writeAccount(body, accounts.get(i));
+        }
+        body.append(']');
+        return 200;
+    }
+
+    private int openAccount(User user, Map<String, String> request, StringBuilder body) {
+        long initialBalance = amount(request, "initialBalance");
+        Account account;
+        switch (required(request, "type").toLowerCase()) {
+            case "checking":
+                String overdraft = request.get("overdraftLimit");
+                account = accountService.createCheckingAccount(user, initialBalance,
+                        overdraft == null ? 0 : Money.parse(overdraft));
+                break;
+            case "savings":
+                account = accountService.createSavingsAccount(user, initialBalance,
+                        Double.parseDouble(required(request, "interestRate")));
+                break;
+            default:
+                throw new ApiException(400, "Account type must be checking or savings");
+        }
+        if (account == null) {
+            throw new ApiException(400, "Account could not be opened");
+        }
+        Json.writeAccount(body, account);
+        return 201;
+    }
+
+    private int listTransactions(Account account, URI uri, StringBuilder body) {
+        int count = DEFAULT_TRANSACTION_COUNT;
+        String query = uri.getRawQuery();
+        if (query != null) {
+            for (String parameter : query.split("&")) {
+                if (parameter.startsWith("count=")) {
+                    count = transactionCount(parameter.substring("count=".length()));
+                }
+            }
+        }
+        body.append('[');
+        List<Transaction> transactions = transactionService.getRecentTransactions(account.getAccountNumber(), count);
+        for (int i = 0; i < transactions.size(); i++) {
+            if (i > 0) {
+                body.append(',');
+            }
+            Json.writeTransaction(body, transactions.get(i));
+        }
+        body.append(']');
+        return 200;
+    }
+
+    private static int transactionCount(String value) {
+        int count;
+        try {
+            count = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new ApiException(400, "count must be a whole number");
+        }
+        if (count < 0) {
+            throw new ApiException(400, "count must not be negative");
+        }
+        return Math.min(count, MAX_TRANSACTION_COUNT);
+    }
+
+    private static int writeResult(TransactionResult result, StringBuilder body) {
+        Json.writeResult(body, result);
+        switch (result.getStatus()) {
+            case SUCCESS:
+                return 200;
+            case INVALID_AMOUNT:
+                return 400;
+            case ACCOUNT_NOT_FOUND:
+                return 404;
+            case NOT_DURABLE:
+                return 503;
+            default:
+                return 409; // Inactive account, insufficient funds or limit reached
+        }
+    }
+
+    private User authenticate(HttpExchange exchange) {
+        String token = token(exchange);
+        ApiSession session = token == null ? null : sessions.get(token);
+        long now = System.currentTimeMillis();
+        if (session == null || now - session.lastUsed > SESSION_TIMEOUT_MILLIS) {
+            if (session != null) {
+                sessions.remove(token);
+            }
+            throw new ApiException(401, "Log in first");
+        }
+        session.lastUsed = now;
+        return session.user;
+    }
+
+    private static String token(HttpExchange exchange) {
+        String header = exchange.getRequestHeaders().getFirst("Authorization");
+        return header != null && header.startsWith("Bearer ") ? header.substring("Bearer ".length()).trim() : null;
+    }
+
+    private static Account ownAccount(User user, String accountNumber) {
+        Account account = user.getAccountByNumber(accountNumber);
+        if (account == null) {
+            throw new ApiException(404, "Account not found: " + accountNumber);
+        }
+        return account;
+    }
+
+    /**
+     * Drops timed-out sessions, at most once a minute.
+     */
+    private void expireSessions() {
+        long now = System.currentTimeMillis();
+        synchronized (sessions) {
+            if (now - lastExpiry < 60_000) {
+                return;
+            }
+            lastExpiry = now;
+        }
+        sessions.values().removeIf(session -> now - session.lastUsed > SESSION_TIMEOUT_MILLIS);
+    }
+
+    private static Map<String, String> readBody(HttpExchange exchange) throws IOException {
+        InputStream in = exchange.getRequestBody();
+        byte[] bytes = in.readNBytes(MAX_BODY_BYTES + 1);
+        if (bytes.length > MAX_BODY_BYTES) {
+            throw new ApiException(413, "Request body too large");
+        }
+        String text = new String(bytes, StandardCharsets.UTF_8);
+        return text.isBlank() ? Map.of() : Json.parseObject(text);
+    }
+
+    private static void requireMethod(String method, String expected, boolean pathMatches) {
+        if (!pathMatches) {
+            throw new ApiException(404, "Not found");
+        }
+        if (!method.equals(expected)) {
+            throw new ApiException(405, "Use " + expected);
+        }
+    }
+
+    private static String required(Map<String, String> request, String field) {
+        String value = request.get(field);
+        if (value == null || value.isEmpty()) {
+            throw new ApiException(400, "Missing field: " + field);
+        }
+        return value;
+    }
+
+    private static long amount(Map<String, String> request, String field) {
+        return Money.parse(required(request, field));
+    }
+
+    private static String description(Map<String, String> request, String defaultDescription) {
+        String description = request.get("description");
+        return description == null || description.isBlank() ? defaultDescription : description;
+    }
+
+    /**
+     * A logged-in API client.
+     */
+    private static final class ApiSession {
+        private final User user;
+        private volatile long lastUsed = System.currentTimeMillis();
+
+        ApiSession(User user) {
+            this.user = user;
+        }
+    }
+
+    /**
+     * Rejects a request with an HTTP status and message.
+     */
+    private static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
+
+        ApiException(int status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.bankapp.server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BankServer - Line-based TCP front-end that serves every connection on its own virtual thread.
+ * Each connection gets a fresh session from the {@link SessionHandler}, which reads and writes
+ * the connection's streams instead of the console, so thousands of users can be served at once
+ * against one shared Bank; a session blocked on its client only parks its virtual thread.
+ * A session ends when it returns, when the client disconnects or after
+ * {@link #IDLE_TIMEOUT_MILLIS} without input.
+ */
+public class BankServer implements Closeable {
+    public static final int IDLE_TIMEOUT_MILLIS = 15 * 60 * 1000;
+    private static final int BACKLOG = 1024;
+
+    /**
+     * Runs one session over a connection's streams.
+     */
+    public interface SessionHandler {
+        /**
+         * Serves one connection; returning ends the session and closes the connection.
+         *
+         * @param in Input from the client
+         * @param out Output to the client; buffered, so flush it before waiting for input
+         * @throws IOException if the connection fails
+         */
+        void handle(InputStream in, PrintStream out) throws IOException;
+    }
+
+    private final InetSocketAddress address;
+    private final SessionHandler handler;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicLong sessionCount = new AtomicLong();
+    private volatile ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    /**
+     * Constructor - the server does not accept connections until {@link #start()} is called.
+     *
+     * @param bindAddress Address to listen on, e.g. the loopback address for local use only
+     * @param port Port to listen on, or 0 for any free port
+     * @param handler Handler that runs each session
+     */
+    public BankServer(InetAddress bindAddress, int port, SessionHandler handler) {
+        this.address = new InetSocketAddress(bindAddress, port);
+        this.handler = handler;
+    }
+
+    /**
+     * Binds the port and starts accepting connections on a background thread.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (serverSocket != null || closed) {
+            return;
+        }
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(address, BACKLOG);
+        serverSocket = socket;
+        Thread acceptor = new Thread(this::acceptLoop, "bank-server-acceptor");
+        acceptor.start();
+    }
+
+    /**
+     * Gets the port the server listens on, e.g. after binding port 0.
+     *
+     * @return Local port, or -1 if the server is not started
+     */
+    public int getPort() {
+        ServerSocket socket = serverSocket;
+        return socket == null ? -1 : socket.getLocalPort();
+    }
+
+    /**
+     * Gets the number of connections currently being served.
+     *
+     * @return Open session count
+     */
+    public int getActiveSessionCount() {
+        return connections.size();
+    }
+
+    /**
+     * Stops accepting connections and disconnects every open session.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            closeQuietly(socket);
+        }
+        for (Socket connection : connections) {
+            closeQuietly(connection);
+        }
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket connection;
+            try {
+                connection = serverSocket.accept();
+            } catch (IOException e) {
+                if (!closed) {
+                    System.out.println("Error: Could not accept connection: " + e.getMessage());
+                }
+                continue;
+            }
+            connections.add(connection);
+            if (closed) {
+                closeQuietly(connection);
+                connections.remove(connection);
+                break;
+            }
+            Thread.ofVirtual()
+                    .name("bank-session-" + sessionCount.incrementAndGet())
+                    .start(() -> serve(connection));
+        }
+    }
+
+    private void serve(Socket connection) {
+        try (Socket socket = connection) {
+            socket.setTcpNoDelay(true);
+            socket.setSoTimeout(IDLE_TIMEOUT_MILLIS);
+            InputStream in = new BufferedInputStream(socket.getInputStream());
+            PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false,
+                    StandardCharsets.UTF_8);
+            try {
+                handler.handle(in, out);
+            } catch (NoSuchElementException e) {
+                // The client disconnected or went idle while the session was waiting for input
+            }
+            out.flush();
+        } catch (SocketException e) {
+            // Disconnected, or closed by close()
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Error: Session " + Thread.currentThread().getName() + " failed: " + e);
+        } finally {
+            connections.remove(connection);
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
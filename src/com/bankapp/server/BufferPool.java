@@ -0,0 +1,60 @@
+package com.bankapp.server;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * BufferPool - Reuses fixed-size direct buffers, which are slow to allocate and are only freed
+ * by the garbage collector. Buffers are cut from larger slabs, so one allocation serves many
+ * buffers. Any thread may acquire and release buffers.
+ */
+final class BufferPool {
+    private final int bufferSize;
+    private final int buffersPerSlab;
+    private final int maxRetained;
+    private final ConcurrentLinkedQueue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger freeCount = new AtomicInteger();
+
+    /**
+     * @param bufferSize Capacity of each buffer
+     * @param buffersPerSlab Number of buffers cut from each allocation
+     * @param maxRetained Most free buffers kept; buffers released beyond this are dropped
+     */
+    BufferPool(int bufferSize, int buffersPerSlab, int maxRetained) {
+        this.bufferSize = bufferSize;
+        this.buffersPerSlab = buffersPerSlab;
+        this.maxRetained = maxRetained;
+    }
+
+    /**
+     * Takes a cleared buffer from the pool, allocating a new slab if the pool is empty.
+     */
+    ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null) {
+            return allocateSlab();
+        }
+        freeCount.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Gives a buffer back; it must no longer be used by the caller.
+     */
+    void release(ByteBuffer buffer) {
+        if (freeCount.get() < maxRetained) {
+            freeCount.incrementAndGet();
+            free.add(buffer);
+        }
+    }
+
+    private ByteBuffer allocateSlab() {
+        ByteBuffer slab = ByteBuffer.allocateDirect(bufferSize * buffersPerSlab);
+        for (int i = 1; i < buffersPerSlab; i++) {
+            release(slab.slice(i * bufferSize, bufferSize));
+        }
+        return slab.slice(0, bufferSize);
+    }
+}
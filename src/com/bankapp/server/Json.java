@@ -0,0 +1,272 @@
+package com.bankapp.server;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.CheckingAccount;
+import com.bankapp.model.SavingsAccount;
+import com.bankapp.model.Transaction;
+import com.bankapp.services.TransactionResult;
+import com.bankapp.utils.Money;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Json - Minimal JSON support for the HTTP API.
+ * Objects are appended straight into the caller's StringBuilder: amounts are written digit by
+ * digit from cents and strings are copied in one call unless they need escaping, so encoding a
+ * response allocates nothing besides the builder itself. Requests are flat objects whose values
+ * are read as strings; numbers are kept as text so amounts can be parsed exactly with
+ * {@link Money#parse(String)}.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    static void writeAccount(StringBuilder sb, Account account) {
+        sb.append("{\"accountNumber\":");
+        writeString(sb, account.getAccountNumber());
+        sb.append(",\"type\":");
+        writeString(sb, account.getAccountType());
+        sb.append(",\"balance\":");
+        writeAmount(sb, account.getBalance());
+        sb.append(",\"active\":").append(account.isActive());
+        if (account instanceof CheckingAccount) {
+            sb.append(",\"overdraftLimit\":");
+            writeAmount(sb, ((CheckingAccount) account).getOverdraftLimit());
+        } else if (account instanceof SavingsAccount) {
+            sb.append(",\"interestRate\":").append(((SavingsAccount) account).getInterestRate());
+        }
+        sb.append('}');
+    }
+
+    static void writeTransaction(StringBuilder sb, Transaction transaction) {
+        sb.append("{\"transactionId\":");
+        writeString(sb, transaction.getTransactionId());
+        sb.append(",\"type\":");
+        writeString(sb, transaction.getType());
+        sb.append(",\"amount\":");
+        writeAmount(sb, transaction.getAmount());
+        sb.append(",\"fromAccountNumber\":");
+        writeString(sb, transaction.getFromAccountNumber());
+        sb.append(",\"toAccountNumber\":");
+        writeString(sb, transaction.getToAccountNumber());
+        sb.append(",\"description\":");
+        writeString(sb, transaction.getDescription());
+        sb.append(",\"timestamp\":").append(transaction.getTimestamp());
+        sb.append(",\"status\":");
+        writeString(sb, transaction.getStatus());
+        sb.append('}');
+    }
+
+    static void writeResult(StringBuilder sb, TransactionResult result) {
+        sb.append("{\"status\":");
+        writeString(sb, result.getStatus().name());
+        sb.append(",\"accountNumber\":");
+        writeString(sb, result.getAccountNumber());
+        sb.append(",\"balance\":");
+        writeAmount(sb, result.getBalance());
+        sb.append('}');
+    }
+
+    static void writeError(StringBuilder sb, String message) {
+        sb.append("{\"error\":");
+        writeString(sb, message);
+        sb.append('}');
+    }
+
+    /**
+     * Writes cents as a JSON number with two decimals, e.g. 1234.50 or -0.05.
+     */
+    static void writeAmount(StringBuilder sb, long cents) {
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(cents);
+        long fraction = abs % Money.CENTS_PER_DOLLAR;
+        sb.append(abs / Money.CENTS_PER_DOLLAR).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        sb.append(fraction);
+    }
+
+    static void writeString(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        sb.append('"');
+        int start = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            sb.append(value, start, i);
+            switch (c) {
+                case '"':
+                    sb.append("\\\"");
+                    break;
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                default:
+                    sb.append("\\u00");
+                    sb.append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+                    break;
+            }
+            start = i + 1;
+        }
+        sb.append(value, start, value.length()).append('"');
+    }
+
+    /**
+     * Parses a flat JSON object. String, number and boolean values are returned as their text;
+     * null values are left out.
+     *
+     * @param text JSON text
+     * @return Field values by name
+     * @throws IllegalArgumentException if the text is not a flat JSON object
+     */
+    static Map<String, String> parseObject(String text) {
+        Map<String, String> fields = new HashMap<>();
+        Parser parser = new Parser(text);
+        parser.expect('{');
+        if (parser.peek() == '}') {
+            parser.pos++;
+        } else {
+            do {
+                String name = parser.readString();
+                parser.expect(':');
+                String value = parser.readValue();
+                if (value != null) {
+                    fields.put(name, value);
+                }
+            } while (parser.next(',', '}') == ',');
+        }
+        if (parser.peek() != 0) {
+            throw new IllegalArgumentException("Unexpected content after JSON object");
+        }
+        return fields;
+    }
+
+    private static final class Parser {
+        private final String text;
+        private int pos;
+
+        Parser(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Skips whitespace and returns the next character without consuming it, or 0 at the end.
+         */
+        char peek() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+
+        void expect(char expected) {
+            if (peek() != expected) {
+                throw new IllegalArgumentException("Expected '" + expected + "' at position " + pos);
+            }
+            pos++;
+        }
+
+        char next(char first, char second) {
+            char c = peek();
+            if (c != first && c != second) {
+                throw new IllegalArgumentException("Expected '" + first + "' or '" + second + "' at position " + pos);
+            }
+            pos++;
+            return c;
+        }
+
+        String readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            int start = pos;
+            while (pos < text.length() && ",}] \t\r\n".indexOf(text.charAt(pos)) < 0) {
+                pos++;
+            }
+            String literal = text.substring(start, pos);
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.isEmpty() || c == '{' || c == '[') {
+                throw new IllegalArgumentException("Unsupported value at position " + start);
+            }
+            return literal;
+        }
+
+        String readString() {
+            expect('"');
+            StringBuilder sb = null;
+            int start = pos;
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '"') {
+                    String value = sb == null ? text.substring(start, pos) : sb.append(text, start, pos).toString();
+                    pos++;
+                    return value;
+                }
+                if (c != '\\') {
+                    pos++;
+                    continue;
+                }
+                if (sb == null) {
+                    sb = new StringBuilder();
+                }
+                sb.append(text, start, pos);
+                if (pos + 1 >= text.length()) {
+                    break;
+                }
+                char escaped = text.charAt(pos + 1);
+                pos += 2;
+                switch (escaped) {
+                    case 'n':
+                        sb.append('\n');
+                        break;
+                    case 'r':
+                        sb.append('\r');
+                        break;
+                    case 't':
+                        sb.append('\t');
+                        break;
+                    case 'b':
+                        sb.append('\b');
+                        break;
+                    case 'f':
+                        sb.append('\f');
+                        break;
+                    case 'u':
+                        if (pos + 4 > text.length()) {
+                            throw new IllegalArgumentException("Bad unicode escape at position " + pos);
+                        }
+                        sb.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default:
+                        sb.append(escaped);
+                        break;
+                }
+                start = pos;
+            }
+            throw new IllegalArgumentException("Unterminated string");
+        }
+    }
+}
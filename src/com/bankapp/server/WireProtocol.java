@@ -0,0 +1,78 @@
+package com.bankapp.server;
+
+import com.bankapp.services.TransactionResult;
+
+/**
+ * WireProtocol - Frame layout and codes of the binary protocol served by {@link WireServer}.
+ * All numbers are big-endian. Every frame starts with an int32 holding the length of the rest
+ * of the frame. A string is a uint16 byte count followed by that many UTF-8 bytes, and amounts
+ * are int64 cents.
+ *
+ * <pre>
+ * Request:  int32 length, int64 requestId, int8 opcode, then by opcode:
+ *   LOGIN     string username, string password
+ *   DEPOSIT   string accountNumber, int64 amount, string description
+ *   WITHDRAW  string accountNumber, int64 amount, string description
+ *   TRANSFER  string fromAccountNumber, string toAccountNumber, int64 amount, string description
+ *   BALANCE   string accountNumber
+ * Response: int32 length (always 17), int64 requestId, int8 status, int64 balance
+ * </pre>
+ *
+ * A connection must LOGIN first, and may then use only the logged-in user's accounts as the
+ * account of a deposit, withdrawal or balance request or the source of a transfer. Requests can
+ * be pipelined: a client may send many without waiting, and the responses come back in the order
+ * the operations complete, which is not always the order they were sent in, so clients match
+ * them by requestId. The balance is the one of {@link TransactionResult#getBalance()}.
+ */
+public final class WireProtocol {
+    public static final byte LOGIN = 1;
+    public static final byte DEPOSIT = 2;
+    public static final byte WITHDRAW = 3;
+    public static final byte TRANSFER = 4;
+    public static final byte BALANCE = 5;
+
+    // Statuses 0-6 are the TransactionResult statuses
+    public static final byte SUCCESS = 0;
+    public static final byte INVALID_AMOUNT = 1;
+    public static final byte ACCOUNT_NOT_FOUND = 2;
+    public static final byte ACCOUNT_INACTIVE = 3;
+    public static final byte INSUFFICIENT_FUNDS = 4;
+    public static final byte LIMIT_EXCEEDED = 5;
+    public static final byte NOT_DURABLE = 6;
+    public static final byte LOGIN_FAILED = 10;
+    public static final byte NOT_LOGGED_IN = 11;
+    public static final byte BAD_REQUEST = 12; // Unknown opcode or malformed fields
+    public static final byte UNAVAILABLE = 13; // The server is shutting down or the operation failed
+
+    /** Largest request frame accepted, excluding the length prefix; a larger one closes the connection. */
+    public static final int MAX_FRAME_LENGTH = 4096;
+    /** Size of a response frame, including the length prefix. */
+    public static final int RESPONSE_SIZE = 4 + 8 + 1 + 8;
+
+    private WireProtocol() {
+    }
+
+    /**
+     * Gets the wire status of a transaction outcome.
+     */
+    static byte statusOf(TransactionResult.Status status) {
+        switch (status) {
+            case SUCCESS:
+                return SUCCESS;
+            case INVALID_AMOUNT:
+                return INVALID_AMOUNT;
+            case ACCOUNT_NOT_FOUND:
+                return ACCOUNT_NOT_FOUND;
+            case ACCOUNT_INACTIVE:
+                return ACCOUNT_INACTIVE;
+            case INSUFFICIENT_FUNDS:
+                return INSUFFICIENT_FUNDS;
+            case LIMIT_EXCEEDED:
+                return LIMIT_EXCEEDED;
+            case NOT_DURABLE:
+                return NOT_DURABLE;
+            default:
+                return UNAVAILABLE;
+        }
+    }
+}
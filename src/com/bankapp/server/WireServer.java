@@ -0,0 +1,512 @@
+package com.bankapp.server;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.User;
+import com.bankapp.services.AuthService;
+import com.bankapp.services.TransactionResult;
+import com.bankapp.services.TransactionService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * WireServer - Serves the binary {@link WireProtocol} on a few non-blocking NIO event loops.
+ * Each connection belongs to one loop, which reads and decodes its frames and hands deposits,
+ * withdrawals and transfers to the async {@link TransactionService} API, so their validation,
+ * journaling and durability are exactly those of every other caller. A loop never waits for an
+ * operation: when one completes, its response is encoded into a pooled direct buffer on the
+ * completing thread and queued on the connection, and the loop writes all queued responses with
+ * one gathering write.
+ *
+ * A connection may have up to {@link #MAX_PENDING} requests in progress or waiting to be
+ * written; beyond that its loop stops reading from it until responses have been written, so a
+ * client that sends faster than the bank can apply (or that does not read its responses) is
+ * slowed down instead of filling memory. Pipelined operations run concurrently, so use an
+ * engine (or a virtual-thread async executor) rather than the default cached pool.
+ */
+public class WireServer implements Closeable {
+    public static final int MAX_PENDING = 1024;
+    private static final int BACKLOG = 1024;
+    private static final int READ_BUFFER_SIZE = 16 * 1024;
+    private static final int MAX_GATHER = 64;
+
+    private final InetSocketAddress address;
+    private final AuthService authService;
+    private final TransactionService transactionService;
+    private final EventLoop[] loops;
+    private final BufferPool readBuffers = new BufferPool(READ_BUFFER_SIZE, 4, 256);
+    private final BufferPool responseBuffers = new BufferPool(WireProtocol.RESPONSE_SIZE, 1024, 64 * 1024);
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private ServerSocketChannel serverChannel;
+    private volatile boolean closed;
+    private int nextLoop;
+
+    /**
+     * Constructor - the server does not accept connections until {@link #start()} is called.
+     *
+     * @param bindAddress Address to listen on
+     * @param port Port to listen on, or 0 for any free port
+     * @param eventLoops Number of event loop threads, e.g. 1 or the number of cores
+     */
+    public WireServer(InetAddress bindAddress, int port, int eventLoops, AuthService authService,
+                      TransactionService transactionService) {
+        if (eventLoops < 1) {
+            throw new IllegalArgumentException("Event loop count must be positive");
+        }
+        this.address = new InetSocketAddress(bindAddress, port);
+        this.authService = authService;
+        this.transactionService = transactionService;
+        this.loops = new EventLoop[eventLoops];
+    }
+
+    /**
+     * Binds the port and starts the event loops; the first loop also accepts connections.
+     *
+     * @throws IOException if the port cannot be bound
+     */
+    public synchronized void start() throws IOException {
+        if (serverChannel != null || closed) {
+            return;
+        }
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.setOption(StandardSocketOptions.SO_REUSEADDR, true);
+        serverChannel.bind(address, BACKLOG);
+        serverChannel.configureBlocking(false);
+        for (int i = 0; i < loops.length; i++) {
+            loops[i] = new EventLoop(Selector.open());
+        }
+        serverChannel.register(loops[0].selector, SelectionKey.OP_ACCEPT);
+        for (int i = 0; i < loops.length; i++) {
+            loops[i].thread = new Thread(loops[i], "bank-wire-loop-" + i);
+            loops[i].thread.start();
+        }
+    }
+
+    /**
+     * Gets the port the server listens on, e.g. after binding port 0.
+     *
+     * @return Local port, or -1 if the server is not started
+     */
+    public synchronized int getPort() {
+        return serverChannel == null ? -1 : serverChannel.socket().getLocalPort();
+    }
+
+    /**
+     * Gets the number of open connections.
+     *
+     * @return Connection count
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Stops accepting connections and closes every open one; responses still pending are dropped.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        for (EventLoop loop : loops) {
+            if (loop == null || loop.thread == null) {
+                continue;
+            }
+            loop.selector.wakeup();
+            try {
+                loop.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * A connection and its state; everything but the outbound queue is used by its loop only.
+     */
+    private static final class Connection {
+        private final SocketChannel channel;
+        private final EventLoop loop;
+        private final ByteBuffer in;
+        private final ConcurrentLinkedQueue<ByteBuffer> outbound = new ConcurrentLinkedQueue<>();
+        private final ArrayDeque<ByteBuffer> writing = new ArrayDeque<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private volatile boolean closed;
+        private SelectionKey key;
+        private User user;
+
+        Connection(SocketChannel channel, EventLoop loop, ByteBuffer in) {
+            this.channel = channel;
+            this.loop = loop;
+            this.in = in;
+        }
+    }
+
+    /**
+     * One selector thread and the connections registered with it.
+     */
+    private final class EventLoop implements Runnable {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<SocketChannel> accepted = new ConcurrentLinkedQueue<>();
+        private final ConcurrentLinkedQueue<Connection> ready = new ConcurrentLinkedQueue<>();
+        private final Set<Connection> connections = new HashSet<>();
+        private final ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+        private volatile Thread thread;
+
+        EventLoop(Selector selector) {
+            this.selector = selector;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!closed) {
+                    selector.select();
+                    SocketChannel channel;
+                    while ((channel = accepted.poll()) != null) {
+                        register(channel);
+                    }
+                    for (SelectionKey key : selector.selectedKeys()) {
+                        if (!key.isValid()) {
+                            continue;
+                        }
+                        if (key.isAcceptable()) {
+                            accept();
+                            continue;
+                        }
+                        Connection connection = (Connection) key.attachment();
+                        try {
+                            if (key.isReadable()) {
+                                read(connection);
+                            }
+                            if (!connection.closed && key.isWritable()) {
+                                flush(connection);
+                            }
+                        } catch (IOException e) {
+                            close(connection);
+                        }
+                    }
+                    selector.selectedKeys().clear();
+                    Connection connection;
+                    while ((connection = ready.poll()) != null) {
+                        connection.scheduled.set(false);
+                        try {
+                            if (!connection.closed) {
+                                flush(connection);
+                            }
+                        } catch (IOException e) {
+                            close(connection);
+                        }
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                System.out.println("Error: " + Thread.currentThread().getName() + " stopped: " + e);
+            } finally {
+                for (Connection connection : new ArrayList<>(connections)) {
+                    close(connection);
+                }
+                SocketChannel channel;
+                while ((channel = accepted.poll()) != null) {
+                    closeQuietly(channel);
+                }
+                if (this == loops[0]) {
+                    closeQuietly(serverChannel);
+                }
+                closeQuietly(selector);
+            }
+        }
+
+        private void accept() throws IOException {
+            SocketChannel channel;
+            while ((channel = serverChannel.accept()) != null) {
+                channel.configureBlocking(false);
+                channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+                EventLoop target = loops[nextLoop];
+                nextLoop = (nextLoop + 1) % loops.length;
+                if (target == this) {
+                    register(channel);
+                } else {
+                    target.accepted.add(channel);
+                    target.selector.wakeup();
+                }
+            }
+        }
+
+        private void register(SocketChannel channel) {
+            Connection connection = new Connection(channel, this, readBuffers.acquire());
+            try {
+                connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            } catch (IOException e) {
+                readBuffers.release(connection.in);
+                closeQuietly(channel);
+                return;
+            }
+            connections.add(connection);
+            connectionCount.incrementAndGet();
+        }
+
+        private void read(Connection connection) throws IOException {
+            if (connection.channel.read(connection.in) < 0) {
+                close(connection);
+                return;
+            }
+            process(connection);
+        }
+
+        /**
+         * Runs every complete request frame in the read buffer, unless too many are pending.
+         */
+        private void process(Connection connection) {
+            ByteBuffer in = connection.in;
+            in.flip();
+            while (connection.pending.get() < MAX_PENDING && in.remaining() >= 4) {
+                int start = in.position();
+                int length = in.getInt(start);
+                if (length < 9 || length > WireProtocol.MAX_FRAME_LENGTH) {
+                    close(connection); // Not a frame of this protocol; the stream cannot be resynchronized
+                    return;
+                }
+                if (in.remaining() < 4 + length) {
+                    break;
+                }
+                int end = start + 4 + length;
+                int limit = in.limit();
+                in.position(start + 4).limit(end);
+                long requestId = in.getLong();
+                byte opcode = in.get();
+                connection.pending.incrementAndGet();
+                try {
+                    execute(connection, requestId, opcode, in);
+                } catch (BufferUnderflowException | IllegalArgumentException e) {
+                    respond(connection, requestId, WireProtocol.BAD_REQUEST, 0);
+                } catch (RuntimeException e) {
+                    respond(connection, requestId, WireProtocol.UNAVAILABLE, 0);
+                }
+                in.limit(limit).position(end);
+            }
+            in.compact();
+            updateInterest(connection);
+        }
+
+        /**
+         * Writes the connection's queued responses, as many as the socket takes, and resumes
+         * reading once enough of them are out.
+         */
+        private void flush(Connection connection) throws IOException {
+            ArrayDeque<ByteBuffer> writing = connection.writing;
+            ByteBuffer queued;
+            while ((queued = connection.outbound.poll()) != null) {
+                writing.add(queued);
+            }
+            while (!writing.isEmpty()) {
+                int count = 0;
+                for (ByteBuffer buffer : writing) {
+                    gather[count++] = buffer;
+                    if (count == gather.length) {
+                        break;
+                    }
+                }
+                connection.channel.write(gather, 0, count);
+                Arrays.fill(gather, 0, count, null);
+                int written = 0;
+                while (!writing.isEmpty() && !writing.peekFirst().hasRemaining()) {
+                    responseBuffers.release(writing.pollFirst());
+                    written++;
+                }
+                connection.pending.addAndGet(-written);
+                if (written < count) {
+                    break; // The socket's send buffer is full; OP_WRITE resumes the flush
+                }
+            }
+            if (connection.pending.get() < MAX_PENDING && connection.in.position() > 0) {
+                process(connection); // Frames left unread while the connection was paused
+            } else {
+                updateInterest(connection);
+            }
+        }
+
+        private void updateInterest(Connection connection) {
+            int ops = connection.pending.get() < MAX_PENDING ? SelectionKey.OP_READ : 0;
+            if (!connection.writing.isEmpty()) {
+                ops |= SelectionKey.OP_WRITE;
+            }
+            if (connection.key.interestOps() != ops) {
+                connection.key.interestOps(ops);
+            }
+        }
+
+        private void close(Connection connection) {
+            if (connection.closed) {
+                return;
+            }
+            connection.closed = true;
+            connection.key.cancel();
+            closeQuietly(connection.channel);
+            readBuffers.release(connection.in);
+            for (ByteBuffer buffer : connection.writing) {
+                responseBuffers.release(buffer);
+            }
+            connection.writing.clear();
+            ByteBuffer queued;
+            while ((queued = connection.outbound.poll()) != null) {
+                responseBuffers.release(queued);
+            }
+            connections.remove(connection);
+            connectionCount.decrementAndGet();
+        }
+    }
+
+    /**
+     * Decodes one request and runs it; the frame's fields are read from {@code in}.
+     */
+    private void execute(Connection connection, long requestId, byte opcode, ByteBuffer in) {
+        if (opcode == WireProtocol.LOGIN) {
+            String username = readString(in);
+            String password = readString(in);
+            requireEnd(in);
+            connection.user = authService.login(username, password).orElse(null);
+            respond(connection, requestId, connection.user == null ? WireProtocol.LOGIN_FAILED : WireProtocol.SUCCESS, 0);
+            return;
+        }
+        if (connection.user == null) {
+            respond(connection, requestId, WireProtocol.NOT_LOGGED_IN, 0);
+            return;
+        }
+        switch (opcode) {
+            case WireProtocol.DEPOSIT: {
+                String accountNumber = readString(in);
+                long amount = in.getLong();
+                String description = readString(in);
+                requireEnd(in);
+                if (owns(connection, accountNumber, requestId)) {
+                    complete(connection, requestId, transactionService.depositAsync(accountNumber, amount,
+                            description.isBlank() ? "Deposit" : description));
+                }
+                break;
+            }
+            case WireProtocol.WITHDRAW: {
+                String accountNumber = readString(in);
+                long amount = in.getLong();
+                String description = readString(in);
+                requireEnd(in);
+                if (owns(connection, accountNumber, requestId)) {
+                    complete(connection, requestId, transactionService.withdrawAsync(accountNumber, amount,
+                            description.isBlank() ? "Withdrawal" : description));
+                }
+                break;
+            }
+            case WireProtocol.TRANSFER: {
+                String fromAccountNumber = readString(in);
+                String toAccountNumber = readString(in);
+                long amount = in.getLong();
+                String description = readString(in);
+                requireEnd(in);
+                if (owns(connection, fromAccountNumber, requestId)) {
+                    complete(connection, requestId, transactionService.transferAsync(fromAccountNumber,
+                            toAccountNumber, amount, description.isBlank() ? "Transfer" : description));
+                }
+                break;
+            }
+            case WireProtocol.BALANCE: {
+                String accountNumber = readString(in);
+                requireEnd(in);
+                Account account = connection.user.getAccountByNumber(accountNumber);
+                if (account == null) {
+                    respond(connection, requestId, WireProtocol.ACCOUNT_NOT_FOUND, 0);
+                } else {
+                    respond(connection, requestId, WireProtocol.SUCCESS, account.getBalance());
+                }
+                break;
+            }
+            default:
+                respond(connection, requestId, WireProtocol.BAD_REQUEST, 0);
+                break;
+        }
+    }
+
+    private boolean owns(Connection connection, String accountNumber, long requestId) {
+        if (connection.user.getAccountByNumber(accountNumber) != null) {
+            return true;
+        }
+        respond(connection, requestId, WireProtocol.ACCOUNT_NOT_FOUND, 0);
+        return false;
+    }
+
+    private void complete(Connection connection, long requestId, CompletableFuture<TransactionResult> future) {
+        future.whenComplete((result, error) -> {
+            if (error != null) {
+                respond(connection, requestId, WireProtocol.UNAVAILABLE, 0);
+            } else {
+                respond(connection, requestId, WireProtocol.statusOf(result.getStatus()), result.getBalance());
+            }
+        });
+    }
+
+    /**
+     * Queues a response on its connection and has the connection's loop write it. Called from the
+     * loop and from the threads that complete operations.
+     */
+    private void respond(Connection connection, long requestId, byte status, long balance) {
+        if (connection.closed) {
+            return;
+        }
+        ByteBuffer response = responseBuffers.acquire();
+        response.putInt(WireProtocol.RESPONSE_SIZE - 4).putLong(requestId).put(status).putLong(balance).flip();
+        connection.outbound.add(response);
+        if (connection.scheduled.compareAndSet(false, true)) {
+            EventLoop loop = connection.loop;
+            loop.ready.add(connection);
+            if (Thread.currentThread() != loop.thread) {
+                loop.selector.wakeup();
+            }
+        }
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = Short.toUnsignedInt(in.getShort());
+        if (length > in.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void requireEnd(ByteBuffer in) {
+        if (in.hasRemaining()) {
+            throw new IllegalArgumentException("Unexpected bytes after the request fields");
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
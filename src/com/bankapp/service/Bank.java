@@ -1,26 +1,90 @@
 package com.bankapp.service;
 
+import com.bankapp.data.AccountRepository;
+import com.bankapp.data.UserRepository;
 import com.bankapp.model.Account;
+import com.bankapp.model.AccountListener;
 import com.bankapp.model.Admin;
+import com.bankapp.model.PendingTransfer;
+import com.bankapp.model.Transaction;
 import com.bankapp.model.User;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * The Bank class acts as a central repository for all users, accounts, and the admin.
- * It simulates an in-memory database for the application.
+ * Users and accounts are stored in the concurrent, indexed {@link UserRepository} and
+ * {@link AccountRepository}, which are the system of record: services read through them,
+ * while every mutation goes through this class so that it is forwarded to the registered
+ * {@link BankListener}s (e.g. the transaction journal). Transactions are indexed by ID.
  */
-public class Bank implements Serializable {
+public class Bank implements Serializable, AccountListener {
     private static final long serialVersionUID = 1L;
-    private final List<User> users;
-    private Admin admin; // Only one admin in the system
+    // Serialized form kept from the list-based version, so old bank_data.dat files still load
+    private static final ObjectStreamField[] serialPersistentFields = {
+            new ObjectStreamField("users", List.class),
+            new ObjectStreamField("admin", Admin.class)
+    };
+
+    private volatile Admin admin; // Only one admin in the system
+    private transient UserRepository userRepository;
+    private transient AccountRepository accountRepository;
+    private transient List<BankListener> listeners;
+    private transient TransactionIndex transactionIndex;
 
     public Bank() {
-        this.users = new ArrayList<>();
         this.admin = null;
+        init();
+    }
+
+    private void init() {
+        this.userRepository = new UserRepository();
+        this.accountRepository = new AccountRepository();
+        this.listeners = new CopyOnWriteArrayList<>();
+        this.transactionIndex = new TransactionIndex();
+    }
+
+    /**
+     * Gets the user repository. Use it for reads; add users through {@link #addUser(User)}.
+     * @return The user repository.
+     */
+    public UserRepository getUserRepository() {
+        return userRepository;
+    }
+
+    /**
+     * Gets the account repository. Use it for reads; open accounts through {@link #openAccount(User, Account)}.
+     * @return The account repository.
+     */
+    public AccountRepository getAccountRepository() {
+        return accountRepository;
+    }
+
+    /**
+     * Registers a listener that is notified of every state change.
+     * @param listener The listener to add.
+     */
+    public void addListener(BankListener listener) {
+        if (listener != null) {
+            listeners.add(listener);
+        }
+    }
+
+    /**
+     * Removes a previously registered listener.
+     * @param listener The listener to remove.
+     */
+    public void removeListener(BankListener listener) {
+        listeners.remove(listener);
     }
 
     /**
@@ -29,22 +93,33 @@ public class Bank implements Serializable {
      * @param newAdmin The Admin object to register.
      * @return true if registration is successful, false if an admin already exists.
      */
-    public boolean registerAdmin(Admin newAdmin) {
+    public synchronized boolean registerAdmin(Admin newAdmin) {
         if (this.admin == null) {
             this.admin = newAdmin;
+            for (BankListener listener : listeners) {
+                listener.onAdminRegistered(newAdmin);
+            }
             return true;
         }
         System.out.println("Error: An admin account already exists.");
         return false;
     }
 
+    /**
+     * Gets the registered admin account.
+     * @return The Admin object, or null if none has been registered.
+     */
+    public synchronized Admin getAdmin() {
+        return admin;
+    }
+
     /**
      * Logs in as an admin.
      * @param username The admin's username.
      * @param passwordHash The hashed password.
      * @return The Admin object on successful login, otherwise null.
      */
-    public Admin loginAdmin(String username, String passwordHash) {
+    public synchronized Admin loginAdmin(String username, String passwordHash) {
         if (admin != null && admin.getUsername().equals(username) && admin.verifyPassword(passwordHash)) {
             return admin;
         }
@@ -55,10 +130,77 @@ public class Bank implements Serializable {
     /**
      * Adds a new user to the bank.
      * @param user The user to add.
+     * @return true if the user was added, false if its ID or username is already taken.
      */
-    public void addUser(User user) {
-        if (user != null) {
-            users.add(user);
+    public synchronized boolean addUser(User user) {
+        if (user == null || !saveUser(user)) {
+            return false;
+        }
+        for (BankListener listener : listeners) {
+            listener.onUserAdded(user);
+        }
+        return true;
+    }
+
+    /**
+     * Adds many new users at once, each with the accounts already attached to it, e.g. from an
+     * import. The bank lock is taken once for the whole list instead of once per user, and each
+     * listener is told about the added users in a single call.
+     * A user whose ID, username or one of whose account numbers is taken is left out together
+     * with all of its accounts.
+     * @param users The users to add.
+     * @return The users that were not added.
+     */
+    public synchronized List<User> addUsers(List<User> users) {
+        List<User> added = new ArrayList<>(users.size());
+        List<User> rejected = new ArrayList<>();
+        for (User user : users) {
+            if (saveUser(user)) {
+                added.add(user);
+            } else {
+                rejected.add(user);
+            }
+        }
+        if (!added.isEmpty()) {
+            for (BankListener listener : listeners) {
+                listener.onUsersAdded(added);
+            }
+        }
+        return rejected;
+    }
+
+    /**
+     * Opens a new account for a user and starts observing its mutations.
+     * The account is observed and indexed before it is published, and its lock is held until
+     * the listeners have recorded it, so a concurrent deposit can neither go unjournaled nor be
+     * journaled before the account itself.
+     * @param user The owner of the account.
+     * @param account The account to open.
+     * @return true if the account was added, false otherwise.
+     */
+    public synchronized boolean openAccount(User user, Account account) {
+        if (user == null || account == null) {
+            return false;
+        }
+        account.lock();
+        try {
+            String accountNumber = account.getAccountNumber();
+            if (accountRepository.exists(accountNumber) || user.getAccountByNumber(accountNumber) != null) {
+                return false;
+            }
+            transactionIndex.addAccount(account);
+            account.setListener(this);
+            accountRepository.save(account);
+            if (!user.addAccount(account)) {
+                accountRepository.delete(accountNumber);
+                return false;
+            }
+            for (BankListener listener : listeners) {
+                listener.onAccountOpened(account);
+            }
+            return true;
+        } finally {
+            account.unlock();
         }
     }
 
@@ -68,35 +210,214 @@ public class Bank implements Serializable {
      * @return The User if found, otherwise null.
      */
     public User findUserById(String userId) {
-        return users.stream()
-                .filter(user -> user.getUserId().equals(userId))
-                .findFirst()
-                .orElse(null);
+        return userRepository.findById(userId);
+    }
+
+    /**
+     * Finds a user by their username.
+     * @param username The username.
+     * @return The User if found, otherwise null.
+     */
+    public User findUserByUsername(String username) {
+        return userRepository.findByUsername(username);
+    }
+
+    /**
+     * Gets the number of users in the bank without copying them.
+     * @return The number of users.
+     */
+    public int getUserCount() {
+        return userRepository.getUserCount();
+    }
+
+    /**
+     * Finds an account by its account number using the account index.
+     * Closed accounts are still returned; callers check {@link Account#isActive()}.
+     * @param accountNumber The account number.
+     * @return The Account if found, otherwise null.
+     */
+    public Account findAccountByNumber(String accountNumber) {
+        return accountRepository.findByAccountNumber(accountNumber);
+    }
+
+    /**
+     * Gets the number of accounts in the bank without copying them.
+     * @return The number of accounts.
+     */
+    public int getAccountCount() {
+        return accountRepository.getAccountCount();
+    }
+
+    /**
+     * Finds a transaction by its ID using the transaction index.
+     * @param transactionId The transaction ID.
+     * @return The Transaction if found, otherwise null.
+     */
+    public Transaction findTransactionById(String transactionId) {
+        Map.Entry<Account, Transaction> found = transactionId == null ? null : transactionIndex.find(transactionId);
+        return found == null ? null : found.getValue();
+    }
+
+    /**
+     * Finds the account whose history holds a transaction.
+     * @param transactionId The transaction ID.
+     * @return The Account if found, otherwise null.
+     */
+    public Account findAccountByTransactionId(String transactionId) {
+        Map.Entry<Account, Transaction> found = transactionId == null ? null : transactionIndex.find(transactionId);
+        return found == null ? null : found.getKey();
     }
 
     /**
      * Returns a copy of the list of all users.
+     * Prefer {@link #forEachUser(Consumer)} or the repository to avoid the copy.
      * @return A list of all users.
      */
     public List<User> getAllUsers() {
-        return new ArrayList<>(users);
+        return userRepository.findAll();
     }
 
     /**
-     * Gets a list of all accounts from all users in the bank.
+     * Gets a list of all accounts in the bank.
+     * Prefer {@link #forEachAccount(Consumer)} or the repository to avoid the copy.
      * @return A list of all accounts.
      */
     public List<Account> getAllAccounts() {
-        return users.stream()
-                .flatMap(user -> user.getAccounts().stream())
-                .collect(Collectors.toList());
+        return accountRepository.findAll();
+    }
+
+    /**
+     * Visits every user without copying the user list.
+     * @param action The action to run for each user.
+     */
+    public void forEachUser(Consumer<? super User> action) {
+        userRepository.forEach(action);
+    }
+
+    /**
+     * Starts an update whose changes must reach the journal all together or not at all, e.g. a
+     * batch of transfers. Until the matching {@link #endAtomicUpdate()}, the records of the
+     * calling thread's changes are held back and then written as one group. Calls may nest.
+     * The caller must hold the locks of every account it changes until the update has ended,
+     * so no later change to those accounts can reach the journal before the group.
+     */
+    public void beginAtomicUpdate() {
+        for (BankListener listener : listeners) {
+            listener.onAtomicUpdateBegin();
+        }
+    }
+
+    /**
+     * Ends an update started by {@link #beginAtomicUpdate()} on the same thread.
+     */
+    public void endAtomicUpdate() {
+        for (BankListener listener : listeners) {
+            listener.onAtomicUpdateEnd();
+        }
+    }
+
+    /**
+     * Visits every account without copying the account list.
+     * @param action The action to run for each account.
+     */
+    public void forEachAccount(Consumer<? super Account> action) {
+        accountRepository.forEach(action);
     }
 
     /**
      * Resets the bank to its initial state, clearing all users and the admin.
      */
-    public void reset() {
-        this.users.clear();
+    public synchronized void reset() {
+        this.userRepository.clear();
+        this.accountRepository.clear();
+        this.transactionIndex.clear();
         this.admin = null;
+        for (BankListener listener : listeners) {
+            listener.onReset();
+        }
+    }
+
+    @Override
+    public void onTransaction(Account account, Transaction transaction) {
+        transactionIndex.add(account, transaction);
+        for (BankListener listener : listeners) {
+            listener.onTransaction(account, transaction);
+        }
+    }
+
+    @Override
+    public void onAccountStatusChanged(Account account) {
+        for (BankListener listener : listeners) {
+            listener.onAccountStatusChanged(account);
+        }
+    }
+
+    @Override
+    public void onTransactionReplayed(Account account, Transaction transaction) {
+        transactionIndex.add(account, transaction);
+    }
+
+    @Override
+    public void onTransferPending(Account source, PendingTransfer transfer) {
+        for (BankListener listener : listeners) {
+            listener.onTransferPending(source, transfer);
+        }
+    }
+
+    /**
+     * Saves a user together with the accounts attached to it, indexes the accounts and starts
+     * observing them. Nothing is saved if the user's ID or username, or one of its account
+     * numbers, is already taken.
+     * @return true if the user was saved.
+     */
+    private boolean saveUser(User user) {
+        if (!userRepository.save(user)) {
+            return false;
+        }
+        List<Account> accounts = user.getAccounts();
+        int saved = 0;
+        while (saved < accounts.size() && accountRepository.save(accounts.get(saved))) {
+            saved++;
+        }
+        if (saved < accounts.size()) {
+            for (int i = 0; i < saved; i++) {
+                accountRepository.delete(accounts.get(i).getAccountNumber());
+            }
+            userRepository.delete(user.getUserId());
+            return false;
+        }
+        for (Account account : accounts) {
+            transactionIndex.addAccount(account);
+            account.setListener(this);
+        }
+        return true;
+    }
+
+    /**
+     * Writes the users as a list, the serialized form of earlier versions.
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        ObjectOutputStream.PutField fields = out.putFields();
+        fields.put("users", new ArrayList<>(userRepository.findAll()));
+        fields.put("admin", admin);
+        out.writeFields();
+    }
+
+    /**
+     * Rebuilds the repositories, indexes and listener wiring after deserialization.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        List<User> users = (List<User>) fields.get("users", null);
+        this.admin = (Admin) fields.get("admin", null);
+        init();
+        if (users != null) {
+            for (User user : users) {
+                if (!saveUser(user)) {
+                    System.out.println("Error: Skipped user " + user.getUsername() + ": ID, username or account number taken.");
+                }
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,85 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.AccountListener;
+import com.bankapp.model.Admin;
+import com.bankapp.model.Transaction;
+import com.bankapp.model.User;
+
+import java.util.List;
+
+/**
+ * BankListener - Observer for every state change made through the Bank.
+ * Implemented by the persistence layer (journal, checkpoints) to record mutations as they happen.
+ * All methods have empty default implementations so listeners only override what they need.
+ */
+public interface BankListener extends AccountListener {
+
+    /**
+     * Called after a user has been added to the bank.
+     *
+     * @param user The new user
+     */
+    default void onUserAdded(User user) {
+    }
+
+    /**
+     * Called after {@link Bank#addUsers(List)} has added users together with their accounts.
+     * By default reports each user and then each of its accounts; listeners that can record
+     * a whole batch more cheaply override this.
+     *
+     * @param users The new users, in the order they were added
+     */
+    default void onUsersAdded(List<User> users) {
+        for (User user : users) {
+            onUserAdded(user);
+            for (Account account : user.getAccounts()) {
+                onAccountOpened(account);
+            }
+        }
+    }
+
+    /**
+     * Called after the admin account has been registered.
+     *
+     * @param admin The new admin
+     */
+    default void onAdminRegistered(Admin admin) {
+    }
+
+    /**
+     * Called after a new account has been opened for a user.
+     *
+     * @param account The new account (its owner is available via getOwner())
+     */
+    default void onAccountOpened(Account account) {
+    }
+
+    @Override
+    default void onTransaction(Account account, Transaction transaction) {
+    }
+
+    @Override
+    default void onAccountStatusChanged(Account account) {
+    }
+
+    /**
+     * Called after all bank data has been cleared.
+     */
+    default void onReset() {
+    }
+
+    /**
+     * Called by {@link Bank#beginAtomicUpdate()}: the calling thread's next events, up to the
+     * matching {@link #onAtomicUpdateEnd()}, belong to one update that must be recorded
+     * entirely or not at all.
+     */
+    default void onAtomicUpdateBegin() {
+    }
+
+    /**
+     * Called by {@link Bank#endAtomicUpdate()} on the thread that began the update.
+     */
+    default void onAtomicUpdateEnd() {
+    }
+}
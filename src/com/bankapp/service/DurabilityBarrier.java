@@ -0,0 +1,24 @@
+package com.bankapp.service;
+
+/**
+ * DurabilityBarrier - Lets a caller wait until the mutations it made are on disk.
+ * Implemented by the persistence layer; services call it before reporting success.
+ */
+public interface DurabilityBarrier {
+    /**
+     * Blocks until every journal record appended by the calling thread is durable
+     * (or returns at once if the configured policy does not wait).
+     *
+     * @return false if the records could not be made durable
+     */
+    boolean awaitDurable();
+
+    /**
+     * Blocks until every journal record appended so far, by any thread, is durable.
+     * Used when the caller's records may have been appended by another thread, as with
+     * credits to a hot account, which are applied in batches by whichever thread combines them.
+     *
+     * @return false if the records could not be made durable
+     */
+    boolean awaitAllDurable();
+}
@@ -0,0 +1,91 @@
+package com.bankapp.service;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.Transaction;
+import com.bankapp.utils.IdHashIndex;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TransactionIndex - Resolves a transaction ID to the account holding it and the
+ * transaction's position in that account's history.
+ * Positions never change once assigned (history is append-only, and moving it to disk
+ * keeps the order), so an entry stays valid for the life of the bank.
+ * Locations are packed as {@code (account ordinal + 1) << 32 | position}.
+ */
+class TransactionIndex {
+    private final IdHashIndex index = new IdHashIndex();
+    private final List<Account> accounts = new ArrayList<>(); // by ordinal
+    private final Map<Account, Integer> ordinals = new IdentityHashMap<>();
+
+    /**
+     * Starts tracking an account and indexes the history it already has.
+     */
+    void addAccount(Account account) {
+        long[] hashes = account.getTransactionIdHashes();
+        int ordinal;
+        synchronized (this) {
+            if (ordinals.containsKey(account)) {
+                return;
+            }
+            ordinal = accounts.size();
+            accounts.add(account);
+            ordinals.put(account, ordinal);
+        }
+        for (int i = 0; i < hashes.length; i++) {
+            index.put(hashes[i], location(ordinal, i));
+        }
+    }
+
+    /**
+     * Indexes a transaction just appended to an account's history.
+     * Called while the account is locked, so its transaction count is the new position + 1.
+     */
+    void add(Account account, Transaction transaction) {
+        Integer ordinal;
+        synchronized (this) {
+            ordinal = ordinals.get(account);
+        }
+        if (ordinal != null) {
+            index.put(IdHashIndex.hash(transaction.getTransactionId()),
+                    location(ordinal, account.getTransactionCount() - 1));
+        }
+    }
+
+    /**
+     * Finds a transaction by ID.
+     *
+     * @return The owning account and the transaction, or null if not found
+     */
+    Map.Entry<Account, Transaction> find(String transactionId) {
+        for (long location : index.get(IdHashIndex.hash(transactionId))) {
+            Account account;
+            synchronized (this) {
+                account = accounts.get((int) (location >>> 32) - 1);
+            }
+            Transaction transaction = account.getTransactionAt((int) location);
+            if (transaction != null && transaction.getTransactionId().equals(transactionId)) {
+                return new AbstractMap.SimpleImmutableEntry<>(account, transaction);
+            }
+        }
+        return null;
+    }
+
+    int size() {
+        return index.size();
+    }
+
+    synchronized void clear() {
+        index.clear();
+        accounts.clear();
+        ordinals.clear();
+    }
+
+    private static long location(int ordinal, int position) {
+        return ((long) (ordinal + 1) << 32) | position;
+    }
+}
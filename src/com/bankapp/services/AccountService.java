@@ -11,7 +11,7 @@ import com.bankapp.utils.IDGenerator;
  * Implements the Single Responsibility Principle - focuses on account management.
  */
 public class AccountService {
-    private final Bank bank;
+    private Bank bank;
 
     /**
      * Constructor - initializes with data store.
@@ -20,23 +20,27 @@ public class AccountService {
         this.bank = bank;
     }
 
+    public void setBank(Bank bank) {
+        this.bank = bank;
+    }
+
     /**
      * Creates a new checking account for a user.
      *
      * @param user User to create account for
-     * @param initialBalance Initial account balance
-     * @param overdraftLimit Maximum overdraft amount
+     * @param initialBalance Initial account balance, in cents
+     * @param overdraftLimit Maximum overdraft amount, in cents
      * @return CheckingAccount object if successful, null if failed
      */
-    public CheckingAccount createCheckingAccount(User user, double initialBalance, double overdraftLimit) {
+    public CheckingAccount createCheckingAccount(User user, long initialBalance, long overdraftLimit) {
         if (user == null || initialBalance < 0 || overdraftLimit < 0) {
             return null;
         }
 
-        String accountNumber = IDGenerator.generateAccountNumber();
+        String accountNumber = generateAccountNumber();
         CheckingAccount account = new CheckingAccount(user, accountNumber, initialBalance, overdraftLimit);
         // Add account to user
-        if (user.addAccount(account)) {
+        if (bank.openAccount(user, account)) {
             return account;
         }
         return null;
@@ -46,20 +50,20 @@ public class AccountService {
      * Creates a new savings account for a user.
      *
      * @param user User to create account for
-     * @param initialBalance Initial account balance
+     * @param initialBalance Initial account balance, in cents
      * @param interestRate Annual interest rate
      * @return SavingsAccount object if successful, null if failed
      */
-    public SavingsAccount createSavingsAccount(User user, double initialBalance, double interestRate) {
+    public SavingsAccount createSavingsAccount(User user, long initialBalance, double interestRate) {
         if (user == null || initialBalance < 0 || interestRate < 0) {
             return null;
         }
 
         try {
-            String accountNumber = IDGenerator.generateAccountNumber();
+            String accountNumber = generateAccountNumber();
             SavingsAccount account = new SavingsAccount(user, accountNumber, initialBalance, interestRate);
             // Add account to user
-            if (user.addAccount(account)) {
+            if (bank.openAccount(user, account)) {
                 return account;
             }
         } catch (IllegalArgumentException e) {
@@ -68,4 +72,17 @@ public class AccountService {
         }
         return null;
     }
+
+    /**
+     * Generates an account number that no existing account uses.
+     *
+     * @return Unused account number
+     */
+    private String generateAccountNumber() {
+        String accountNumber;
+        do {
+            accountNumber = IDGenerator.generateAccountNumber();
+        } while (bank.getAccountRepository().exists(accountNumber));
+        return accountNumber;
+    }
 }
@@ -9,7 +9,7 @@ import java.util.Optional;
 
 /**
  * AuthService - Manages user authentication logic like registration and login.
- * It also holds the in-memory store of all users.
+ * Users are read from the bank's {@link com.bankapp.data.UserRepository} and added through the bank.
  */
 public class AuthService {
 
@@ -33,16 +33,16 @@ public class AuthService {
      * @return The newly created User object, or null if the username already exists.
      */
     public User register(String username, String password, String fullName, String email) {
-        // Check if username already exists in the bank
-        boolean usernameExists = bank.getAllUsers().stream()
-                .anyMatch(u -> u.getUsername().equals(username));
-        if (usernameExists) {
+        // Check if username already exists in the user repository
+        if (bank.getUserRepository().usernameExists(username)) {
             return null; // Username already exists
         }
         String userId = IDGenerator.generateUserId();
         String passwordHash = PasswordHasher.hashPassword(password);
         User newUser = new User(userId, username, passwordHash, fullName, email);
-        bank.addUser(newUser);
+        if (!bank.addUser(newUser)) {
+            return null; // Taken by a concurrent registration
+        }
         return newUser;
     }
 
@@ -54,9 +54,11 @@ public class AuthService {
      * @return An Optional containing the User if login is successful, otherwise an empty Optional.
      */
     public Optional<User> login(String username, String password) {
-        return bank.getAllUsers().stream()
-                .filter(user -> user.getUsername().equals(username) && user.verifyPassword(PasswordHasher.hashPassword(password)))
-                .findFirst();
+        User user = bank.getUserRepository().findByUsername(username);
+        if (user == null || !user.verifyPassword(PasswordHasher.hashPassword(password))) {
+            return Optional.empty();
+        }
+        return Optional.of(user);
     }
 
     /**
@@ -68,7 +70,6 @@ public class AuthService {
         if (userId == null || userId.trim().isEmpty()) {
             return Optional.empty();
         }
-        // Use the bank object to find the user by ID
-        return Optional.ofNullable(bank.findUserById(userId));
+        return Optional.ofNullable(bank.getUserRepository().findById(userId));
     }
 }
\ No newline at end of file
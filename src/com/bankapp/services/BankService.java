@@ -62,11 +62,9 @@ public class BankService {
      */
     public String getSystemStats() {
         StringBuilder stats = new StringBuilder();
-        // Lấy dữ liệu trực tiếp từ đối tượng Bank
-        int totalUsers = bank.getAllUsers().size();
-        long totalAccounts = bank.getAllUsers().stream()
-                .mapToLong(user -> user.getAccounts().size())
-                .sum();
+        // Lấy số liệu từ các repository, không sao chép danh sách
+        int totalUsers = bank.getUserRepository().getUserCount();
+        int totalAccounts = bank.getAccountRepository().getAccountCount();
 
         stats.append("=== BANK SYSTEM STATISTICS ===\n");
         stats.append(String.format("Total Users: %d%n", totalUsers));
@@ -0,0 +1,57 @@
+package com.bankapp.services;
+
+import com.bankapp.services.TransactionResult.Status;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * BatchTransferResult - Outcome of a batch of transfers, which is applied entirely or not at all.
+ * Holds one {@link TransactionResult} per transfer, in the order they were submitted. When the
+ * batch is rejected, the transfers that caused it carry the reason and the others carry
+ * {@link Status#BATCH_REJECTED}.
+ */
+public final class BatchTransferResult {
+    private final String batchId;
+    private final Status status;
+    private final List<TransactionResult> results;
+
+    BatchTransferResult(String batchId, Status status, List<TransactionResult> results) {
+        this.batchId = batchId;
+        this.status = status;
+        this.results = Collections.unmodifiableList(results);
+    }
+
+    /**
+     * @return true if every transfer of the batch was applied and made durable
+     */
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    /**
+     * @return Identifier recorded in the description of every transaction of the batch
+     */
+    public String getBatchId() {
+        return batchId;
+    }
+
+    /**
+     * @return SUCCESS, NOT_DURABLE, or the reason of the first rejected transfer
+     */
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return Outcome of each transfer, in submission order
+     */
+    public List<TransactionResult> getResults() {
+        return results;
+    }
+
+    @Override
+    public String toString() {
+        return "Batch " + batchId + ": " + status + " (" + results.size() + " transfers)";
+    }
+}
@@ -0,0 +1,67 @@
+package com.bankapp.services;
+
+/**
+ * ImportReport - Counts and timing of one run of {@link ImportService#importCustomers}.
+ */
+public final class ImportReport {
+    private final long rowsRead;
+    private final long usersImported;
+    private final long accountsImported;
+    private final long rowsRejected;
+    private final long elapsedMillis;
+    private final boolean durable;
+
+    ImportReport(long rowsRead, long usersImported, long accountsImported, long rowsRejected, long elapsedMillis,
+                 boolean durable) {
+        this.rowsRead = rowsRead;
+        this.usersImported = usersImported;
+        this.accountsImported = accountsImported;
+        this.rowsRejected = rowsRejected;
+        this.elapsedMillis = elapsedMillis;
+        this.durable = durable;
+    }
+
+    public long getRowsRead() {
+        return rowsRead;
+    }
+
+    public long getUsersImported() {
+        return usersImported;
+    }
+
+    public long getAccountsImported() {
+        return accountsImported;
+    }
+
+    /**
+     * @return Number of data rows written to the reject file
+     */
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * @return false if the imported records could not be written to the journal
+     */
+    public boolean isDurable() {
+        return durable;
+    }
+
+    /**
+     * @return Data rows read per second of the whole run, including validation and inserts
+     */
+    public double getRowsPerSecond() {
+        return elapsedMillis == 0 ? rowsRead * 1000.0 : rowsRead * 1000.0 / elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%,d rows read, %,d users and %,d accounts imported, %,d rows rejected in %,d ms"
+                + " (%,.0f rows/s)", rowsRead, usersImported, accountsImported, rowsRejected, elapsedMillis,
+                getRowsPerSecond());
+    }
+}
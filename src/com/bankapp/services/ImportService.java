@@ -0,0 +1,486 @@
+package com.bankapp.services;
+
+import com.bankapp.model.Account;
+import com.bankapp.model.CheckingAccount;
+import com.bankapp.model.SavingsAccount;
+import com.bankapp.model.User;
+import com.bankapp.service.Bank;
+import com.bankapp.service.DurabilityBarrier;
+import com.bankapp.utils.IDGenerator;
+import com.bankapp.utils.InputValidator;
+import com.bankapp.utils.Money;
+import com.bankapp.utils.PasswordHasher;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ImportService - Streams users, accounts and opening balances from a CSV file into the bank,
+ * e.g. to migrate an existing customer book.
+ * The file is read once, in chunks of rows. A pool of workers parses each chunk, validates it
+ * with {@link InputValidator}, hashes the passwords and builds the users and accounts, while the
+ * reading thread adds finished chunks to the bank in file order with {@link Bank#addUsers(List)}.
+ * With a single worker the reading thread prepares each chunk itself. Only a few chunks are in
+ * memory at a time, so files of any size can be imported. Rejected rows are copied to a reject
+ * file, each followed by the reason.
+ *
+ * The file is UTF-8 with the header {@link #HEADER}; fields may be quoted. account_type is
+ * checking, savings or empty for a user without an account. An empty account number is
+ * generated. Amounts are in dollars; an empty interest rate takes the savings default.
+ * Consecutive rows with the same username open further accounts for that user (their other
+ * user fields are ignored), and a user is imported with all of its accounts or not at all.
+ */
+public class ImportService {
+    public static final String HEADER = "username,password,full_name,email,account_type,account_number,"
+            + "opening_balance,overdraft_limit,interest_rate";
+    private static final int COLUMNS = 9;
+    private static final int CHUNK_SIZE = 2000;
+
+    private Bank bank;
+    private DurabilityBarrier durability; // null = do not wait for the journal
+    private final int workerCount;
+
+    /**
+     * Constructor - validates on one worker per CPU core.
+     */
+    public ImportService(Bank bank) {
+        this(bank, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param workerCount Number of threads that parse, validate and hash
+     */
+    public ImportService(Bank bank, int workerCount) {
+        if (workerCount < 1) {
+            throw new IllegalArgumentException("Worker count must be positive");
+        }
+        this.bank = bank;
+        this.workerCount = workerCount;
+    }
+
+    public void setBank(Bank bank) {
+        this.bank = bank;
+    }
+
+    /**
+     * Makes an import wait, once at the end, until everything it added is in the journal.
+     *
+     * @param durability Barrier provided by the persistence layer, or null to not wait
+     */
+    public void setDurabilityBarrier(DurabilityBarrier durability) {
+        this.durability = durability;
+    }
+
+    /**
+     * Imports every valid user of a CSV file.
+     *
+     * @param csvFile File to import
+     * @param rejectFile File to write the rejected rows to; overwritten
+     * @return Counts and timing of the import
+     * @throws IOException if a file cannot be read or written, or the header is not {@link #HEADER}
+     */
+    public ImportReport importCustomers(File csvFile, File rejectFile) throws IOException {
+        long start = System.nanoTime();
+        Totals totals = new Totals();
+        // With one worker the reading thread prepares each chunk itself: a hand-off would only add
+        // a context switch per chunk and keep more chunks alive
+        ExecutorService workers = workerCount == 1 ? null
+                : Executors.newFixedThreadPool(workerCount, new ImportThreadFactory());
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (BufferedReader in = Files.newBufferedReader(csvFile.toPath(), StandardCharsets.UTF_8);
+             BufferedWriter rejects = Files.newBufferedWriter(rejectFile.toPath(), StandardCharsets.UTF_8)) {
+            String header = in.readLine();
+            if (header == null || !header.replace("\uFEFF", "").trim().equalsIgnoreCase(HEADER)) {
+                throw new IOException("Expected the header: " + HEADER);
+            }
+            rejects.write(HEADER + ",reject_reason");
+            rejects.newLine();
+
+            List<Row> rows = new ArrayList<>(CHUNK_SIZE);
+            String previousUsername = null;
+            long lineNumber = 1;
+            String line;
+            while ((line = in.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                String username = usernameOf(line);
+                // A chunk never splits the rows of one user
+                if (rows.size() >= CHUNK_SIZE && !username.equals(previousUsername)) {
+                    submit(rows, workers, inFlight, rejects, totals);
+                    rows = new ArrayList<>(CHUNK_SIZE);
+                }
+                rows.add(new Row(lineNumber, line, username));
+                previousUsername = username;
+                totals.rowsRead++;
+            }
+            if (!rows.isEmpty()) {
+                submit(rows, workers, inFlight, rejects, totals);
+            }
+            while (!inFlight.isEmpty()) {
+                commit(await(inFlight.poll()), rejects, totals);
+            }
+        } finally {
+            if (workers != null) {
+                workers.shutdownNow();
+            }
+        }
+        boolean durable = durability == null || totals.users == 0 || durability.awaitAllDurable();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+        return new ImportReport(totals.rowsRead, totals.users, totals.accounts, totals.rowsRejected, elapsedMillis,
+                durable);
+    }
+
+    /**
+     * Hands a chunk to the workers, first adding finished chunks to the bank while too many are
+     * in flight.
+     */
+    private void submit(List<Row> rows, ExecutorService workers, ArrayDeque<Future<Chunk>> inFlight,
+                        BufferedWriter rejects, Totals totals) throws IOException {
+        if (workers == null) {
+            commit(prepare(rows), rejects, totals);
+            return;
+        }
+        while (inFlight.size() >= 2 * workerCount) {
+            commit(await(inFlight.poll()), rejects, totals);
+        }
+        inFlight.add(workers.submit(() -> prepare(rows)));
+    }
+
+    private static Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IOException("Import failed", e.getCause());
+        }
+    }
+
+    /**
+     * Adds a prepared chunk to the bank and writes its rejected rows. Runs on the reading thread,
+     * in file order.
+     */
+    private void commit(Chunk chunk, BufferedWriter rejects, Totals totals) throws IOException {
+        for (int i = 0; i < chunk.rejectedGroups.size(); i++) {
+            writeRejects(rejects, chunk.rejectedGroups.get(i), chunk.reasons.get(i), totals);
+        }
+        List<User> refused = bank.addUsers(chunk.users);
+        Set<User> refusedUsers = Collections.newSetFromMap(new IdentityHashMap<>());
+        refusedUsers.addAll(refused);
+        for (int i = 0; i < chunk.users.size(); i++) {
+            User user = chunk.users.get(i);
+            List<Row> group = chunk.userRows.get(i);
+            if (refusedUsers.contains(user)) {
+                // Taken since it was validated, or by an earlier row of the same file
+                writeRejects(rejects, group, "line " + group.get(0).number
+                        + ": Username or account number already taken", totals);
+            } else {
+                totals.users++;
+                totals.accounts += user.getAccounts().size();
+            }
+        }
+    }
+
+    private static void writeRejects(BufferedWriter rejects, List<Row> group, String reason, Totals totals)
+            throws IOException {
+        for (Row row : group) {
+            rejects.write(row.text);
+            rejects.write(",\"");
+            rejects.write(reason.replace("\"", "\"\""));
+            rejects.write('"');
+            rejects.newLine();
+            totals.rowsRejected++;
+        }
+    }
+
+    /**
+     * Parses, validates and builds the users of a chunk. Runs on a worker.
+     */
+    private Chunk prepare(List<Row> rows) {
+        Chunk chunk = new Chunk();
+        int start = 0;
+        while (start < rows.size()) {
+            String username = rows.get(start).username;
+            int end = start + 1;
+            while (end < rows.size() && rows.get(end).username.equals(username)) {
+                end++;
+            }
+            List<Row> group = rows.subList(start, end);
+            try {
+                chunk.users.add(buildUser(group));
+                chunk.userRows.add(group);
+            } catch (IllegalArgumentException e) {
+                chunk.rejectedGroups.add(group);
+                chunk.reasons.add(e.getMessage());
+            }
+            start = end;
+        }
+        return chunk;
+    }
+
+    /**
+     * Builds a user with the accounts of all of its rows.
+     *
+     * @throws IllegalArgumentException with the reason, if any row is invalid
+     */
+    private User buildUser(List<Row> group) {
+        Row first = group.get(0);
+        String[] fields = parseRow(first);
+        if (!InputValidator.isValidUsername(fields[0])) {
+            throw rejection(first, "Invalid username (4-20 letters, digits or underscores)");
+        }
+        if (!InputValidator.isValidPassword(fields[1])) {
+            throw rejection(first, "Invalid password (at least 6 characters)");
+        }
+        if (!InputValidator.isValidFullName(fields[2])) {
+            throw rejection(first, "Invalid full name (2-50 letters and spaces)");
+        }
+        if (!InputValidator.isValidEmail(fields[3])) {
+            throw rejection(first, "Invalid email");
+        }
+        if (bank.getUserRepository().usernameExists(fields[0])) {
+            throw rejection(first, "Username already exists");
+        }
+        String userId;
+        do {
+            userId = IDGenerator.generateUserId();
+        } while (bank.getUserRepository().exists(userId));
+        User user = new User(userId, fields[0], PasswordHasher.hashPassword(fields[1]), fields[2], fields[3]);
+        for (Row row : group) {
+            Account account = buildAccount(user, row == first ? fields : parseRow(row), row);
+            if (account != null) {
+                user.addAccount(account);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Builds the account of one row.
+     *
+     * @return The account, or null if the row opens none
+     */
+    private Account buildAccount(User user, String[] fields, Row row) {
+        String type = fields[4].toLowerCase();
+        if (type.isEmpty()) {
+            if (!(fields[5] + fields[6] + fields[7] + fields[8]).isEmpty()) {
+                throw rejection(row, "Account fields given without an account_type");
+            }
+            return null;
+        }
+        String accountNumber = fields[5];
+        if (accountNumber.isEmpty()) {
+            do {
+                accountNumber = IDGenerator.generateAccountNumber();
+            } while (bank.getAccountRepository().exists(accountNumber));
+        } else if (!InputValidator.isValidAccountNumber(accountNumber)) {
+            throw rejection(row, "Invalid account number (8-16 letters or digits)");
+        } else if (bank.getAccountRepository().exists(accountNumber)) {
+            throw rejection(row, "Account number already exists");
+        }
+        if (user.getAccountByNumber(accountNumber) != null) {
+            throw rejection(row, "Account number repeated for this user");
+        }
+        long openingBalance = parseAmount(fields[6], row, "opening balance");
+        switch (type) {
+            case "checking":
+                if (!fields[8].isEmpty()) {
+                    throw rejection(row, "interest_rate is only for savings accounts");
+                }
+                return new CheckingAccount(user, accountNumber, openingBalance, parseAmount(fields[7], row, "overdraft limit"));
+            case "savings":
+                if (!fields[7].isEmpty()) {
+                    throw rejection(row, "overdraft_limit is only for checking accounts");
+                }
+                if (fields[8].isEmpty()) {
+                    return new SavingsAccount(user, accountNumber, openingBalance);
+                }
+                try {
+                    return new SavingsAccount(user, accountNumber, openingBalance, Double.parseDouble(fields[8]));
+                } catch (NumberFormatException e) {
+                    throw rejection(row, "Invalid interest rate: " + fields[8]);
+                } catch (IllegalArgumentException e) {
+                    throw rejection(row, e.getMessage());
+                }
+            default:
+                throw rejection(row, "Unknown account type: " + fields[4]);
+        }
+    }
+
+    /**
+     * Parses an amount that may be empty (zero) but not negative.
+     */
+    private static long parseAmount(String text, Row row, String name) {
+        if (text.isEmpty()) {
+            return 0;
+        }
+        long amount;
+        try {
+            amount = Money.parse(text);
+        } catch (NumberFormatException e) {
+            throw rejection(row, "Invalid " + name + ": " + text);
+        }
+        if (amount != 0 && !InputValidator.isValidAmount(amount)) {
+            throw rejection(row, "Invalid " + name + ": " + text);
+        }
+        return amount;
+    }
+
+    private static String[] parseRow(Row row) {
+        try {
+            String[] fields = parseLine(row.text);
+            if (fields.length != COLUMNS) {
+                throw rejection(row, "Expected " + COLUMNS + " columns, found " + fields.length);
+            }
+            return fields;
+        } catch (MalformedRowException e) {
+            throw rejection(row, e.getMessage());
+        }
+    }
+
+    /**
+     * Gets the username of a row without parsing the rest of it.
+     */
+    private static String usernameOf(String line) {
+        if (line.startsWith("\"")) {
+            try {
+                return parseLine(line)[0];
+            } catch (MalformedRowException e) {
+                return line; // Rejected on its own when its chunk is prepared
+            }
+        }
+        int comma = line.indexOf(',');
+        return (comma < 0 ? line : line.substring(0, comma)).trim();
+    }
+
+    /**
+     * Splits a CSV line into fields. Quoted fields may contain commas and doubled quotes;
+     * unquoted fields are trimmed.
+     */
+    private static String[] parseLine(String line) throws MalformedRowException {
+        List<String> fields = new ArrayList<>(COLUMNS);
+        StringBuilder quoted = null; // Only quoted fields need one
+        int length = line.length();
+        int i = 0;
+        while (true) {
+            if (i < length && line.charAt(i) == '"') {
+                if (quoted == null) {
+                    quoted = new StringBuilder();
+                }
+                quoted.setLength(0);
+                i++;
+                while (true) {
+                    if (i >= length) {
+                        throw new MalformedRowException("Unterminated quoted field");
+                    }
+                    char c = line.charAt(i++);
+                    if (c != '"') {
+                        quoted.append(c);
+                    } else if (i < length && line.charAt(i) == '"') {
+                        quoted.append('"');
+                        i++;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < length && line.charAt(i) != ',') {
+                    throw new MalformedRowException("Unexpected text after a quoted field");
+                }
+                fields.add(quoted.toString());
+            } else {
+                int comma = line.indexOf(',', i);
+                int end = comma < 0 ? length : comma;
+                fields.add(line.substring(i, end).trim());
+                i = end;
+            }
+            if (i >= length) {
+                return fields.toArray(new String[0]);
+            }
+            i++; // Skip the comma
+        }
+    }
+
+    private static IllegalArgumentException rejection(Row row, String reason) {
+        return new IllegalArgumentException("line " + row.number + ": " + reason);
+    }
+
+    /**
+     * One data row of the file.
+     */
+    private static final class Row {
+        private final long number;
+        private final String text;
+        private final String username;
+
+        Row(long number, String text, String username) {
+            this.number = number;
+            this.text = text;
+            this.username = username;
+        }
+    }
+
+    /**
+     * The users built from a chunk of rows, and the rows rejected on the way.
+     */
+    private static final class Chunk {
+        private final List<User> users = new ArrayList<>();
+        private final List<List<Row>> userRows = new ArrayList<>();
+        private final List<List<Row>> rejectedGroups = new ArrayList<>();
+        private final List<String> reasons = new ArrayList<>();
+    }
+
+    /**
+     * Running counts of an import; updated by the reading thread only.
+     */
+    private static final class Totals {
+        private long rowsRead;
+        private long users;
+        private long accounts;
+        private long rowsRejected;
+    }
+
+    private static final class MalformedRowException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        MalformedRowException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Names the worker threads and makes them daemons, so they never keep the JVM alive.
+     */
+    private static final class ImportThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "import-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,362 @@
+package com.bankapp.services;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * LedgerSequencer - Single-writer execution of transaction commands.
+ * Callers publish deposit, withdraw, transfer and batch commands into a pre-allocated ring buffer and
+ * get a {@link CompletableFuture} of the {@link TransactionResult}; one "ledger-sequencer" thread applies them strictly in
+ * sequence order, so accounts are never contended and commands take effect in one global
+ * order. The journal receives their records in that same order; the sequence number itself
+ * is not recorded, so it only identifies a command within this process.
+ *
+ * The sequencer takes every command published so far as one batch (at most
+ * {@link #MAX_BATCH}) and applies it. A second "ledger-completer" thread waits once for the
+ * journal to make everything applied so far durable and then completes those futures, so the
+ * fsync cost is shared by the batch and the sequencer keeps applying the next batch while the
+ * previous one is being synced. Producers claim a slot with one atomic increment and only
+ * wait when the ring is full.
+ */
+public class LedgerSequencer implements TransactionEngine {
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private static final int MAX_BATCH = 4096;
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+    private static final int YIELDS = 100;
+    private static final long CLOSED = Long.MAX_VALUE / 2; // claimed jumps here on close
+
+    private static final int DEPOSIT = 1;
+    private static final int WITHDRAW = 2;
+    private static final int TRANSFER = 3;
+    private static final int BATCH = 4;
+
+    private final TransactionService service;
+    private final Command[] ring;
+    private final AtomicLongArray published; // sequence stored in each slot once it is readable
+    private final int mask;
+    private final AtomicLong claimed = new AtomicLong(); // next sequence to hand out
+    private volatile long applied; // every sequence below this has been applied
+    private volatile long consumed; // every sequence below this has completed; its slot is free
+    private volatile long stopAt = Long.MAX_VALUE; // first sequence not run, set on close
+    private volatile boolean sleeping;
+    private volatile boolean completerSleeping;
+    private volatile Thread thread;
+    private volatile Thread completer;
+
+    /**
+     * Constructor - the sequencer does not run commands until {@link #start()} is called.
+     *
+     * @param service Service whose accounts and durability barrier the commands use
+     * @param capacity Number of ring slots (rounded up to a power of two)
+     */
+    public LedgerSequencer(TransactionService service, int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Capacity must be at least 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.service = service;
+        this.ring = new Command[size];
+        for (int i = 0; i < size; i++) {
+            ring[i] = new Command();
+        }
+        this.published = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            published.set(i, -1);
+        }
+        this.mask = size - 1;
+    }
+
+    /**
+     * Starts the sequencer and completer threads.
+     */
+    @Override
+    public synchronized void start() {
+        if (thread != null || stopAt != Long.MAX_VALUE) {
+            return;
+        }
+        thread = new Thread(this::run, "ledger-sequencer");
+        thread.setDaemon(true);
+        completer = new Thread(this::complete, "ledger-completer");
+        completer.setDaemon(true);
+        thread.start();
+        completer.start();
+    }
+
+    /**
+     * Publishes a deposit.
+     *
+     * @param accountNumber Account number to deposit to
+     * @param amount Amount to deposit, in cents
+     * @param description Transaction description
+     * @return Completed with the outcome once the deposit is applied and durable
+     */
+    @Override
+    public CompletableFuture<TransactionResult> deposit(String accountNumber, long amount, String description) {
+        return publish(DEPOSIT, null, accountNumber, amount, description);
+    }
+
+    /**
+     * Publishes a withdrawal.
+     *
+     * @param accountNumber Account number to withdraw from
+     * @param amount Amount to withdraw, in cents
+     * @param description Transaction description
+     * @return Completed with the outcome once the withdrawal is applied and durable
+     */
+    @Override
+    public CompletableFuture<TransactionResult> withdraw(String accountNumber, long amount, String description) {
+        return publish(WITHDRAW, accountNumber, null, amount, description);
+    }
+
+    /**
+     * Publishes a transfer.
+     *
+     * @param fromAccountNumber Source account number
+     * @param toAccountNumber Destination account number
+     * @param amount Amount to transfer, in cents
+     * @param description Transaction description
+     * @return Completed with the outcome once the transfer is applied and durable
+     */
+    @Override
+    public CompletableFuture<TransactionResult> transfer(String fromAccountNumber, String toAccountNumber, long amount,
+                                                         String description) {
+        return publish(TRANSFER, fromAccountNumber, toAccountNumber, amount, description);
+    }
+
+    /**
+     * Publishes a batch of transfers, applied by the sequencer thread as one command.
+     *
+     * @param transfers Transfers to apply
+     * @return Completed with the outcome once the batch is applied and durable
+     * @throws IllegalArgumentException if the batch touches too many accounts
+     */
+    @Override
+    public CompletableFuture<BatchTransferResult> transferBatch(List<TransferRequest> transfers) {
+        TransferBatch batch = service.prepareBatch(transfers);
+        publish(BATCH, null, null, 0, null, null, batch);
+        return batch.getResult();
+    }
+
+    /**
+     * Gets the number of commands completed so far; command {@code n} has sequence {@code n - 1}.
+     *
+     * @return Completed command count
+     */
+    public long getCompletedCount() {
+        return consumed;
+    }
+
+    /**
+     * Stops accepting commands and waits until the ones already published have completed.
+     * Commands published afterwards fail with an IllegalStateException.
+     */
+    @Override
+    public void close() {
+        Thread current;
+        Thread currentCompleter;
+        synchronized (this) {
+            if (stopAt != Long.MAX_VALUE) {
+                return;
+            }
+            stopAt = claimed.getAndSet(CLOSED);
+            current = thread;
+            currentCompleter = completer;
+        }
+        if (current == null) {
+            return;
+        }
+        LockSupport.unpark(current);
+        LockSupport.unpark(currentCompleter);
+        try {
+            current.join();
+            currentCompleter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private CompletableFuture<TransactionResult> publish(int type, String from, String to, long amount,
+                                                         String description) {
+        CompletableFuture<TransactionResult> result = new CompletableFuture<>();
+        publish(type, from, to, amount, description, result, null);
+        return result;
+    }
+
+    private void publish(int type, String from, String to, long amount, String description,
+                         CompletableFuture<TransactionResult> result, TransferBatch batch) {
+        long sequence = claimed.getAndIncrement();
+        if (sequence >= CLOSED) {
+            IllegalStateException closed = new IllegalStateException("Ledger sequencer is closed");
+            if (batch != null) {
+                batch.getResult().completeExceptionally(closed);
+            } else {
+                result.completeExceptionally(closed);
+            }
+            return;
+        }
+        // Wait for the slot to be freed when the ring is full
+        for (int attempt = 0; sequence - consumed >= ring.length; attempt++) {
+            backOff(attempt);
+        }
+        Command command = ring[(int) sequence & mask];
+        command.type = type;
+        command.from = from;
+        command.to = to;
+        command.amount = amount;
+        command.description = description;
+        command.result = result;
+        command.batch = batch;
+        published.set((int) sequence & mask, sequence);
+        if (sleeping) {
+            sleeping = false;
+            LockSupport.unpark(thread);
+        }
+    }
+
+    private void run() {
+        long next = 0;
+        int idle = 0;
+        while (next < stopAt) {
+            long end = next;
+            while (end - next < MAX_BATCH && published.get((int) end & mask) == end) {
+                end++;
+            }
+            if (end == next) {
+                waitForWork(next, idle);
+                if (idle <= SPINS + YIELDS) {
+                    idle++;
+                }
+                continue;
+            }
+            idle = 0;
+            for (long sequence = next; sequence < end; sequence++) {
+                Command command = ring[(int) sequence & mask];
+                try {
+                    command.outcome = apply(command);
+                } catch (RuntimeException e) {
+                    command.failure = e;
+                }
+            }
+            next = end;
+            applied = end;
+            if (completerSleeping) {
+                completerSleeping = false;
+                LockSupport.unpark(completer);
+            }
+        }
+    }
+
+    /**
+     * Body of the completer thread: waits until everything applied so far is durable, then
+     * completes those commands and frees their slots.
+     */
+    private void complete() {
+        long next = 0;
+        int idle = 0;
+        while (next < stopAt) {
+            long end = applied;
+            if (end == next) {
+                if (idle < SPINS + YIELDS) {
+                    backOff(idle++);
+                } else {
+                    completerSleeping = true;
+                    if (applied == next && next < stopAt) {
+                        LockSupport.park(this);
+                    }
+                    completerSleeping = false;
+                }
+                continue;
+            }
+            idle = 0;
+            boolean durable = service.awaitBatchDurable();
+            for (long sequence = next; sequence < end; sequence++) {
+                Command command = ring[(int) sequence & mask];
+                if (command.batch != null) {
+                    if (command.failure != null) {
+                        command.batch.getResult().completeExceptionally(command.failure);
+                    } else {
+                        command.batch.getResult().complete(command.batch.toResult(durable));
+                    }
+                } else if (command.failure != null) {
+                    command.result.completeExceptionally(command.failure);
+                } else {
+                    command.result.complete(command.outcome.afterDurability(durable));
+                }
+                command.clear();
+            }
+            next = end;
+            consumed = end;
+        }
+    }
+
+    private TransactionResult apply(Command command) {
+        switch (command.type) {
+            case DEPOSIT:
+                return service.applyDeposit(command.to, command.amount, command.description);
+            case WITHDRAW:
+                return service.applyWithdraw(command.from, command.amount, command.description);
+            case TRANSFER:
+                return service.applyTransfer(command.from, command.to, command.amount);
+            case BATCH:
+                service.applyBatch(command.batch);
+                return null; // The batch holds its own results
+            default:
+                throw new IllegalStateException("Unknown command type: " + command.type);
+        }
+    }
+
+    /**
+     * Spins, then yields, then parks until a producer publishes the next sequence.
+     */
+    private void waitForWork(long next, int idle) {
+        if (idle < SPINS) {
+            Thread.onSpinWait();
+        } else if (idle < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            sleeping = true;
+            if (published.get((int) next & mask) != next && next < stopAt) {
+                LockSupport.park(this);
+            }
+            sleeping = false;
+        }
+    }
+
+    private static void backOff(int attempt) {
+        if (attempt < SPINS) {
+            Thread.onSpinWait();
+        } else if (attempt < SPINS + YIELDS) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(10_000);
+        }
+    }
+
+    /**
+     * One ring slot; reused for every command that maps to it.
+     */
+    private static final class Command {
+        private int type;
+        private String from;
+        private String to;
+        private long amount;
+        private String description;
+        private CompletableFuture<TransactionResult> result;
+        private TransferBatch batch;
+        private TransactionResult outcome;
+        private RuntimeException failure;
+
+        void clear() {
+            from = null;
+            to = null;
+            description = null;
+            result = null;
+            batch = null;
+            outcome = null;
+            failure = null;
+        }
+    }
+}
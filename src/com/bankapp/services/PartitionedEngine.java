@@ -0,0 +1,333 @@
+package com.bankapp.services;
+
+import com.bankapp.model.PendingTransfer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * PartitionedEngine - Runs transaction commands on N worker threads, one per account partition.
+ * Accounts are assigned to partitions by the hash of their account number, and every command
+ * that touches an account runs on the worker that owns its partition, so workers never contend
+ * with each other for an account. Each worker drains its mailbox in batches, waits once for the
+ * journal to make the batch durable and then completes the batch's futures.
+ *
+ * A transfer between two partitions is run as messages: the source worker debits the source
+ * account and sends a credit to the destination worker; if the destination can no longer be
+ * credited (e.g. it was closed meanwhile), the destination worker sends a refund back to the
+ * source worker and the transfer is rejected as ACCOUNT_INACTIVE. In between, the amount has left the
+ * source but not yet reached the destination. The transfer is journaled as pending before its
+ * debit, with the IDs its credit and refund will get, so if the process stops in that window
+ * recovery credits the destination (or refunds the source if the destination was closed) and
+ * no money is lost.
+ *
+ * A batch of transfers runs on the worker of its first account, which locks every account of
+ * the batch; workers that own the other accounts wait for those locks while it runs.
+ *
+ * Account locks are still taken (uncontended) because the console, interest and admin code
+ * update accounts directly.
+ */
+public class PartitionedEngine implements TransactionEngine {
+    private static final int MAX_BATCH = 4096;
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 100 : 0;
+    private static final int YIELDS = 100;
+
+    private static final int DEPOSIT = 1;
+    private static final int WITHDRAW = 2;
+    private static final int TRANSFER = 3;
+    private static final int TRANSFER_OUT = 4; // debit on the source partition
+    private static final int TRANSFER_IN = 5; // credit on the destination partition
+    private static final int REFUND = 6; // destination could not be credited
+    private static final int BATCH = 7;
+
+    private final TransactionService service;
+    private final Partition[] partitions;
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder completed = new LongAdder();
+    private volatile boolean closed;
+    private boolean started;
+
+    /**
+     * Constructor - the engine does not run commands until {@link #start()} is called.
+     *
+     * @param service Service whose accounts and durability barrier the commands use
+     * @param partitionCount Number of partitions and worker threads, e.g. the number of cores
+     */
+    public PartitionedEngine(TransactionService service, int partitionCount) {
+        if (partitionCount < 1) {
+            throw new IllegalArgumentException("Partition count must be positive");
+        }
+        this.service = service;
+        this.partitions = new Partition[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            partitions[i] = new Partition();
+        }
+    }
+
+    /**
+     * Starts one worker thread per partition.
+     */
+    @Override
+    public synchronized void start() {
+        if (started || closed) {
+            return;
+        }
+        started = true;
+        for (int i = 0; i < partitions.length; i++) {
+            Thread thread = new Thread(partitions[i], "ledger-partition-" + i);
+            thread.setDaemon(true);
+            partitions[i].thread = thread;
+            thread.start();
+        }
+    }
+
+    @Override
+    public CompletableFuture<TransactionResult> deposit(String accountNumber, long amount, String description) {
+        return submit(new Message(DEPOSIT, null, accountNumber, amount, description), accountNumber);
+    }
+
+    @Override
+    public CompletableFuture<TransactionResult> withdraw(String accountNumber, long amount, String description) {
+        return submit(new Message(WITHDRAW, accountNumber, null, amount, description), accountNumber);
+    }
+
+    @Override
+    public CompletableFuture<TransactionResult> transfer(String fromAccountNumber, String toAccountNumber, long amount,
+                                                         String description) {
+        int type = partitionOf(fromAccountNumber) == partitionOf(toAccountNumber) ? TRANSFER : TRANSFER_OUT;
+        return submit(new Message(type, fromAccountNumber, toAccountNumber, amount, description), fromAccountNumber);
+    }
+
+    /**
+     * Submits a batch of transfers to the partition of its first account. That worker locks
+     * every account of the batch, so the workers owning the others wait for it.
+     */
+    @Override
+    public CompletableFuture<BatchTransferResult> transferBatch(List<TransferRequest> transfers) {
+        TransferBatch batch = service.prepareBatch(transfers);
+        Message message = new Message(BATCH, null, null, 0, null);
+        message.batch = batch;
+        String first = batch.getAccounts().isEmpty() ? null : batch.getAccounts().firstKey();
+        submit(message, first);
+        return batch.getResult();
+    }
+
+    /**
+     * Gets the number of partitions.
+     *
+     * @return Partition count
+     */
+    public int getPartitionCount() {
+        return partitions.length;
+    }
+
+    /**
+     * Stops accepting commands, waits until the ones already submitted (including transfers
+     * still moving between partitions) have completed, then stops the workers.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (started) {
+            while (completed.sum() < submitted.sum()) {
+                LockSupport.parkNanos(1_000_000);
+            }
+        }
+        for (Partition partition : partitions) {
+            partition.stopped = true;
+            LockSupport.unpark(partition.thread);
+        }
+        for (Partition partition : partitions) {
+            if (partition.thread == null) {
+                continue;
+            }
+            try {
+                partition.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private CompletableFuture<TransactionResult> submit(Message message, String accountNumber) {
+        // Counted before the closed check, so close() either sees this command or it is rejected
+        submitted.increment();
+        if (closed) {
+            completed.increment();
+            message.failure = new IllegalStateException("Partitioned engine is closed");
+            message.complete(false);
+            return message.result;
+        }
+        partitions[partitionOf(accountNumber)].send(message);
+        return message.result;
+    }
+
+    private int partitionOf(String accountNumber) {
+        return accountNumber == null ? 0 : Math.floorMod(accountNumber.hashCode(), partitions.length);
+    }
+
+    /**
+     * One pending command, or one step of a transfer between partitions.
+     */
+    private static final class Message {
+        private int type;
+        private final String from;
+        private final String to;
+        private final long amount;
+        private final String description;
+        private final CompletableFuture<TransactionResult> result = new CompletableFuture<>();
+        private PendingTransfer transfer; // set once a cross-partition transfer is debited
+        private TransferBatch batch; // holds its own results
+        private TransactionResult outcome;
+        private RuntimeException failure;
+
+        Message(int type, String from, String to, long amount, String description) {
+            this.type = type;
+            this.from = from;
+            this.to = to;
+            this.amount = amount;
+            this.description = description;
+        }
+
+        void complete(boolean durable) {
+            if (batch != null) {
+                if (failure != null) {
+                    batch.getResult().completeExceptionally(failure);
+                } else {
+                    batch.getResult().complete(batch.toResult(durable));
+                }
+            } else if (failure != null) {
+                result.completeExceptionally(failure);
+            } else {
+                result.complete(outcome.afterDurability(durable));
+            }
+        }
+    }
+
+    /**
+     * A partition's mailbox and the worker that drains it.
+     */
+    private final class Partition implements Runnable {
+        private final ConcurrentLinkedQueue<Message> mailbox = new ConcurrentLinkedQueue<>();
+        private final List<Message> finished = new ArrayList<>();
+        private volatile boolean sleeping;
+        private volatile boolean stopped;
+        private volatile Thread thread;
+
+        void send(Message message) {
+            mailbox.add(message);
+            if (sleeping) {
+                sleeping = false;
+                LockSupport.unpark(thread);
+            }
+        }
+
+        @Override
+        public void run() {
+            int idle = 0;
+            while (!stopped) {
+                Message message = mailbox.poll();
+                if (message == null) {
+                    waitForWork(idle);
+                    if (idle <= SPINS + YIELDS) {
+                        idle++;
+                    }
+                    continue;
+                }
+                idle = 0;
+                int count = 0;
+                do {
+                    handle(message);
+                } while (++count < MAX_BATCH && (message = mailbox.poll()) != null);
+                if (finished.isEmpty()) {
+                    continue;
+                }
+                boolean durable = service.awaitBatchDurable();
+                for (Message done : finished) {
+                    done.complete(durable);
+                }
+                completed.add(finished.size());
+                finished.clear();
+            }
+        }
+
+        private void handle(Message message) {
+            try {
+                switch (message.type) {
+                    case DEPOSIT:
+                        finish(message, service.applyDeposit(message.to, message.amount, message.description));
+                        break;
+                    case WITHDRAW:
+                        finish(message, service.applyWithdraw(message.from, message.amount, message.description));
+                        break;
+                    case TRANSFER:
+                        finish(message, service.applyTransfer(message.from, message.to, message.amount));
+                        break;
+                    case TRANSFER_OUT:
+                        message.transfer = new PendingTransfer(message.from, message.to, message.amount);
+                        message.outcome = service.applyTransferOut(message.transfer);
+                        if (message.outcome.isSuccess()) {
+                            message.type = TRANSFER_IN;
+                            partitions[partitionOf(message.to)].send(message);
+                        } else {
+                            finished.add(message);
+                        }
+                        break;
+                    case TRANSFER_IN:
+                        // Completes with the source's balance after the debit
+                        if (service.applyTransferIn(message.transfer)) {
+                            finished.add(message);
+                        } else {
+                            message.type = REFUND;
+                            partitions[partitionOf(message.from)].send(message);
+                        }
+                        break;
+                    case REFUND:
+                        finish(message, service.refundTransferOut(message.transfer));
+                        break;
+                    case BATCH:
+                        service.applyBatch(message.batch);
+                        finished.add(message);
+                        break;
+                    default:
+                        throw new IllegalStateException("Unknown command type: " + message.type);
+                }
+            } catch (RuntimeException e) {
+                message.failure = e;
+                finished.add(message);
+            }
+        }
+
+        private void finish(Message message, TransactionResult outcome) {
+            message.outcome = outcome;
+            finished.add(message);
+        }
+
+        /**
+         * Spins, then yields, then parks until a command arrives.
+         */
+        private void waitForWork(int idle) {
+            if (idle < SPINS) {
+                Thread.onSpinWait();
+            } else if (idle < SPINS + YIELDS) {
+                Thread.yield();
+            } else {
+                sleeping = true;
+                if (mailbox.isEmpty() && !stopped) {
+                    LockSupport.park(this);
+                }
+                sleeping = false;
+            }
+        }
+    }
+}
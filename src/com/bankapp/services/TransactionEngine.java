@@ -0,0 +1,68 @@
+package com.bankapp.services;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * TransactionEngine - Runs deposit, withdraw, transfer and batch commands on threads of its own.
+ * {@link TransactionService} hands its commands to the engine set with
+ * {@link TransactionService#setEngine(TransactionEngine)} instead of running them on the caller's
+ * thread. Every future completes with the command's {@link TransactionResult} once it is applied
+ * and durable (or rejected), and exceptionally once the engine is closed.
+ */
+public interface TransactionEngine extends AutoCloseable {
+
+    /**
+     * Starts the engine's threads.
+     */
+    void start();
+
+    /**
+     * Submits a deposit.
+     *
+     * @param accountNumber Account number to deposit to
+     * @param amount Amount to deposit, in cents
+     * @param description Transaction description
+     * @return Completed with the outcome of the deposit
+     */
+    CompletableFuture<TransactionResult> deposit(String accountNumber, long amount, String description);
+
+    /**
+     * Submits a withdrawal.
+     *
+     * @param accountNumber Account number to withdraw from
+     * @param amount Amount to withdraw, in cents
+     * @param description Transaction description
+     * @return Completed with the outcome of the withdrawal
+     */
+    CompletableFuture<TransactionResult> withdraw(String accountNumber, long amount, String description);
+
+    /**
+     * Submits a transfer.
+     *
+     * @param fromAccountNumber Source account number
+     * @param toAccountNumber Destination account number
+     * @param amount Amount to transfer, in cents
+     * @param description Transaction description
+     * @return Completed with the outcome of the transfer
+     */
+    CompletableFuture<TransactionResult> transfer(String fromAccountNumber, String toAccountNumber, long amount,
+                                                  String description);
+
+    /**
+     * Submits a batch of transfers, applied entirely or not at all as described in
+     * {@link TransactionService#transferBatch(List)}. The batch's accounts are looked up on the
+     * calling thread.
+     *
+     * @param transfers Transfers to apply
+     * @return Completed with the outcome of the batch
+     * @throws IllegalArgumentException if the batch touches too many accounts
+     */
+    CompletableFuture<BatchTransferResult> transferBatch(List<TransferRequest> transfers);
+
+    /**
+     * Stops accepting commands and waits until the ones already submitted have completed.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,83 @@
+package com.bankapp.services;
+
+import com.bankapp.utils.Money;
+
+/**
+ * TransactionResult - Outcome of a deposit, withdrawal or transfer.
+ * Tells the caller why an operation was rejected instead of only that it was, and carries
+ * the balance of the account the operation was made from (the source of a transfer).
+ */
+public final class TransactionResult {
+
+    /**
+     * Outcome of an operation.
+     */
+    public enum Status {
+        SUCCESS,
+        INVALID_AMOUNT,
+        ACCOUNT_NOT_FOUND,
+        ACCOUNT_INACTIVE,
+        INSUFFICIENT_FUNDS,
+        LIMIT_EXCEEDED,
+        NOT_DURABLE, // applied, but its journal record could not be written to disk
+        BATCH_REJECTED // valid, but not applied because another transfer of its batch was rejected
+    }
+
+    private final Status status;
+    private final String accountNumber;
+    private final long balance;
+
+    private TransactionResult(Status status, String accountNumber, long balance) {
+        this.status = status;
+        this.accountNumber = accountNumber;
+        this.balance = balance;
+    }
+
+    static TransactionResult success(String accountNumber, long balance) {
+        return new TransactionResult(Status.SUCCESS, accountNumber, balance);
+    }
+
+    static TransactionResult rejected(Status status, String accountNumber, long balance) {
+        return new TransactionResult(status, accountNumber, balance);
+    }
+
+    /**
+     * Gets this result as it stands once durability has been waited for.
+     *
+     * @param durable Whether the operation's journal records reached the disk
+     * @return This result, or a NOT_DURABLE result if a successful operation was not made durable
+     */
+    TransactionResult afterDurability(boolean durable) {
+        return durable || status != Status.SUCCESS ? this : new TransactionResult(Status.NOT_DURABLE, accountNumber, balance);
+    }
+
+    public boolean isSuccess() {
+        return status == Status.SUCCESS;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    /**
+     * @return Account the operation was made from (the source of a transfer)
+     */
+    public String getAccountNumber() {
+        return accountNumber;
+    }
+
+    /**
+     * Gets the account balance in cents, read right after the operation; for transfers and
+     * deposits to a hot account, operations that ran concurrently may already be included.
+     *
+     * @return Balance in cents, or 0 if the account was not found or the amount was invalid
+     */
+    public long getBalance() {
+        return balance;
+    }
+
+    @Override
+    public String toString() {
+        return status + " [Acc No=" + accountNumber + ", Balance=" + Money.format(balance) + "]";
+    }
+}
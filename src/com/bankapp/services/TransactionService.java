@@ -1,16 +1,35 @@
 package com.bankapp.services;
 
 import com.bankapp.service.Bank;
+import com.bankapp.service.DurabilityBarrier;
 import com.bankapp.model.Account;
+import com.bankapp.model.PendingTransfer;
 import com.bankapp.model.Transaction;
+import com.bankapp.services.TransactionResult.Status;
+import com.bankapp.utils.IDGenerator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * TransactionService - Handles transaction operations (deposit, withdraw, transfer).
  * Implements the Single Responsibility Principle - focuses on transaction logic.
+ * The blocking methods return whether the operation succeeded; the asynchronous ones return a
+ * {@link TransactionResult} with the reason for a rejection and the resulting balance, so a
+ * front-end can keep many operations in flight.
  */
 public class TransactionService {
+    public static final int MAX_BATCH_ACCOUNTS = 4096; // Every account of a batch is locked at once
     private Bank bank;
+    private DurabilityBarrier durability; // null = do not wait for the journal
+    private volatile TransactionEngine engine; // null = commands run on the caller's thread
+    private volatile Executor asyncExecutor = Executors.newCachedThreadPool(new AsyncThreadFactory());
 
     /**
      * Constructor - initializes with data store.
@@ -22,89 +41,326 @@ public class TransactionService {
         this.bank = bank;
     }
 
+    /**
+     * Makes deposit, withdraw and transfer report success only once their journal records are durable.
+     *
+     * @param durability Barrier provided by the persistence layer, or null to not wait
+     */
+    public void setDurabilityBarrier(DurabilityBarrier durability) {
+        this.durability = durability;
+    }
+
+    /**
+     * Runs every deposit, withdraw and transfer on an engine's threads, e.g. a
+     * {@link LedgerSequencer} or a {@link PartitionedEngine}, instead of on the caller's thread.
+     * The blocking methods below then wait for the engine's result.
+     *
+     * @param engine Started engine, or null to run commands on the caller's thread
+     */
+    public void setEngine(TransactionEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Sets the executor the asynchronous methods run on when no engine is set, e.g.
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}. Each task blocks until its journal
+     * record is durable, so the executor should not be a small fixed pool. The default is a
+     * cached pool of daemon threads.
+     *
+     * @param executor Executor to run asynchronous operations on
+     */
+    public void setAsyncExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor must not be null");
+        }
+        this.asyncExecutor = executor;
+    }
+
     /**
      * Deposits money into an account.
      *
      * @param accountNumber Account number to deposit to
-     * @param amount Amount to deposit
+     * @param amount Amount to deposit, in cents
      * @param description Transaction description
      * @return true if deposit was successful, false otherwise
      */
-    public boolean deposit(String accountNumber, double amount, String description) {
-        if (amount <= 0) {
-            return false;
-        }
-
-        Account account = findAccountByNumber(accountNumber);
-        if (account == null || !account.isActive()) {
-            return false;
-        }
-
-        if (account.deposit(amount, description)) {
-            return true;
+    public boolean deposit(String accountNumber, long amount, String description) {
+        TransactionEngine current = engine;
+        if (current != null) {
+            return current.deposit(accountNumber, amount, description).join().isSuccess();
         }
-        return false;
+        return runDeposit(accountNumber, amount, description).isSuccess();
     }
 
     /**
      * Withdraws money from an account.
      *
      * @param accountNumber Account number to withdraw from
-     * @param amount Amount to withdraw
+     * @param amount Amount to withdraw, in cents
      * @param description Transaction description
      * @return true if withdrawal was successful, false otherwise
      */
-    public boolean withdraw(String accountNumber, double amount, String description) {
-        if (amount <= 0) {
-            return false;
+    public boolean withdraw(String accountNumber, long amount, String description) {
+        TransactionEngine current = engine;
+        if (current != null) {
+            return current.withdraw(accountNumber, amount, description).join().isSuccess();
         }
+        return runWithdraw(accountNumber, amount, description).isSuccess();
+    }
 
-        Account account = findAccountByNumber(accountNumber);
-        if (account == null || !account.isActive()) {
-            return false;
+    /**
+     * Transfers money between two accounts.
+     *
+     * @param fromAccountNumber Source account number
+     * @param toAccountNumber Destination account number
+     * @param amount Amount to transfer, in cents
+     * @param description Transaction description
+     * @return true if transfer was successful, false otherwise
+     */
+    public boolean transfer(String fromAccountNumber, String toAccountNumber, long amount, String description) {
+        TransactionEngine current = engine;
+        if (current != null) {
+            return current.transfer(fromAccountNumber, toAccountNumber, amount, description).join().isSuccess();
         }
+        return runTransfer(fromAccountNumber, toAccountNumber, amount).isSuccess();
+    }
 
-        if (account.withdraw(amount, description)) {
-            return true;
+    /**
+     * Deposits money into an account without blocking the caller.
+     *
+     * @param accountNumber Account number to deposit to
+     * @param amount Amount to deposit, in cents
+     * @param description Transaction description
+     * @return Completed with the outcome once the deposit is applied and durable
+     */
+    public CompletableFuture<TransactionResult> depositAsync(String accountNumber, long amount, String description) {
+        TransactionEngine current = engine;
+        if (current != null) {
+            return current.deposit(accountNumber, amount, description);
         }
-        return false;
+        return CompletableFuture.supplyAsync(() -> runDeposit(accountNumber, amount, description), asyncExecutor);
     }
 
     /**
-     * Transfers money between two accounts.
+     * Withdraws money from an account without blocking the caller.
+     *
+     * @param accountNumber Account number to withdraw from
+     * @param amount Amount to withdraw, in cents
+     * @param description Transaction description
+     * @return Completed with the outcome once the withdrawal is applied and durable
+     */
+    public CompletableFuture<TransactionResult> withdrawAsync(String accountNumber, long amount, String description) {
+        TransactionEngine current = engine;
+        if (current != null) {
+            return current.withdraw(accountNumber, amount, description);
+        }
+        return CompletableFuture.supplyAsync(() -> runWithdraw(accountNumber, amount, description), asyncExecutor);
+    }
+
+    /**
+     * Transfers money between two accounts without blocking the caller.
      *
      * @param fromAccountNumber Source account number
      * @param toAccountNumber Destination account number
-     * @param amount Amount to transfer
+     * @param amount Amount to transfer, in cents
      * @param description Transaction description
-     * @return true if transfer was successful, false otherwise
+     * @return Completed with the outcome once the transfer is applied and durable
      */
-    public boolean transfer(String fromAccountNumber, String toAccountNumber, double amount, String description) {
-        if (amount <= 0) {
-            return false;
+    public CompletableFuture<TransactionResult> transferAsync(String fromAccountNumber, String toAccountNumber,
+                                                              long amount, String description) {
+        TransactionEngine current = engine;
+        if (current != null) {
+            return current.transfer(fromAccountNumber, toAccountNumber, amount, description);
+        }
+        return CompletableFuture.supplyAsync(() -> runTransfer(fromAccountNumber, toAccountNumber, amount), asyncExecutor);
+    }
+
+    /**
+     * Transfers a batch of money in one step, e.g. a payroll run from one funding account.
+     * Every account is looked up once and all of them are locked in account-number order, the
+     * order {@link Account#transferTo(Account, long)} uses. Each source's total debit is then
+     * checked against its balance and {@link Account#canWithdraw(long)}, so either every transfer
+     * is applied or none is. A source is debited once for its total and each destination is
+     * credited once per transfer; every description carries the batch ID. The batch reaches the
+     * journal as one atomic group, so recovery never sees part of it. When an engine is set the
+     * batch runs on the engine's thread, like every other command.
+     *
+     * @param transfers Transfers to apply, touching at most {@link #MAX_BATCH_ACCOUNTS} accounts
+     * @return Outcome of the batch and of each transfer
+     * @throws IllegalArgumentException if the batch touches too many accounts
+     */
+    public BatchTransferResult transferBatch(List<TransferRequest> transfers) {
+        TransactionEngine current = engine;
+        if (current != null) {
+            return current.transferBatch(transfers).join();
+        }
+        TransferBatch batch = prepareBatch(transfers);
+        applyBatch(batch);
+        return batch.toResult(!batch.isApplied() || awaitDurable(false));
+    }
+
+    private TransactionResult runDeposit(String accountNumber, long amount, String description) {
+        boolean hot = isHotAccount(accountNumber);
+        TransactionResult result = applyDeposit(accountNumber, amount, description);
+        return result.afterDurability(!result.isSuccess() || awaitDurable(hot || isHotAccount(accountNumber)));
+    }
+
+    private TransactionResult runWithdraw(String accountNumber, long amount, String description) {
+        TransactionResult result = applyWithdraw(accountNumber, amount, description);
+        return result.afterDurability(!result.isSuccess() || awaitDurable(false));
+    }
+
+    private TransactionResult runTransfer(String fromAccountNumber, String toAccountNumber, long amount) {
+        boolean hot = isHotAccount(toAccountNumber);
+        TransactionResult result = applyTransfer(fromAccountNumber, toAccountNumber, amount);
+        return result.afterDurability(!result.isSuccess() || awaitDurable(hot || isHotAccount(toAccountNumber)));
+    }
+
+    /**
+     * Validates and applies a deposit without waiting for durability.
+     */
+    TransactionResult applyDeposit(String accountNumber, long amount, String description) {
+        Account account = findAccountByNumber(accountNumber);
+        TransactionResult rejected = validate(account, accountNumber, amount);
+        if (rejected != null) {
+            return rejected;
         }
+        if (account.isHotAccount()) {
+            // Credits to a hot account are applied by whichever thread combines them, without this lock
+            account.deposit(amount, description);
+            return TransactionResult.success(accountNumber, account.getBalance());
+        }
+        account.lock();
+        try {
+            account.deposit(amount, description);
+            return TransactionResult.success(accountNumber, account.getBalance());
+        } finally {
+            account.unlock();
+        }
+    }
+
+    /**
+     * Validates and applies a withdrawal without waiting for durability.
+     */
+    TransactionResult applyWithdraw(String accountNumber, long amount, String description) {
+        Account account = findAccountByNumber(accountNumber);
+        TransactionResult rejected = validate(account, accountNumber, amount);
+        if (rejected != null) {
+            return rejected;
+        }
+        account.lock();
+        try {
+            if (account.withdraw(amount, description)) {
+                return TransactionResult.success(accountNumber, account.getBalance());
+            }
+            return rejectedDebit(account);
+        } finally {
+            account.unlock();
+        }
+    }
 
+    /**
+     * Validates and applies a transfer without waiting for durability.
+     */
+    TransactionResult applyTransfer(String fromAccountNumber, String toAccountNumber, long amount) {
         // Validate accounts
         Account fromAccount = findAccountByNumber(fromAccountNumber);
         Account toAccount = findAccountByNumber(toAccountNumber);
+        TransactionResult rejected = validateTransfer(fromAccount, fromAccountNumber, toAccount, amount);
+        if (rejected != null) {
+            return rejected;
+        }
 
-        if (fromAccount == null || toAccount == null ||
-                !fromAccount.isActive() || !toAccount.isActive()) {
-            return false;
+        if (toAccount.isHotAccount()) {
+            return applyHotTransfer(new PendingTransfer(fromAccountNumber, toAccountNumber, amount));
         }
 
-        // Check if transfer is possible
-        if (!fromAccount.canWithdraw(amount) || fromAccount.getBalance() < amount) {
-            return false;
+        // Check and perform the transfer under both account locks, taken in the order transferTo uses.
+        // The debit and credit records are journaled as one group, so recovery never keeps only the debit.
+        Account first = fromAccountNumber.compareTo(toAccountNumber) < 0 ? fromAccount : toAccount;
+        Account second = first == fromAccount ? toAccount : fromAccount;
+        first.lock();
+        try {
+            second.lock();
+            try {
+                boolean transferred;
+                bank.beginAtomicUpdate();
+                try {
+                    transferred = fromAccount.transferTo(toAccount, amount);
+                } finally {
+                    bank.endAtomicUpdate();
+                }
+                if (transferred) {
+                    return TransactionResult.success(fromAccountNumber, fromAccount.getBalance());
+                }
+                if (!toAccount.isActive()) {
+                    return TransactionResult.rejected(Status.ACCOUNT_INACTIVE, fromAccountNumber, fromAccount.getBalance());
+                }
+                return rejectedDebit(fromAccount);
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
         }
+    }
 
-        // Perform transfer
-        if (fromAccount.transfer(amount, toAccountNumber)) {
-            toAccount.receiveTransfer(amount, fromAccountNumber);
+    /**
+     * Transfers into a hot account without taking its lock. The credit is applied by whichever
+     * thread combines the account's queued credits, so it cannot share a journal group with the
+     * debit; the transfer is journaled as pending instead and settled on recovery if needed.
+     */
+    private TransactionResult applyHotTransfer(PendingTransfer transfer) {
+        TransactionResult result = applyTransferOut(transfer);
+        if (!result.isSuccess() || applyTransferIn(transfer)) {
+            return result;
+        }
+        return refundTransferOut(transfer);
+    }
 
-            return true;
+    /**
+     * Debits the source of a transfer whose destination is credited separately, by
+     * {@link #applyTransferIn(PendingTransfer)}. The transfer is journaled before the debit, so
+     * recovery completes it if the process stops before the credit or refund.
+     */
+    TransactionResult applyTransferOut(PendingTransfer transfer) {
+        String fromAccountNumber = transfer.getFromAccountNumber();
+        Account fromAccount = findAccountByNumber(fromAccountNumber);
+        Account toAccount = findAccountByNumber(transfer.getToAccountNumber());
+        TransactionResult rejected = validateTransfer(fromAccount, fromAccountNumber, toAccount, transfer.getAmount());
+        if (rejected != null) {
+            return rejected;
+        }
+        fromAccount.lock();
+        try {
+            if (fromAccount.debitTransfer(transfer)) {
+                return TransactionResult.success(fromAccountNumber, fromAccount.getBalance());
+            }
+            return rejectedDebit(fromAccount);
+        } finally {
+            fromAccount.unlock();
         }
-        return false;
+    }
+
+    /**
+     * Credits the destination of a transfer debited by {@link #applyTransferOut(PendingTransfer)}.
+     *
+     * @return false if the destination can no longer be credited; the debit must then be refunded
+     */
+    boolean applyTransferIn(PendingTransfer transfer) {
+        Account toAccount = findAccountByNumber(transfer.getToAccountNumber());
+        return toAccount != null && toAccount.creditTransfer(transfer);
+    }
+
+    /**
+     * Gives a debit made by {@link #applyTransferOut(PendingTransfer)} back to the source.
+     *
+     * @return The transfer's result: rejected because the destination is inactive
+     */
+    TransactionResult refundTransferOut(PendingTransfer transfer) {
+        Account fromAccount = findAccountByNumber(transfer.getFromAccountNumber());
+        fromAccount.refundTransfer(transfer);
+        return TransactionResult.rejected(Status.ACCOUNT_INACTIVE, transfer.getFromAccountNumber(), fromAccount.getBalance());
     }
 
     /**
@@ -137,14 +393,264 @@ public class TransactionService {
     }
 
     /**
-     * Helper method to find an account across all users in the bank.
+     * Gets the transactions of an account recorded in a time window, oldest first.
+     * Only the transactions in the window are read, even when older history is on disk.
+     *
+     * @param accountNumber Account number to get history for
+     * @param from Start of the window (epoch millis, inclusive)
+     * @param to End of the window (epoch millis, exclusive)
+     * @param limit Maximum number of transactions to return
+     * @return List of transactions in the window
+     */
+    public List<Transaction> getTransactions(String accountNumber, long from, long to, int limit) {
+        Account account = findAccountByNumber(accountNumber);
+        if (account != null) {
+            return account.getTransactions(from, to, limit);
+        }
+        return List.of();
+    }
+
+    /**
+     * Waits until the journal records of a batch of commands applied by an engine are on disk.
+     * Every record appended so far is waited for, since credits to a hot account may have been
+     * appended by another thread.
+     *
+     * @return false if the records could not be made durable
+     */
+    boolean awaitBatchDurable() {
+        return awaitDurable(true);
+    }
+
+    /**
+     * Waits until the journal records of the calling thread's last mutation are on disk.
+     *
+     * @param hot Whether a hot account was credited; its record may have been appended by
+     *            another thread, so every record appended so far is waited for
+     */
+    private boolean awaitDurable(boolean hot) {
+        if (durability == null || (hot ? durability.awaitAllDurable() : durability.awaitDurable())) {
+            return true;
+        }
+        System.out.println("Error: Transaction was applied but could not be written to disk.");
+        return false;
+    }
+
+    /**
+     * Looks up the accounts of a batch of transfers, on the submitting thread.
+     *
+     * @throws IllegalArgumentException if the batch touches more than {@link #MAX_BATCH_ACCOUNTS} accounts
+     */
+    TransferBatch prepareBatch(List<TransferRequest> transfers) {
+        TreeMap<String, Account> accounts = new TreeMap<>();
+        for (TransferRequest transfer : transfers) {
+            resolve(accounts, transfer.getFromAccountNumber());
+            resolve(accounts, transfer.getToAccountNumber());
+        }
+        if (accounts.size() > MAX_BATCH_ACCOUNTS) {
+            throw new IllegalArgumentException("A batch may touch at most " + MAX_BATCH_ACCOUNTS + " accounts");
+        }
+        return new TransferBatch(IDGenerator.generateBatchId(), transfers, accounts);
+    }
+
+    /**
+     * Applies a batch of transfers without waiting for durability. The accounts are locked one
+     * after another in account-number order, and their journal records are grouped so they
+     * reach the disk together, before any lock is released.
+     */
+    void applyBatch(TransferBatch batch) {
+        Account[] locks = batch.getAccounts().values().toArray(new Account[0]);
+        int locked = 0;
+        try {
+            for (Account account : locks) {
+                account.lock();
+                locked++;
+            }
+            bank.beginAtomicUpdate();
+            try {
+                batch.setStatus(applyTransfers(batch.getBatchId(), batch.getTransfers(), batch.getAccounts(),
+                        batch.getResults()));
+            } finally {
+                bank.endAtomicUpdate();
+            }
+        } finally {
+            while (locked > 0) {
+                locks[--locked].unlock();
+            }
+        }
+    }
+
+    /**
+     * Validates and applies a batch of transfers. Must be called holding the lock of every
+     * account of the batch.
+     *
+     * @return SUCCESS, or the reason of the first rejected transfer if nothing was applied
+     */
+    private static Status applyTransfers(String batchId, List<TransferRequest> transfers, Map<String, Account> accounts,
+                                     TransactionResult[] results) {
+        Status status = Status.SUCCESS;
+        Map<Account, BatchDebit> debits = new LinkedHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            TransferRequest transfer = transfers.get(i);
+            Account fromAccount = lookup(accounts, transfer.getFromAccountNumber());
+            Account toAccount = lookup(accounts, transfer.getToAccountNumber());
+            TransactionResult rejected = validateTransfer(fromAccount, transfer.getFromAccountNumber(), toAccount,
+                    transfer.getAmount());
+            if (rejected != null) {
+                results[i] = rejected;
+                status = status == Status.SUCCESS ? rejected.getStatus() : status;
+                continue;
+            }
+            debits.computeIfAbsent(fromAccount, account -> new BatchDebit()).add(transfer);
+        }
+        for (Map.Entry<Account, BatchDebit> entry : debits.entrySet()) {
+            Account fromAccount = entry.getKey();
+            long total = entry.getValue().total;
+            if (!fromAccount.canWithdraw(total) || fromAccount.getBalance() < total) {
+                entry.getValue().rejected = rejectedDebit(fromAccount);
+                status = status == Status.SUCCESS ? entry.getValue().rejected.getStatus() : status;
+            }
+        }
+        if (status != Status.SUCCESS) {
+            for (int i = 0; i < results.length; i++) {
+                if (results[i] != null) {
+                    continue;
+                }
+                Account fromAccount = accounts.get(transfers.get(i).getFromAccountNumber());
+                TransactionResult rejected = debits.get(fromAccount).rejected;
+                results[i] = rejected != null ? rejected : TransactionResult.rejected(Status.BATCH_REJECTED,
+                        fromAccount.getAccountNumber(), fromAccount.getBalance());
+            }
+            return status;
+        }
+
+        String tag = " [" + batchId + "]";
+        for (Map.Entry<Account, BatchDebit> entry : debits.entrySet()) {
+            BatchDebit debit = entry.getValue();
+            if (debit.count == 1) {
+                entry.getKey().transfer(debit.total, debit.toAccountNumber, "Transfer to " + debit.toAccountNumber + tag);
+            } else {
+                entry.getKey().transfer(debit.total, null, "Batch transfer to " + debit.count + " accounts" + tag);
+            }
+        }
+        for (TransferRequest transfer : transfers) {
+            String description = transfer.getDescription();
+            if (description == null || description.isBlank()) {
+                description = "Transfer from " + transfer.getFromAccountNumber();
+            }
+            accounts.get(transfer.getToAccountNumber()).receiveTransfer(transfer.getAmount(),
+                    transfer.getFromAccountNumber(), description + tag);
+        }
+        for (int i = 0; i < results.length; i++) {
+            Account fromAccount = accounts.get(transfers.get(i).getFromAccountNumber());
+            results[i] = TransactionResult.success(fromAccount.getAccountNumber(), fromAccount.getBalance());
+        }
+        return Status.SUCCESS;
+    }
+
+    private void resolve(Map<String, Account> accounts, String accountNumber) {
+        if (accountNumber != null && !accounts.containsKey(accountNumber)) {
+            Account account = findAccountByNumber(accountNumber);
+            if (account != null) {
+                accounts.put(accountNumber, account);
+            }
+        }
+    }
+
+    private static Account lookup(Map<String, Account> accounts, String accountNumber) {
+        return accountNumber == null ? null : accounts.get(accountNumber);
+    }
+
+    /**
+     * Checks the amount and the account an operation is made from.
+     *
+     * @return The rejection, or null if the operation may go ahead
+     */
+    private static TransactionResult validate(Account account, String accountNumber, long amount) {
+        if (amount <= 0) {
+            return TransactionResult.rejected(Status.INVALID_AMOUNT, accountNumber, 0);
+        }
+        if (account == null) {
+            return TransactionResult.rejected(Status.ACCOUNT_NOT_FOUND, accountNumber, 0);
+        }
+        if (!account.isActive()) {
+            return TransactionResult.rejected(Status.ACCOUNT_INACTIVE, accountNumber, account.getBalance());
+        }
+        return null;
+    }
+
+    private static TransactionResult validateTransfer(Account fromAccount, String fromAccountNumber,
+                                                      Account toAccount, long amount) {
+        TransactionResult rejected = validate(fromAccount, fromAccountNumber, amount);
+        if (rejected != null) {
+            return rejected;
+        }
+        long balance = fromAccount.getBalance();
+        if (toAccount == null || toAccount == fromAccount) { // A transfer needs a second account
+            return TransactionResult.rejected(Status.ACCOUNT_NOT_FOUND, fromAccountNumber, balance);
+        }
+        if (!toAccount.isActive()) {
+            return TransactionResult.rejected(Status.ACCOUNT_INACTIVE, fromAccountNumber, balance);
+        }
+        return null;
+    }
+
+    /**
+     * Tells why a debit was refused. Must be called holding the account's lock, right after the refusal.
+     */
+    private static TransactionResult rejectedDebit(Account account) {
+        Status status;
+        if (!account.isActive()) {
+            status = Status.ACCOUNT_INACTIVE;
+        } else if (account.isWithdrawalLimitReached()) {
+            status = Status.LIMIT_EXCEEDED;
+        } else {
+            status = Status.INSUFFICIENT_FUNDS;
+        }
+        return TransactionResult.rejected(status, account.getAccountNumber(), account.getBalance());
+    }
+
+    /**
+     * Helper method to find an account through the account repository.
      * @param accountNumber The account number to find.
      * @return The Account object if found, otherwise null.
      */
     private Account findAccountByNumber(String accountNumber) {
-        return bank.getAllAccounts().stream()
-                .filter(acc -> acc.getAccountNumber().equals(accountNumber))
-                .findFirst()
-                .orElse(null);
+        return bank.getAccountRepository().findByAccountNumber(accountNumber);
+    }
+
+    private boolean isHotAccount(String accountNumber) {
+        Account account = findAccountByNumber(accountNumber);
+        return account != null && account.isHotAccount();
+    }
+
+    /**
+     * The total a batch debits from one source account.
+     */
+    private static final class BatchDebit {
+        private long total;
+        private int count;
+        private String toAccountNumber; // Destination of the last transfer added
+        private TransactionResult rejected;
+
+        void add(TransferRequest transfer) {
+            // Saturates instead of overflowing, so an absurd total is refused as insufficient funds
+            total = total > Long.MAX_VALUE - transfer.getAmount() ? Long.MAX_VALUE : total + transfer.getAmount();
+            count++;
+            toAccountNumber = transfer.getToAccountNumber();
+        }
+    }
+
+    /**
+     * Names the default asynchronous threads and makes them daemons, so they never keep the JVM alive.
+     */
+    private static final class AsyncThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable task) {
+            Thread thread = new Thread(task, "transaction-async-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
 }
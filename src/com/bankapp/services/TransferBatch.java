@@ -0,0 +1,79 @@
+package com.bankapp.services;
+
+import com.bankapp.model.Account;
+import com.bankapp.services.TransactionResult.Status;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * TransferBatch - A batch of transfers whose accounts have been looked up on the submitting
+ * thread, waiting to be applied by {@link TransactionService#applyBatch(TransferBatch)} on the
+ * caller's thread or on an engine's thread.
+ */
+final class TransferBatch {
+    private final String batchId;
+    private final List<TransferRequest> transfers;
+    private final TreeMap<String, Account> accounts; // in locking order
+    private final TransactionResult[] results;
+    private final CompletableFuture<BatchTransferResult> result = new CompletableFuture<>();
+    private Status status;
+
+    TransferBatch(String batchId, List<TransferRequest> transfers, TreeMap<String, Account> accounts) {
+        this.batchId = batchId;
+        this.transfers = transfers;
+        this.accounts = accounts;
+        this.results = new TransactionResult[transfers.size()];
+    }
+
+    String getBatchId() {
+        return batchId;
+    }
+
+    List<TransferRequest> getTransfers() {
+        return transfers;
+    }
+
+    TreeMap<String, Account> getAccounts() {
+        return accounts;
+    }
+
+    TransactionResult[] getResults() {
+        return results;
+    }
+
+    void setStatus(Status status) {
+        this.status = status;
+    }
+
+    /**
+     * @return true if the batch changed balances, so its outcome depends on durability
+     */
+    boolean isApplied() {
+        return status == Status.SUCCESS && results.length > 0;
+    }
+
+    /**
+     * Builds the outcome of the applied batch.
+     *
+     * @param durable Whether the batch's journal record is on disk
+     */
+    BatchTransferResult toResult(boolean durable) {
+        if (isApplied() && !durable) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = results[i].afterDurability(false);
+            }
+            return new BatchTransferResult(batchId, Status.NOT_DURABLE, Arrays.asList(results));
+        }
+        return new BatchTransferResult(batchId, status, Arrays.asList(results));
+    }
+
+    /**
+     * Gets the future an engine completes once the batch is applied and durable.
+     */
+    CompletableFuture<BatchTransferResult> getResult() {
+        return result;
+    }
+}
@@ -0,0 +1,41 @@
+package com.bankapp.services;
+
+/**
+ * TransferRequest - One transfer of a batch submitted to
+ * {@link TransactionService#transferBatch(java.util.List)}.
+ */
+public final class TransferRequest {
+    private final String fromAccountNumber;
+    private final String toAccountNumber;
+    private final long amount;
+    private final String description;
+
+    /**
+     * @param fromAccountNumber Source account number
+     * @param toAccountNumber Destination account number
+     * @param amount Amount to transfer, in cents
+     * @param description Description recorded on the destination, or null for the default
+     */
+    public TransferRequest(String fromAccountNumber, String toAccountNumber, long amount, String description) {
+        this.fromAccountNumber = fromAccountNumber;
+        this.toAccountNumber = toAccountNumber;
+        this.amount = amount;
+        this.description = description;
+    }
+
+    public String getFromAccountNumber() {
+        return fromAccountNumber;
+    }
+
+    public String getToAccountNumber() {
+        return toAccountNumber;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
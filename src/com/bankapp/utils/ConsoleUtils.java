@@ -1,13 +1,21 @@
 package com.bankapp.utils;
 
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
 import java.util.Scanner;
 
 /**
  * ConsoleUtils - Utility class for console input/output operations.
  * Provides helper methods for displaying messages and reading user input.
+ * By default they use System.in and System.out. A thread serving a remote session binds its
+ * own streams with {@link #bindSession(InputStream, PrintStream)}, so many sessions can run
+ * the same controllers at once, each on its own thread.
  */
 public class ConsoleUtils {
     private static final Scanner scanner = new Scanner(System.in);
+    private static final ThreadLocal<Session> session = new ThreadLocal<>();
     private static final String SEPARATOR = "=".repeat(60);
     private static final String DASH_SEPARATOR = "-".repeat(60);
 
@@ -17,9 +25,9 @@ public class ConsoleUtils {
      * @param message Message to display as header
      */
     public static void printHeader(String message) {
-        System.out.println("\n" + SEPARATOR);
-        System.out.println("  " + message);
-        System.out.println(SEPARATOR);
+        out().println("\n" + SEPARATOR);
+        out().println("  " + message);
+        out().println(SEPARATOR);
     }
 
     /**
@@ -28,9 +36,9 @@ public class ConsoleUtils {
      * @param message Message to display as subheader
      */
     public static void printSubHeader(String message) {
-        System.out.println("\n" + DASH_SEPARATOR);
-        System.out.println("  " + message);
-        System.out.println(DASH_SEPARATOR);
+        out().println("\n" + DASH_SEPARATOR);
+        out().println("  " + message);
+        out().println(DASH_SEPARATOR);
     }
 
     /**
@@ -39,7 +47,7 @@ public class ConsoleUtils {
      * @param message Success message
      */
     public static void printSuccess(String message) {
-        System.out.println("✓ " + message);
+        out().println("✓ " + message);
     }
 
     /**
@@ -48,7 +56,7 @@ public class ConsoleUtils {
      * @param message Error message
      */
     public static void printError(String message) {
-        System.out.println("✗ Error: " + message);
+        out().println("✗ Error: " + message);
     }
 
     /**
@@ -57,7 +65,7 @@ public class ConsoleUtils {
      * @param message Info message
      */
     public static void printInfo(String message) {
-        System.out.println("ℹ " + message);
+        out().println("ℹ " + message);
     }
 
     /**
@@ -66,7 +74,7 @@ public class ConsoleUtils {
      * @param message Warning message
      */
     public static void printWarning(String message) {
-        System.out.println("⚠ " + message);
+        out().println("⚠ " + message);
     }
 
     /**
@@ -76,8 +84,8 @@ public class ConsoleUtils {
      * @return User input
      */
     public static String readString(String prompt) {
-        System.out.print(prompt);
-        return scanner.nextLine().trim();
+        out().print(prompt);
+        return in().nextLine().trim();
     }
 
     /**
@@ -88,14 +96,30 @@ public class ConsoleUtils {
      */
     public static double readDouble(String prompt) {
         try {
-            System.out.print(prompt);
-            String input = scanner.nextLine().trim();
+            out().print(prompt);
+            String input = in().nextLine().trim();
             return Double.parseDouble(input);
         } catch (NumberFormatException e) {
             return -1;
         }
     }
 
+    /**
+     * Reads a dollar amount from the user, e.g. "12.50".
+     *
+     * @param prompt Prompt to display
+     * @return Amount in cents, or -1 if invalid (not a number, negative or more than 2 decimal places)
+     */
+    public static long readAmount(String prompt) {
+        try {
+            out().print(prompt);
+            long amount = Money.parse(in().nextLine().trim());
+            return amount >= 0 ? amount : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
     /**
      * Reads an integer input from the user with validation.
      *
@@ -104,8 +128,8 @@ public class ConsoleUtils {
      */
     public static int readInt(String prompt) {
         try {
-            System.out.print(prompt);
-            String input = scanner.nextLine().trim();
+            out().print(prompt);
+            String input = in().nextLine().trim();
             return Integer.parseInt(input);
         } catch (NumberFormatException e) {
             return -1;
@@ -119,8 +143,8 @@ public class ConsoleUtils {
      * @return Password input
      */
     public static String readPassword(String prompt) {
-        System.out.print(prompt);
-        return scanner.nextLine().trim();
+        out().print(prompt);
+        return in().nextLine().trim();
     }
 
     /**
@@ -131,7 +155,7 @@ public class ConsoleUtils {
      */
     public static int readMenuChoice(String... options) {
         for (int i = 0; i < options.length; i++) {
-            System.out.println((i + 1) + ". " + options[i]);
+            out().println((i + 1) + ". " + options[i]);
         }
         int choice = readInt("Enter your choice: ");
         return (choice >= 1 && choice <= options.length) ? choice - 1 : -1;
@@ -141,8 +165,8 @@ public class ConsoleUtils {
      * Pauses execution and waits for user to press Enter.
      */
     public static void pause() {
-        System.out.print("\nPress Enter to continue...");
-        scanner.nextLine();
+        out().print("\nPress Enter to continue...");
+        in().nextLine();
     }
 
     /**
@@ -150,16 +174,16 @@ public class ConsoleUtils {
      */
     public static void clearScreen() {
         try {
-            if (System.getProperty("os.name").contains("Windows")) {
+            if (session.get() == null && System.getProperty("os.name").contains("Windows")) {
                 new ProcessBuilder("cmd", "/c", "cls").inheritIO().start().waitFor();
             } else {
-                System.out.print("\033[H\033[2J");
-                System.out.flush();
+                out().print("\033[H\033[2J");
+                out().flush();
             }
         } catch (Exception e) {
             // If clear fails, just print new lines
             for (int i = 0; i < 50; i++) {
-                System.out.println();
+                out().println();
             }
         }
     }
@@ -167,11 +191,11 @@ public class ConsoleUtils {
     /**
      * Prints a formatted amount with currency symbol.
      *
-     * @param amount Amount to format
+     * @param amount Amount to format, in cents
      * @return Formatted amount string
      */
-    public static String formatAmount(double amount) {
-        return String.format("$%.2f", amount);
+    public static String formatAmount(long amount) {
+        return Money.format(amount);
     }
 
     /**
@@ -180,4 +204,248 @@ public class ConsoleUtils {
     public static void closeScanner() {
         scanner.close();
     }
+
+    /**
+     * Makes the calling thread read and print through a session's streams instead of the console.
+     *
+     * @param in Input of the session, e.g. a socket's input stream
+     * @param out Output of the session; it is flushed before every read
+     */
+    public static void bindSession(InputStream in, PrintStream out) {
+        session.set(new Session(new Scanner(in, StandardCharsets.UTF_8), out));
+    }
+
+    /**
+     * Returns the calling thread to the console after {@link #bindSession(InputStream, PrintStream)}.
+     */
+    public static void unbindSession() {
+        Session current = session.get();
+        if (current != null) {
+            current.out.flush();
+            session.remove();
+        }
+    }
+
+    /**
+     * Routes System.out to the session bound to the printing thread, so messages printed
+     * directly by controllers and model classes reach the right session. Threads without
+     * a session keep printing to the console. Only needs to be called once.
+     */
+    public static synchronized void routeSystemOut() {
+        if (!(System.out instanceof SessionPrintStream)) {
+            System.setOut(new SessionPrintStream(System.out));
+        }
+    }
+
+    /**
+     * Gets the output of the calling thread: its session's, or the console's.
+     */
+    private static PrintStream out() {
+        Session current = session.get();
+        return current != null ? current.out : System.out;
+    }
+
+    /**
+     * Gets the input of the calling thread, flushing pending output first so prompts are shown.
+     */
+    private static Scanner in() {
+        Session current = session.get();
+        if (current == null) {
+            return scanner;
+        }
+        current.out.flush();
+        return current.in;
+    }
+
+    /**
+     * Streams of a session bound to a thread.
+     */
+    private static final class Session {
+        private final Scanner in;
+        private final PrintStream out;
+
+        Session(Scanner in, PrintStream out) {
+            this.in = in;
+            this.out = out;
+        }
+    }
+
+    /**
+     * System.out replacement that forwards every call to the printing thread's session, or to the
+     * console. Calls are forwarded before PrintStream takes its own lock, so a slow session never
+     * holds up the others.
+     */
+    private static final class SessionPrintStream extends PrintStream {
+        private final PrintStream console;
+
+        SessionPrintStream(PrintStream console) {
+            super(console, true);
+            this.console = console;
+        }
+
+        private PrintStream target() {
+            Session current = session.get();
+            return current != null ? current.out : console;
+        }
+
+        @Override
+        public void flush() {
+            target().flush();
+        }
+
+        @Override
+        public void close() {
+            target().close();
+        }
+
+        @Override
+        public boolean checkError() {
+            return target().checkError();
+        }
+
+        @Override
+        public void write(int b) {
+            target().write(b);
+        }
+
+        @Override
+        public void write(byte[] buf, int off, int len) {
+            target().write(buf, off, len);
+        }
+
+        @Override
+        public void writeBytes(byte[] buf) {
+            target().writeBytes(buf);
+        }
+
+        @Override
+        public void print(boolean b) {
+            target().print(b);
+        }
+
+        @Override
+        public void print(char c) {
+            target().print(c);
+        }
+
+        @Override
+        public void print(int i) {
+            target().print(i);
+        }
+
+        @Override
+        public void print(long l) {
+            target().print(l);
+        }
+
+        @Override
+        public void print(float f) {
+            target().print(f);
+        }
+
+        @Override
+        public void print(double d) {
+            target().print(d);
+        }
+
+        @Override
+        public void print(char[] s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(String s) {
+            target().print(s);
+        }
+
+        @Override
+        public void print(Object obj) {
+            target().print(obj);
+        }
+
+        @Override
+        public void println() {
+            target().println();
+        }
+
+        @Override
+        public void println(boolean x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(int x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(long x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(float x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(double x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(char[] x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(String x) {
+            target().println(x);
+        }
+
+        @Override
+        public void println(Object x) {
+            target().println(x);
+        }
+
+        @Override
+        public PrintStream printf(String format, Object... args) {
+            return target().printf(format, args);
+        }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) {
+            return target().printf(l, format, args);
+        }
+
+        @Override
+        public PrintStream format(String format, Object... args) {
+            return target().format(format, args);
+        }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) {
+            return target().format(l, format, args);
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq) {
+            return target().append(csq);
+        }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) {
+            return target().append(csq, start, end);
+        }
+
+        @Override
+        public PrintStream append(char c) {
+            return target().append(c);
+        }
+    }
 }
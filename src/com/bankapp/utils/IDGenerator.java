@@ -1,6 +1,7 @@
 package com.bankapp.utils;
 
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * IDGenerator - Utility class for generating unique identifiers.
@@ -9,6 +10,9 @@ import java.util.Random;
 public class IDGenerator {
     private static final Random random = new Random();
     private static final String CHARACTERS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final AtomicLong lastAccountStamp = new AtomicLong();
+    // Starts at the clock in nanoseconds, so numbers handed out by an earlier run stay below it
+    private static final AtomicLong lastTransactionNumber = new AtomicLong(System.currentTimeMillis() * 1_000_000);
 
     /**
      * Generates a unique user ID.
@@ -22,22 +26,77 @@ public class IDGenerator {
 
     /**
      * Generates a unique account number.
-     * Format: ACC_XXXXXXXX (e.g., ACC_12ABC345)
+     * Format: ACCNNNNNNNNNNNNN (e.g., ACC1760000000000), from the current time in milliseconds.
+     * Calls within the same millisecond (e.g. from concurrent sessions) get the following
+     * milliseconds, so no two calls in a run return the same number. A number restored from an
+     * earlier run can still be repeated if the clock was set back, so callers must check the
+     * account repository before using it.
      *
      * @return Generated account number
      */
     public static String generateAccountNumber() {
-        return "ACC" + System.currentTimeMillis() % 1000000;
+        long now = System.currentTimeMillis();
+        long stamp = lastAccountStamp.updateAndGet(last -> Math.max(last + 1, now));
+        return "ACC" + stamp;
     }
 
     /**
      * Generates a unique transaction ID.
-     * Format: TXN_XXXXXXXXXXXX
+     * Format: TXN-NNNNNNNNNNNNNNNNNNN, from a counter that never repeats within a run
      *
      * @return Generated transaction ID
      */
     public static String generateTransactionId() {
-        return "TXN_" + System.nanoTime();
+        return generateTransactionId("TXN");
+    }
+
+    /**
+     * Generates a unique transaction ID with the given prefix, e.g. "INT" for interest.
+     * Shares its counter with {@link #generateTransactionId()}.
+     *
+     * @param prefix Prefix of the ID
+     * @return Generated transaction ID, e.g. INT-NNNNNNNNNNNNNNNNNNN
+     */
+    public static String generateTransactionId(String prefix) {
+        return prefix + "-" + lastTransactionNumber.incrementAndGet();
+    }
+
+    /**
+     * Raises the transaction counter above the number of an ID recovered from disk, so a new
+     * ID never repeats one written by an earlier run (e.g. after the clock was set back).
+     * IDs that do not end in a number are ignored.
+     *
+     * @param transactionId A recovered transaction ID
+     */
+    public static void observeTransactionId(String transactionId) {
+        long number = 0;
+        int start = transactionId.length();
+        while (start > 0 && Character.isDigit(transactionId.charAt(start - 1))) {
+            start--;
+        }
+        if (start == transactionId.length()) {
+            return;
+        }
+        for (int i = start; i < transactionId.length(); i++) {
+            int digit = transactionId.charAt(i) - '0';
+            if (number > (Long.MAX_VALUE - digit) / 10) {
+                return; // Not one of ours
+            }
+            number = number * 10 + digit;
+        }
+        if (number > lastTransactionNumber.get()) {
+            lastTransactionNumber.accumulateAndGet(number, Math::max);
+        }
+    }
+
+    /**
+     * Generates a unique batch ID for a batch of transfers.
+     * Format: BATCH_NNNNNNNNNNNNNNNNNNN
+     *
+     * @return Generated batch ID
+     */
+    public static String generateBatchId() {
+        return "BATCH_" + lastTransactionNumber.incrementAndGet();
     }
 
     /**
@@ -0,0 +1,107 @@
+package com.bankapp.utils;
+
+import java.util.Arrays;
+
+/**
+ * IdHashIndex - Compact hash index from string IDs to packed {@code long} locations.
+ * Only the 64-bit hash of each ID is stored (open addressing over two primitive arrays),
+ * so the index costs a few bytes per entry instead of a map entry plus the ID string.
+ * Different IDs can share a hash: {@link #get(long)} returns every candidate location
+ * and the caller checks which record really carries the ID.
+ * Thread-safe; locations must be non-zero.
+ */
+public class IdHashIndex {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private long[] values = new long[INITIAL_CAPACITY]; // 0 = empty slot
+    private int size;
+
+    /**
+     * Computes the 64-bit hash of an ID (FNV-1a over its characters, then mixed).
+     *
+     * @param id The ID
+     * @return Hash of the ID
+     */
+    public static long hash(String id) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            h ^= id.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * Adds a location for an ID hash.
+     *
+     * @param hash Hash of the ID, from {@link #hash(String)}
+     * @param location Non-zero location of the record
+     */
+    public synchronized void put(long hash, long location) {
+        if (location == 0) {
+            throw new IllegalArgumentException("Location must be non-zero");
+        }
+        if ((size + 1) * 4L > keys.length * 3L) {
+            resize(keys.length * 2);
+        }
+        insert(hash, location);
+        size++;
+    }
+
+    /**
+     * Gets every location stored for an ID hash.
+     *
+     * @param hash Hash of the ID
+     * @return Candidate locations (usually zero or one)
+     */
+    public synchronized long[] get(long hash) {
+        long[] found = new long[0];
+        int mask = keys.length - 1;
+        for (int slot = (int) hash & mask; values[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == hash) {
+                found = Arrays.copyOf(found, found.length + 1);
+                found[found.length - 1] = values[slot];
+            }
+        }
+        return found;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Removes every entry.
+     */
+    public synchronized void clear() {
+        keys = new long[INITIAL_CAPACITY];
+        values = new long[INITIAL_CAPACITY];
+        size = 0;
+    }
+
+    private void insert(long hash, long location) {
+        int mask = keys.length - 1;
+        int slot = (int) hash & mask;
+        while (values[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = hash;
+        values[slot] = location;
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[capacity];
+        values = new long[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldValues[i] != 0) {
+                insert(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -5,6 +5,7 @@ package com.bankapp.utils;
  * Provides methods to validate user inputs for security and correctness.
  */
 public class InputValidator {
+    private static final long MAX_AMOUNT = 999_999_999_99L; // cents
 
     /**
      * Validates a username.
@@ -20,7 +21,13 @@ public class InputValidator {
         if (username.length() < 4 || username.length() > 20) {
             return false;
         }
-        return username.matches("^[a-zA-Z0-9_]+$");
+        for (int i = 0; i < username.length(); i++) {
+            char c = username.charAt(i);
+            if (!isAsciiLetterOrDigit(c) && c != '_') {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -39,7 +46,8 @@ public class InputValidator {
 
     /**
      * Validates an email address.
-     * Basic email validation using regex.
+     * Basic email validation: a local part of letters, digits and + _ . -, an @, and a domain
+     * of letters, digits, dots and hyphens.
      *
      * @param email Email to validate
      * @return true if valid, false otherwise
@@ -48,7 +56,19 @@ public class InputValidator {
         if (email == null || email.isEmpty()) {
             return false;
         }
-        return email.matches("^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$");
+        int at = email.indexOf('@');
+        if (at <= 0 || at == email.length() - 1) {
+            return false;
+        }
+        for (int i = 0; i < email.length(); i++) {
+            char c = email.charAt(i);
+            boolean allowed = isAsciiLetterOrDigit(c) || c == '.' || c == '-'
+                    || (i < at && (c == '+' || c == '_'));
+            if (i != at && !allowed) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
@@ -65,31 +85,38 @@ public class InputValidator {
         if (fullName.length() < 2 || fullName.length() > 50) {
             return false;
         }
-        return fullName.matches("^[a-zA-Z\\s]+$");
+        for (int i = 0; i < fullName.length(); i++) {
+            char c = fullName.charAt(i);
+            if (!isAsciiLetter(c) && " \t\n\u000B\f\r".indexOf(c) < 0) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Validates a monetary amount.
-     * Requirements: Positive number, max 2 decimal places.
+     * Requirements: Positive number, at most $999,999,999.99.
      *
-     * @param amount Amount to validate
+     * @param amount Amount to validate, in cents
      * @return true if valid, false otherwise
      */
-    public static boolean isValidAmount(double amount) {
-        return amount > 0 && amount <= 999999999.99;
+    public static boolean isValidAmount(long amount) {
+        return amount > 0 && amount <= MAX_AMOUNT;
     }
 
     /**
-     * Validates an amount string and converts to double.
+     * Validates an amount string and converts it to cents.
+     * Requirements: max 2 decimal places.
      *
      * @param amountStr Amount string to validate
-     * @return Amount as double, or -1 if invalid
+     * @return Amount in cents, or -1 if invalid
      */
-    public static double parseAmount(String amountStr) {
+    public static long parseAmount(String amountStr) {
         try {
-            double amount = Double.parseDouble(amountStr);
+            long amount = Money.parse(amountStr);
             return isValidAmount(amount) ? amount : -1;
-        } catch (NumberFormatException e) {
+        } catch (NumberFormatException | NullPointerException e) {
             return -1;
         }
     }
@@ -108,7 +135,20 @@ public class InputValidator {
         if (accountNumber.length() < 8 || accountNumber.length() > 16) {
             return false;
         }
-        return accountNumber.matches("^[a-zA-Z0-9]+$");
+        for (int i = 0; i < accountNumber.length(); i++) {
+            if (!isAsciiLetterOrDigit(accountNumber.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9');
     }
 
     /**
@@ -0,0 +1,134 @@
+package com.bankapp.utils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Money - Helpers for amounts held as a {@code long} number of cents.
+ * Balances and transaction amounts are kept in cents so that adding and subtracting them
+ * is exact. Converting from dollars rounds to the nearest cent (half away from zero);
+ * interest is the only calculation that produces fractions of a cent, and it is rounded
+ * as described in {@link #interest(long, double, int)}.
+ */
+public class Money {
+    public static final long CENTS_PER_DOLLAR = 100;
+    private static final double MAX_DOLLARS = Long.MAX_VALUE / CENTS_PER_DOLLAR;
+
+    /**
+     * Converts a dollar amount to cents, rounding to the nearest cent.
+     * Used for values stored as {@code double} by older versions.
+     *
+     * @param dollars Amount in dollars
+     * @return Amount in cents
+     * @throws IllegalArgumentException if the amount is not a finite number or is too large
+     */
+    public static long ofDollars(double dollars) {
+        if (Double.isNaN(dollars) || Double.isInfinite(dollars) || Math.abs(dollars) >= MAX_DOLLARS) {
+            throw new IllegalArgumentException("Invalid amount: " + dollars);
+        }
+        return Math.round(Math.abs(dollars) * CENTS_PER_DOLLAR) * (dollars < 0 ? -1 : 1);
+    }
+
+    /**
+     * Parses the common form of an amount, digits with up to two decimals such as "100.25",
+     * without creating a BigDecimal.
+     *
+     * @return Amount in cents, or -1 if the text has another form (sign, exponent, more
+     *         decimals, too many digits), which {@link #parse(String)} then handles
+     */
+    private static long parsePlain(String text) {
+        int length = text.length();
+        int point = text.indexOf('.');
+        int integerDigits = point < 0 ? length : point;
+        int decimals = point < 0 ? 0 : length - point - 1;
+        if (integerDigits == 0 || integerDigits > 15 || decimals > 2) {
+            return -1;
+        }
+        long cents = 0;
+        for (int i = 0; i < length; i++) {
+            if (i == point) {
+                continue;
+            }
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            cents = cents * 10 + (c - '0');
+        }
+        for (int i = decimals; i < 2; i++) {
+            cents *= 10;
+        }
+        return cents;
+    }
+
+    /**
+     * Converts cents to dollars, e.g. for rates and reports that need a fraction.
+     *
+     * @param cents Amount in cents
+     * @return Amount in dollars
+     */
+    public static double toDollars(long cents) {
+        return cents / (double) CENTS_PER_DOLLAR;
+    }
+
+    /**
+     * Parses a decimal dollar amount such as "12", "12.5" or "12.50" exactly.
+     *
+     * @param text Amount text
+     * @return Amount in cents
+     * @throws NumberFormatException if the text is not a number, has more than two decimals or is too large
+     */
+    public static long parse(String text) {
+        String trimmed = text.trim();
+        long cents = parsePlain(trimmed);
+        if (cents >= 0) {
+            return cents;
+        }
+        BigDecimal value = new BigDecimal(trimmed);
+        if (value.stripTrailingZeros().scale() > 2) {
+            throw new NumberFormatException("More than two decimals: " + text);
+        }
+        try {
+            return value.movePointRight(2).longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Amount out of range: " + text);
+        }
+    }
+
+    /**
+     * Formats cents as dollars with two decimals, e.g. "$1234.50" or "$-5.00".
+     *
+     * @param cents Amount in cents
+     * @return Formatted amount
+     */
+    public static String format(long cents) {
+        StringBuilder sb = new StringBuilder(24).append('$');
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(cents);
+        long fraction = abs % CENTS_PER_DOLLAR;
+        sb.append(abs / CENTS_PER_DOLLAR).append('.');
+        if (fraction < 10) {
+            sb.append('0');
+        }
+        return sb.append(fraction).toString();
+    }
+
+    /**
+     * Computes the interest on a balance for one period: {@code balance * annualRate / periodsPerYear},
+     * rounded to the nearest cent with ties going to the even cent (banker's rounding), so
+     * rounding does not drift the total in either direction over many periods.
+     *
+     * @param cents Balance in cents
+     * @param annualRate Annual rate as a decimal, e.g. 0.03 for 3%
+     * @param periodsPerYear Number of periods per year, e.g. 12 for monthly interest
+     * @return Interest in cents
+     */
+    public static long interest(long cents, double annualRate, int periodsPerYear) {
+        return BigDecimal.valueOf(cents)
+                .multiply(BigDecimal.valueOf(annualRate))
+                .divide(BigDecimal.valueOf(periodsPerYear), 0, RoundingMode.HALF_EVEN)
+                .longValueExact();
+    }
+}
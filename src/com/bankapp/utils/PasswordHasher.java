@@ -10,6 +10,14 @@ import java.util.Base64;
  * Note: In production, use bcrypt or Argon2 instead.
  */
 public class PasswordHasher {
+    // Looking up the algorithm costs more than hashing a short password, so each thread keeps one
+    private static final ThreadLocal<MessageDigest> DIGEST = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 algorithm not available", e);
+        }
+    });
 
     /**
      * Hashes a password using SHA-256 algorithm.
@@ -18,13 +26,8 @@ public class PasswordHasher {
      * @return Hashed password (Base64 encoded)
      */
     public static String hashPassword(String password) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hashedBytes = digest.digest(password.getBytes());
-            return Base64.getEncoder().encodeToString(hashedBytes);
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException("SHA-256 algorithm not available", e);
-        }
+        byte[] hashedBytes = DIGEST.get().digest(password.getBytes());
+        return Base64.getEncoder().encodeToString(hashedBytes);
     }
 
     /**